@@ -0,0 +1,37 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks, reporting throughput, latency percentiles,
+ * and allocations per operation, through the GC profiler.
+ * Accepts the usual JMH options, for instance, to run only
+ * the reader with documents of 1 KB and 1 MB, saving the results:
+ * <pre>
+ *     ReaderBenchmark -p size=KB_1,MB_1 -rf json -rff baseline.json
+ * </pre>
+ * @author baltasarq
+ */
+public final class BenchmarkMain {
+    private BenchmarkMain()
+    {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException
+    {
+        final Options options = new OptionsBuilder()
+                                    .parent( new CommandLineOptions( args ) )
+                                    .addProfiler( GCProfiler.class )
+                                    .build();
+
+        new Runner( options ).run();
+    }
+}
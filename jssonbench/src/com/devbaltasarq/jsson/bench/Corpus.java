@@ -0,0 +1,227 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Generates the documents used in the benchmarks.
+ * Documents are generated from a fixed seed, so they are the same
+ * in every run, and there is no need to keep them in the repository.
+ * They can be written to files with main(), to be used by other tools.
+ * @author baltasarq
+ */
+public final class Corpus {
+    private static final long SEED = 20180503L;
+    private static final int MAX_STRING_LENGTH = 4096;
+    private static final int NESTING_DEPTH = 64;
+    private static final String[] FIRST_NAMES = {
+        "John", "Jane", "Mar\u00eda", "Baltasar", "Ana", "Luis", "Zo\u00eb", "Peter"
+    };
+    private static final String[] CITIES = {
+        "New York", "Ourense", "Vigo", "M\u00fcnchen", "Tokyo", "S\u00e3o Paulo"
+    };
+    private static final String WORDS = "lorem ipsum dolor sit amet consectetur adipiscing elit sed do "
+                                        + "eiusmod tempor incididunt ut labore et dolore magna aliqua ";
+
+    /** The size classes of the documents. */
+    public enum Size {
+        KB_1( 1 << 10 ),
+        MB_1( 1 << 20 ),
+        MB_100( 100 << 20 );
+
+        Size(int length)
+        {
+            this.length = length;
+        }
+
+        /** @return the approximate length of the documents, in chars. */
+        public int getLength()
+        {
+            return this.length;
+        }
+
+        private final int length;
+    }
+
+    /** The shapes of the documents. All of them are top-level arrays. */
+    public enum Shape {
+        /** Objects with many members of all types: heavy on names. */
+        RECORDS,
+        /** Arrays of integer and real numbers. */
+        NUMBERS,
+        /** Long strings, with some escaped and non-ASCII chars. */
+        STRINGS,
+        /** Arrays and objects nested deeply. */
+        NESTED
+    }
+
+    private Corpus()
+    {
+    }
+
+    /** Generates a document.
+     * @param shape the shape of the document.
+     * @param size the size class of the document.
+     * @return the document, as text.
+     */
+    public static String generate(Shape shape, Size size)
+    {
+        final Random random = new Random( SEED );
+        final StringBuilder toret = new StringBuilder( size.getLength() + MAX_STRING_LENGTH * 2 );
+
+        toret.append( '[' );
+
+        while( toret.length() < size.getLength() ) {
+            if ( toret.length() > 1 ) {
+                toret.append( ',' );
+            }
+
+            switch ( shape ) {
+                case RECORDS:
+                    appendRecord( toret, random );
+                    break;
+                case NUMBERS:
+                    appendNumbers( toret, random );
+                    break;
+                case STRINGS:
+                    appendString( toret, random, Math.min( MAX_STRING_LENGTH, size.getLength() / 4 ) );
+                    break;
+                case NESTED:
+                    appendNested( toret, random, NESTING_DEPTH );
+                    break;
+                default:
+                    throw new IllegalArgumentException( "unknown shape: " + shape );
+            }
+        }
+
+        toret.append( ']' );
+        return toret.toString();
+    }
+
+    /** Appends an object with members of all types. */
+    private static void appendRecord(StringBuilder doc, Random random)
+    {
+        doc.append( "{\"id\":" ).append( random.nextInt( 1000000 ) )
+           .append( ",\"firstName\":" );
+        appendQuoted( doc, FIRST_NAMES[ random.nextInt( FIRST_NAMES.length ) ] );
+        doc.append( ",\"age\":" ).append( 18 + random.nextInt( 80 ) )
+           .append( ",\"height\":" ).append( 1.5 + random.nextInt( 50 ) / 100.0 )
+           .append( ",\"balance\":" ).append( ( random.nextLong() % 10000000L ) / 100.0 )
+           .append( ",\"alive\":" ).append( random.nextBoolean() )
+           .append( ",\"spouse\":null" )
+           .append( ",\"address\":{\"city\":" );
+        appendQuoted( doc, CITIES[ random.nextInt( CITIES.length ) ] );
+        doc.append( ",\"postalCode\":\"" ).append( 10000 + random.nextInt( 90000 ) )
+           .append( "\"},\"tags\":[\"a\",\"b\",\"c\"]}" );
+        return;
+    }
+
+    /** Appends an array of integer and real numbers. */
+    private static void appendNumbers(StringBuilder doc, Random random)
+    {
+        doc.append( '[' );
+
+        for(int i = 0; i < 64; ++i) {
+            if ( i > 0 ) {
+                doc.append( ',' );
+            }
+
+            if ( i % 2 == 0 ) {
+                doc.append( random.nextInt() );
+            } else {
+                doc.append( random.nextDouble() * 1e6 );
+            }
+        }
+
+        doc.append( ']' );
+        return;
+    }
+
+    /** Appends a string of text, of up to the given length. */
+    private static void appendString(StringBuilder doc, Random random, int maxLength)
+    {
+        final StringBuilder text = new StringBuilder( maxLength );
+        final int length = ( maxLength / 2 ) + random.nextInt( maxLength / 2 + 1 );
+
+        while( text.length() < length ) {
+            final int start = random.nextInt( WORDS.length() / 2 );
+
+            text.append( WORDS, start, start + random.nextInt( WORDS.length() / 2 ) );
+
+            if ( random.nextInt( 8 ) == 0 ) {
+                text.append( "\"\u00f1\"\n" );
+            }
+        }
+
+        appendQuoted( doc, text );
+        return;
+    }
+
+    /** Appends objects and arrays nested to the given depth. */
+    private static void appendNested(StringBuilder doc, Random random, int depth)
+    {
+        for(int i = 0; i < depth; ++i) {
+            doc.append( i % 2 == 0 ? "[" : "{\"level\":" );
+        }
+
+        doc.append( random.nextInt( 100 ) );
+
+        for(int i = depth - 1; i >= 0; --i) {
+            doc.append( i % 2 == 0 ? "]" : "}" );
+        }
+
+        return;
+    }
+
+    /** Appends a string between quotes, escaping it as needed. */
+    private static void appendQuoted(StringBuilder doc, CharSequence text)
+    {
+        doc.append( '"' );
+
+        for(int i = 0; i < text.length(); ++i) {
+            final char ch = text.charAt( i );
+
+            if ( ch == '"' ) {
+                doc.append( "\\\"" );
+            }
+            else
+            if ( ch == '\n' ) {
+                doc.append( "\\n" );
+            } else {
+                doc.append( ch );
+            }
+        }
+
+        doc.append( '"' );
+        return;
+    }
+
+    /** Writes all documents to files, named as shape-size.json, in UTF-8.
+     * @param args the directory to write to; by default, corpus.
+     * @throws IOException if writing goes wrong.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        final Path dir = Paths.get( args.length > 0 ? args[ 0 ] : "corpus" );
+
+        Files.createDirectories( dir );
+
+        for(Shape shape: Shape.values()) {
+            for(Size size: Size.values()) {
+                final Path path = dir.resolve( shape.name().toLowerCase() + "-"
+                                                + size.name().toLowerCase() + ".json" );
+
+                Files.write( path, generate( shape, size ).getBytes( StandardCharsets.UTF_8 ) );
+                System.out.println( path );
+            }
+        }
+
+        return;
+    }
+}
@@ -0,0 +1,331 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson.bench;
+
+import com.devbaltasarq.jsson.FieldSet;
+import com.devbaltasarq.jsson.JsonMapper;
+import com.devbaltasarq.jsson.JsonReader;
+import com.devbaltasarq.jsson.JsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares JsonMapper with a naive mapper, which looks up
+ * and accesses fields with reflection for each value.
+ * Both are also compared with hand-written code, which gives the cost
+ * of just reading and writing; the rest is the cost of mapping.
+ * @author baltasarq
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( { Mode.Throughput, Mode.SampleTime } )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1 )
+public class MapperBenchmark {
+    static class Point {
+        int x;
+        int y;
+    }
+
+    static class Item {
+        long id;
+        String name;
+        double price;
+        int quantity;
+        boolean available;
+        String category;
+        Point location;
+    }
+
+    /** Reads and writes items by hand, as well as it can be done. */
+    static final class HandWritten {
+        static final FieldSet ITEM = FieldSet.of( "id", "name", "price", "quantity", "available", "category", "location" );
+        static final FieldSet POINT = FieldSet.of( "x", "y" );
+
+        Item read(JsonReader reader) throws IOException
+        {
+            final Item toret = new Item();
+
+            reader.beginObject();
+            while( reader.hasNext() ) {
+                switch( reader.nextName( ITEM ) ) {
+                    case 0: toret.id = reader.nextLong(); break;
+                    case 1: toret.name = reader.nextString(); break;
+                    case 2: toret.price = reader.nextDouble(); break;
+                    case 3: toret.quantity = reader.nextInt(); break;
+                    case 4: toret.available = reader.nextBoolean(); break;
+                    case 5: toret.category = reader.nextString(); break;
+                    case 6: {
+                        toret.location = new Point();
+                        reader.beginObject();
+                        while( reader.hasNext() ) {
+                            switch( reader.nextName( POINT ) ) {
+                                case 0: toret.location.x = reader.nextInt(); break;
+                                case 1: toret.location.y = reader.nextInt(); break;
+                                default: reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                        break;
+                    }
+                    default: reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            return toret;
+        }
+
+        void write(JsonWriter writer, Item item) throws IOException
+        {
+            writer.beginObject()
+                    .name( "id" ).value( item.id )
+                    .name( "name" ).value( item.name )
+                    .name( "price" ).value( item.price )
+                    .name( "quantity" ).value( item.quantity )
+                    .name( "available" ).value( item.available )
+                    .name( "category" ).value( item.category )
+                    .name( "location" ).beginObject()
+                        .name( "x" ).value( item.location.x )
+                        .name( "y" ).value( item.location.y )
+                    .endObject()
+                  .endObject();
+        }
+    }
+
+    /** Reads and writes objects with plain reflection, every time. */
+    static final class NaiveMapper {
+        Object read(JsonReader reader, Class<?> type) throws Exception
+        {
+            final Object toret = type.getDeclaredConstructor().newInstance();
+
+            reader.beginObject();
+            while( reader.hasNext() ) {
+                final Field field = type.getDeclaredField( reader.nextName() );
+                final Class<?> fieldType = field.getType();
+
+                field.setAccessible( true );
+
+                if ( fieldType == int.class ) {
+                    field.set( toret, reader.nextInt() );
+                }
+                else
+                if ( fieldType == long.class ) {
+                    field.set( toret, reader.nextLong() );
+                }
+                else
+                if ( fieldType == double.class ) {
+                    field.set( toret, reader.nextDouble() );
+                }
+                else
+                if ( fieldType == boolean.class ) {
+                    field.set( toret, reader.nextBoolean() );
+                }
+                else
+                if ( fieldType == String.class ) {
+                    field.set( toret, reader.nextString() );
+                } else {
+                    field.set( toret, this.read( reader, fieldType ) );
+                }
+            }
+            reader.endObject();
+
+            return toret;
+        }
+
+        void write(JsonWriter writer, Object value) throws Exception
+        {
+            writer.beginObject();
+            for(Field field: value.getClass().getDeclaredFields()) {
+                if ( !Modifier.isStatic( field.getModifiers() )
+                  && !field.isSynthetic() )
+                {
+                    final Object fieldValue;
+
+                    field.setAccessible( true );
+                    fieldValue = field.get( value );
+                    writer.name( field.getName() );
+
+                    if ( fieldValue instanceof Integer ) {
+                        writer.value( (int) (Integer) fieldValue );
+                    }
+                    else
+                    if ( fieldValue instanceof Long ) {
+                        writer.value( (long) (Long) fieldValue );
+                    }
+                    else
+                    if ( fieldValue instanceof Double ) {
+                        writer.value( (double) (Double) fieldValue );
+                    }
+                    else
+                    if ( fieldValue instanceof Boolean ) {
+                        writer.value( (Boolean) fieldValue );
+                    }
+                    else
+                    if ( fieldValue instanceof String ) {
+                        writer.value( (String) fieldValue );
+                    } else {
+                        this.write( writer, fieldValue );
+                    }
+                }
+            }
+            writer.endObject();
+        }
+    }
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        this.corpus = createCorpus( this.records );
+        this.items = this.readHandWritten();
+    }
+
+    /** Reads all items by hand. */
+    @Benchmark
+    public Item[] readHandWritten() throws IOException
+    {
+        final JsonReader reader = new JsonReader( new StringReader( this.corpus ) );
+        final Item[] toret = new Item[ this.records ];
+
+        reader.beginArray();
+        for(int i = 0; i < toret.length; ++i) {
+            toret[ i ] = HAND_WRITTEN.read( reader );
+        }
+        reader.endArray();
+
+        return toret;
+    }
+
+    /** Reads all items with JsonMapper. */
+    @Benchmark
+    public Item[] readMapper() throws IOException
+    {
+        final JsonReader reader = new JsonReader( new StringReader( this.corpus ) );
+        final Item[] toret = new Item[ this.records ];
+
+        reader.beginArray();
+        for(int i = 0; i < toret.length; ++i) {
+            toret[ i ] = MAPPER.read( reader, Item.class );
+        }
+        reader.endArray();
+
+        return toret;
+    }
+
+    /** Reads all items with the naive mapper. */
+    @Benchmark
+    public Item[] readNaive() throws Exception
+    {
+        final JsonReader reader = new JsonReader( new StringReader( this.corpus ) );
+        final Item[] toret = new Item[ this.records ];
+
+        reader.beginArray();
+        for(int i = 0; i < toret.length; ++i) {
+            toret[ i ] = (Item) NAIVE.read( reader, Item.class );
+        }
+        reader.endArray();
+
+        return toret;
+    }
+
+    /** Writes all items by hand. */
+    @Benchmark
+    public int writeHandWritten() throws IOException
+    {
+        final StringWriter output = new StringWriter();
+        final JsonWriter writer = new JsonWriter( output );
+
+        writer.beginArray();
+        for(Item item: this.items) {
+            HAND_WRITTEN.write( writer, item );
+        }
+        writer.endArray();
+        writer.close();
+
+        return output.getBuffer().length();
+    }
+
+    /** Writes all items with JsonMapper. */
+    @Benchmark
+    public int writeMapper() throws IOException
+    {
+        final StringWriter output = new StringWriter();
+        final JsonWriter writer = new JsonWriter( output );
+
+        writer.beginArray();
+        for(Item item: this.items) {
+            MAPPER.write( writer, item );
+        }
+        writer.endArray();
+        writer.close();
+
+        return output.getBuffer().length();
+    }
+
+    /** Writes all items with the naive mapper. */
+    @Benchmark
+    public int writeNaive() throws Exception
+    {
+        final StringWriter output = new StringWriter();
+        final JsonWriter writer = new JsonWriter( output );
+
+        writer.beginArray();
+        for(Item item: this.items) {
+            NAIVE.write( writer, item );
+        }
+        writer.endArray();
+        writer.close();
+
+        return output.getBuffer().length();
+    }
+
+    private static String createCorpus(int numRecords)
+    {
+        final StringBuilder toret = new StringBuilder( "[" );
+
+        for(int i = 0; i < numRecords; ++i) {
+            if ( i > 0 ) {
+                toret.append( ',' );
+            }
+
+            toret.append( "{\"id\":" ).append( 1000000L + i )
+                 .append( ",\"name\":\"item" ).append( i )
+                 .append( "\",\"price\":" ).append( i * 0.25 )
+                 .append( ",\"quantity\":" ).append( i % 100 )
+                 .append( ",\"available\":" ).append( i % 2 == 0 )
+                 .append( ",\"category\":\"tools\"" )
+                 .append( ",\"location\":{\"x\":" ).append( i % 7 ).append( ",\"y\":" ).append( i % 11 )
+                 .append( "}}" );
+        }
+
+        return toret.append( ']' ).toString();
+    }
+
+    private static final JsonMapper MAPPER = new JsonMapper();
+    private static final NaiveMapper NAIVE = new NaiveMapper();
+    private static final HandWritten HAND_WRITTEN = new HandWritten();
+
+    @Param( { "100", "20000" } )
+    public int records;
+
+    private String corpus;
+    private Item[] items;
+}
@@ -0,0 +1,121 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson.bench;
+
+import com.devbaltasarq.jsson.AbstractJsonReader;
+import com.devbaltasarq.jsson.JsonReader;
+import com.devbaltasarq.jsson.Utf8JsonReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads each shape and size of document from the corpus,
+ * token by token, with both the char and the UTF-8 readers.
+ * @author baltasarq
+ * @see Corpus
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( { Mode.Throughput, Mode.SampleTime } )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" } )
+public class ReaderBenchmark {
+    @Setup( Level.Trial )
+    public void setUp()
+    {
+        this.text = Corpus.generate( this.shape, this.size );
+        this.bytes = this.text.getBytes( StandardCharsets.UTF_8 );
+    }
+
+    /** Reads all tokens from chars. */
+    @Benchmark
+    public void pullChars(Blackhole blackhole) throws IOException
+    {
+        readValue( new JsonReader( new StringReader( this.text ) ), blackhole );
+    }
+
+    /** Reads all tokens from UTF-8 bytes. */
+    @Benchmark
+    public void pullUtf8(Blackhole blackhole) throws IOException
+    {
+        readValue( new Utf8JsonReader( this.bytes ), blackhole );
+    }
+
+    /** Skips the whole document, as done with unknown members. */
+    @Benchmark
+    public int skipUtf8() throws IOException
+    {
+        final AbstractJsonReader reader = new Utf8JsonReader( this.bytes );
+
+        reader.skipValue();
+        return reader.getDepth();
+    }
+
+    /** Reads a value, whatever its type, and all values inside it. */
+    static void readValue(AbstractJsonReader reader, Blackhole blackhole) throws IOException
+    {
+        switch ( reader.nextTokenType() ) {
+            case OPEN_OBJECT:
+                reader.beginObject();
+
+                while( reader.hasNext() ) {
+                    blackhole.consume( reader.nextNameView() );
+                    readValue( reader, blackhole );
+                }
+
+                reader.endObject();
+                break;
+            case OPEN_ARRAY:
+                reader.beginArray();
+
+                while( reader.hasNext() ) {
+                    readValue( reader, blackhole );
+                }
+
+                reader.endArray();
+                break;
+            case STRING:
+                blackhole.consume( reader.nextStringView() );
+                break;
+            case NUMBER:
+                blackhole.consume( reader.nextDouble() );
+                break;
+            case BOOLEAN:
+                blackhole.consume( reader.nextBoolean() );
+                break;
+            case NULL:
+                reader.nextNull();
+                break;
+            default:
+                throw new IOException( "unexpected token: " + reader.nextTokenType() );
+        }
+
+        return;
+    }
+
+    @Param( { "KB_1", "MB_1", "MB_100" } )
+    public Corpus.Size size;
+
+    @Param( { "RECORDS", "NUMBERS", "STRINGS", "NESTED" } )
+    public Corpus.Shape shape;
+
+    private String text;
+    private byte[] bytes;
+}
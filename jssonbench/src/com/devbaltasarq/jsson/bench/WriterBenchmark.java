@@ -0,0 +1,231 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson.bench;
+
+import com.devbaltasarq.jsson.AbstractJsonWriter;
+import com.devbaltasarq.jsson.JsonWriter;
+import com.devbaltasarq.jsson.Utf8JsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes documents of each size class: many small objects,
+ * a large array of numbers, and many strings.
+ * The output is discarded, so only the writer is measured.
+ * @author baltasarq
+ */
+@State( Scope.Thread )
+@BenchmarkMode( { Mode.Throughput, Mode.SampleTime } )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" } )
+public class WriterBenchmark {
+    /** The approximate length of each kind of element written, in chars. */
+    private static final int OBJECT_LENGTH = 100;
+    private static final int NUMBER_LENGTH = 12;
+    private static final int STRING_LENGTH = 64;
+
+    /** An output discarding all chars, only counting them. */
+    private static final class NullWriter extends Writer {
+        @Override
+        public void write(char[] chars, int offset, int length)
+        {
+            this.count += length;
+            return;
+        }
+
+        @Override
+        public void flush()
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
+
+        long count;
+    }
+
+    /** An output discarding all bytes, only counting them. */
+    private static final class NullStream extends OutputStream {
+        @Override
+        public void write(int b)
+        {
+            ++this.count;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length)
+        {
+            this.count += length;
+            return;
+        }
+
+        long count;
+    }
+
+    @Setup( Level.Trial )
+    public void setUp()
+    {
+        final Random random = new Random( 20180503L );
+        final int objects = Math.max( 1, this.size.getLength() / OBJECT_LENGTH );
+        final int numbers = Math.max( 1, this.size.getLength() / NUMBER_LENGTH );
+        final int strings = Math.max( 1, this.size.getLength() / STRING_LENGTH );
+
+        this.ids = new long[ objects ];
+        this.ages = new int[ objects ];
+        this.heights = new double[ objects ];
+        this.names = new String[ objects ];
+
+        for(int i = 0; i < objects; ++i) {
+            this.ids[ i ] = random.nextLong();
+            this.ages[ i ] = random.nextInt( 100 );
+            this.heights[ i ] = 1.5 + random.nextInt( 50 ) / 100.0;
+            this.names[ i ] = "name" + random.nextInt( 1000 );
+        }
+
+        this.numbers = new double[ numbers ];
+        for(int i = 0; i < numbers; ++i) {
+            this.numbers[ i ] = random.nextDouble() * 1e6;
+        }
+
+        this.strings = new String[ strings ];
+        for(int i = 0; i < strings; ++i) {
+            final StringBuilder text = new StringBuilder( STRING_LENGTH );
+
+            while( text.length() < STRING_LENGTH - 4 ) {
+                text.append( "word" ).append( random.nextInt( 100 ) ).append( ' ' );
+            }
+
+            if ( i % 8 == 0 ) {
+                text.append( "\"\n" );
+            }
+
+            this.strings[ i ] = text.toString();
+        }
+
+        this.output = new NullWriter();
+        this.writer = new JsonWriter( this.output );
+        this.stream = new NullStream();
+        this.utf8Writer = new Utf8JsonWriter( this.stream );
+    }
+
+    /** Writes many small objects, in an array. */
+    @Benchmark
+    public long smallObjects() throws IOException
+    {
+        final JsonWriter writer = this.start();
+
+        this.writeObjects( writer );
+        return this.finish();
+    }
+
+    /** Writes many small objects, in an array, as UTF-8 bytes. */
+    @Benchmark
+    public long smallObjectsUtf8() throws IOException
+    {
+        this.stream.count = 0;
+        this.utf8Writer.reset( this.stream );
+        this.writeObjects( this.utf8Writer );
+        this.utf8Writer.flush();
+        return this.stream.count;
+    }
+
+    /** Writes a large array of real numbers, one by one. */
+    @Benchmark
+    public long largeArray() throws IOException
+    {
+        final JsonWriter writer = this.start();
+
+        writer.beginArray();
+
+        for(double number: this.numbers) {
+            writer.value( number );
+        }
+
+        writer.endArray();
+        return this.finish();
+    }
+
+    /** Writes many strings, some of them with chars to escape. */
+    @Benchmark
+    public long manyStrings() throws IOException
+    {
+        final JsonWriter writer = this.start();
+
+        writer.beginArray();
+
+        for(String text: this.strings) {
+            writer.value( text );
+        }
+
+        writer.endArray();
+        return this.finish();
+    }
+
+    /** Writes the small objects, in an array. */
+    private void writeObjects(AbstractJsonWriter writer) throws IOException
+    {
+        writer.beginArray();
+
+        for(int i = 0; i < this.ids.length; ++i) {
+            writer.beginObject()
+                    .name( "id" ).value( this.ids[ i ] )
+                    .name( "name" ).value( this.names[ i ] )
+                    .name( "age" ).value( this.ages[ i ] )
+                    .name( "height" ).value( this.heights[ i ] )
+                    .name( "alive" ).value( true )
+                  .endObject();
+        }
+
+        writer.endArray();
+        return;
+    }
+
+    /** @return the writer, ready for a new document. */
+    private JsonWriter start()
+    {
+        this.output.count = 0;
+        this.writer.reset( this.output );
+        return this.writer;
+    }
+
+    /** @return the length of the document written. */
+    private long finish() throws IOException
+    {
+        this.writer.flush();
+        return this.output.count;
+    }
+
+    @Param( { "KB_1", "MB_1", "MB_100" } )
+    public Corpus.Size size;
+
+    private long[] ids;
+    private int[] ages;
+    private double[] heights;
+    private String[] names;
+    private double[] numbers;
+    private String[] strings;
+    private NullWriter output;
+    private JsonWriter writer;
+    private NullStream stream;
+    private Utf8JsonWriter utf8Writer;
+}
@@ -0,0 +1,220 @@
+import com.devbaltasarq.jsson.IndexedJsonReader;
+import com.devbaltasarq.jsson.JsonLimits;
+import com.devbaltasarq.jsson.StructuralIndex;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class IndexedJsonReaderTest {
+    private static final String COMPLEX_OBJECT = "{\n" +
+            "  \"firstName\": \"John\",\n" +
+            "  \"age\": 25,\n" +
+            "  \"address\": {\n" +
+            "    \"streetAddress\": \"21 2nd \\\"Street\\\\\",\n" +
+            "    \"city\": \"New York {[\"\n" +
+            "  },\n" +
+            "  \"phoneNumber\": [\n" +
+            "    { \"type\": \"home\", \"number\": \"212 555-1234\" },\n" +
+            "    { \"type\": \"fax\", \"number\": \"646 555-4567\" }\n" +
+            "  ],\n" +
+            "  \"tags\": [true, false, null, -1.5e3],\n" +
+            "  \"gender\": \"male\"\n" +
+            "}";
+
+    @Test
+    public void testSkippingWithIndex()
+    {
+        final byte[] bytes = COMPLEX_OBJECT.getBytes( StandardCharsets.UTF_8 );
+        String firstName = "";
+        String gender = "";
+        int age = -1;
+
+        try {
+            final IndexedJsonReader jsonReader = new IndexedJsonReader( bytes );
+
+            jsonReader.beginObject();
+            while ( jsonReader.hasNext() ) {
+                final String nextName = jsonReader.nextName();
+
+                if ( nextName.equals( "firstName" ) ) {
+                    firstName = jsonReader.nextString();
+                }
+                else
+                if ( nextName.equals( "age" ) ) {
+                    age = jsonReader.nextInt();
+                }
+                else
+                if ( nextName.equals( "gender" ) ) {
+                    gender = jsonReader.nextString();
+                } else {
+                    jsonReader.skipValue();
+                }
+            }
+            jsonReader.endObject();
+
+            // Chk
+            assertFalse( jsonReader.hasNext() );
+            assertEquals( "John", firstName );
+            assertEquals( 25, age );
+            assertEquals( "male", gender );
+        } catch(IOException exc)  {
+            fail( "reading with index: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testResetting()
+    {
+        try {
+            final IndexedJsonReader jsonReader = new IndexedJsonReader( "[[1, 2], 3]".getBytes( StandardCharsets.UTF_8 ) );
+
+            jsonReader.beginArray();
+            jsonReader.skipValue();
+            jsonReader.reset( "{\"a\": [true], \"b\": 4}".getBytes( StandardCharsets.UTF_8 ) );
+
+            // Chk: the new document is indexed
+            jsonReader.beginObject();
+            assertEquals( "a", jsonReader.nextName() );
+            jsonReader.skipValue();
+            assertEquals( "b", jsonReader.nextName() );
+            assertEquals( 4, jsonReader.nextInt() );
+            jsonReader.endObject();
+        } catch(IOException exc) {
+            fail( "resetting: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testSkippingWithinLimits()
+    {
+        final String[] documents = {
+            "[[[[1]]]]", "[\"123456\"]", "{\"a\": [12345]}", "[abcdefgh]"
+        };
+        final String[] errors = {
+            "nesting deeper than the limit: 3",
+            "string longer than the limit: 5",
+            "number longer than the limit: 4",
+            "token longer than the limit: 5"
+        };
+        final JsonLimits limits = JsonLimits.DEFAULT.withMaxDepth( 3 )
+                                                    .withMaxStringLength( 5 )
+                                                    .withMaxNumberLength( 4 );
+
+        for(int i = 0; i < documents.length; ++i) {
+            try {
+                final IndexedJsonReader jsonReader = new IndexedJsonReader( documents[ i ].getBytes( StandardCharsets.UTF_8 ) );
+
+                jsonReader.setLimits( limits );
+                jsonReader.skipValue();
+                fail( "skipping beyond the limits: " + documents[ i ] );
+            } catch(IOException exc)  {
+                // Chk
+                assertEquals( errors[ i ], exc.getMessage() );
+            }
+        }
+
+        try {
+            final IndexedJsonReader jsonReader = new IndexedJsonReader( "[[[1]], \"12345\", 1234]".getBytes( StandardCharsets.UTF_8 ) );
+
+            // Chk: values at the limits are skipped
+            jsonReader.setLimits( limits );
+            jsonReader.skipValue();
+            assertFalse( jsonReader.hasNext() );
+        } catch(IOException exc)  {
+            fail( "skipping within the limits: " + exc.getMessage() );
+        }
+
+        try {
+            final StringBuilder siblings = new StringBuilder( "[{}" );
+
+            for(int i = 0; i < 1500; ++i) {
+                siblings.append( ",{\"a\":[]}" );
+            }
+
+            final IndexedJsonReader jsonReader = new IndexedJsonReader( siblings.append( ']' ).toString().getBytes( StandardCharsets.UTF_8 ) );
+
+            // Chk: only nesting counts for the depth, not siblings
+            jsonReader.setLimits( limits );
+            jsonReader.skipValue();
+            assertFalse( jsonReader.hasNext() );
+        } catch(IOException exc)  {
+            fail( "skipping siblings: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testScalarIndexIsTheSame()
+    {
+        final Random random = new Random( 7 );
+        final String pieces = "{}[]:, \t\n\"\"\\\\ab1.\u00f1";
+        final StringBuilder documents = new StringBuilder( COMPLEX_OBJECT );
+
+        for(int i = 0; i < 2000; ++i) {
+            documents.append( pieces.charAt( random.nextInt( pieces.length() ) ) );
+        }
+
+        final String text = documents.toString();
+
+        for(int length = 0; length < text.length(); length += 7) {
+            final byte[] bytes = text.substring( 0, length ).getBytes( StandardCharsets.UTF_8 );
+            StructuralIndex index = null;
+            StructuralIndex scalarIndex = null;
+            String error = null;
+            String scalarError = null;
+
+            try {
+                index = StructuralIndex.build( bytes, 0, bytes.length );
+            } catch(IOException exc) {
+                error = exc.getMessage();
+            }
+
+            try {
+                scalarIndex = StructuralIndex.buildScalar( bytes, 0, bytes.length );
+            } catch(IOException exc) {
+                scalarError = exc.getMessage();
+            }
+
+            // Chk
+            assertEquals( scalarError, error );
+            if ( error == null ) {
+                assertEquals( scalarIndex.size(), index.size() );
+                for(int i = 0; i < index.size(); ++i) {
+                    assertEquals( scalarIndex.positionOf( i ), index.positionOf( i ) );
+                    assertEquals( scalarIndex.matchOf( i ), index.matchOf( i ) );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIndexEntries()
+    {
+        final byte[] bytes = "{\"a\": [1, \"x\\\"\"], b: {}}".getBytes( StandardCharsets.UTF_8 );
+
+        try {
+            final StructuralIndex index = StructuralIndex.build( bytes, 0, bytes.length );
+            final int[] expected = { 0, 1, 3, 4, 6, 7, 8, 10, 14, 15, 16, 18, 19, 21, 22, 23 };
+
+            assertEquals( expected.length, index.size() );
+            for(int i = 0; i < expected.length; ++i) {
+                assertEquals( expected[ i ], index.positionOf( i ) );
+            }
+
+            assertEquals( 15, index.matchOf( 0 ) );
+            assertEquals( 2, index.matchOf( 1 ) );
+            assertEquals( 9, index.matchOf( 4 ) );
+            assertEquals( 8, index.matchOf( 7 ) );
+            assertEquals( 14, index.matchOf( 13 ) );
+            assertEquals( -1, index.matchOf( 5 ) );
+            assertEquals( 4, index.entryFrom( 5 ) );
+        } catch(IOException exc)  {
+            fail( "building index: " + exc.getMessage() );
+        }
+    }
+}
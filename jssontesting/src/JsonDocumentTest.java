@@ -0,0 +1,182 @@
+import com.devbaltasarq.jsson.JsonArray;
+import com.devbaltasarq.jsson.JsonDocument;
+import com.devbaltasarq.jsson.JsonObject;
+import com.devbaltasarq.jsson.JsonReader;
+import com.devbaltasarq.jsson.JsonValue;
+import com.devbaltasarq.jsson.JsonWriter;
+import com.devbaltasarq.jsson.Utf8JsonReader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JsonDocumentTest {
+    private static final String JSON_OBJECT = "{\"firstName\":\"John\",\"age\":25,"
+                                            + "\"height\":1.85,\"big\":123456789012345678901234567890,"
+                                            + "\"alive\":true,\"spouse\":null,"
+                                            + "\"address\":{\"city\":\"New York\",\"postalCode\":\"10021\"},"
+                                            + "\"phoneNumbers\":[{\"type\":\"home\",\"number\":\"212 555-1234\"},"
+                                            + "{\"type\":\"fax\",\"number\":\"646 555-4567\"}],"
+                                            + "\"scores\":[1,2.5,-3e2],\"name\":\"a\u00f1o \\\"x\\\"\"}";
+
+    @Test
+    public void testAccessors()
+    {
+        try {
+            final JsonDocument document = JsonDocument.parse( new JsonReader( new StringReader( JSON_OBJECT ) ) );
+            final JsonObject root = document.getRoot().asObject();
+
+            // Chk
+            assertEquals( JsonValue.Type.OBJECT, root.getType() );
+            assertEquals( 10, root.size() );
+            assertEquals( "John", root.get( "firstName" ).asString() );
+            assertEquals( 25, root.get( "age" ).asInt() );
+            assertEquals( 1.85, root.get( "height" ).asDouble(), 0.0 );
+            assertEquals( new BigDecimal( "123456789012345678901234567890" ), root.get( "big" ).asBigDecimal() );
+            assertTrue( root.get( "alive" ).asBoolean() );
+            assertTrue( root.get( "spouse" ).isNull() );
+            assertNull( root.get( "missing" ) );
+            assertFalse( root.contains( "missing" ) );
+            assertEquals( "New York", root.get( "address" ).asObject().get( "city" ).asString() );
+            assertEquals( "a\u00f1o \"x\"", root.get( "name" ).asString() );
+            assertEquals( "firstName", root.names().get( 0 ) );
+            assertEquals( "name", root.names().get( 9 ) );
+
+            final JsonArray phones = root.get( "phoneNumbers" ).asArray();
+            assertEquals( 2, phones.size() );
+            assertEquals( "fax", phones.get( 1 ).asObject().get( "type" ).asString() );
+
+            final JsonArray scores = root.get( "scores" ).asArray();
+            double sum = 0;
+
+            for(JsonValue score: scores) {
+                sum += score.asDouble();
+            }
+
+            assertEquals( -296.5, sum, 0.0 );
+            assertEquals( -300, scores.get( 2 ).asLong() );
+        } catch(IOException exc) {
+            fail( "reading document: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testWrongTypes()
+    {
+        try {
+            final JsonDocument document = JsonDocument.parse( new JsonReader( new StringReader( JSON_OBJECT ) ) );
+            final JsonObject root = document.getRoot().asObject();
+
+            try {
+                root.get( "firstName" ).asInt();
+                fail( "string read as int" );
+            } catch(IllegalStateException exc) {
+                assertTrue( true );
+            }
+
+            try {
+                root.get( "height" ).asLong();
+                fail( "real read as long" );
+            } catch(NumberFormatException exc) {
+                assertTrue( true );
+            }
+
+            try {
+                root.get( "scores" ).asArray().get( 3 );
+                fail( "element out of range" );
+            } catch(IndexOutOfBoundsException exc) {
+                assertTrue( true );
+            }
+        } catch(IOException exc) {
+            fail( "reading document: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testRoundTrip()
+    {
+        try {
+            final String jsonObject = JSON_OBJECT.replace( "\\\"x\\\"", "x" );
+            final byte[] bytes = jsonObject.getBytes( StandardCharsets.UTF_8 );
+            final JsonDocument document = JsonDocument.parse( new Utf8JsonReader( bytes ) );
+            final StringWriter output = new StringWriter();
+            final JsonWriter writer = new JsonWriter( output );
+
+            document.write( writer );
+            writer.close();
+
+            // Chk: numbers are written back exactly as they were read
+            assertEquals( jsonObject, output.toString() );
+            assertEquals( "{\"city\":\"New York\",\"postalCode\":\"10021\"}",
+                          document.getRoot().asObject().get( "address" ).toString() );
+        } catch(IOException exc) {
+            fail( "writing document: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testLenientNumbers()
+    {
+        try {
+            final String json = "[+5,.5,-.5,5.,007,1.e5,+123456789012345678901234567890,-0.25e-3]";
+            final JsonDocument document = JsonDocument.parse( new JsonReader( new StringReader( json ) ) );
+            final JsonArray numbers = document.getRoot().asArray();
+            final StringWriter output = new StringWriter();
+            final JsonWriter writer = new JsonWriter( output );
+
+            document.write( writer );
+            writer.close();
+
+            // Chk: written as valid JSON, with the same values
+            assertEquals( "[5,0.5,-0.5,5,7,1E+5,123456789012345678901234567890,-0.25e-3]", output.toString() );
+            assertEquals( 5, numbers.get( 0 ).asLong() );
+            assertEquals( 0.5, numbers.get( 1 ).asDouble(), 0.0 );
+            assertEquals( 7, numbers.get( 4 ).asLong() );
+            assertEquals( new BigDecimal( "123456789012345678901234567890" ), numbers.get( 6 ).asBigDecimal() );
+        } catch(IOException exc) {
+            fail( "reading lenient numbers: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testArrayIndexing()
+    {
+        final int count = 10000;
+        final StringBuilder json = new StringBuilder( "[" );
+
+        for(int i = 0; i < count; ++i) {
+            if ( i > 0 ) {
+                json.append( ',' );
+            }
+
+            json.append( "[" ).append( i ).append( ",{\"a\":[]}]" );
+        }
+
+        json.append( ']' );
+
+        try {
+            final JsonDocument document = JsonDocument.parse( new JsonReader( new StringReader( json.toString() ) ) );
+            final JsonArray array = document.getRoot().asArray();
+
+            // Chk: in any order
+            for(int i = count - 1; i >= 0; --i) {
+                assertEquals( i, array.get( i ).asArray().get( 0 ).asLong() );
+            }
+
+            for(int i = 0; i < count; ++i) {
+                assertEquals( i, array.get( i ).asArray().get( 0 ).asLong() );
+            }
+        } catch(IOException exc) {
+            fail( "indexing arrays: " + exc.getMessage() );
+        }
+    }
+}
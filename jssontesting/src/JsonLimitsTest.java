@@ -0,0 +1,351 @@
+import com.devbaltasarq.jsson.AbstractJsonReader;
+import com.devbaltasarq.jsson.JsonLimits;
+import com.devbaltasarq.jsson.JsonReader;
+import com.devbaltasarq.jsson.JsonWriter;
+import com.devbaltasarq.jsson.Utf8JsonReader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JsonLimitsTest {
+    /** @return a document of nested arrays, with the given depth. */
+    private static String nested(int depth)
+    {
+        final StringBuilder toret = new StringBuilder();
+
+        for(int i = 0; i < depth; ++i) {
+            toret.append( '[' );
+        }
+
+        toret.append( '1' );
+
+        for(int i = 0; i < depth; ++i) {
+            toret.append( ']' );
+        }
+
+        return toret.toString();
+    }
+
+    /** Reads a document of nested arrays, returning the innermost value. */
+    private static int readNested(AbstractJsonReader reader, int depth) throws IOException
+    {
+        final int toret;
+
+        for(int i = 0; i < depth; ++i) {
+            reader.beginArray();
+        }
+
+        toret = reader.nextInt();
+
+        for(int i = 0; i < depth; ++i) {
+            reader.endArray();
+        }
+
+        return toret;
+    }
+
+    @Test
+    public void testDefaults()
+    {
+        final JsonLimits limits = JsonLimits.DEFAULT;
+
+        // Chk
+        assertEquals( limits, new JsonReader( new StringReader( "" ) ).getLimits() );
+        assertEquals( limits, new JsonWriter( new StringWriter() ).getLimits() );
+        assertEquals( 16, limits.withMaxDepth( 16 ).getMaxDepth() );
+        assertEquals( limits.getMaxStringLength(), limits.withMaxDepth( 16 ).getMaxStringLength() );
+
+        try {
+            limits.withMaxEntries( 0 );
+            assertFalse( "zero limit accepted", true );
+        } catch(IllegalArgumentException exc) {
+            assertTrue( true );
+        }
+    }
+
+    @Test
+    public void testDepth()
+    {
+        final JsonLimits limits = JsonLimits.DEFAULT.withMaxDepth( 8 );
+
+        try {
+            final JsonReader reader = new JsonReader( new StringReader( nested( 8 ) ) );
+
+            reader.setLimits( limits );
+            assertEquals( 1, readNested( reader, 8 ) );
+            assertEquals( 0, reader.getDepth() );
+        } catch(IOException exc) {
+            fail( "reading within the limits: " + exc.getMessage() );
+        }
+
+        try {
+            final AbstractJsonReader reader = new Utf8JsonReader( nested( 9 ).getBytes( StandardCharsets.UTF_8 ) );
+
+            reader.setLimits( limits );
+            readNested( reader, 9 );
+            assertFalse( "nesting beyond the limit read", true );
+        } catch(IOException exc) {
+            assertTrue( true );
+        }
+
+        // Chk: skipped values count as well
+        try {
+            final JsonReader reader = new JsonReader( new StringReader( "[" + nested( 8 ) + "]" ) );
+
+            reader.setLimits( limits );
+            reader.beginArray();
+            reader.skipValue();
+            assertFalse( "nesting beyond the limit skipped", true );
+        } catch(IOException exc) {
+            assertTrue( true );
+        }
+
+        try {
+            final JsonWriter writer = new JsonWriter( new StringWriter() );
+
+            writer.setLimits( limits );
+
+            for(int i = 0; i < 9; ++i) {
+                writer.beginArray();
+            }
+
+            assertFalse( "nesting beyond the limit written", true );
+        } catch(IOException exc) {
+            assertTrue( true );
+        }
+    }
+
+    @Test
+    public void testMismatchedEnd()
+    {
+        try {
+            final JsonReader reader = new JsonReader( new StringReader( "[]" ) );
+
+            reader.beginArray();
+            reader.endObject();
+            assertFalse( "end of object read for an array", true );
+        } catch(IOException exc) {
+            assertTrue( true );
+        }
+
+        try {
+            final JsonWriter writer = new JsonWriter( new StringWriter() );
+
+            writer.beginObject();
+            writer.endArray();
+            assertFalse( "end of array written for an object", true );
+        } catch(IOException exc) {
+            assertTrue( true );
+        }
+
+        try {
+            new JsonWriter( new StringWriter() ).endObject();
+            assertFalse( "end of object written outside of any", true );
+        } catch(IOException exc) {
+            assertTrue( true );
+        }
+    }
+
+    @Test
+    public void testLengths()
+    {
+        final JsonLimits limits = JsonLimits.DEFAULT.withMaxStringLength( 5 ).withMaxNumberLength( 4 );
+        final String[] wrongDocs = {
+            "[\"abcdef\"]", "[12345]", "[-1.5e10]", "{\"abcdef\":1}", "{abcdef:1}"
+        };
+
+        try {
+            final JsonReader reader = new JsonReader( new StringReader( "{\"abcde\":[\"abcde\",1234]}" ) );
+
+            reader.setLimits( limits );
+            reader.beginObject();
+            assertEquals( "abcde", reader.nextName() );
+            reader.beginArray();
+            assertEquals( "abcde", reader.nextString() );
+            assertEquals( 1234, reader.nextInt() );
+            reader.endArray();
+            reader.endObject();
+        } catch(IOException exc) {
+            fail( "reading within the limits: " + exc.getMessage() );
+        }
+
+        for(String wrongDoc: wrongDocs) {
+            try {
+                final JsonReader reader = new JsonReader( new StringReader( wrongDoc ) );
+
+                reader.setLimits( limits );
+
+                if ( wrongDoc.startsWith( "{" ) ) {
+                    reader.beginObject();
+                    reader.nextName();
+                } else {
+                    reader.beginArray();
+                    reader.nextDouble();
+                }
+
+                assertFalse( "too long token read: " + wrongDoc, true );
+            } catch(IOException exc) {
+                assertTrue( true );
+            }
+
+            // Chk: skipping is limited as well
+            try {
+                final JsonReader reader = new JsonReader( new StringReader( wrongDoc ) );
+
+                reader.setLimits( limits );
+                reader.skipValue();
+                assertFalse( "too long token skipped: " + wrongDoc, true );
+            } catch(IOException exc) {
+                assertTrue( true );
+            }
+        }
+
+        try {
+            final JsonWriter writer = new JsonWriter( new StringWriter() );
+
+            writer.setLimits( limits );
+            writer.beginArray();
+            writer.value( "abcdef" );
+            assertFalse( "too long string written", true );
+        } catch(IOException exc) {
+            assertTrue( true );
+        }
+    }
+
+    @Test
+    public void testEntries()
+    {
+        final JsonLimits limits = JsonLimits.DEFAULT.withMaxEntries( 2 );
+
+        try {
+            final JsonReader reader = new JsonReader( new StringReader( "{\"a\":{\"b\":1,\"c\":2},\"d\":3,\"e\":4}" ) );
+
+            reader.setLimits( limits );
+            reader.beginObject();
+            assertEquals( "a", reader.nextName() );
+            reader.beginObject();
+            assertEquals( "b", reader.nextName() );
+            reader.skipValue();
+            assertEquals( "c", reader.nextName() );
+            reader.skipValue();
+            reader.endObject();
+
+            // Chk: the members of the inner object are not counted in the outer one
+            assertEquals( "d", reader.nextName() );
+            reader.skipValue();
+
+            reader.nextName();
+            assertFalse( "more members than the limit read", true );
+        } catch(IOException exc) {
+            assertTrue( exc.getMessage().contains( "limit" ) );
+        }
+
+        try {
+            final JsonWriter writer = new JsonWriter( new StringWriter() );
+
+            writer.setLimits( limits );
+            writer.beginObject();
+            writer.name( "a" ).value( 1 );
+            writer.name( "b" ).value( 2 );
+            writer.name( "c" ).value( 3 );
+            assertFalse( "more members than the limit written", true );
+        } catch(IOException exc) {
+            assertTrue( true );
+        }
+    }
+
+    @Test
+    public void testDocumentSize()
+    {
+        final JsonLimits limits = JsonLimits.DEFAULT.withMaxDocumentSize( 16 );
+        final StringBuilder json = new StringBuilder( "[1" );
+
+        for(int i = 0; i < 20000; ++i) {
+            json.append( ",1" );
+        }
+
+        json.append( ']' );
+
+        try {
+            final JsonReader reader = new JsonReader( new StringReader( json.toString() ) );
+
+            reader.setLimits( limits );
+            reader.beginArray();
+
+            while( reader.hasNext() ) {
+                reader.nextInt();
+            }
+
+            reader.endArray();
+            assertFalse( "document larger than the limit read", true );
+        } catch(IOException exc) {
+            assertTrue( true );
+        }
+
+        // Chk: the whole document counts, not only the window
+        try {
+            final AbstractJsonReader reader = new Utf8JsonReader( json.toString().getBytes( StandardCharsets.UTF_8 ) );
+
+            reader.setLimits( JsonLimits.DEFAULT.withMaxDocumentSize( json.length() ) );
+            reader.beginArray();
+
+            while( reader.hasNext() ) {
+                reader.nextInt();
+            }
+
+            reader.endArray();
+        } catch(IOException exc) {
+            fail( "reading within the limits: " + exc.getMessage() );
+        }
+
+        // Chk: each top-level value is a document of its own
+        try {
+            final StringBuilder values = new StringBuilder();
+
+            for(int i = 0; i < 1000; ++i) {
+                values.append( "[1,2,3]\n" );
+            }
+
+            final JsonReader reader = new JsonReader( new StringReader( values.toString() ) );
+
+            reader.setLimits( limits );
+
+            for(int i = 0; i < 1000; ++i) {
+                reader.beginArray();
+
+                while( reader.hasNext() ) {
+                    reader.nextInt();
+                }
+
+                reader.endArray();
+            }
+        } catch(IOException exc) {
+            fail( "reading a sequence of documents: " + exc.getMessage() );
+        }
+
+        try {
+            final JsonWriter writer = new JsonWriter( new StringWriter() );
+
+            writer.setLimits( limits );
+            writer.beginArray();
+
+            for(int i = 0; i < 20000; ++i) {
+                writer.value( 1 );
+            }
+
+            writer.endArray();
+            writer.close();
+            assertFalse( "document larger than the limit written", true );
+        } catch(IOException exc) {
+            assertTrue( true );
+        }
+    }
+}
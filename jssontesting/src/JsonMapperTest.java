@@ -0,0 +1,244 @@
+import com.devbaltasarq.jsson.JsonMapper;
+import com.devbaltasarq.jsson.JsonReader;
+import com.devbaltasarq.jsson.JsonWriter;
+import com.devbaltasarq.jsson.Utf8JsonReader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JsonMapperTest {
+    enum Kind { HOME, FAX }
+
+    static class Phone {
+        Kind type;
+        String number;
+    }
+
+    static class Address {
+        String city;
+        String postalCode;
+    }
+
+    static class Entity {
+        long id;
+    }
+
+    static class Person extends Entity {
+        private Person()
+        {
+        }
+
+        String firstName;
+        int age;
+        double height;
+        boolean alive;
+        float weight;
+        Integer rank;
+        BigDecimal big;
+        Address address;
+        List<Phone> phoneNumbers;
+        int[] scores;
+        Person spouse;
+        transient String ignored;
+        static String alsoIgnored;
+    }
+
+    static class Small {
+        short s;
+        byte b;
+        char c;
+        float f;
+        Short boxedShort;
+        Character boxedChar;
+    }
+
+    private static final String JSON_PERSON = "{\"id\":9000000000,\"firstName\":\"John\",\"age\":25,"
+                                            + "\"height\":1.85,\"alive\":true,\"weight\":70.5,\"rank\":null,"
+                                            + "\"big\":123456789012345678901234567890,"
+                                            + "\"address\":{\"city\":\"New York\",\"postalCode\":\"10021\"},"
+                                            + "\"phoneNumbers\":[{\"type\":\"HOME\",\"number\":\"212 555-1234\"},"
+                                            + "{\"type\":\"FAX\",\"number\":\"646 555-4567\"}],"
+                                            + "\"scores\":[1,2,3],\"spouse\":null,\"unknown\":{\"a\":[1,2]}}";
+
+    @Test
+    public void testRead()
+    {
+        final JsonMapper mapper = new JsonMapper();
+
+        try {
+            final Person person = mapper.read( new JsonReader( new StringReader( JSON_PERSON ) ), Person.class );
+
+            // Chk
+            assertEquals( 9000000000L, person.id );
+            assertEquals( "John", person.firstName );
+            assertEquals( 25, person.age );
+            assertEquals( 1.85, person.height, 0.0 );
+            assertTrue( person.alive );
+            assertEquals( 70.5f, person.weight, 0.0f );
+            assertNull( person.rank );
+            assertEquals( new BigDecimal( "123456789012345678901234567890" ), person.big );
+            assertEquals( "New York", person.address.city );
+            assertEquals( "10021", person.address.postalCode );
+            assertEquals( 2, person.phoneNumbers.size() );
+            assertEquals( Kind.FAX, person.phoneNumbers.get( 1 ).type );
+            assertEquals( "646 555-4567", person.phoneNumbers.get( 1 ).number );
+            assertArrayEquals( new int[] { 1, 2, 3 }, person.scores );
+            assertNull( person.spouse );
+            assertNull( person.ignored );
+        } catch(IOException exc) {
+            fail( "reading object: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testRoundTrip()
+    {
+        final JsonMapper mapper = new JsonMapper();
+        final String expected = JSON_PERSON.replace( ",\"unknown\":{\"a\":[1,2]}", "" );
+
+        try {
+            final byte[] bytes = JSON_PERSON.getBytes( StandardCharsets.UTF_8 );
+            final Person person = mapper.read( new Utf8JsonReader( bytes ), Person.class );
+            final StringWriter output = new StringWriter();
+            final JsonWriter writer = new JsonWriter( output );
+
+            mapper.write( writer, person );
+            writer.close();
+
+            // Chk
+            assertEquals( expected, output.toString() );
+        } catch(IOException exc) {
+            fail( "writing object: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testNestedSelf()
+    {
+        final JsonMapper mapper = new JsonMapper();
+        final String json = "{\"firstName\":\"John\",\"spouse\":{\"firstName\":\"Jane\",\"spouse\":null}}";
+
+        try {
+            final Person person = mapper.read( new JsonReader( new StringReader( json ) ), Person.class );
+
+            // Chk
+            assertEquals( "John", person.firstName );
+            assertEquals( "Jane", person.spouse.firstName );
+            assertNull( person.spouse.spouse );
+        } catch(IOException exc) {
+            fail( "reading object: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testScalarsAndNull()
+    {
+        final JsonMapper mapper = new JsonMapper();
+
+        try {
+            assertEquals( 42, (int) mapper.read( new JsonReader( new StringReader( "42" ) ), Integer.class ) );
+            assertEquals( "x", mapper.read( new JsonReader( new StringReader( "\"x\"" ) ), String.class ) );
+            assertNull( mapper.read( new JsonReader( new StringReader( "null" ) ), Person.class ) );
+        } catch(IOException exc) {
+            fail( "reading scalars: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testUnmappable()
+    {
+        final JsonMapper mapper = new JsonMapper();
+
+        try {
+            mapper.read( new JsonReader( new StringReader( "{}" ) ), Runnable.class );
+            assertFalse( "interface mapped", true );
+        } catch(IllegalArgumentException exc) {
+            assertTrue( true );
+        } catch(IOException exc) {
+            fail( "reading object: " + exc.getMessage() );
+        }
+
+        try {
+            mapper.read( new JsonReader( new StringReader( "{\"type\":\"MOBILE\"}" ) ), Phone.class );
+            assertFalse( "unknown enum constant read", true );
+        } catch(IOException exc) {
+            assertTrue( true );
+        }
+    }
+
+    @Test
+    public void testSmallPrimitives()
+    {
+        final JsonMapper mapper = new JsonMapper();
+        final String json = "{\"s\":-300,\"b\":100,\"c\":\"\u00f1\",\"f\":2.5,\"boxedShort\":null,\"boxedChar\":\"x\"}";
+
+        try {
+            final Small small = mapper.read( new JsonReader( new StringReader( json ) ), Small.class );
+            final StringWriter output = new StringWriter();
+            final JsonWriter writer = new JsonWriter( output );
+
+            assertEquals( -300, small.s );
+            assertEquals( 100, small.b );
+            assertEquals( '\u00f1', small.c );
+            assertEquals( 2.5f, small.f, 0.0f );
+            assertNull( small.boxedShort );
+            assertEquals( 'x', (char) small.boxedChar );
+
+            // Chk: written back the same
+            mapper.write( writer, small );
+            writer.close();
+            assertEquals( json, output.toString() );
+        } catch(IOException exc) {
+            fail( "reading small primitives: " + exc.getMessage() );
+        }
+
+        // Chk: null, and values out of range, are rejected for primitives
+        final String[] wrongDocs = { "{\"f\":null}", "{\"s\":null}", "{\"b\":128}", "{\"c\":\"ab\"}" };
+
+        for(String wrongDoc: wrongDocs) {
+            try {
+                mapper.read( new JsonReader( new StringReader( wrongDoc ) ), Small.class );
+                assertFalse( "wrong value read: " + wrongDoc, true );
+            } catch(IOException exc) {
+                assertTrue( true );
+            }
+        }
+    }
+
+    @Test
+    public void testSharedMapper()
+    {
+        final JsonMapper mapper = new JsonMapper();
+
+        try {
+            final List<Integer> ages = Arrays.asList( 20, 30, 40, 50, 60, 70, 80, 90 );
+
+            // Chk: the cache can be filled from several threads at once
+            final int total = ages.parallelStream().mapToInt( age -> {
+                try {
+                    final String json = "{\"firstName\":\"p\",\"age\":" + age + "}";
+                    return mapper.read( new JsonReader( new StringReader( json ) ), Person.class ).age;
+                } catch(IOException exc) {
+                    throw new IllegalStateException( exc );
+                }
+            }).sum();
+
+            assertEquals( 440, total );
+        } catch(IllegalStateException exc) {
+            fail( "reading in parallel: " + exc.getMessage() );
+        }
+    }
+}
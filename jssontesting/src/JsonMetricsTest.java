@@ -0,0 +1,186 @@
+import com.devbaltasarq.jsson.AbstractJsonReader;
+import com.devbaltasarq.jsson.JsonMetrics;
+import com.devbaltasarq.jsson.JsonReader;
+import com.devbaltasarq.jsson.JsonWriter;
+import com.devbaltasarq.jsson.Utf8JsonReader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Metrics are only collected when run with -Djsson.metrics=true;
+  * otherwise, nothing must reach the listener.
+  */
+public class JsonMetricsTest {
+    private static final String JSON_OBJECT = "{\"a\":[1,2,{\"b\":true}],\"c\":\"x\"}";
+
+    /** Keeps the measures of the last document. */
+    private static class LastDocument extends JsonMetrics.Counters {
+        @Override
+        public void documentRead(long size, long tokens, int maxDepth, long nanos)
+        {
+            super.documentRead( size, tokens, maxDepth, nanos );
+            this.size = size;
+            this.tokens = tokens;
+            this.maxDepth = maxDepth;
+        }
+
+        @Override
+        public void documentWritten(long size, long tokens, int maxDepth, long nanos)
+        {
+            super.documentWritten( size, tokens, maxDepth, nanos );
+            this.size = size;
+            this.tokens = tokens;
+            this.maxDepth = maxDepth;
+        }
+
+        long size;
+        long tokens;
+        int maxDepth;
+    }
+
+    private static void readObject(AbstractJsonReader reader) throws IOException
+    {
+        reader.beginObject();
+        reader.nextName();
+        reader.beginArray();
+        reader.nextInt();
+        reader.nextInt();
+        reader.beginObject();
+        reader.nextName();
+        reader.nextBoolean();
+        reader.endObject();
+        reader.endArray();
+        reader.nextName();
+        reader.nextString();
+        reader.endObject();
+    }
+
+    @Test
+    public void testReading()
+    {
+        final LastDocument metrics = new LastDocument();
+        final int expectedDocuments = JsonMetrics.ENABLED ? 2 : 0;
+
+        JsonMetrics.setListener( metrics );
+
+        try {
+            readObject( new JsonReader( new StringReader( JSON_OBJECT ) ) );
+            readObject( new Utf8JsonReader( ( "  " + JSON_OBJECT ).getBytes( StandardCharsets.UTF_8 ) ) );
+
+            // Chk
+            assertEquals( expectedDocuments, metrics.getDocuments() );
+
+            if ( JsonMetrics.ENABLED ) {
+                assertEquals( JSON_OBJECT.length(), metrics.size );
+                assertEquals( 13, metrics.tokens );
+                assertEquals( 3, metrics.maxDepth );
+                assertEquals( 2L * JSON_OBJECT.length(), metrics.getUnits() );
+                assertEquals( JSON_OBJECT.length(), metrics.getLargestDocument() );
+                assertTrue( metrics.getUnitsPerSecond() > 0 );
+            }
+        } catch(IOException exc) {
+            fail( "reading with metrics: " + exc.getMessage() );
+        } finally {
+            JsonMetrics.setListener( null );
+        }
+    }
+
+    @Test
+    public void testWriting()
+    {
+        final LastDocument metrics = new LastDocument();
+        final StringWriter output = new StringWriter();
+        final JsonWriter writer = new JsonWriter( output );
+
+        JsonMetrics.setListener( metrics );
+
+        try {
+            writer.beginObject()
+                    .name( "a" ).beginArray().value( 1 ).value( 2 ).endArray()
+                    .name( "c" ).value( "x" )
+                .endObject();
+            writer.close();
+
+            // Chk
+            assertEquals( JsonMetrics.ENABLED ? 1 : 0, metrics.getDocuments() );
+
+            if ( JsonMetrics.ENABLED ) {
+                assertEquals( output.toString().length(), metrics.size );
+                assertEquals( 9, metrics.tokens );
+                assertEquals( 2, metrics.maxDepth );
+            }
+        } catch(IOException exc) {
+            fail( "writing with metrics: " + exc.getMessage() );
+        } finally {
+            JsonMetrics.setListener( null );
+        }
+    }
+
+    @Test
+    public void testAbandoned()
+    {
+        final JsonMetrics.Counters metrics = new JsonMetrics.Counters();
+
+        JsonMetrics.setListener( metrics );
+
+        try {
+            final JsonReader reader = new JsonReader( new StringReader( "{\"a\":[1," ) );
+
+            reader.beginObject();
+            reader.nextName();
+            reader.beginArray();
+            reader.nextInt();
+            reader.close();
+
+            // Chk
+            assertEquals( 0, metrics.getDocuments() );
+            assertEquals( JsonMetrics.ENABLED ? 1 : 0, metrics.getErrors() );
+        } catch(IOException exc) {
+            fail( "reading with metrics: " + exc.getMessage() );
+        } finally {
+            JsonMetrics.setListener( null );
+        }
+    }
+
+    @Test
+    public void testFlightRecorder()
+    {
+        boolean available = true;
+
+        try {
+            Class.forName( "jdk.jfr.EventFactory" );
+        } catch(ClassNotFoundException exc) {
+            available = false;
+        }
+
+        final JsonMetrics.Listener recorder = JsonMetrics.flightRecorder();
+
+        // Chk: only there when running with Flight Recorder
+        assertEquals( available, recorder != null );
+
+        if ( recorder != null ) {
+            JsonMetrics.setListener( recorder );
+
+            try {
+                final AbstractJsonReader reader = new Utf8JsonReader( JSON_OBJECT.getBytes( StandardCharsets.UTF_8 ) );
+                final JsonReader abandoned = new JsonReader( new StringReader( "[1," ) );
+
+                readObject( reader );
+                abandoned.beginArray();
+                abandoned.close();
+                recorder.documentWritten( 1, 1, 1, 1 );
+            } catch(IOException exc) {
+                fail( "reading with the flight recorder: " + exc.getMessage() );
+            } finally {
+                JsonMetrics.setListener( null );
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+import com.devbaltasarq.jsson.AbstractJsonReader;
+import com.devbaltasarq.jsson.JsonPool;
+import com.devbaltasarq.jsson.JsonReader;
+import com.devbaltasarq.jsson.JsonWriter;
+import com.devbaltasarq.jsson.Utf8JsonReader;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class JsonPoolTest {
+    private static int readX(AbstractJsonReader jsonReader) throws IOException
+    {
+        int toret = -1;
+
+        jsonReader.beginObject();
+        while ( jsonReader.hasNext() ) {
+            if ( jsonReader.nextName().equals( "x" ) ) {
+                toret = jsonReader.nextInt();
+            } else {
+                jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+
+        return toret;
+    }
+
+    @Test
+    public void testReusingReaders()
+    {
+        final JsonPool pool = new JsonPool();
+
+        try {
+            final JsonReader reader1 = pool.leaseReader( new StringReader( "{\"x\": 1, \"y\": [2]}" ) );
+            assertEquals( 1, readX( reader1 ) );
+            pool.release( reader1 );
+
+            final JsonReader reader2 = pool.leaseReader( new StringReader( "{\"y\": \"z\", \"x\": 2}" ) );
+            assertSame( reader1, reader2 );
+            assertEquals( 2, readX( reader2 ) );
+
+            final byte[] bytes = "{\"x\": 3}".getBytes( StandardCharsets.UTF_8 );
+            final Utf8JsonReader utf8Reader1 = pool.leaseReader( bytes, 0, bytes.length );
+            assertEquals( 3, readX( utf8Reader1 ) );
+            pool.release( utf8Reader1 );
+
+            final Utf8JsonReader utf8Reader2 = pool.leaseReader( new ByteArrayInputStream( bytes ) );
+            assertSame( utf8Reader1, utf8Reader2 );
+            assertEquals( 3, readX( utf8Reader2 ) );
+            pool.release( utf8Reader2 );
+
+            final Utf8JsonReader utf8Reader3 = pool.leaseReader( bytes, 0, bytes.length );
+            assertSame( utf8Reader1, utf8Reader3 );
+            assertEquals( 3, readX( utf8Reader3 ) );
+        } catch(IOException exc) {
+            fail( "reusing readers: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testReusingWriters()
+    {
+        final JsonPool pool = new JsonPool();
+        final StringBuilder longText = new StringBuilder();
+
+        for(int i = 0; i < 5000; ++i) {
+            longText.append( i );
+        }
+
+        try {
+            final StringWriter output1 = new StringWriter();
+            final JsonWriter writer1 = pool.leaseWriter( output1 );
+
+            writer1.beginArray().value( longText.toString() ).value( 1 ).endArray();
+            writer1.flush();
+            pool.release( writer1 );
+
+            final StringWriter output2 = new StringWriter();
+            final JsonWriter writer2 = pool.leaseWriter( output2 );
+
+            writer2.beginObject().name( "x" ).value( true ).endObject();
+            writer2.flush();
+
+            // Chk
+            assertSame( writer1, writer2 );
+            assertEquals( "[\"" + longText + "\",1]", output1.toString() );
+            assertEquals( "{\"x\":true}", output2.toString() );
+        } catch(IOException exc) {
+            fail( "reusing writers: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testBoundedCapacity()
+    {
+        final JsonPool pool = new JsonPool( 2 );
+        final List<JsonWriter> writers = new ArrayList<>();
+
+        for(int i = 0; i < 3; ++i) {
+            writers.add( pool.leaseWriter( new StringWriter() ) );
+        }
+
+        for(JsonWriter writer: writers) {
+            pool.release( writer );
+        }
+
+        // Chk: only two were kept
+        assertSame( writers.get( 0 ), pool.leaseWriter( new StringWriter() ) );
+        assertSame( writers.get( 1 ), pool.leaseWriter( new StringWriter() ) );
+        assertNotSame( writers.get( 2 ), pool.leaseWriter( new StringWriter() ) );
+    }
+
+    @Test
+    public void testSharedAmongThreads()
+    {
+        final JsonPool pool = new JsonPool( 4 );
+        final AtomicInteger sum = new AtomicInteger();
+        final List<Thread> threads = new ArrayList<>();
+        final AtomicInteger errors = new AtomicInteger();
+
+        for(int t = 0; t < 8; ++t) {
+            final Thread thread = new Thread( () -> {
+                for(int i = 0; i < 1000; ++i) {
+                    final JsonReader reader = pool.leaseReader( new StringReader( "{\"x\": 1}" ) );
+
+                    try {
+                        sum.addAndGet( readX( reader ) );
+                    } catch(IOException exc) {
+                        errors.incrementAndGet();
+                    } finally {
+                        pool.release( reader );
+                    }
+                }
+            });
+
+            threads.add( thread );
+            thread.start();
+        }
+
+        try {
+            for(Thread thread: threads) {
+                thread.join();
+            }
+        } catch(InterruptedException exc) {
+            fail( "interrupted" );
+        }
+
+        // Chk
+        assertEquals( 0, errors.get() );
+        assertEquals( 8000, sum.get() );
+    }
+}
@@ -0,0 +1,234 @@
+import com.devbaltasarq.jsson.JsonLimits;
+import com.devbaltasarq.jsson.JsonPushParser;
+import com.devbaltasarq.jsson.JsonPushParser.Event;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JsonPushParserTest {
+    private static final String DOCUMENT = "{\"name\": \"a\u00f1o \\\"\u20ac\\\"\", \"x\": 11, \"pi\": -3.25e0,"
+                                            + " 'visible': true, \"tags\": [null, false, \"\"], \"big\": 12345678901234}";
+    private static final String EXPECTED = "BEGIN_OBJECT NAME:name STRING:a\u00f1o \"\u20ac\" NAME:x NUMBER:11"
+                                            + " NAME:pi NUMBER:-3.25 NAME:visible BOOLEAN:true NAME:tags BEGIN_ARRAY"
+                                            + " NULL BOOLEAN:false STRING: END_ARRAY NAME:big NUMBER:12345678901234"
+                                            + " END_OBJECT END_OF_INPUT";
+
+    /** Parses a document, fed in chunks of the given size. */
+    private static String parseInChunks(byte[] bytes, int chunkSize) throws IOException
+    {
+        return parseInChunks( new JsonPushParser(), bytes, chunkSize );
+    }
+
+    private static String parseInChunks(JsonPushParser parser, byte[] bytes, int chunkSize) throws IOException
+    {
+        final List<String> events = new ArrayList<>();
+        int fed = 0;
+        Event event = Event.NEED_MORE_INPUT;
+
+        while( event != Event.END_OF_INPUT ) {
+            event = parser.next();
+
+            if ( event == Event.NEED_MORE_INPUT ) {
+                if ( fed < bytes.length ) {
+                    final int length = Math.min( chunkSize, bytes.length - fed );
+
+                    parser.feed( ByteBuffer.wrap( bytes, fed, length ) );
+                    fed += length;
+                } else {
+                    parser.endOfInput();
+                }
+            }
+            else
+            if ( event == Event.NAME
+              || event == Event.STRING )
+            {
+                events.add( event + ":" + parser.getString() );
+            }
+            else
+            if ( event == Event.NUMBER ) {
+                final String number = parser.getString();
+
+                if ( number.contains( "." ) ) {
+                    events.add( event + ":" + parser.getDouble() );
+                } else {
+                    events.add( event + ":" + parser.getLong() );
+                }
+            }
+            else
+            if ( event == Event.BOOLEAN ) {
+                events.add( event + ":" + parser.getBoolean() );
+            } else {
+                events.add( event.toString() );
+            }
+        }
+
+        return String.join( " ", events );
+    }
+
+    @Test
+    public void testChunkBoundaries()
+    {
+        final byte[] bytes = DOCUMENT.getBytes( StandardCharsets.UTF_8 );
+
+        try {
+            // Chk every possible chunk size, splitting every token
+            for(int chunkSize = 1; chunkSize <= bytes.length; ++chunkSize) {
+                assertEquals( "chunk size: " + chunkSize, EXPECTED, parseInChunks( bytes, chunkSize ) );
+            }
+        } catch(IOException exc) {
+            fail( "parsing in chunks: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testLongStringsInSmallChunks()
+    {
+        final StringBuilder text = new StringBuilder();
+
+        for(int i = 0; i < 5000; ++i) {
+            text.append( "\u00f1" ).append( i );
+        }
+
+        final byte[] bytes = ( "[\"" + text + "\", 1]" ).getBytes( StandardCharsets.UTF_8 );
+
+        try {
+            assertEquals( "BEGIN_ARRAY STRING:" + text + " NUMBER:1 END_ARRAY END_OF_INPUT",
+                          parseInChunks( bytes, 7 ) );
+        } catch(IOException exc) {
+            fail( "parsing long string: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testNeedsMoreInput()
+    {
+        final JsonPushParser parser = new JsonPushParser();
+        final byte[] bytes = "[12".getBytes( StandardCharsets.UTF_8 );
+
+        try {
+            assertEquals( Event.NEED_MORE_INPUT, parser.next() );
+            parser.feed( bytes, 0, bytes.length );
+            assertEquals( Event.BEGIN_ARRAY, parser.next() );
+            assertEquals( 1, parser.getDepth() );
+
+            // The number might go on
+            assertEquals( Event.NEED_MORE_INPUT, parser.next() );
+            parser.feed( bytes, 1, 2 );
+            assertEquals( Event.NEED_MORE_INPUT, parser.next() );
+            parser.feed( ",[".getBytes( StandardCharsets.UTF_8 ), 0, 2 );
+            assertEquals( Event.NUMBER, parser.next() );
+            assertEquals( 1212, parser.getInt() );
+            assertEquals( Event.BEGIN_ARRAY, parser.next() );
+            assertEquals( 2, parser.getDepth() );
+            assertEquals( Event.NEED_MORE_INPUT, parser.next() );
+        } catch(IOException exc) {
+            fail( "needing more input: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testLimits()
+    {
+        final JsonLimits limits = JsonLimits.DEFAULT.withMaxDepth( 3 )
+                                                    .withMaxStringLength( 5 )
+                                                    .withMaxNumberLength( 4 );
+        final String[] documents = { "[[[[1]]]]", "[\"123456\"]", "[12345]", "[abcdefgh]" };
+        final String[] errors = {
+            "nesting deeper than the limit: 3",
+            "string longer than the limit: 5",
+            "number longer than the limit: 4",
+            "token longer than the limit: 5"
+        };
+
+        for(int i = 0; i < documents.length; ++i) {
+            final JsonPushParser parser = new JsonPushParser();
+            final byte[] bytes = documents[ i ].getBytes( StandardCharsets.UTF_8 );
+
+            parser.setLimits( limits );
+
+            try {
+                // The string is never complete, so it must not be held
+                parser.feed( bytes, 0, bytes.length - 1 );
+
+                while( parser.next() != Event.NEED_MORE_INPUT ) {
+                    assertTrue( true );
+                }
+
+                parser.feed( bytes, bytes.length - 1, 1 );
+                parser.endOfInput();
+
+                while( parser.next() != Event.END_OF_INPUT ) {
+                    assertTrue( true );
+                }
+
+                fail( "parsing beyond the limits: " + documents[ i ] );
+            } catch(IOException exc) {
+                // Chk
+                assertEquals( errors[ i ], exc.getMessage() );
+            }
+        }
+
+        final String[] moreDocuments = { "{\"a\":1,\"b\":2,\"c\":3}", "[1, 2, 3, 4, 5, 6, 7, 8, 9]" };
+        final String[] moreErrors = {
+            "more members in object than the limit: 2",
+            "document larger than the limit: 16"
+        };
+        final JsonLimits moreLimits = JsonLimits.DEFAULT.withMaxEntries( 2 ).withMaxDocumentSize( 16 );
+
+        for(int i = 0; i < moreDocuments.length; ++i) {
+            final JsonPushParser parser = new JsonPushParser();
+
+            parser.setLimits( moreLimits );
+
+            try {
+                parseInChunks( parser, moreDocuments[ i ].getBytes( StandardCharsets.UTF_8 ), 3 );
+                fail( "parsing beyond the limits: " + moreDocuments[ i ] );
+            } catch(IOException exc) {
+                // Chk
+                assertEquals( moreErrors[ i ], exc.getMessage() );
+            }
+        }
+
+        try {
+            final JsonPushParser parser = new JsonPushParser();
+            final StringBuilder values = new StringBuilder();
+
+            for(int i = 0; i < 1000; ++i) {
+                values.append( "{\"a\": [1, 2]}\n" );
+            }
+
+            // Chk: each top-level value is a document of its own
+            parser.setLimits( moreLimits );
+            parseInChunks( parser, values.toString().getBytes( StandardCharsets.UTF_8 ), 7 );
+        } catch(IOException exc) {
+            fail( "parsing a sequence of documents: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testErrors()
+    {
+        final String[] documents = { "[1, 2}", "{\"a\": \"unclosed", "[1, 2", "[truth]", "]",
+                                     "{\"a\" \"b\"}", "{\"a\", 1}", "[1 2]", "[1,, 2]", "[, 1]",
+                                     "[1, 2,]", "{\"a\": 1,}", "{\"a\":: 1}", "1, 2",
+                                     "[12abc]", "[1-2]", "[01]", "[1.]", "[-]", "[1e+]" };
+
+        for(String document: documents) {
+            try {
+                parseInChunks( document.getBytes( StandardCharsets.UTF_8 ), 3 );
+                assertFalse( "error not detected in: " + document, true );
+            } catch(IOException exc) {
+                assertTrue( true );
+            }
+        }
+    }
+}
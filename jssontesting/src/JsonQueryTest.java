@@ -0,0 +1,113 @@
+import com.devbaltasarq.jsson.JsonQuery;
+import com.devbaltasarq.jsson.JsonReader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JsonQueryTest {
+    private static final String ORDER = "{\n" +
+            "  \"meta\": { \"id\": 1234, \"source\": \"web\", \"a/b\": true },\n" +
+            "  \"items\": [\n" +
+            "    { \"name\": \"pen\", \"price\": 1.5 },\n" +
+            "    { \"name\": \"ink\", \"price\": 7 },\n" +
+            "    { \"name\": \"pad\", \"price\": 2.25, \"tags\": [\"paper\", null] }\n" +
+            "  ],\n" +
+            "  \"customer\": \"baltasarq\"\n" +
+            "}";
+
+    @Test
+    public void testPointers()
+    {
+        final JsonQuery query = JsonQuery.compile( "/meta/id", "/items/2/price", "/items/2/tags",
+                                                   "/meta/a~1b", "/items/9/price", "/customer" );
+
+        try {
+            final Map<String, Object> values = query.extract( new JsonReader( new StringReader( ORDER ) ) );
+
+            // Chk
+            assertEquals( 5, values.size() );
+            assertEquals( 1234L, values.get( "/meta/id" ) );
+            assertEquals( 2.25, values.get( "/items/2/price" ) );
+            assertEquals( Arrays.asList( "paper", null ), values.get( "/items/2/tags" ) );
+            assertEquals( true, values.get( "/meta/a~1b" ) );
+            assertEquals( "baltasarq", values.get( "/customer" ) );
+            assertFalse( values.containsKey( "/items/9/price" ) );
+        } catch(IOException exc) {
+            fail( "querying pointers: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testJsonPaths()
+    {
+        final JsonQuery query = JsonQuery.compile( "$.items[1]", "$.items[1].name", "$['meta'].source" );
+
+        try {
+            final Map<String, Object> values = query.extract( new JsonReader( new StringReader( ORDER ) ) );
+            final Map<?, ?> item = (Map<?, ?>) values.get( "$.items[1]" );
+
+            // Chk
+            assertEquals( 3, values.size() );
+            assertEquals( "ink", item.get( "name" ) );
+            assertEquals( 7L, item.get( "price" ) );
+            assertEquals( "ink", values.get( "$.items[1].name" ) );
+            assertEquals( "web", values.get( "$['meta'].source" ) );
+        } catch(IOException exc) {
+            fail( "querying json paths: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testStopsWhenResolved()
+    {
+        // The document is broken after the values looked for
+        final String document = "{\"meta\": {\"id\": 7, \"skip\": [1, {\"x\": \"]\"}]}, \"rest\": [[[ @@@";
+        final JsonQuery query = JsonQuery.compile( "/meta/id" );
+
+        try {
+            final Map<String, Object> values = query.extract( new JsonReader( new StringReader( document ) ) );
+
+            // Chk
+            assertEquals( 7L, values.get( "/meta/id" ) );
+        } catch(IOException exc) {
+            fail( "querying broken document: " + exc.getMessage() );
+        }
+
+        // Once meta has been read, its missing members cannot be found later
+        final JsonQuery missingQuery = JsonQuery.compile( "/meta/name" );
+
+        try {
+            final Map<String, Object> values = missingQuery.extract( new JsonReader( new StringReader( document ) ) );
+
+            // Chk
+            assertTrue( values.isEmpty() );
+        } catch(IOException exc) {
+            fail( "querying missing value: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testInvalidPaths()
+    {
+        final List<String> invalidPaths = Arrays.asList( "meta", "$.items[x]", "$.items[1", "$$",
+                                                         "$..price", "$.", "$.items.", "$.items.*", "$.items[*]" );
+
+        for(String path: invalidPaths) {
+            try {
+                JsonQuery.compile( path );
+                fail( "invalid path accepted: " + path );
+            } catch(IllegalArgumentException exc) {
+                // Expected
+            }
+        }
+    }
+}
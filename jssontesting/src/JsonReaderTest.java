@@ -1,13 +1,23 @@
+import com.devbaltasarq.jsson.AbstractJsonReader;
+import com.devbaltasarq.jsson.FieldSet;
 import com.devbaltasarq.jsson.JsonReader;
+import com.devbaltasarq.jsson.NameTable;
+import com.devbaltasarq.jsson.StringView;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Random;
 
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 
 public class JsonReaderTest {
     @Test
@@ -386,4 +396,520 @@ public class JsonReaderTest {
             assertFalse( "reading complex object: " + exc.getMessage(), true );
         }
     }
+
+    @Test
+    public void testTokenTypes()
+    {
+        String jsonObject = "{\"name\":\"null\", \"nothing\": null, \"yes\":true,\t\"no\":false,\r\n"
+                            + " \"pi\":-3.14, nullable: 'x', \"list\":[]}";
+        StringReader reader = new StringReader( jsonObject );
+
+        try {
+            JsonReader jsonReader = new JsonReader( reader );
+
+            assertEquals( JsonReader.TokenType.OPEN_OBJECT, jsonReader.nextTokenType() );
+            jsonReader.beginObject();
+            assertEquals( "name", jsonReader.nextName() );
+            assertEquals( JsonReader.TokenType.STRING, jsonReader.nextTokenType() );
+            assertEquals( "null", jsonReader.nextString() );
+            assertEquals( "nothing", jsonReader.nextName() );
+            assertEquals( JsonReader.TokenType.NULL, jsonReader.nextTokenType() );
+            assertTrue( jsonReader.isNullAhead() );
+            jsonReader.nextNull();
+            assertEquals( "yes", jsonReader.nextName() );
+            assertEquals( JsonReader.TokenType.BOOLEAN, jsonReader.nextTokenType() );
+            assertTrue( jsonReader.nextBoolean() );
+            assertEquals( "no", jsonReader.nextName() );
+            assertTrue( jsonReader.isBooleanAhead() );
+            assertFalse( jsonReader.nextBoolean() );
+            assertEquals( "pi", jsonReader.nextName() );
+            assertEquals( JsonReader.TokenType.NUMBER, jsonReader.nextTokenType() );
+            assertEquals( -3.14, jsonReader.nextFloat(), 0.001 );
+            assertEquals( JsonReader.TokenType.UNESCAPED_ID, jsonReader.nextTokenType() );
+            assertEquals( "nullable", jsonReader.nextName() );
+            assertEquals( "x", jsonReader.nextString() );
+            assertEquals( "list", jsonReader.nextName() );
+            assertEquals( JsonReader.TokenType.OPEN_ARRAY, jsonReader.nextTokenType() );
+            jsonReader.beginArray();
+            assertEquals( JsonReader.TokenType.CLOSE_ARRAY, jsonReader.nextTokenType() );
+            jsonReader.endArray();
+            assertEquals( JsonReader.TokenType.CLOSE_OBJECT, jsonReader.nextTokenType() );
+            jsonReader.endObject();
+            assertEquals( JsonReader.TokenType.END, jsonReader.nextTokenType() );
+        } catch(IOException exc)  {
+            assertFalse( "reading token types: " + exc.getMessage(), true );
+        }
+    }
+
+    @Test
+    public void testLongEscapedStrings()
+    {
+        final StringBuilder longText = new StringBuilder();
+
+        for(int i = 0; i < 5000; ++i) {
+            longText.append( "line " ).append( i ).append( "\\n\\t\\\"" );
+        }
+
+        String jsonObject = "[\"" + longText + "\", \"" + longText + "\"]";
+        String expected = longText.toString().replace( "\\n", "\n" )
+                                             .replace( "\\t", "\t" )
+                                             .replace( "\\\"", "\"" );
+        StringReader reader = new StringReader( jsonObject );
+
+        try {
+            JsonReader jsonReader = new JsonReader( reader );
+
+            jsonReader.beginArray();
+            assertEquals( expected, jsonReader.nextString() );
+            assertEquals( expected, jsonReader.nextString() );
+            assertFalse( jsonReader.hasNext() );
+            jsonReader.endArray();
+        } catch(IOException exc)  {
+            assertFalse( "reading long escaped strings: " + exc.getMessage(), true );
+        }
+    }
+
+    @Test
+    public void testAllEscapes()
+    {
+        final String json = "[\"\\\"\\\\\\/\\b\\f\\n\\r\\t\", \"\\u00f1\\u20AC\\ud834\\udd1e\\u0041\", "
+                            + "{\"a\\u0062\": 1}]";
+
+        try {
+            final JsonReader jsonReader = new JsonReader( new StringReader( json ) );
+
+            jsonReader.beginArray();
+            assertEquals( "\"\\/\b\f\n\r\t", jsonReader.nextString() );
+            assertEquals( "\u00f1\u20ac\ud834\udd1eA", jsonReader.nextString() );
+            jsonReader.beginObject();
+            assertEquals( "ab", jsonReader.nextName() );
+            assertEquals( 1, jsonReader.nextInt() );
+            jsonReader.endObject();
+            jsonReader.endArray();
+        } catch(IOException exc)  {
+            assertFalse( "reading escapes: " + exc.getMessage(), true );
+        }
+
+        // Chk: wrong escapes
+        for(String wrongString: new String[] { "\"\\x\"", "\"\\u12\"", "\"\\u12g4\"" }) {
+            try {
+                new JsonReader( new StringReader( wrongString ) ).nextString();
+                assertFalse( "wrong escape read: " + wrongString, true );
+            } catch(IOException exc)  {
+                assertTrue( true );
+            }
+        }
+    }
+
+    @Test
+    public void testOpeningFile()
+    {
+        final int count = 10000;
+        final StringBuilder jsonArray = new StringBuilder( "[" );
+        Path path = null;
+
+        for(int i = 0; i < count; ++i) {
+            jsonArray.append( "{\"id\": " ).append( i ).append( ", \"name\": \"item" ).append( i ).append( "\"}," );
+        }
+        jsonArray.append( ']' );
+
+        try {
+            path = Files.createTempFile( "jsson", ".json" );
+            Files.write( path, jsonArray.toString().getBytes( StandardCharsets.UTF_8 ) );
+
+            final AbstractJsonReader jsonReader = AbstractJsonReader.open( path );
+            int i = 0;
+
+            jsonReader.beginArray();
+            while ( jsonReader.hasNext() ) {
+                jsonReader.beginObject();
+                assertEquals( "id", jsonReader.nextName() );
+                assertEquals( i, jsonReader.nextInt() );
+                assertEquals( "name", jsonReader.nextName() );
+                assertEquals( "item" + i, jsonReader.nextString() );
+                jsonReader.endObject();
+                ++i;
+            }
+            jsonReader.endArray();
+            jsonReader.close();
+
+            // Chk
+            assertFalse( jsonReader.hasNext() );
+            assertEquals( count, i );
+        } catch(IOException exc)  {
+            assertFalse( "reading from file: " + exc.getMessage(), true );
+        } finally {
+            try {
+                if ( path != null ) {
+                    Files.delete( path );
+                }
+            } catch(IOException ignored) {
+            }
+        }
+    }
+
+    @Test
+    public void testNumbers()
+    {
+        String jsonArray = "[0, -7, +12, 2147483648, -9223372036854775808, 123456789012345678,"
+                            + " 1e10, -2.5E-3, 1.50, .5, 0.000001234, 1e400, 123456789012345678901234567890.5]";
+        StringReader reader = new StringReader( jsonArray );
+
+        try {
+            JsonReader jsonReader = new JsonReader( reader );
+
+            jsonReader.beginArray();
+            assertEquals( 0, jsonReader.nextInt() );
+            assertEquals( -7, jsonReader.nextInt() );
+            assertEquals( 12, jsonReader.nextLong() );
+            assertEquals( 2147483648L, jsonReader.nextLong() );
+            assertEquals( Long.MIN_VALUE, jsonReader.nextLong() );
+            assertEquals( 123456789012345678L, jsonReader.nextLong() );
+            assertEquals( 1e10, jsonReader.nextDouble(), 0.0 );
+            assertEquals( -2.5e-3, jsonReader.nextDouble(), 0.0 );
+            assertEquals( new BigDecimal( "1.50" ), jsonReader.nextBigDecimal() );
+            assertEquals( 0.5, jsonReader.nextFloat(), 0.0 );
+            assertEquals( 0.000001234, jsonReader.nextDouble(), 0.0 );
+            assertEquals( Double.POSITIVE_INFINITY, jsonReader.nextDouble(), 0.0 );
+            assertEquals( new BigDecimal( "123456789012345678901234567890.5" ), jsonReader.nextBigDecimal() );
+            assertFalse( jsonReader.hasNext() );
+            jsonReader.endArray();
+        } catch(IOException exc)  {
+            assertFalse( "reading numbers: " + exc.getMessage(), true );
+        }
+    }
+
+    @Test
+    public void testHugeExponents()
+    {
+        final String jsonArray = "[1e2000000, -25e-2000000, 1e2000000, 0.5e-123456]";
+
+        try {
+            final JsonReader jsonReader = new JsonReader( new StringReader( jsonArray ) );
+
+            // Chk: exponents too long to compute are taken from the text
+            jsonReader.beginArray();
+            assertEquals( new BigDecimal( "1e2000000" ), jsonReader.nextBigDecimal() );
+            assertEquals( new BigDecimal( "-25e-2000000" ), jsonReader.nextBigDecimal() );
+            assertEquals( Double.POSITIVE_INFINITY, jsonReader.nextDouble(), 0.0 );
+            assertEquals( 0.0, jsonReader.nextDouble(), 0.0 );
+            jsonReader.endArray();
+        } catch(IOException exc)  {
+            assertFalse( "reading huge exponents: " + exc.getMessage(), true );
+        }
+    }
+
+    @Test
+    public void testDoublesAreCorrectlyRounded()
+    {
+        final Random random = new Random( 1 );
+        final double[] numbers = new double[ 10000 ];
+        final StringBuilder jsonArray = new StringBuilder( "[" );
+
+        for(int i = 0; i < numbers.length; ++i) {
+            if ( i % 2 == 0 ) {
+                numbers[ i ] = ( random.nextInt( 2000000 ) - 1000000 ) / 1000.0;
+            } else {
+                numbers[ i ] = random.nextGaussian() * Math.pow( 10, random.nextInt( 40 ) - 20 );
+            }
+
+            jsonArray.append( numbers[ i ] ).append( ',' );
+        }
+        jsonArray.append( ']' );
+
+        try {
+            JsonReader jsonReader = new JsonReader( new StringReader( jsonArray.toString() ) );
+
+            jsonReader.beginArray();
+            for(double number: numbers) {
+                assertEquals( number, jsonReader.nextDouble(), 0.0 );
+            }
+            jsonReader.endArray();
+        } catch(IOException exc)  {
+            assertFalse( "reading doubles: " + exc.getMessage(), true );
+        }
+    }
+
+    @Test
+    public void testCanonicalNames()
+    {
+        String jsonArray = "[{\"x\":1,\"y\":2}, {x:3,'y':4}, {\"x\":5,\"\\ty\":6}]";
+        final NameTable names = new NameTable();
+
+        try {
+            final JsonReader jsonReader1 = new JsonReader( new StringReader( jsonArray ) );
+            final JsonReader jsonReader2 = new JsonReader( new StringReader( jsonArray ) );
+
+            jsonReader1.setNameTable( names );
+            jsonReader2.setNameTable( names );
+
+            for(JsonReader jsonReader: new JsonReader[] { jsonReader1, jsonReader2 }) {
+                jsonReader.beginArray();
+                while ( jsonReader.hasNext() ) {
+                    jsonReader.beginObject();
+                    while ( jsonReader.hasNext() ) {
+                        final String name = jsonReader.nextName();
+
+                        assertSame( names.intern( name ), name );
+                        jsonReader.nextInt();
+                    }
+                    jsonReader.endObject();
+                }
+                jsonReader.endArray();
+            }
+
+            // Chk
+            assertEquals( 3, names.size() );
+            assertSame( names.intern( "x" ), names.intern( new String( "x" ) ) );
+        } catch(IOException exc)  {
+            assertFalse( "reading canonical names: " + exc.getMessage(), true );
+        }
+    }
+
+    @Test
+    public void testSharedNameTable()
+    {
+        final int count = 2000;
+        final NameTable names = new NameTable( count );
+        final NameTable smallNames = new NameTable( 3 );
+        final String[][] found = new String[ 4 ][ count ];
+        final Thread[] threads = new Thread[ found.length ];
+
+        for(int t = 0; t < threads.length; ++t) {
+            final String[] canonical = found[ t ];
+
+            threads[ t ] = new Thread( () -> {
+                for(int i = 0; i < count; ++i) {
+                    canonical[ i ] = names.intern( new String( "name" + i ) );
+                }
+            });
+            threads[ t ].start();
+        }
+
+        try {
+            for(Thread thread: threads) {
+                thread.join();
+            }
+        } catch(InterruptedException exc) {
+            assertFalse( "interning concurrently: " + exc.getMessage(), true );
+        }
+
+        for(int i = 0; i < 10; ++i) {
+            smallNames.intern( "name" + i );
+        }
+
+        // Chk: all threads get the same instances
+        assertEquals( count, names.size() );
+        for(int i = 0; i < count; ++i) {
+            for(String[] canonical: found) {
+                assertSame( found[ 0 ][ i ], canonical[ i ] );
+            }
+        }
+
+        // Chk: names beyond the capacity are not kept
+        assertEquals( 3, smallNames.size() );
+        assertSame( smallNames.intern( "name0" ), smallNames.intern( new String( "name0" ) ) );
+        assertEquals( "name9", smallNames.intern( "name9" ) );
+    }
+
+    @Test
+    public void testFieldSet()
+    {
+        final FieldSet POINT = FieldSet.of( "x", "y", "author" );
+        String jsonObject = "{\"x\":11, z: 0, \"author\": \"baltasarq\", 'y':17}";
+        int x = -1;
+        int y = -1;
+        String author = "";
+        int unknown = 0;
+
+        try {
+            JsonReader jsonReader = new JsonReader( new StringReader( jsonObject ) );
+
+            jsonReader.beginObject();
+            while ( jsonReader.hasNext() ) {
+                switch ( jsonReader.nextName( POINT ) ) {
+                    case 0:
+                        x = jsonReader.nextInt();
+                        break;
+                    case 1:
+                        y = jsonReader.nextInt();
+                        break;
+                    case 2:
+                        author = jsonReader.nextString();
+                        break;
+                    case FieldSet.UNKNOWN:
+                        ++unknown;
+                        jsonReader.nextInt();
+                        break;
+                }
+            }
+            jsonReader.endObject();
+
+            // Chk
+            assertEquals( 11, x );
+            assertEquals( 17, y );
+            assertEquals( "baltasarq", author );
+            assertEquals( 1, unknown );
+            assertEquals( 1, POINT.indexOf( "y" ) );
+            assertEquals( "author", POINT.nameOf( 2 ) );
+        } catch(IOException exc)  {
+            assertFalse( "reading with field set: " + exc.getMessage(), true );
+        }
+    }
+
+    @Test
+    public void testSkipValue()
+    {
+        final StringBuilder longText = new StringBuilder();
+
+        for(int i = 0; i < 3000; ++i) {
+            longText.append( "{[\\\"" ).append( i ).append( "\\\\" );
+        }
+
+        String jsonObject = "{\"a\": {\"b\": [1, 2.5e-3, {\"c\": \"}]\\\"\"}], 'd': null},"
+                            + " \"e\": 3, \"long\": [\"" + longText + "\", true],"
+                            + " \"f\": \"last\", \"g\": false}";
+        int e = -1;
+        String f = "";
+
+        try {
+            JsonReader jsonReader = new JsonReader( new StringReader( jsonObject ) );
+
+            jsonReader.beginObject();
+            while ( jsonReader.hasNext() ) {
+                final String nextName = jsonReader.nextName();
+
+                if ( nextName.equals( "e" ) ) {
+                    e = jsonReader.nextInt();
+                }
+                else
+                if ( nextName.equals( "f" ) ) {
+                    f = jsonReader.nextString();
+                } else {
+                    jsonReader.skipValue();
+                }
+            }
+            jsonReader.endObject();
+
+            // Chk
+            assertFalse( jsonReader.hasNext() );
+            assertEquals( 3, e );
+            assertEquals( "last", f );
+        } catch(IOException exc)  {
+            assertFalse( "skipping values: " + exc.getMessage(), true );
+        }
+    }
+
+    @Test
+    public void testStringViews()
+    {
+        final int count = 3000;
+        final StringBuilder jsonArray = new StringBuilder( "[" );
+
+        for(int i = 0; i < count; ++i) {
+            jsonArray.append( "{\"id\"  :  \"x" ).append( i )
+                     .append( "\", 'text': \"a\\\"b\", \"none\": null}," );
+        }
+        jsonArray.append( ']' );
+
+        try {
+            final JsonReader jsonReader = new JsonReader( new StringReader( jsonArray.toString() ) );
+            int i = 0;
+
+            jsonReader.beginArray();
+            while ( jsonReader.hasNext() ) {
+                jsonReader.beginObject();
+                while ( jsonReader.hasNext() ) {
+                    final StringView name = jsonReader.nextNameView();
+
+                    if ( name.contentEquals( "id" ) ) {
+                        final StringView id = jsonReader.nextStringView();
+
+                        assertTrue( id.contentEquals( "x" + i ) );
+                        assertEquals( ( "x" + i ).hashCode(), id.hashCode() );
+                        assertEquals( "x" + i, id.toString() );
+                    }
+                    else
+                    if ( name.contentEquals( "text" ) ) {
+                        final StringView text = jsonReader.nextStringView();
+
+                        assertEquals( 3, text.length() );
+                        assertEquals( '"', text.charAt( 1 ) );
+                        assertEquals( "a\"", text.subSequence( 0, 2 ) );
+                    } else {
+                        assertEquals( "none", name.toString() );
+                        assertEquals( null, jsonReader.nextStringView() );
+                    }
+                }
+                jsonReader.endObject();
+                ++i;
+            }
+            jsonReader.endArray();
+
+            // Chk
+            assertFalse( jsonReader.hasNext() );
+            assertEquals( count, i );
+        } catch(IOException exc)  {
+            assertFalse( "reading string views: " + exc.getMessage(), true );
+        }
+    }
+
+    @Test
+    public void testNumericArrays()
+    {
+        final int count = 5000;
+        final StringBuilder ints = new StringBuilder( "[" );
+        final StringBuilder reals = new StringBuilder( "[" );
+
+        for(int i = 0; i < count; ++i) {
+            ints.append( i - 2500 ).append( ", " );
+            reals.append( i ).append( ".5e-1,\n" );
+        }
+        ints.append( ']' );
+        reals.append( ']' );
+
+        final String jsonObject = "{\"ints\": " + ints + ", \"longs\": [1, -9223372036854775808, 7],"
+                                    + " \"reals\": " + reals + ", \"empty\": [ ], \"small\": [1.5, 2]}";
+
+        try {
+            final JsonReader jsonReader = new JsonReader( new StringReader( jsonObject ) );
+            final double[] small = new double[ 4 ];
+
+            jsonReader.beginObject();
+            assertEquals( "ints", jsonReader.nextName() );
+            final int[] intValues = jsonReader.nextIntArray();
+            assertEquals( "longs", jsonReader.nextName() );
+            final long[] longValues = jsonReader.nextLongArray();
+            assertEquals( "reals", jsonReader.nextName() );
+            final double[] realValues = jsonReader.nextDoubleArray();
+            assertEquals( "empty", jsonReader.nextName() );
+            assertEquals( 0, jsonReader.nextIntArray( new int[ 0 ] ) );
+            assertEquals( "small", jsonReader.nextName() );
+            assertEquals( 2, jsonReader.nextDoubleArray( small ) );
+            jsonReader.endObject();
+
+            // Chk
+            assertEquals( count, intValues.length );
+            assertEquals( count, realValues.length );
+
+            for(int i = 0; i < count; ++i) {
+                assertEquals( i - 2500, intValues[ i ] );
+                assertEquals( Double.parseDouble( i + ".5e-1" ), realValues[ i ], 0.0 );
+            }
+
+            assertEquals( 3, longValues.length );
+            assertEquals( Long.MIN_VALUE, longValues[ 1 ] );
+            assertEquals( 1.5, small[ 0 ], 0.0 );
+            assertEquals( 2.0, small[ 1 ], 0.0 );
+        } catch(IOException exc)  {
+            assertFalse( "reading numeric arrays: " + exc.getMessage(), true );
+        }
+
+        try {
+            new JsonReader( new StringReader( "[1, 2, 3]" ) ).nextIntArray( new int[ 2 ] );
+            assertFalse( "array bigger than buffer not detected", true );
+        } catch(IOException exc)  {
+            assertTrue( true );
+        }
+    }
 }
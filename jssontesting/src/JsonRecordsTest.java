@@ -0,0 +1,167 @@
+import com.devbaltasarq.jsson.AbstractJsonReader;
+import com.devbaltasarq.jsson.JsonLimits;
+import com.devbaltasarq.jsson.JsonRecords;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JsonRecordsTest {
+    private static final int COUNT = 20000;
+
+    private static String record(int i)
+    {
+        return "{\"id\": " + i + ", \"name\": \"a, \\\"b\\\"\\n]" + i + "\", \"tags\": [1, {\"x\": \"}\"}]}";
+    }
+
+    private static int readId(AbstractJsonReader reader) throws IOException
+    {
+        int toret = -1;
+
+        reader.beginObject();
+        while( reader.hasNext() ) {
+            final String name = reader.nextName();
+
+            if ( name.equals( "id" ) ) {
+                toret = reader.nextInt();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return toret;
+    }
+
+    private static byte[] ndjson()
+    {
+        final StringBuilder toret = new StringBuilder();
+
+        for(int i = 0; i < COUNT; ++i) {
+            toret.append( record( i ) ).append( '\n' );
+        }
+
+        return toret.toString().getBytes( StandardCharsets.UTF_8 );
+    }
+
+    private static byte[] array()
+    {
+        final StringBuilder toret = new StringBuilder( "[\n" );
+
+        for(int i = 0; i < COUNT; ++i) {
+            if ( i > 0 ) {
+                toret.append( ",\n" );
+            }
+
+            toret.append( record( i ) );
+        }
+
+        return toret.append( "\n]" ).toString().getBytes( StandardCharsets.UTF_8 );
+    }
+
+    private static void checkIds(List<Integer> ids)
+    {
+        assertEquals( COUNT, ids.size() );
+
+        for(int i = 0; i < COUNT; ++i) {
+            assertEquals( i, (int) ids.get( i ) );
+        }
+    }
+
+    @Test
+    public void testParallelNdjson()
+    {
+        try {
+            final List<Integer> ids = JsonRecords.ndjson( ndjson(), JsonRecordsTest::readId )
+                                                .parallel()
+                                                .collect( Collectors.toList() );
+
+            // Chk
+            checkIds( ids );
+        } catch(UncheckedIOException exc) {
+            fail( "reading ndjson: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testDocumentSizePerRecord()
+    {
+        final JsonLimits limits = JsonLimits.DEFAULT.withMaxDocumentSize( 128 );
+
+        try {
+            final List<Integer> ids = JsonRecords.ndjson( ndjson(), reader -> {
+                                                    reader.setLimits( limits );
+                                                    return readId( reader );
+                                                 })
+                                                .collect( Collectors.toList() );
+
+            // Chk: the limit applies to each record, not to all of them
+            checkIds( ids );
+        } catch(UncheckedIOException exc) {
+            fail( "reading ndjson within the limits: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testParallelArray()
+    {
+        try {
+            final List<Integer> ids = JsonRecords.array( array(), JsonRecordsTest::readId )
+                                                .parallel()
+                                                .collect( Collectors.toList() );
+
+            // Chk
+            checkIds( ids );
+            assertEquals( 0, JsonRecords.array( "[ ]".getBytes( StandardCharsets.UTF_8 ),
+                                                JsonRecordsTest::readId ).count() );
+        } catch(IOException | UncheckedIOException exc) {
+            fail( "reading array: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testForEachInPool()
+    {
+        final ForkJoinPool pool = new ForkJoinPool( 4 );
+        final AtomicLong sum = new AtomicLong();
+
+        try {
+            JsonRecords.forEach( pool, JsonRecords.ndjson( ndjson(), JsonRecordsTest::readId ), id -> sum.addAndGet( id ) );
+            assertEquals( ( (long) COUNT * ( COUNT - 1 ) ) / 2, sum.get() );
+
+            sum.set( 0 );
+            JsonRecords.forEach( pool, JsonRecords.array( array(), JsonRecordsTest::readId ), id -> sum.addAndGet( id ) );
+            assertEquals( ( (long) COUNT * ( COUNT - 1 ) ) / 2, sum.get() );
+        } catch(IOException exc) {
+            fail( "reading in pool: " + exc.getMessage() );
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testErrorsInRecords()
+    {
+        final byte[] bytes = ( record( 0 ) + "\n{\"id\": }\n" ).getBytes( StandardCharsets.UTF_8 );
+        final ForkJoinPool pool = new ForkJoinPool( 2 );
+
+        try {
+            JsonRecords.forEach( pool, JsonRecords.ndjson( bytes, JsonRecordsTest::readId ), id -> {} );
+            assertFalse( "error in record not detected", true );
+        } catch(IOException exc) {
+            assertTrue( true );
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+import com.devbaltasarq.jsson.JsonValidator;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JsonValidatorTest {
+    private static final String JSON_OBJECT = "{\"firstName\":\"John\",\"age\":25,\"height\":-1.85e+2,\n"
+                                            + "  \"alive\":true,\"spouse\":null,\"empty\":{},\"none\":[],\n"
+                                            + "  \"address\":{\"city\":\"New York\",\"postalCode\":\"10021\"},\n"
+                                            + "  \"phoneNumbers\":[{\"type\":\"home\",\"number\":\"212 555-1234\"},\n"
+                                            + "                  {\"type\":\"fax\",\"number\":\"646 555-4567\"}],\n"
+                                            + "  \"name\":\"a\u00f1o \\\"x\\\" \\u20ac\\/\\b\\f\\n\\r\\t\\\\\",\"zero\":0}";
+
+    @Test
+    public void testValid()
+    {
+        final JsonValidator validator = new JsonValidator();
+
+        // Chk
+        assertTrue( validator.validate( JSON_OBJECT ) );
+        assertNull( validator.getErrorMessage() );
+        assertEquals( -1, validator.getErrorOffset() );
+        assertTrue( validator.validate( JSON_OBJECT.getBytes( StandardCharsets.UTF_8 ) ) );
+        assertTrue( validator.validate( JSON_OBJECT.toCharArray(), 0, JSON_OBJECT.length() ) );
+        assertTrue( validator.validate( " 42 " ) );
+        assertTrue( validator.validate( "\"\"" ) );
+        assertTrue( validator.validate( "[[[]],[{}]]" ) );
+        assertTrue( validator.validate( "[0.5,-0,1E5,2e-3]" ) );
+    }
+
+    @Test
+    public void testInvalid()
+    {
+        final JsonValidator validator = new JsonValidator();
+        final String[] wrongDocs = {
+            "", "{", "[1,]", "{\"a\":1,}", "{\"a\" 1}", "{a:1}", "[1 2]", "[1}", "{\"a\":1]",
+            "01", "1.", ".5", "-", "1e", "+1", "tru", "nul", "True", "'a'",
+            "\"abc", "\"a\\x\"", "\"\\u12g4\"", "\"a\tb\"", "[1] [2]", "{} x"
+        };
+
+        for(String wrongDoc: wrongDocs) {
+            assertFalse( "valid: " + wrongDoc, validator.validate( wrongDoc ) );
+            assertTrue( validator.getErrorMessage() != null );
+        }
+    }
+
+    @Test
+    public void testErrorPosition()
+    {
+        final JsonValidator validator = new JsonValidator();
+        final String json = "{\n  \"a\": [1, 2,],\n  \"b\": 3\n}";
+
+        // Chk: the wrong char is the closing bracket
+        assertFalse( validator.validate( json ) );
+        assertEquals( json.indexOf( ']' ), validator.getErrorOffset() );
+        assertEquals( 2, validator.getErrorLine() );
+        assertEquals( 14, validator.getErrorColumn() );
+        assertEquals( "expected value", validator.getErrorMessage() );
+
+        // Chk: offsets are relative to the start of the document
+        final byte[] bytes = ( "xx" + json ).getBytes( StandardCharsets.UTF_8 );
+        assertFalse( validator.validate( bytes, 2, bytes.length - 2 ) );
+        assertEquals( json.indexOf( ']' ), validator.getErrorOffset() );
+
+        // Chk: results of the last document are forgotten
+        assertTrue( validator.validate( "[]" ) );
+        assertEquals( -1, validator.getErrorLine() );
+    }
+
+    @Test
+    public void testUtf8()
+    {
+        final JsonValidator validator = new JsonValidator();
+
+        assertTrue( validator.validate( "\"\u00f1\u20ac\ud83d\ude00\"".getBytes( StandardCharsets.UTF_8 ) ) );
+
+        // Chk: a lone continuation byte, a truncated sequence, an overlong form and a surrogate
+        assertFalse( validator.validate( new byte[] { '"', (byte) 0x80, '"' } ) );
+        assertFalse( validator.validate( new byte[] { '"', (byte) 0xe2, (byte) 0x82, '"' } ) );
+        assertFalse( validator.validate( new byte[] { '"', (byte) 0xc0, (byte) 0xaf, '"' } ) );
+        assertFalse( validator.validate( new byte[] { '"', (byte) 0xed, (byte) 0xa0, (byte) 0x80, '"' } ) );
+        assertEquals( 1, validator.getErrorOffset() );
+    }
+
+    @Test
+    public void testDeepNesting()
+    {
+        final JsonValidator validator = new JsonValidator();
+        final StringBuilder json = new StringBuilder();
+
+        for(int i = 0; i < 1000; ++i) {
+            json.append( i % 2 == 0 ? "[" : "{\"a\":" );
+        }
+
+        json.append( '0' );
+
+        for(int i = 999; i >= 0; --i) {
+            json.append( i % 2 == 0 ? "]" : "}" );
+        }
+
+        // Chk
+        assertTrue( validator.validate( json ) );
+        assertFalse( validator.validate( json.substring( 0, json.length() - 1 ) ) );
+    }
+}
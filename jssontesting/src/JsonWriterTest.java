@@ -1,10 +1,16 @@
+import com.devbaltasarq.jsson.JsonReader;
 import com.devbaltasarq.jsson.JsonWriter;
+import com.devbaltasarq.jsson.PreparedName;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.fail;
 
 public class JsonWriterTest {
@@ -215,4 +221,257 @@ public class JsonWriterTest {
             fail( "writing complex json object: " + exc.getMessage() );
         }
     }
+
+    @Test
+    public void testWritingNestedArrays()
+    {
+        final String Nested = "[[1,[2,3],[]],[{\"a\":[4,{}],\"b\":5},6],{\"c\":[[7]]},8]";
+        final StringWriter writer = new StringWriter();
+        final JsonWriter jsonWriter = new JsonWriter( writer );
+
+        try {
+            // Write
+            jsonWriter.beginArray()
+                    .beginArray()
+                        .value( 1 )
+                        .beginArray().value( 2 ).value( 3 ).endArray()
+                        .beginArray().endArray()
+                    .endArray()
+                    .beginArray()
+                        .beginObject()
+                            .name( "a" ).beginArray().value( 4 ).beginObject().endObject().endArray()
+                            .name( "b" ).value( 5 )
+                        .endObject()
+                        .value( 6 )
+                    .endArray()
+                    .beginObject()
+                        .name( "c" ).beginArray().beginArray().value( 7 ).endArray().endArray()
+                    .endObject()
+                    .value( 8 )
+                .endArray();
+            jsonWriter.close();
+            writer.close();
+
+            // Chk
+            assertEquals( Nested, writer.toString() );
+        } catch(IOException exc)
+        {
+            fail( "writing nested arrays: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testValidatingOrder()
+    {
+        final JsonWriter jsonWriter = new JsonWriter( new StringWriter() );
+
+        // Chk: not validating by default
+        assertFalse( jsonWriter.isValidating() );
+        jsonWriter.setValidating( true );
+
+        try {
+            jsonWriter.beginObject().value( 1 );
+            fail( "value with no name in an object" );
+        } catch(IOException exc) {
+            assertEquals( "value with no name in an object", exc.getMessage() );
+        }
+
+        try {
+            jsonWriter.reset( new StringWriter() );
+            jsonWriter.beginArray().name( "a" );
+            fail( "name in an array" );
+        } catch(IOException exc) {
+            assertEquals( "name outside of an object: a", exc.getMessage() );
+        }
+
+        try {
+            jsonWriter.reset( new StringWriter() );
+            jsonWriter.beginObject().name( "a" ).name( "b" );
+            fail( "name after a name" );
+        } catch(IOException exc) {
+            assertEquals( "name with no value before it: b", exc.getMessage() );
+        }
+
+        try {
+            jsonWriter.reset( new StringWriter() );
+            jsonWriter.beginObject().name( "a" ).endObject();
+            fail( "end after a name" );
+        } catch(IOException exc) {
+            assertEquals( "end with no value after the last name", exc.getMessage() );
+        }
+
+        try {
+            jsonWriter.reset( new StringWriter() );
+            jsonWriter.beginArray().endObject();
+            fail( "end of the wrong kind" );
+        } catch(IOException exc) {
+            assertEquals( "expected end of array, but found end of object", exc.getMessage() );
+        }
+
+        try {
+            final StringWriter writer = new StringWriter();
+
+            // Chk: a well-formed document is written as ever
+            jsonWriter.reset( writer );
+            jsonWriter.beginObject()
+                    .name( "a" ).beginArray().value( 1 ).nullValue().endArray()
+                    .name( "b" ).value( "c" )
+                .endObject();
+            jsonWriter.flush();
+            assertEquals( "{\"a\":[1,null],\"b\":\"c\"}", writer.toString() );
+        } catch(IOException exc) {
+            fail( "validating a well-formed document: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testWritingPreparedNamesAndRawValues()
+    {
+        final PreparedName x = new PreparedName( "x" );
+        final PreparedName quoted = new PreparedName( "a\"b\u00f1" );
+        final String cached = "{\"y\":[1,2]}";
+        final StringWriter writer = new StringWriter();
+        final JsonWriter jsonWriter = new JsonWriter( writer );
+
+        try {
+            // Write
+            jsonWriter.beginArray()
+                    .beginObject()
+                        .name( x ).value( 5 )
+                        .name( quoted ).rawValue( cached )
+                    .endObject()
+                    .rawValue( cached )
+                    .rawValue( "[true,null]".toCharArray(), 1, 4 )
+                .endArray();
+            jsonWriter.close();
+            writer.close();
+
+            // Chk
+            assertEquals( "a\"b\u00f1", quoted.getName() );
+            assertEquals( "[{\"x\":5,\"a\\\"b\u00f1\":{\"y\":[1,2]}},{\"y\":[1,2]},true]",
+                          writer.toString() );
+        } catch(IOException exc)
+        {
+            fail( "writing prepared names and raw values: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testWritingNumericArrays()
+    {
+        final StringWriter writer = new StringWriter();
+        final JsonWriter jsonWriter = new JsonWriter( writer );
+
+        try {
+            // Write
+            jsonWriter.beginObject()
+                    .name( "ints" ).value( new int[] { 0, -1, 42, Integer.MIN_VALUE, Integer.MAX_VALUE } )
+                    .name( "reals" ).value( new double[] { 0.5, -2.0, 1e-7 } )
+                    .name( "empty" ).value( new int[ 0 ] )
+                .endObject();
+            jsonWriter.close();
+            writer.close();
+
+            // Chk
+            assertEquals( "{\"ints\":[0,-1,42,-2147483648,2147483647],"
+                            + "\"reals\":[0.5,-2.0,1.0E-7],\"empty\":[]}",
+                          writer.toString() );
+        } catch(IOException exc)
+        {
+            fail( "writing numeric arrays: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testWritingShortestNumbers()
+    {
+        final StringWriter writer = new StringWriter();
+        final JsonWriter jsonWriter = new JsonWriter( writer );
+        final Random random = new Random( 42 );
+
+        try {
+            // Write
+            jsonWriter.beginObject()
+                    .name( "long" ).value( Long.MIN_VALUE )
+                    .name( "longs" ).value( new long[] { 0, 99, -100, Long.MAX_VALUE } )
+                    .name( "reals" ).value( new double[] { 0.1, 1e23, -0.0, 100.0, 1234567.0, 1e7, 0.001, 4.9e-324 } )
+                    .name( "floats" ).value( new float[] { 0.1f, 9.007199E15f, 1.0E-5f } )
+                    .name( "decimal" ).value( new BigDecimal( "-12345678901234567" ) )
+                    .name( "scaled" ).value( new BigDecimal( "1.50" ) )
+                .endObject();
+            jsonWriter.close();
+            writer.close();
+
+            // Chk: no digits more than needed, unlike Double.toString() before Java 19
+            assertEquals( "{\"long\":-9223372036854775808,"
+                            + "\"longs\":[0,99,-100,9223372036854775807],"
+                            + "\"reals\":[0.1,1.0E23,-0.0,100.0,1234567.0,1.0E7,0.001,4.9E-324],"
+                            + "\"floats\":[0.1,9.007199E15,1.0E-5],"
+                            + "\"decimal\":-12345678901234567,\"scaled\":1.50}",
+                          writer.toString() );
+
+            // Chk: random reals are read back as they were
+            final double[] reals = new double[ 1000 ];
+
+            for(int i = 0; i < reals.length; ++i) {
+                reals[ i ] = Double.longBitsToDouble( random.nextLong() );
+
+                if ( Double.isNaN( reals[ i ] )
+                  || Double.isInfinite( reals[ i ] ) )
+                {
+                    reals[ i ] = random.nextDouble();
+                }
+            }
+
+            final StringWriter realsWriter = new StringWriter();
+            final JsonWriter realsJsonWriter = new JsonWriter( realsWriter );
+
+            realsJsonWriter.value( reals );
+            realsJsonWriter.close();
+
+            final JsonReader jsonReader = new JsonReader( new StringReader( realsWriter.toString() ) );
+
+            jsonReader.beginArray();
+            for(double real: reals) {
+                assertEquals( Double.doubleToLongBits( real ), Double.doubleToLongBits( jsonReader.nextDouble() ) );
+            }
+            jsonReader.endArray();
+        } catch(IOException exc)
+        {
+            fail( "writing shortest numbers: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testEscapingStrings()
+    {
+        final String text = "say \"hi\"\\\b\f\n\r\t\u0001/\u00f1\ud834\udd1e";
+        final StringWriter writer = new StringWriter();
+        final JsonWriter jsonWriter = new JsonWriter( writer );
+
+        try {
+            // Write
+            jsonWriter.beginObject()
+                    .name( "a\"b" ).value( text )
+                    .name( "plain" ).value( "plain" )
+                .endObject();
+            jsonWriter.close();
+            writer.close();
+
+            // Chk
+            assertEquals( "{\"a\\\"b\":\"say \\\"hi\\\"\\\\\\b\\f\\n\\r\\t\\u0001/\u00f1\ud834\udd1e\","
+                            + "\"plain\":\"plain\"}",
+                          writer.toString() );
+
+            // Chk: it is read back as it was
+            final JsonReader jsonReader = new JsonReader( new StringReader( writer.toString() ) );
+
+            jsonReader.beginObject();
+            assertEquals( "a\"b", jsonReader.nextName() );
+            assertEquals( text, jsonReader.nextString() );
+        } catch(IOException exc)
+        {
+            fail( "writing escaped strings: " + exc.getMessage() );
+        }
+    }
 }
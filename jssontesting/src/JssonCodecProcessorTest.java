@@ -0,0 +1,202 @@
+import com.devbaltasarq.jsson.JsonMapper;
+import com.devbaltasarq.jsson.JsonReader;
+import com.devbaltasarq.jsson.JsonWriter;
+import com.devbaltasarq.jsson.JssonCodec;
+import com.devbaltasarq.jsson.Utf8JsonReader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** The codecs used here are generated by JssonCodecProcessor, when compiling the tests. */
+public class JssonCodecProcessorTest {
+    enum Kind { HOME, FAX }
+
+    @JssonCodec
+    static class Phone {
+        Kind type;
+        String number;
+    }
+
+    static class Entity {
+        long id;
+    }
+
+    @JssonCodec
+    static class Person extends Entity {
+        public String getSecret()
+        {
+            return this.secret;
+        }
+
+        public void setSecret(String secret)
+        {
+            this.secret = secret;
+        }
+
+        String firstName;
+        int age;
+        double height;
+        boolean alive;
+        float weight;
+        Integer rank;
+        BigDecimal big;
+        List<Phone> phoneNumbers;
+        List<List<String>> tags;
+        long[] stamps;
+        Person spouse;
+        private String secret;
+        transient String ignored;
+    }
+
+    @JssonCodec
+    static class Small {
+        short s;
+        byte b;
+        char c;
+        Short boxedShort;
+        Byte boxedByte;
+        Character boxedChar;
+    }
+
+    private static final String JSON_PERSON = "{\"id\":9000000000,\"firstName\":\"John\",\"age\":25,"
+                                            + "\"height\":1.85,\"alive\":true,\"weight\":70.5,\"rank\":null,"
+                                            + "\"big\":123456789012345678901234567890,"
+                                            + "\"phoneNumbers\":[{\"type\":\"HOME\",\"number\":\"212 555-1234\"},"
+                                            + "{\"type\":\"FAX\",\"number\":null}],"
+                                            + "\"tags\":[[\"a\",\"b\"],[]],\"stamps\":[1,2],"
+                                            + "\"spouse\":{\"firstName\":\"Jane\"},\"secret\":\"s\",\"unknown\":[1]}";
+
+    @Test
+    public void testRead()
+    {
+        try {
+            final Person person = JssonCodecProcessorTest_PersonJsonCodec.INSTANCE.read(
+                                        new JsonReader( new StringReader( JSON_PERSON ) ) );
+
+            // Chk
+            assertEquals( 9000000000L, person.id );
+            assertEquals( "John", person.firstName );
+            assertEquals( 25, person.age );
+            assertEquals( 1.85, person.height, 0.0 );
+            assertTrue( person.alive );
+            assertEquals( 70.5f, person.weight, 0.0f );
+            assertNull( person.rank );
+            assertEquals( new BigDecimal( "123456789012345678901234567890" ), person.big );
+            assertEquals( 2, person.phoneNumbers.size() );
+            assertEquals( Kind.FAX, person.phoneNumbers.get( 1 ).type );
+            assertNull( person.phoneNumbers.get( 1 ).number );
+            assertEquals( "b", person.tags.get( 0 ).get( 1 ) );
+            assertTrue( person.tags.get( 1 ).isEmpty() );
+            assertArrayEquals( new long[] { 1, 2 }, person.stamps );
+            assertEquals( "Jane", person.spouse.firstName );
+            assertNull( person.spouse.spouse );
+            assertEquals( "s", person.getSecret() );
+        } catch(IOException exc) {
+            fail( "reading object: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testWrite()
+    {
+        try {
+            final Phone phone = new Phone();
+            final StringWriter output = new StringWriter();
+            final JsonWriter writer = new JsonWriter( output );
+
+            phone.type = Kind.HOME;
+            JssonCodecProcessorTest_PhoneJsonCodec.INSTANCE.write( writer, phone );
+            writer.close();
+
+            // Chk
+            assertEquals( "{\"type\":\"HOME\",\"number\":null}", output.toString() );
+        } catch(IOException exc) {
+            fail( "writing object: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testSmallPrimitives()
+    {
+        final String json = "{\"s\":-300,\"b\":100,\"c\":\"\u00f1\",\"boxedShort\":7,\"boxedByte\":null,\"boxedChar\":\"x\"}";
+
+        try {
+            final Small small = JssonCodecProcessorTest_SmallJsonCodec.INSTANCE.read(
+                                        new JsonReader( new StringReader( json ) ) );
+            final StringWriter output = new StringWriter();
+            final JsonWriter writer = new JsonWriter( output );
+
+            assertEquals( -300, small.s );
+            assertEquals( 100, small.b );
+            assertEquals( '\u00f1', small.c );
+            assertEquals( 7, (short) small.boxedShort );
+            assertNull( small.boxedByte );
+            assertEquals( 'x', (char) small.boxedChar );
+
+            // Chk: written back the same, as the mapper does
+            JssonCodecProcessorTest_SmallJsonCodec.INSTANCE.write( writer, small );
+            writer.close();
+            assertEquals( json, output.toString() );
+        } catch(IOException exc) {
+            fail( "reading small primitives: " + exc.getMessage() );
+        }
+
+        // Chk: the same values out of range as in the mapper are rejected
+        final String[] wrongDocs = { "{\"s\":40000}", "{\"b\":128}", "{\"boxedByte\":-129}", "{\"c\":\"ab\"}", "{\"c\":null}", "{\"s\":null}" };
+
+        for(String wrongDoc: wrongDocs) {
+            try {
+                JssonCodecProcessorTest_SmallJsonCodec.INSTANCE.read( new JsonReader( new StringReader( wrongDoc ) ) );
+                assertFalse( "wrong value read: " + wrongDoc, true );
+            } catch(IOException exc) {
+                assertTrue( true );
+            }
+        }
+    }
+
+    @Test
+    public void testSameAsMapper()
+    {
+        final JsonMapper mapper = new JsonMapper();
+        final String json = "{\"type\":\"FAX\",\"number\":\"646 555-4567\"}";
+
+        try {
+            final byte[] bytes = json.getBytes( StandardCharsets.UTF_8 );
+            final Phone phone = mapper.read( new Utf8JsonReader( bytes ), Phone.class );
+            final StringWriter output = new StringWriter();
+            final JsonWriter writer = new JsonWriter( output );
+
+            JssonCodecProcessorTest_PhoneJsonCodec.INSTANCE.write( writer, phone );
+            writer.close();
+
+            // Chk: the mapper uses the generated codec
+            assertEquals( json, output.toString() );
+        } catch(IOException exc) {
+            fail( "reading object: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testUnknownConstant()
+    {
+        try {
+            JssonCodecProcessorTest_PhoneJsonCodec.INSTANCE.read(
+                                        new JsonReader( new StringReader( "{\"type\":\"MOBILE\"}" ) ) );
+            assertFalse( "unknown enum constant read", true );
+        } catch(IOException exc) {
+            assertTrue( true );
+        }
+    }
+}
@@ -0,0 +1,182 @@
+import com.devbaltasarq.jsson.AbstractJsonReader;
+import com.devbaltasarq.jsson.Utf8JsonReader;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class Utf8JsonReaderTest {
+    private static final String POINT_OBJECT = "{\"name\": \"a\u00f1o \\\"\u20ac\\\" \ud834\udd1e\", \"x\": 11, \"y\": -17, \"visible\": true}";
+
+    private static void readPointObject(AbstractJsonReader jsonReader) throws IOException
+    {
+        String name = "";
+        int x = -1;
+        int y = -1;
+        boolean visible = false;
+
+        jsonReader.beginObject();
+        while ( jsonReader.hasNext() ) {
+            final String nextName = jsonReader.nextName();
+
+            if ( nextName.equals( "name" ) ) {
+                name = jsonReader.nextString();
+            }
+            else
+            if ( nextName.equals( "x" ) ) {
+                x = jsonReader.nextInt();
+            }
+            else
+            if ( nextName.equals( "y" ) ) {
+                y = jsonReader.nextInt();
+            }
+            else
+            if ( nextName.equals( "visible" ) ) {
+                visible = jsonReader.nextBoolean();
+            }
+        }
+        jsonReader.endObject();
+
+        // Chk
+        assertFalse( jsonReader.hasNext() );
+        assertEquals( "a\u00f1o \"\u20ac\" \ud834\udd1e", name );
+        assertEquals( 11, x );
+        assertEquals( -17, y );
+        assertTrue( visible );
+    }
+
+    @Test
+    public void testReadingFromBytes()
+    {
+        final byte[] bytes = POINT_OBJECT.getBytes( StandardCharsets.UTF_8 );
+
+        try {
+            readPointObject( new Utf8JsonReader( bytes ) );
+        } catch(IOException exc)  {
+            assertFalse( "reading from bytes: " + exc.getMessage(), true );
+        }
+    }
+
+    @Test
+    public void testReadingFromStream()
+    {
+        final byte[] bytes = POINT_OBJECT.getBytes( StandardCharsets.UTF_8 );
+
+        try {
+            readPointObject( new Utf8JsonReader( new ByteArrayInputStream( bytes ) ) );
+        } catch(IOException exc)  {
+            assertFalse( "reading from stream: " + exc.getMessage(), true );
+        }
+    }
+
+    @Test
+    public void testReadingFromBuffers()
+    {
+        final byte[] bytes = POINT_OBJECT.getBytes( StandardCharsets.UTF_8 );
+        final ByteBuffer heapBuffer = ByteBuffer.wrap( bytes );
+        final ByteBuffer directBuffer = ByteBuffer.allocateDirect( bytes.length );
+
+        directBuffer.put( bytes );
+        directBuffer.flip();
+
+        try {
+            readPointObject( new Utf8JsonReader( heapBuffer ) );
+            readPointObject( new Utf8JsonReader( directBuffer ) );
+            assertEquals( 0, heapBuffer.position() );
+            assertEquals( 0, directBuffer.position() );
+        } catch(IOException exc)  {
+            assertFalse( "reading from buffers: " + exc.getMessage(), true );
+        }
+    }
+
+    @Test
+    public void testLongArrayFromStream()
+    {
+        final int count = 20000;
+        final StringBuilder jsonArray = new StringBuilder( "[" );
+
+        for(int i = 0; i < count; ++i) {
+            jsonArray.append( "\"\u00f1" ).append( i ).append( "\"," );
+        }
+        jsonArray.append( ']' );
+
+        final byte[] bytes = jsonArray.toString().getBytes( StandardCharsets.UTF_8 );
+
+        try {
+            final AbstractJsonReader jsonReader = new Utf8JsonReader( new ByteArrayInputStream( bytes ) );
+            int i = 0;
+
+            jsonReader.beginArray();
+            while ( jsonReader.hasNext() ) {
+                assertEquals( "\u00f1" + i, jsonReader.nextString() );
+                ++i;
+            }
+            jsonReader.endArray();
+
+            assertEquals( count, i );
+        } catch(IOException exc)  {
+            assertFalse( "reading long array from stream: " + exc.getMessage(), true );
+        }
+    }
+
+    @Test
+    public void testStringViews()
+    {
+        final int count = 5000;
+        final StringBuilder jsonArray = new StringBuilder( "[" );
+
+        for(int i = 0; i < count; ++i) {
+            jsonArray.append( "{\"a\": \"plain" ).append( i )
+                     .append( "\", \"\u00f1\": \"a\u00f1o\\\"\"}," );
+        }
+        jsonArray.append( ']' );
+
+        final byte[] bytes = jsonArray.toString().getBytes( StandardCharsets.UTF_8 );
+
+        try {
+            final AbstractJsonReader jsonReader = new Utf8JsonReader( new ByteArrayInputStream( bytes ) );
+            int i = 0;
+
+            jsonReader.beginArray();
+            while ( jsonReader.hasNext() ) {
+                jsonReader.beginObject();
+                assertTrue( jsonReader.nextNameView().contentEquals( "a" ) );
+                assertTrue( jsonReader.nextStringView().contentEquals( "plain" + i ) );
+                assertTrue( jsonReader.nextNameView().contentEquals( "\u00f1" ) );
+                assertEquals( "a\u00f1o\"", jsonReader.nextStringView().toString() );
+                jsonReader.endObject();
+                ++i;
+            }
+            jsonReader.endArray();
+
+            // Chk
+            assertEquals( count, i );
+        } catch(IOException exc)  {
+            assertFalse( "reading string views: " + exc.getMessage(), true );
+        }
+    }
+
+    @Test
+    public void testUnicodeEscapes()
+    {
+        final String json = "[\"a\\u00f1\\u20ac\\uD834\\uDD1E\\n\", \"\\ud834x\"]";
+
+        try {
+            final AbstractJsonReader jsonReader = new Utf8JsonReader( json.getBytes( StandardCharsets.UTF_8 ) );
+
+            // Chk: escapes are encoded as UTF-8, surrogate pairs as a whole
+            jsonReader.beginArray();
+            assertEquals( "a\u00f1\u20ac\ud834\udd1e\n", jsonReader.nextString() );
+            assertEquals( "\ufffdx", jsonReader.nextString() );
+            jsonReader.endArray();
+        } catch(IOException exc)  {
+            assertFalse( "reading unicode escapes: " + exc.getMessage(), true );
+        }
+    }
+}
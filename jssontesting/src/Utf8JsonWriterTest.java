@@ -0,0 +1,238 @@
+import com.devbaltasarq.jsson.AbstractJsonReader;
+import com.devbaltasarq.jsson.AbstractJsonWriter;
+import com.devbaltasarq.jsson.PreparedName;
+import com.devbaltasarq.jsson.Utf8JsonReader;
+import com.devbaltasarq.jsson.Utf8JsonWriter;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class Utf8JsonWriterTest {
+    private static final String NAME = "a\u00f1o \"\u20ac\" \ud834\udd1e";
+    private static final String POINT_OBJECT = "{\"name\":\"a\u00f1o \\\"\u20ac\\\" \ud834\udd1e\",\"\u00f1\":11,\"visible\":true}";
+
+    private static void writePointObject(AbstractJsonWriter jsonWriter) throws IOException
+    {
+        jsonWriter.beginObject()
+                .name( "name" ).value( NAME )
+                .name( "\u00f1" ).value( 11 )
+                .name( "visible" ).value( true )
+                .endObject();
+    }
+
+    @Test
+    public void testWritingToBytes()
+    {
+        final Utf8JsonWriter jsonWriter = new Utf8JsonWriter();
+
+        try {
+            writePointObject( jsonWriter );
+            jsonWriter.flush();
+
+            // Chk
+            assertArrayEquals( POINT_OBJECT.getBytes( StandardCharsets.UTF_8 ), jsonWriter.toByteArray() );
+        } catch(IOException exc) {
+            fail( "writing to bytes: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testWritingToStream()
+    {
+        final int count = 20000;
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        final StringBuilder expected = new StringBuilder( "[" );
+
+        try {
+            final AbstractJsonWriter jsonWriter = new Utf8JsonWriter( stream );
+
+            jsonWriter.beginArray();
+            for(int i = 0; i < count; ++i) {
+                jsonWriter.value( "\u00f1" + i );
+
+                if ( i > 0 ) {
+                    expected.append( ',' );
+                }
+
+                expected.append( "\"\u00f1" ).append( i ).append( '"' );
+            }
+            jsonWriter.endArray();
+            jsonWriter.close();
+            expected.append( ']' );
+
+            // Chk
+            assertArrayEquals( expected.toString().getBytes( StandardCharsets.UTF_8 ), stream.toByteArray() );
+        } catch(IOException exc) {
+            fail( "writing to stream: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testWritingToBuffers()
+    {
+        final byte[] expected = POINT_OBJECT.getBytes( StandardCharsets.UTF_8 );
+        final ByteBuffer heapBuffer = ByteBuffer.allocate( expected.length + 2 );
+        final ByteBuffer directBuffer = ByteBuffer.allocateDirect( expected.length );
+        final byte[] written = new byte[ expected.length ];
+
+        try {
+            heapBuffer.put( (byte) ' ' );
+            writePointObject( new Utf8JsonWriter( heapBuffer ) );
+            final AbstractJsonWriter directWriter = new Utf8JsonWriter( directBuffer );
+            writePointObject( directWriter );
+            directWriter.flush();
+
+            // Chk: heap buffers are written in place
+            assertEquals( 1, heapBuffer.position() );
+            heapBuffer.position( 1 );
+            heapBuffer.get( written );
+            assertArrayEquals( expected, written );
+
+            // Chk: direct buffers are written when flushing
+            assertEquals( expected.length, directBuffer.position() );
+            directBuffer.flip();
+            directBuffer.get( written );
+            assertArrayEquals( expected, written );
+        } catch(IOException exc) {
+            fail( "writing to buffers: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testFlushingInPlace()
+    {
+        final byte[] expected = POINT_OBJECT.getBytes( StandardCharsets.UTF_8 );
+        final ByteBuffer buffer = ByteBuffer.allocate( expected.length );
+
+        try {
+            final AbstractJsonWriter jsonWriter = new Utf8JsonWriter( buffer );
+
+            writePointObject( jsonWriter );
+            jsonWriter.flush();
+
+            // Chk
+            assertEquals( expected.length, buffer.position() );
+            assertArrayEquals( expected, buffer.array() );
+        } catch(IOException exc) {
+            fail( "flushing in place: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testBufferFull()
+    {
+        final ByteBuffer heapBuffer = ByteBuffer.allocate( 16 );
+        final ByteBuffer directBuffer = ByteBuffer.allocateDirect( 16 );
+
+        try {
+            writePointObject( new Utf8JsonWriter( heapBuffer ) );
+            fail( "writing past the end of a heap buffer" );
+        } catch(IOException exc) {
+            // Chk
+            assertEquals( "buffer full", exc.getMessage() );
+        }
+
+        try {
+            final AbstractJsonWriter jsonWriter = new Utf8JsonWriter( directBuffer );
+
+            writePointObject( jsonWriter );
+            jsonWriter.flush();
+            fail( "writing past the end of a direct buffer" );
+        } catch(IOException exc) {
+            // Chk
+            assertEquals( "buffer full", exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testWritingPreparedNamesAndRawValues()
+    {
+        final PreparedName name = new PreparedName( "name" );
+        final PreparedName enye = new PreparedName( "\u00f1" );
+        final byte[] cached = "[\"\u20ac\"]".getBytes( StandardCharsets.UTF_8 );
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        final StringBuilder expected = new StringBuilder( "[" );
+        final int count = 2000;
+
+        try {
+            final Utf8JsonWriter jsonWriter = new Utf8JsonWriter( stream );
+
+            jsonWriter.beginArray();
+            for(int i = 0; i < count; ++i) {
+                jsonWriter.beginObject()
+                        .name( name ).value( NAME )
+                        .name( enye );
+                jsonWriter.rawValue( cached, 0, cached.length );
+                jsonWriter.endObject();
+
+                if ( i > 0 ) {
+                    expected.append( ',' );
+                }
+
+                expected.append( "{\"name\":\"a\u00f1o \\\"\u20ac\\\" \ud834\udd1e\",\"\u00f1\":[\"\u20ac\"]}" );
+            }
+            jsonWriter.endArray();
+            jsonWriter.close();
+            expected.append( ']' );
+
+            // Chk: bytes are copied across flushes of the window
+            assertArrayEquals( expected.toString().getBytes( StandardCharsets.UTF_8 ), stream.toByteArray() );
+        } catch(IOException exc) {
+            fail( "writing prepared names and raw values: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testLoneSurrogates()
+    {
+        final Utf8JsonWriter jsonWriter = new Utf8JsonWriter();
+
+        try {
+            jsonWriter.beginArray()
+                    .value( "\ud834x\udd1e" )
+                    .endArray();
+            jsonWriter.flush();
+
+            // Chk: as String.getBytes() does
+            assertArrayEquals( "[\"\ud834x\udd1e\"]".getBytes( StandardCharsets.UTF_8 ), jsonWriter.toByteArray() );
+        } catch(IOException exc) {
+            fail( "writing lone surrogates: " + exc.getMessage() );
+        }
+    }
+
+    @Test
+    public void testReadingBack()
+    {
+        final Utf8JsonWriter jsonWriter = new Utf8JsonWriter();
+
+        try {
+            writePointObject( jsonWriter );
+            jsonWriter.flush();
+            writePointObject( jsonWriter );
+            jsonWriter.reset();
+            writePointObject( jsonWriter );
+            jsonWriter.flush();
+
+            final AbstractJsonReader jsonReader = new Utf8JsonReader( jsonWriter.toByteArray() );
+
+            // Chk: only the document after resetting is kept
+            jsonReader.beginObject();
+            assertEquals( "name", jsonReader.nextName() );
+            assertEquals( NAME, jsonReader.nextString() );
+            assertEquals( "\u00f1", jsonReader.nextName() );
+            assertEquals( 11, jsonReader.nextInt() );
+            assertEquals( "visible", jsonReader.nextName() );
+            assertEquals( true, jsonReader.nextBoolean() );
+            jsonReader.endObject();
+        } catch(IOException exc) {
+            fail( "reading back: " + exc.getMessage() );
+        }
+    }
+}
@@ -0,0 +1,1498 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The common part of all JSON readers: the pull API, over a window of units
+ * of the input, in which tokens are always kept contiguous, so the lookahead
+ * never needs to give units back.
+ * Each subclass provides its own window: chars for JsonReader, and UTF-8 bytes
+ * for Utf8JsonReader and IndexedJsonReader. Each of them is reset to a new
+ * input of its own kind, so there is no reset here.
+ * @author baltasarq
+ * @see JsonReader
+ * @see Utf8JsonReader
+ */
+public abstract class AbstractJsonReader implements Closeable {
+    private static final int MAX_SIGNIFICAND_DIGITS = 18;
+    private static final int MAX_EXPONENT = 100000;
+    private static final long MAX_EXACT_SIGNIFICAND = 1L << 53;
+    private static final int MAX_EXACT_POWER_OF_TEN = 22;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20,
+        1e21, 1e22 };
+    public enum TokenType {
+        ERROR, END, UNESCAPED_ID, STRING, NUMBER, BOOLEAN, NULL,
+        OPEN_OBJECT, CLOSE_OBJECT,
+        OPEN_ARRAY, CLOSE_ARRAY }
+
+    /** The token type for each possible first ASCII char of a token. */
+    private static final TokenType[] FIRST_CHAR_TOKENS = new TokenType[ 128 ];
+
+    static {
+        Arrays.fill( FIRST_CHAR_TOKENS, TokenType.ERROR );
+
+        for(int ch = 0; ch < FIRST_CHAR_TOKENS.length; ++ch) {
+            if ( Util.isOfClass( ch, Util.CC_DIGIT ) ) {
+                FIRST_CHAR_TOKENS[ ch ] = TokenType.NUMBER;
+            }
+            else
+            if ( Util.isOfClass( ch, Util.CC_ID ) ) {
+                FIRST_CHAR_TOKENS[ ch ] = TokenType.UNESCAPED_ID;
+            }
+            else
+            if ( Util.isOfClass( ch, Util.CC_QUOTES ) ) {
+                FIRST_CHAR_TOKENS[ ch ] = TokenType.STRING;
+            }
+        }
+
+        FIRST_CHAR_TOKENS[ '+' ] = TokenType.NUMBER;
+        FIRST_CHAR_TOKENS[ '-' ] = TokenType.NUMBER;
+        FIRST_CHAR_TOKENS[ '.' ] = TokenType.NUMBER;
+        FIRST_CHAR_TOKENS[ Util.OPEN_OBJECT_DELIMITER ] = TokenType.OPEN_OBJECT;
+        FIRST_CHAR_TOKENS[ Util.END_OBJECT_DELIMITER ] = TokenType.CLOSE_OBJECT;
+        FIRST_CHAR_TOKENS[ Util.OPEN_ARRAY_DELIMITER ] = TokenType.OPEN_ARRAY;
+        FIRST_CHAR_TOKENS[ Util.END_ARRAY_DELIMITER ] = TokenType.CLOSE_ARRAY;
+    }
+
+
+    /** Creates a new reader, for subclasses providing their own window. */
+    AbstractJsonReader()
+    {
+        this.pos = this.limit = 0;
+        this.discarded = 0;
+        this.state = new Util.State( JsonLimits.DEFAULT );
+        this.probe = JsonMetrics.ENABLED ? new JsonMetrics.Probe( true ) : null;
+    }
+
+    /** Opens a JSON file for reading. The file is mapped in memory,
+     * and tokenized in place, as UTF-8 bytes, with no copy to the heap.
+     * Files of any size can be read, since they are mapped in consecutive windows.
+     * @param path the path of the file, encoded in UTF-8.
+     * @return a new reader for the file.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static AbstractJsonReader open(Path path) throws IOException
+    {
+        return new MappedJsonReader( path );
+    }
+
+    /** @return the limits checked while reading. */
+    public JsonLimits getLimits()
+    {
+        return this.state.getLimits();
+    }
+
+    /** Changes the limits checked while reading.
+     * Exceeding any of them makes reading fail with an IOException.
+     * @param limits the new limits.
+     * @see JsonLimits
+     */
+    public void setLimits(JsonLimits limits)
+    {
+        if ( limits == null ) {
+            throw new IllegalArgumentException( "limits cannot be null" );
+        }
+
+        this.state.setLimits( limits );
+    }
+
+    /** @return the number of objects and arrays entered, and not yet ended. */
+    public int getDepth()
+    {
+        return this.state.getDepth();
+    }
+
+    /** Skips all spaces, tabs, newlines, commas... */
+    public void skipSpaces()
+    {
+        try {
+            this.skipSeparators();
+        } catch(IOException exc)
+        {
+            Logger.getGlobal().log( Level.WARNING, "attempted to skip spaces in a closed stream" );
+        }
+
+        return;
+    }
+
+    /** @return whether there is more input or not. */
+    public boolean hasNext()
+    {
+        boolean toret;
+
+        try {
+            this.skipSeparators();
+            final int ch = this.peek();
+
+            toret = ( ch != -1
+                   && ch != Util.END_ARRAY_DELIMITER
+                   && ch != Util.END_OBJECT_DELIMITER );
+        } catch(IOException exc)
+        {
+            toret = false;
+        }
+
+        return toret;
+    }
+
+    /** @return the type of the token ahead. */
+    public TokenType nextTokenType()
+    {
+        TokenType toret = TokenType.ERROR;
+
+        try {
+            // Go to the first important data
+            this.skipSeparators();
+            final int ch = this.peek();
+
+            // Classify it by its first char
+            if ( ch == -1 ) {
+                toret = TokenType.END;
+            }
+            else
+            if ( ch < FIRST_CHAR_TOKENS.length ) {
+                toret = FIRST_CHAR_TOKENS[ ch ];
+
+                if ( toret == TokenType.UNESCAPED_ID ) {
+                    if ( this.isKeywordAhead( Util.NULL_ID ) ) {
+                        toret = TokenType.NULL;
+                    }
+                    else
+                    if ( this.isKeywordAhead( Util.TRUE_ID )
+                      || this.isKeywordAhead( Util.FALSE_ID ) )
+                    {
+                        toret = TokenType.BOOLEAN;
+                    }
+                }
+            }
+        } catch(IOException exc)
+        {
+            Logger.getGlobal().log( Level.WARNING, "nextTokenType(): " + exc.getMessage() );
+            toret = TokenType.ERROR;
+        }
+
+        return toret;
+    }
+
+    /** @return true when the next token is a boolean, false otherwise. */
+    public boolean isBooleanAhead() throws IOException
+    {
+        this.skipSeparators();
+        return this.isKeywordAhead( Util.TRUE_ID )
+            || this.isKeywordAhead( Util.FALSE_ID );
+    }
+
+    /** @return true when the next token is null, false otherwise. */
+    public boolean isNullAhead() throws IOException
+    {
+        this.skipSeparators();
+        return this.isKeywordAhead( Util.NULL_ID );
+    }
+
+    /** Gets the next identifier.
+     * @return the identifier, as a string.
+     * @throws IOException if reading goes wrong.
+     */
+    public String getToken() throws IOException
+    {
+        this.skipSeparators();
+
+        final int length = this.lengthOfRun( 0, Util.CC_ID );
+        final String toret = this.stringOf( this.pos, length );
+
+        this.pos += length;
+        return toret;
+    }
+
+    public void beginObject() throws IOException
+    {
+        this.skipSeparators();
+        this.match( Util.OPEN_OBJECT_DELIMITER );
+        this.enter( true );
+        this.skipSeparators();
+    }
+
+    public void endObject() throws IOException
+    {
+        this.skipSeparators();
+        this.match( Util.END_OBJECT_DELIMITER );
+        this.leave( true );
+        this.skipSeparators();
+    }
+
+    public void beginArray() throws IOException
+    {
+        this.skipSeparators();
+        this.match( Util.OPEN_ARRAY_DELIMITER );
+        this.enter( false );
+        this.skipSeparators();
+    }
+
+    public void endArray() throws IOException
+    {
+        this.skipSeparators();
+        this.match( Util.END_ARRAY_DELIMITER );
+        this.leave( false );
+        this.skipSeparators();
+    }
+
+    /** Enters the object or array just matched. */
+    private void enter(boolean isObject) throws IOException
+    {
+        this.state.begin( isObject );
+        this.countToken();
+
+        if ( JsonMetrics.ENABLED ) {
+            this.probe.begin( this.state.getDepth(), this.discarded + this.pos - 1 );
+        }
+
+        return;
+    }
+
+    /** Leaves the object or array just matched. */
+    private void leave(boolean isObject) throws IOException
+    {
+        this.state.end( isObject );
+        this.countToken();
+
+        if ( JsonMetrics.ENABLED ) {
+            this.probe.end( this.state.getDepth(), this.discarded + this.pos );
+        }
+
+        return;
+    }
+
+    /** Counts a token read, for the metrics. */
+    void countToken()
+    {
+        if ( JsonMetrics.ENABLED ) {
+            this.probe.token();
+        }
+
+        return;
+    }
+
+    /** Reads a real number. Same as nextDouble().
+     * @return the read value.
+     * @throws IOException if reading goes wrong, or there is no number ahead.
+     */
+    public double nextFloat() throws IOException
+    {
+        return this.nextDouble();
+    }
+
+    /** Reads a real number, with optional fractional part and exponent.
+     * Numbers up to 2^53 with small exponents are computed exactly
+     * from their digits, while the rest are handed to Double.parseDouble().
+     * @return the read value.
+     * @throws IOException if reading goes wrong, or there is no number ahead.
+     */
+    public double nextDouble() throws IOException
+    {
+        final int length = this.scanNumber( "double" );
+        final long significand = this.numberSignificand;
+        final int exponent = this.numberExponent;
+        double toret;
+
+        if ( this.numberExact
+          && significand <= MAX_EXACT_SIGNIFICAND
+          && exponent >= -MAX_EXACT_POWER_OF_TEN
+          && exponent <= MAX_EXACT_POWER_OF_TEN )
+        {
+            // Both operands are exact, so the result is correctly rounded
+            if ( exponent >= 0 ) {
+                toret = significand * POWERS_OF_TEN[ exponent ];
+            } else {
+                toret = significand / POWERS_OF_TEN[ -exponent ];
+            }
+
+            if ( this.numberNegative ) {
+                toret = -toret;
+            }
+        } else {
+            toret = Double.parseDouble( this.stringOf( this.pos, length ) );
+        }
+
+        this.countToken();
+        this.pos += length;
+        return toret;
+    }
+
+    /** Reads an integer number.
+     * @return the read value.
+     * @throws IOException if reading goes wrong, or there is no integer ahead.
+     * @throws NumberFormatException if the value does not fit in an int.
+     */
+    public int nextInt() throws IOException
+    {
+        final long toret = this.nextIntegral( "int" );
+
+        if ( toret < Integer.MIN_VALUE
+          || toret > Integer.MAX_VALUE )
+        {
+            throw new NumberFormatException( "value out of range for int: " + toret );
+        }
+
+        return (int) toret;
+    }
+
+    /** Reads a long integer number.
+     * @return the read value.
+     * @throws IOException if reading goes wrong, or there is no integer ahead.
+     * @throws NumberFormatException if the value does not fit in a long.
+     */
+    public long nextLong() throws IOException
+    {
+        return this.nextIntegral( "long" );
+    }
+
+    /** Reads a number without any loss of precision.
+     * The scale of the result is the one of the number read,
+     * so 1.50 is read with scale 2, and 1e10 with scale -10.
+     * @return the read value.
+     * @throws IOException if reading goes wrong, or there is no number ahead.
+     */
+    public BigDecimal nextBigDecimal() throws IOException
+    {
+        final int length = this.scanNumber( "decimal" );
+        final BigDecimal toret;
+
+        if ( this.numberExact ) {
+            final long significand = this.numberSignificand;
+
+            toret = BigDecimal.valueOf( this.numberNegative ? -significand : significand,
+                                        -this.numberExponent );
+        } else {
+            toret = new BigDecimal( this.stringOf( this.pos, length ) );
+        }
+
+        this.countToken();
+        this.pos += length;
+        return toret;
+    }
+
+    /** Scans the number ahead, without consuming it, for the document model.
+     * The whole number is left in the window, from the cursor on.
+     * @return the length of the number, in units.
+     * @throws IOException if reading goes wrong, or there is no number ahead.
+     */
+    int scanNumberAhead() throws IOException
+    {
+        return this.scanNumber( "number" );
+    }
+
+    /** @return whether the number scanned last is an integer that fits in a long,
+     *          computed exactly from its digits. */
+    boolean isExactIntegral()
+    {
+        return this.numberIntegral && this.numberExact;
+    }
+
+    /** Reads a number with no fractional part nor exponent.
+     * @param type the expected type, for error messages.
+     * @return the read value.
+     */
+    private long nextIntegral(String type) throws IOException
+    {
+        final int length = this.scanNumber( type );
+        long toret;
+
+        if ( !this.numberIntegral ) {
+            throw new IOException( "expected " + type + ", but found: '"
+                                    + this.stringOf( this.pos, length ) + "'" );
+        }
+
+        if ( this.numberExact ) {
+            toret = this.numberSignificand;
+
+            if ( this.numberNegative ) {
+                toret = -toret;
+            }
+        } else {
+            toret = Long.parseLong( this.stringOf( this.pos, length ) );
+        }
+
+        this.countToken();
+        this.pos += length;
+        return toret;
+    }
+
+    /** Reads a whole array of integers, with no object per element.
+     * @return the elements read.
+     * @throws IOException if reading goes wrong, or an element is not an int.
+     * @throws NumberFormatException if an element does not fit in an int.
+     */
+    public int[] nextIntArray() throws IOException
+    {
+        int[] toret = new int[ 16 ];
+        int count = 0;
+
+        this.beginArray();
+        while( this.nextElement() ) {
+            if ( count == toret.length ) {
+                toret = Arrays.copyOf( toret, count * 2 );
+            }
+
+            toret[ count ] = this.nextInt();
+            ++count;
+        }
+        this.endArray();
+
+        return Arrays.copyOf( toret, count );
+    }
+
+    /** Reads a whole array of integers into an existing buffer.
+     * @param target the buffer to store the elements in.
+     * @return the number of elements read.
+     * @throws IOException if reading goes wrong, an element is not an int,
+     *                     or there are more elements than room in the buffer.
+     * @throws NumberFormatException if an element does not fit in an int.
+     */
+    public int nextIntArray(int[] target) throws IOException
+    {
+        int toret = 0;
+
+        this.beginArray();
+        while( this.nextElement() ) {
+            if ( toret == target.length ) {
+                throw new IOException( "more than " + target.length + " elements in array" );
+            }
+
+            target[ toret ] = this.nextInt();
+            ++toret;
+        }
+        this.endArray();
+
+        return toret;
+    }
+
+    /** Reads a whole array of long integers, with no object per element.
+     * @return the elements read.
+     * @throws IOException if reading goes wrong, or an element is not a long.
+     * @throws NumberFormatException if an element does not fit in a long.
+     */
+    public long[] nextLongArray() throws IOException
+    {
+        long[] toret = new long[ 16 ];
+        int count = 0;
+
+        this.beginArray();
+        while( this.nextElement() ) {
+            if ( count == toret.length ) {
+                toret = Arrays.copyOf( toret, count * 2 );
+            }
+
+            toret[ count ] = this.nextLong();
+            ++count;
+        }
+        this.endArray();
+
+        return Arrays.copyOf( toret, count );
+    }
+
+    /** Reads a whole array of long integers into an existing buffer.
+     * @param target the buffer to store the elements in.
+     * @return the number of elements read.
+     * @throws IOException if reading goes wrong, an element is not a long,
+     *                     or there are more elements than room in the buffer.
+     * @throws NumberFormatException if an element does not fit in a long.
+     */
+    public int nextLongArray(long[] target) throws IOException
+    {
+        int toret = 0;
+
+        this.beginArray();
+        while( this.nextElement() ) {
+            if ( toret == target.length ) {
+                throw new IOException( "more than " + target.length + " elements in array" );
+            }
+
+            target[ toret ] = this.nextLong();
+            ++toret;
+        }
+        this.endArray();
+
+        return toret;
+    }
+
+    /** Reads a whole array of real numbers, with no object per element.
+     * @return the elements read.
+     * @throws IOException if reading goes wrong, or an element is not a number.
+     */
+    public double[] nextDoubleArray() throws IOException
+    {
+        double[] toret = new double[ 16 ];
+        int count = 0;
+
+        this.beginArray();
+        while( this.nextElement() ) {
+            if ( count == toret.length ) {
+                toret = Arrays.copyOf( toret, count * 2 );
+            }
+
+            toret[ count ] = this.nextDouble();
+            ++count;
+        }
+        this.endArray();
+
+        return Arrays.copyOf( toret, count );
+    }
+
+    /** Reads a whole array of real numbers into an existing buffer.
+     * @param target the buffer to store the elements in.
+     * @return the number of elements read.
+     * @throws IOException if reading goes wrong, an element is not a number,
+     *                     or there are more elements than room in the buffer.
+     */
+    public int nextDoubleArray(double[] target) throws IOException
+    {
+        int toret = 0;
+
+        this.beginArray();
+        while( this.nextElement() ) {
+            if ( toret == target.length ) {
+                throw new IOException( "more than " + target.length + " elements in array" );
+            }
+
+            target[ toret ] = this.nextDouble();
+            ++toret;
+        }
+        this.endArray();
+
+        return toret;
+    }
+
+    /** Moves to the next element of an array.
+     * @return true if there is an element ahead, false at the end of the array.
+     * @throws IOException if reading goes wrong, or the input ends.
+     */
+    private boolean nextElement() throws IOException
+    {
+        this.skipSeparators();
+        final int ch = this.peek();
+
+        if ( ch == -1 ) {
+            throw new IOException( "expected: '" + Util.END_ARRAY_DELIMITER + "', but found the end of input" );
+        }
+
+        return ch != Util.END_ARRAY_DELIMITER;
+    }
+
+    /** If the given char is not found, throws an exception.
+     * @param ch the expected char.
+     * @throws IOException if reading goes wrong,
+     *                     or the read char is not the expected.
+     */
+    public void match(char ch) throws IOException
+    {
+        final int readChar = this.peek();
+
+        if ( readChar != ch ) {
+            throw new IOException( "expected: '" + ch
+                                    + "', but found: '" + readChar + "'" );
+        }
+
+        ++this.pos;
+        return;
+    }
+
+    /** Reads the next name in the JSON stream.
+     * Names are returned as their canonical instances in the name table,
+     * so a repeated name is returned without allocating a new string.
+     * @return the next name in the JSON stream.
+     * @throws IOException if reading goes wrong.
+     * @see #setNameTable(NameTable)
+     */
+    public String nextName() throws IOException
+    {
+        final NameTable names = this.getNameTable();
+        final int length = this.scanName();
+        String toret = null;
+
+        if ( this.namePlain ) {
+            toret = names.find( this, this.nameStart, this.nameLength, this.nameHash );
+        }
+
+        if ( toret == null ) {
+            toret = names.intern( this.nameString() );
+        }
+
+        this.pos += length;
+        this.matchNameSeparator( toret );
+        return toret;
+    }
+
+    /** Reads the next name in the JSON stream, and finds it in a set of fields.
+     * This allows to switch on the index of the name, instead of comparing strings.
+     * @param fields the set of expected fields.
+     * @return the index of the name in the set, or FieldSet.UNKNOWN if not found.
+     * @throws IOException if reading goes wrong.
+     */
+    public int nextName(FieldSet fields) throws IOException
+    {
+        final int length = this.scanName();
+        final int toret;
+
+        if ( this.namePlain ) {
+            toret = fields.find( this, this.nameStart, this.nameLength, this.nameHash );
+        } else {
+            toret = fields.indexOf( this.nameString() );
+        }
+
+        this.pos += length;
+        this.matchNameSeparator( toret != FieldSet.UNKNOWN ? fields.nameOf( toret ) : null );
+        return toret;
+    }
+
+    /** Reads the next name in the JSON stream, as a view of the window,
+     * with no copy. The view is reused, and only valid until the next read.
+     * @return the name, as a view.
+     * @throws IOException if reading goes wrong.
+     * @see StringView
+     */
+    public StringView nextNameView() throws IOException
+    {
+        final int length = this.scanName();
+        final StringView toret = this.view();
+        int p;
+
+        if ( !this.nameEscaped
+          && this.isViewable( this.nameStart, this.nameLength ) )
+        {
+            toret.set( this.nameStart, this.nameLength );
+        } else {
+            toret.set( this.nameString() );
+        }
+
+        this.pos += length;
+
+        // Find the separator in the window, so it is not refilled
+        p = this.pos;
+        while( p < this.limit
+            && Util.isOfClass( this.unitAt( p ), Util.CC_SEPARATOR ) )
+        {
+            ++p;
+        }
+
+        if ( p < this.limit
+          && this.unitAt( p ) == Util.NAME_SEPARATOR )
+        {
+            this.pos = p + 1;
+        } else {
+            toret.detach();
+            this.matchNameSeparator( toret.toString() );
+        }
+
+        return toret;
+    }
+
+    /** @return the table holding the canonical instances of the names read.
+     *          A new one is created for this reader if none was set.
+     */
+    public NameTable getNameTable()
+    {
+        if ( this.names == null ) {
+            this.names = new NameTable();
+        }
+
+        return this.names;
+    }
+
+    /** Sets the table holding the canonical instances of the names read.
+     * A table can be shared among readers, even in different threads.
+     * @param names the name table to use.
+     */
+    public void setNameTable(NameTable names)
+    {
+        this.names = names;
+    }
+
+    /** @return the next string, no matter of being enclosed
+     *          in single or double quotes, or null if 'null' was found. */
+    public String nextString() throws IOException
+    {
+        String toret = null;
+
+        this.skipSeparators();
+        this.countToken();
+
+        if ( Util.isOfClass( this.peek(), Util.CC_QUOTES ) ) {
+            toret = this.readQuoted();
+        }
+        else
+        if ( this.isKeywordAhead( Util.NULL_ID ) ) {
+            this.pos += Util.NULL_ID.length();
+        } else {
+            throw new IOException( "expected quotes: ' or double quotes: \"" );
+        }
+
+        return toret;
+    }
+
+    /** Reads the next string, as a view of the window, with no copy.
+     * The view is reused, and only valid until the next read.
+     * @return the string, as a view, or null if 'null' was found.
+     * @throws IOException if reading goes wrong.
+     * @see StringView
+     */
+    public StringView nextStringView() throws IOException
+    {
+        StringView toret = null;
+
+        this.skipSeparators();
+        this.countToken();
+
+        if ( Util.isOfClass( this.peek(), Util.CC_QUOTES ) ) {
+            final int offset = this.scanQuoted();
+            final int start = this.pos + 1;
+            final int end = this.pos + offset;
+
+            toret = this.view();
+
+            if ( !this.stringEscaped
+              && this.isViewable( start, end - start ) )
+            {
+                toret.set( start, end - start );
+            } else {
+                toret.set( this.unescape( start, end ) );
+            }
+
+            this.pos = end + 1;
+        }
+        else
+        if ( this.isKeywordAhead( Util.NULL_ID ) ) {
+            this.pos += Util.NULL_ID.length();
+        } else {
+            throw new IOException( "expected quotes: ' or double quotes: \"" );
+        }
+
+        return toret;
+    }
+
+    /** @return The read boolean value. */
+    public boolean nextBoolean() throws IOException
+    {
+        boolean toret = false;
+
+        this.skipSeparators();
+        this.countToken();
+
+        if ( this.isKeywordAhead( Util.TRUE_ID ) ) {
+            this.pos += Util.TRUE_ID.length();
+            toret = true;
+        }
+        else
+        if ( this.isKeywordAhead( Util.FALSE_ID ) ) {
+            this.pos += Util.FALSE_ID.length();
+        } else {
+            throw new IOException( "expected boolean, not: '" + this.tokenAhead() + '\'' );
+        }
+
+        return toret;
+    }
+
+    /** Reads a null value. */
+    public void nextNull() throws IOException
+    {
+        this.skipSeparators();
+        this.countToken();
+
+        if ( !this.isKeywordAhead( Util.NULL_ID ) ) {
+            throw new IOException( "expected null, not: '" + this.tokenAhead() + '\'' );
+        }
+
+        this.pos += Util.NULL_ID.length();
+        return;
+    }
+
+    /** Skips the next value, be it a scalar, an object or an array,
+     * whatever its depth. Only quotes, escapes and brackets are looked at,
+     * so no string is built for the contents of the value.
+     * @throws IOException if reading goes wrong, or there is no value ahead.
+     */
+    public void skipValue() throws IOException
+    {
+        int depth = 0;
+
+        this.countToken();
+
+        do {
+            this.skipSeparators();
+            final int ch = this.peek();
+
+            if ( ch == -1 ) {
+                throw new IOException( "expected value, but found the end of input" );
+            }
+            else
+            if ( ch == Util.OPEN_OBJECT_DELIMITER
+              || ch == Util.OPEN_ARRAY_DELIMITER )
+            {
+                if ( this.state.getDepth() + depth >= this.getLimits().getMaxDepth() ) {
+                    throw new IOException( "nesting deeper than the limit: " + this.getLimits().getMaxDepth() );
+                }
+
+                ++depth;
+                ++this.pos;
+            }
+            else
+            if ( ch == Util.END_OBJECT_DELIMITER
+              || ch == Util.END_ARRAY_DELIMITER )
+            {
+                if ( depth == 0 ) {
+                    throw new IOException( "expected value, but found: '" + (char) ch + "'" );
+                }
+
+                --depth;
+                ++this.pos;
+            }
+            else
+            if ( ch == Util.NAME_SEPARATOR
+              && depth > 0 )
+            {
+                ++this.pos;
+            }
+            else
+            if ( Util.isOfClass( ch, Util.CC_QUOTES ) ) {
+                this.skipQuoted();
+            } else {
+                final int length = this.lengthOfRun( 0, Util.CC_SCALAR );
+
+                if ( length == 0 ) {
+                    throw new IOException( "expected value, but found: '" + (char) ch + "'" );
+                }
+
+                this.checkSkippedScalar( ch, length );
+                this.pos += length;
+            }
+        } while( depth > 0 );
+
+        return;
+    }
+
+    /** Checks the length of a scalar being skipped, if it is a number.
+      * @param ch the first char of the scalar.
+      * @param length the length of the scalar.
+      * @throws IOException if it is a number longer than the limit.
+      */
+    void checkSkippedScalar(int ch, int length) throws IOException
+    {
+        if ( FIRST_CHAR_TOKENS[ ch ] == TokenType.NUMBER
+          && length > this.getLimits().getMaxNumberLength() )
+        {
+            throw new IOException( "number longer than the limit: " + this.getLimits().getMaxNumberLength() );
+        }
+
+        return;
+    }
+
+    /** Forgets the input, so it is not retained while pooled. */
+    void clear()
+    {
+        this.abandon();
+        this.pos = this.limit = 0;
+        this.discarded = 0;
+        this.state.clear();
+
+        return;
+    }
+
+    /** Closes the reader, and its input. */
+    @Override
+    public abstract void close();
+
+    /** Tries to have at least the given number of units available
+      * in the window, from the cursor on.
+      * @param minimum the number of units needed.
+      * @return true if they are available, false if the input ended before.
+      * @throws IOException if reading goes wrong.
+      */
+    abstract boolean fill(int minimum) throws IOException;
+
+    /** @param index a position in the window.
+      * @return the unit at that position of the window.
+      */
+    abstract int unitAt(int index);
+
+    /** Builds a string from a part of the window.
+      * @param start the position of the first unit.
+      * @param length the number of units.
+      * @return the resulting string.
+      */
+    abstract String stringOf(int start, int length);
+
+    /** Reports the document in course as failed, for the metrics,
+      * since the input is left before its end.
+      */
+    void abandon()
+    {
+        if ( JsonMetrics.ENABLED ) {
+            this.probe.abandon( this.discarded + this.pos );
+        }
+
+        return;
+    }
+
+    /** @return the char under the cursor, without consuming it,
+      *         or -1 if the end of input was reached.
+      */
+    private int peek() throws IOException
+    {
+        int toret = -1;
+
+        if ( this.pos < this.limit
+          || this.fill( 1 ) )
+        {
+            toret = this.unitAt( this.pos );
+        }
+
+        return toret;
+    }
+
+    /** Moves the cursor past spaces, tabs, newlines, commas...
+      * Since this is done before each token, the size of the document
+      * read so far is checked here. Each top-level value is a document
+      * of its own, so that a sequence of them, as in NDJSON,
+      * is not limited as a whole.
+      */
+    void skipSeparators() throws IOException
+    {
+        do {
+            while( this.pos < this.limit
+                && Util.isOfClass( this.unitAt( this.pos ), Util.CC_SEPARATOR ) )
+            {
+                ++this.pos;
+            }
+        } while( this.pos >= this.limit
+              && this.fill( 1 ) );
+
+        final long position = this.discarded + this.pos;
+
+        if ( position - this.documentStart > this.getLimits().getMaxDocumentSize() ) {
+            throw new IOException( "document larger than the limit: " + this.getLimits().getMaxDocumentSize() );
+        }
+
+        if ( this.state.getDepth() == 0 ) {
+            this.documentStart = position;
+        }
+
+        return;
+    }
+
+    /** Counts the chars of the given class ahead of the cursor.
+      * All of them are guaranteed to be in the window afterwards.
+      * @param from the offset from the cursor to start counting at.
+      * @param charClasses the char classes, or'ed.
+      * @return the offset of the first char not in the classes.
+      */
+    private int lengthOfRun(int from, byte charClasses) throws IOException
+    {
+        int toret = from;
+
+        while( ( this.pos + toret < this.limit
+              || this.fill( toret + 1 ) )
+            && Util.isOfClass( this.unitAt( this.pos + toret ), charClasses ) )
+        {
+            ++toret;
+
+            if ( toret > this.getLimits().getMaxStringLength() ) {
+                throw new IOException( "token longer than the limit: " + this.getLimits().getMaxStringLength() );
+            }
+        }
+
+        return toret;
+    }
+
+    /** Looks ahead inside a number, which is the only token looked at
+      * this way, so its length is checked against the limit here.
+      * @param offset the offset from the cursor.
+      * @return the char at that offset from the cursor,
+      *         or -1 if the end of input is reached before.
+      * @throws IOException if reading goes wrong, or the number is too long.
+      */
+    private int unitAhead(int offset) throws IOException
+    {
+        int toret = -1;
+
+        if ( offset > this.getLimits().getMaxNumberLength() ) {
+            throw new IOException( "number longer than the limit: " + this.getLimits().getMaxNumberLength() );
+        }
+
+        if ( this.pos + offset < this.limit
+          || this.fill( offset + 1 ) )
+        {
+            toret = this.unitAt( this.pos + offset );
+        }
+
+        return toret;
+    }
+
+    /** @return true if the given char is a decimal digit, false otherwise. */
+    private static boolean isDigit(int ch)
+    {
+        return ch >= '0' && ch <= '9';
+    }
+
+    /** Scans the number ahead, without consuming it.
+      * Its digits are accumulated in numberSignificand, up to the
+      * capacity of a long, and the decimal point and exponent
+      * in numberExponent, so the value is: significand * 10^exponent.
+      * The number is also left whole in the window.
+      * @param type the expected type, for error messages.
+      * @return the length of the number, in chars.
+      * @throws IOException if reading goes wrong, or there is no number ahead.
+      */
+    private int scanNumber(String type) throws IOException
+    {
+        long significand = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean exact = true;
+        boolean integral = true;
+        boolean anyDigit = false;
+        int offset = 0;
+
+        this.skipSeparators();
+        int ch = this.peek();
+
+        // Sign
+        this.numberNegative = ( ch == '-' );
+        if ( ch == '-'
+          || ch == '+' )
+        {
+            ++offset;
+            ch = this.unitAhead( offset );
+        }
+
+        // Integer part
+        while( isDigit( ch ) ) {
+            anyDigit = true;
+
+            if ( digits < MAX_SIGNIFICAND_DIGITS ) {
+                significand = ( significand * 10 ) + ( ch - '0' );
+
+                if ( significand != 0 ) {
+                    ++digits;
+                }
+            } else {
+                exact = false;
+                ++exponent;
+            }
+
+            ++offset;
+            ch = this.unitAhead( offset );
+        }
+
+        // Fractional part
+        if ( ch == '.' ) {
+            integral = false;
+            ++offset;
+            ch = this.unitAhead( offset );
+
+            while( isDigit( ch ) ) {
+                anyDigit = true;
+
+                if ( digits < MAX_SIGNIFICAND_DIGITS ) {
+                    significand = ( significand * 10 ) + ( ch - '0' );
+                    --exponent;
+
+                    if ( significand != 0 ) {
+                        ++digits;
+                    }
+                } else {
+                    exact = false;
+                }
+
+                ++offset;
+                ch = this.unitAhead( offset );
+            }
+        }
+
+        if ( !anyDigit ) {
+            throw new IOException( "expected " + type + ", but next char is: '" + (char) this.peek() + "'" );
+        }
+
+        // Exponent
+        if ( ch == 'e'
+          || ch == 'E' )
+        {
+            int expOffset = offset + 1;
+            boolean negativeExp = false;
+
+            ch = this.unitAhead( expOffset );
+            if ( ch == '-'
+              || ch == '+' )
+            {
+                negativeExp = ( ch == '-' );
+                ++expOffset;
+                ch = this.unitAhead( expOffset );
+            }
+
+            if ( isDigit( ch ) ) {
+                int value = 0;
+
+                while( isDigit( ch ) ) {
+                    if ( value < MAX_EXPONENT ) {
+                        value = ( value * 10 ) + ( ch - '0' );
+                    } else {
+                        // Digits dropped: only the text holds the value
+                        exact = false;
+                    }
+
+                    ++expOffset;
+                    ch = this.unitAhead( expOffset );
+                }
+
+                exponent += negativeExp ? -value : value;
+                integral = false;
+                offset = expOffset;
+            }
+        }
+
+        this.numberSignificand = significand;
+        this.numberExponent = exponent;
+        this.numberExact = exact;
+        this.numberIntegral = integral;
+        return offset;
+    }
+
+    /** Checks whether the given keyword is ahead, as a whole token.
+      * Nothing is consumed.
+      * @param keyword the keyword to look for.
+      * @return true if the keyword is ahead, false otherwise.
+      */
+    private boolean isKeywordAhead(String keyword) throws IOException
+    {
+        final int length = keyword.length();
+        boolean toret = this.fill( length );
+
+        for(int i = 0; toret && i < length; ++i) {
+            toret = ( this.unitAt( this.pos + i ) == keyword.charAt( i ) );
+        }
+
+        if ( toret
+          && this.fill( length + 1 ) )
+        {
+            toret = !Util.isOfClass( this.unitAt( this.pos + length ), Util.CC_ID );
+        }
+
+        return toret;
+    }
+
+    /** @return the identifier ahead, without consuming it. */
+    private String tokenAhead() throws IOException
+    {
+        return this.stringOf( this.pos, this.lengthOfRun( 0, Util.CC_ID ) );
+    }
+
+    /** Looks for the end of the string enclosed in the quotes under the cursor.
+      * The whole string is left in the window, and whether it contains
+      * escaped chars is stored in stringEscaped.
+      * @return the offset of the closing quotes, from the cursor.
+      * @throws IOException if reading goes wrong, or the string is not closed.
+      */
+    private int scanQuoted() throws IOException
+    {
+        final char quotes = (char) this.unitAt( this.pos );
+        final int maxLength = this.getLimits().getMaxStringLength();
+        boolean escaped = false;
+        int toret = 1;
+
+        while( true ) {
+            if ( toret - 1 > maxLength ) {
+                throw new IOException( "string longer than the limit: " + maxLength );
+            }
+
+            if ( this.pos + toret >= this.limit
+              && !this.fill( toret + 1 ) )
+            {
+                throw new IOException( "expected: '" + quotes + "', but found the end of input" );
+            }
+
+            final int ch = this.unitAt( this.pos + toret );
+
+            if ( ch == quotes ) {
+                break;
+            }
+
+            if ( ch == '\\' ) {
+                escaped = true;
+                ++toret;
+            }
+
+            ++toret;
+        }
+
+        this.stringEscaped = escaped;
+        return toret;
+    }
+
+    /** Skips the string enclosed in the quotes under the cursor.
+      * Unlike scanQuoted(), the string is consumed as it is scanned,
+      * so it does not need to fit in the window.
+      * @throws IOException if reading goes wrong, or the string is not closed.
+      */
+    private void skipQuoted() throws IOException
+    {
+        final int quotes = this.unitAt( this.pos );
+        final int maxLength = this.getLimits().getMaxStringLength();
+        boolean closed = false;
+        long length = 0;
+        int needed = 1;
+
+        ++this.pos;
+        while( !closed ) {
+            if ( this.limit - this.pos < needed
+              && !this.fill( needed ) )
+            {
+                throw new IOException( "expected: '" + (char) quotes + "', but found the end of input" );
+            }
+
+            final int end = this.limit;
+            int p = this.pos;
+
+            needed = 1;
+            while( p < end ) {
+                final int ch = this.unitAt( p );
+
+                if ( ch == quotes ) {
+                    closed = true;
+                    ++p;
+                    break;
+                }
+
+                if ( ch == '\\' ) {
+                    // The escaped char must be in the window as well
+                    if ( p + 1 >= end ) {
+                        needed = 2;
+                        break;
+                    }
+
+                    ++p;
+                }
+
+                ++p;
+            }
+
+            length += p - this.pos;
+            this.pos = p;
+
+            if ( length - ( closed ? 1 : 0 ) > maxLength ) {
+                throw new IOException( "string longer than the limit: " + maxLength );
+            }
+        }
+
+        return;
+    }
+
+    /** Reads a string enclosed in the quotes under the cursor.
+      * The string is first delimited in the window, and then built
+      * in one go, unless it contains escaped chars.
+      * @return the string, without the quotes.
+      * @throws IOException if reading goes wrong, or the string is not closed.
+      */
+    private String readQuoted() throws IOException
+    {
+        final int offset = this.scanQuoted();
+        final int start = this.pos + 1;
+        final int end = this.pos + offset;
+        final String toret;
+
+        if ( this.stringEscaped ) {
+            toret = this.unescape( start, end );
+        } else {
+            toret = this.stringOf( start, end - start );
+        }
+
+        this.pos = end + 1;
+        return toret;
+    }
+
+    /** Delimits the name ahead, quoted or not, without consuming it.
+      * Its position and length are stored in nameStart and nameLength,
+      * and its hash in nameHash. It is plain when it has no escaped
+      * nor non-ASCII chars, so it can be compared directly to strings.
+      * @return the length of the whole name, including quotes.
+      * @throws IOException if reading goes wrong.
+      */
+    private int scanName() throws IOException
+    {
+        int toret;
+        int hash = 0;
+        int units = 0;
+
+        this.skipSeparators();
+        this.state.countEntry();
+        this.countToken();
+
+        if ( Util.isOfClass( this.peek(), Util.CC_QUOTES ) ) {
+            toret = this.scanQuoted();
+            this.nameStart = this.pos + 1;
+            this.nameLength = toret - 1;
+            this.nameEscaped = this.stringEscaped;
+            ++toret;
+        } else {
+            toret = this.lengthOfRun( 0, Util.CC_ID );
+            this.nameStart = this.pos;
+            this.nameLength = toret;
+            this.nameEscaped = false;
+        }
+
+        for(int i = this.nameStart; i < this.nameStart + this.nameLength; ++i) {
+            final int ch = this.unitAt( i );
+
+            hash = ( 31 * hash ) + ch;
+            units |= ch;
+        }
+
+        this.nameHash = hash;
+        this.namePlain = !this.nameEscaped && ( units & ~0x7F ) == 0;
+        return toret;
+    }
+
+    /** @return the name delimited by scanName(), as a string. */
+    private String nameString() throws IOException
+    {
+        final String toret;
+
+        if ( this.nameEscaped ) {
+            toret = this.unescape( this.nameStart, this.nameStart + this.nameLength );
+        } else {
+            toret = this.stringOf( this.nameStart, this.nameLength );
+        }
+
+        return toret;
+    }
+
+    /** Consumes the separator between a name and its value.
+      * @param name the name before, for error messages.
+      * @throws IOException if reading goes wrong, or the separator is not found.
+      */
+    private void matchNameSeparator(String name) throws IOException
+    {
+        this.skipSeparators();
+        if ( this.peek() != Util.NAME_SEPARATOR ) {
+            throw new IOException( "expected '"
+                                    + Util.NAME_SEPARATOR
+                                    + "' after name ('" + name + "'?)" );
+        }
+
+        ++this.pos;
+        return;
+    }
+
+    /** Compares a part of the window with a string.
+      * @param start the position of the first char.
+      * @param length the number of chars.
+      * @param str the string to compare with.
+      * @return true if they hold the same chars, false otherwise.
+      */
+    boolean regionEquals(int start, int length, String str)
+    {
+        boolean toret = ( str.length() == length );
+
+        for(int i = 0; toret && i < length; ++i) {
+            toret = ( this.unitAt( start + i ) == str.charAt( i ) );
+        }
+
+        return toret;
+    }
+
+    /** Tells whether each unit in a part of the window is a whole char,
+      * so it can be viewed in place.
+      * @param start the position of the first unit.
+      * @param length the number of units.
+      * @return true if the part can be viewed in place.
+      */
+    abstract boolean isViewable(int start, int length);
+
+    /** @return the view reused for strings and names. */
+    private StringView view()
+    {
+        if ( this.view == null ) {
+            this.view = new StringView( this );
+        }
+
+        return this.view;
+    }
+
+    /** Builds a string from a part of the window, translating escaped chars.
+      * @param start the position of the first unit.
+      * @param end the position after the last unit.
+      * @return the resulting string.
+      * @throws IOException if an escaped char is not valid.
+      */
+    abstract String unescape(int start, int end) throws IOException;
+
+    /** Translates the four hex digits of a \\uXXXX escape.
+      * @param start the position of the first digit.
+      * @param end the position after the last char of the string.
+      * @return the UTF-16 code unit they stand for.
+      * @throws IOException if there are not four hex digits.
+      */
+    int parseHexEscape(int start, int end) throws IOException
+    {
+        int toret = 0;
+
+        if ( start + 4 > end ) {
+            throw new IOException( "invalid special char: \\u needs four hex digits" );
+        }
+
+        for(int i = start; i < start + 4; ++i) {
+            final int digit = Util.hexValue( this.unitAt( i ) );
+
+            if ( digit < 0 ) {
+                throw new IOException( "invalid special char: \\u needs four hex digits" );
+            }
+
+            toret = ( toret << 4 ) | digit;
+        }
+
+        return toret;
+    }
+
+    /** Translates an escaped char, other than \\uXXXX.
+      * @param ch the char following the backslash.
+      * @return the char it represents.
+      * @throws IOException if the char cannot be escaped.
+      */
+    static char parseSpecialChar(int ch) throws IOException
+    {
+        final char toret = ( ch >= 0 && ch < Util.UNESCAPES.length ) ? Util.UNESCAPES[ ch ] : 0;
+
+        if ( toret == 0 ) {
+            throw new IOException( "invalid special char: \\" + Character.toString( (char) ch ) );
+        }
+
+        return toret;
+    }
+
+    int pos;
+    int limit;
+    long discarded;
+    private long documentStart;
+    final Util.State state;
+    private final JsonMetrics.Probe probe;
+    private long numberSignificand;
+    private int numberExponent;
+    private boolean numberNegative;
+    private boolean numberExact;
+    private boolean numberIntegral;
+    private boolean stringEscaped;
+    private int nameStart;
+    private int nameLength;
+    private int nameHash;
+    private boolean nameEscaped;
+    private boolean namePlain;
+    private NameTable names;
+    private StringView view;
+}
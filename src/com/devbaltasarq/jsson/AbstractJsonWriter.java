@@ -0,0 +1,635 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+
+/**
+ * The common part of all JSON writers: the fluent API, writing
+ * through the methods of Writer.
+ * Each subclass provides its own output: chars for JsonWriter,
+ * and UTF-8 bytes for Utf8JsonWriter. Each of them is reset to a new
+ * output of its own kind, so there is no reset here.
+ * @author baltasarq
+ * @see JsonWriter
+ * @see Utf8JsonWriter
+ */
+public abstract class AbstractJsonWriter extends Writer {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /** Creates a new writer, for subclasses providing their own output. */
+    AbstractJsonWriter()
+    {
+        this.digits = new char[ Digits.BUFFER_LENGTH ];
+        this.written = 0;
+        this.state = new Util.State( JsonLimits.DEFAULT );
+        this.probe = JsonMetrics.ENABLED ? new JsonMetrics.Probe( false ) : null;
+        this.validating = this.afterName = false;
+    }
+
+    /** @return the number of units written, including those still buffered. */
+    abstract long position();
+
+    /** Forgets the output, so it is not retained while pooled. */
+    abstract void clear();
+
+    /** Starts a new document, forgetting the one in course. */
+    void restart()
+    {
+        this.abandon();
+        this.written = 0;
+        this.state.clear();
+        this.afterName = false;
+        return;
+    }
+
+    /** Reports the document in course as failed, for the metrics,
+      * since the output is left before its end.
+      */
+    void abandon()
+    {
+        if ( JsonMetrics.ENABLED ) {
+            this.probe.abandon( this.position() );
+        }
+
+        return;
+    }
+
+    /** @return the limits checked while writing. */
+    public JsonLimits getLimits()
+    {
+        return this.state.getLimits();
+    }
+
+    /** Changes the limits checked while writing.
+     * Exceeding any of them makes writing fail with an IOException,
+     * so a bug producing runaway output is caught early.
+     * @param limits the new limits.
+     * @see JsonLimits
+     */
+    public void setLimits(JsonLimits limits)
+    {
+        if ( limits == null ) {
+            throw new IllegalArgumentException( "limits cannot be null" );
+        }
+
+        this.state.setLimits( limits );
+    }
+
+    /** @return whether the order of calls is validated.
+     * @see AbstractJsonWriter#setValidating(boolean)
+     */
+    public boolean isValidating()
+    {
+        return this.validating;
+    }
+
+    /** Changes whether the order of calls is validated, so that a name
+     * outside of an object, a value without a name inside an object,
+     * or an object ended just after a name make writing fail
+     * with an IOException, instead of writing malformed JSON.
+     * Objects and arrays ended with the wrong method always fail.
+     * @param validating true to validate the order of calls.
+     */
+    public void setValidating(boolean validating)
+    {
+        this.validating = validating;
+    }
+
+    /** @return the number of objects and arrays begun, and not yet ended. */
+    public int getDepth()
+    {
+        return this.state.getDepth();
+    }
+
+    /** Writes a line separator. */
+    public void newLine() throws IOException
+    {
+        this.write( System.lineSeparator() );
+    }
+
+    /** Checks the size of the document, before passing more units to the output.
+      * @param length the number of units to pass.
+      * @throws IOException if the document would exceed its maximum size.
+      */
+    void checkSize(int length) throws IOException
+    {
+        final long maxSize = this.state.getLimits().getMaxDocumentSize();
+
+        if ( this.written + length > maxSize ) {
+            throw new IOException( "document larger than the limit: " + maxSize );
+        }
+
+        return;
+    }
+
+    /** Checks the length of a string or name to write.
+      * @param str the string.
+      * @throws IOException if the string exceeds its maximum length.
+      */
+    private void checkLength(String str) throws IOException
+    {
+        final int maxLength = this.state.getLimits().getMaxStringLength();
+
+        if ( str.length() > maxLength ) {
+            throw new IOException( "string longer than the limit: " + maxLength );
+        }
+
+        return;
+    }
+
+    /** Writes the name part of a name/value pair.
+      * @param name The name to write, which is escaped as needed.
+      * @return The writer itself.
+      * @throws IOException if something goes wrong writing.
+      */
+    public AbstractJsonWriter name(String name) throws IOException
+    {
+        this.beginName( name );
+
+        // Value
+        this.write( Util.QUOTES );
+        writeEscaped( this, name );
+        this.write( Util.QUOTES );
+        this.write( Util.NAME_SEPARATOR );
+
+        this.afterName = true;
+        return this;
+    }
+
+    /** Writes the name part of a name/value pair, prepared beforehand,
+      * with a single copy.
+      * @param name The name to write.
+      * @return The writer itself.
+      * @throws IOException if something goes wrong writing.
+      * @see PreparedName
+      */
+    public AbstractJsonWriter name(PreparedName name) throws IOException
+    {
+        this.beginName( name.getName() );
+        this.writeName( name );
+
+        this.afterName = true;
+        return this;
+    }
+
+    /** Writes the chars of a prepared name. */
+    void writeName(PreparedName name) throws IOException
+    {
+        final char[] chars = name.getChars();
+
+        this.write( chars, 0, chars.length );
+        return;
+    }
+
+    /** Checks and counts a name, and writes the separator before it. */
+    private void beginName(String name) throws IOException
+    {
+        this.checkLength( name );
+
+        if ( this.validating ) {
+            if ( !this.state.isInObject() ) {
+                throw new IOException( "name outside of an object: " + name );
+            }
+
+            if ( this.afterName ) {
+                throw new IOException( "name with no value before it: " + name );
+            }
+        }
+
+        this.state.countEntry();
+
+        if ( JsonMetrics.ENABLED ) {
+            this.probe.token();
+        }
+
+        // Separator
+        if ( this.state.getEntries() > 1 ) {
+            this.write( Util.ENTITY_SEPARATOR );
+        }
+
+        return;
+    }
+
+    /** Writes the separator before a value, if it is not the first one
+      * in an array. Values in objects are separated by their names.
+      */
+    void writeValueSeparator() throws IOException
+    {
+        if ( JsonMetrics.ENABLED ) {
+            this.probe.token();
+        }
+
+        if ( this.state.isInObject() ) {
+            if ( this.validating
+              && !this.afterName )
+            {
+                throw new IOException( "value with no name in an object" );
+            }
+        } else {
+            this.state.countElement();
+
+            if ( this.state.getEntries() > 1 ) {
+                this.write( Util.ENTITY_SEPARATOR );
+            }
+        }
+
+        this.afterName = false;
+        return;
+    }
+
+    /** Checks that an object or array is not ended just after a name. */
+    private void checkEnd() throws IOException
+    {
+        if ( this.validating
+          && this.afterName )
+        {
+            throw new IOException( "end with no value after the last name" );
+        }
+
+        return;
+    }
+
+    /** Writes a boolean value.
+      * @param value The value to write.
+      * @return The writer itself.
+      * @throws IOException if something goes wrong writing.
+      */
+    public AbstractJsonWriter value(Boolean value) throws IOException
+    {
+        this.writeValueSeparator();
+        this.write( Boolean.toString( value ) );
+        return this;
+    }
+
+    /** Writes an integer number.
+     * @param value The value to write.
+     * @return The writer itself.
+     * @throws IOException if something goes wrong writing.
+     */
+    public AbstractJsonWriter value(int value) throws IOException
+    {
+        this.writeValueSeparator();
+        this.writeLong( value );
+        return this;
+    }
+
+    /** Writes a long integer number.
+     * @param value The value to write.
+     * @return The writer itself.
+     * @throws IOException if something goes wrong writing.
+     */
+    public AbstractJsonWriter value(long value) throws IOException
+    {
+        this.writeValueSeparator();
+        this.writeLong( value );
+        return this;
+    }
+
+    /** Writes a real number.
+     * @param value The value to write.
+     * @return The writer itself.
+     * @throws IOException if something goes wrong writing.
+     */
+    public AbstractJsonWriter value(double value) throws IOException
+    {
+        this.writeValueSeparator();
+        this.writeDouble( value );
+        return this;
+    }
+
+    /** Writes a real number, with the precision of a float.
+     * @param value The value to write.
+     * @return The writer itself.
+     * @throws IOException if something goes wrong writing.
+     */
+    public AbstractJsonWriter value(float value) throws IOException
+    {
+        this.writeValueSeparator();
+        this.writeFloat( value );
+        return this;
+    }
+
+    /** Writes a decimal number, with all its digits.
+     * Integers fitting in a long are written with no intermediate string.
+     * @param value The value to write.
+     * @return The writer itself.
+     * @throws IOException if something goes wrong writing.
+     */
+    public AbstractJsonWriter value(BigDecimal value) throws IOException
+    {
+        this.writeValueSeparator();
+
+        if ( value.scale() == 0
+          && value.precision() < 19 )
+        {
+            this.writeLong( value.longValue() );
+        } else {
+            this.write( value.toString() );
+        }
+
+        return this;
+    }
+
+    /** Writes a whole array of integers.
+     * @param values The values to write.
+     * @return The writer itself.
+     * @throws IOException if something goes wrong writing.
+     */
+    public AbstractJsonWriter value(int[] values) throws IOException
+    {
+        this.writeValueSeparator();
+        this.write( Util.OPEN_ARRAY_DELIMITER );
+
+        for(int i = 0; i < values.length; ++i) {
+            if ( i > 0 ) {
+                this.write( Util.ENTITY_SEPARATOR );
+            }
+
+            this.writeLong( values[ i ] );
+        }
+
+        this.write( Util.END_ARRAY_DELIMITER );
+        return this;
+    }
+
+    /** Writes a whole array of real numbers.
+     * @param values The values to write.
+     * @return The writer itself.
+     * @throws IOException if something goes wrong writing.
+     */
+    public AbstractJsonWriter value(double[] values) throws IOException
+    {
+        this.writeValueSeparator();
+        this.write( Util.OPEN_ARRAY_DELIMITER );
+
+        for(int i = 0; i < values.length; ++i) {
+            if ( i > 0 ) {
+                this.write( Util.ENTITY_SEPARATOR );
+            }
+
+            this.writeDouble( values[ i ] );
+        }
+
+        this.write( Util.END_ARRAY_DELIMITER );
+        return this;
+    }
+
+    /** Writes a whole array of long integers.
+     * @param values The values to write.
+     * @return The writer itself.
+     * @throws IOException if something goes wrong writing.
+     */
+    public AbstractJsonWriter value(long[] values) throws IOException
+    {
+        this.writeValueSeparator();
+        this.write( Util.OPEN_ARRAY_DELIMITER );
+
+        for(int i = 0; i < values.length; ++i) {
+            if ( i > 0 ) {
+                this.write( Util.ENTITY_SEPARATOR );
+            }
+
+            this.writeLong( values[ i ] );
+        }
+
+        this.write( Util.END_ARRAY_DELIMITER );
+        return this;
+    }
+
+    /** Writes a whole array of real numbers, with the precision of floats.
+     * @param values The values to write.
+     * @return The writer itself.
+     * @throws IOException if something goes wrong writing.
+     */
+    public AbstractJsonWriter value(float[] values) throws IOException
+    {
+        this.writeValueSeparator();
+        this.write( Util.OPEN_ARRAY_DELIMITER );
+
+        for(int i = 0; i < values.length; ++i) {
+            if ( i > 0 ) {
+                this.write( Util.ENTITY_SEPARATOR );
+            }
+
+            this.writeFloat( values[ i ] );
+        }
+
+        this.write( Util.END_ARRAY_DELIMITER );
+        return this;
+    }
+
+    /** Writes the digits of an integer, with no intermediate string. */
+    private void writeLong(long value) throws IOException
+    {
+        final int start = Digits.formatLong( value, this.digits, this.digits.length );
+
+        this.write( this.digits, start, this.digits.length - start );
+        return;
+    }
+
+    /** Writes the shortest digits of a real number reading back as it,
+      * with no intermediate string.
+      */
+    private void writeDouble(double value) throws IOException
+    {
+        this.write( this.digits, 0, Digits.formatDouble( value, this.digits ) );
+        return;
+    }
+
+    /** Writes the shortest digits of a float reading back as it,
+      * with no intermediate string.
+      */
+    private void writeFloat(float value) throws IOException
+    {
+        this.write( this.digits, 0, Digits.formatFloat( value, this.digits ) );
+        return;
+    }
+
+    /** Writes a string, escaping quotes, backslashes and control chars.
+     * @param value The value to write.
+     * @return The writer itself.
+     * @throws IOException if something goes wrong writing.
+     */
+    public AbstractJsonWriter value(String value) throws IOException
+    {
+        this.checkLength( value );
+        this.writeValueSeparator();
+        this.write( Util.QUOTES );
+        writeEscaped( this, value );
+        this.write( Util.QUOTES );
+
+        return this;
+    }
+
+    /** Writes the chars of a string, escaping them as needed.
+     * The runs of chars needing no escape are copied in bulk,
+     * so a string with no escapes is copied in one go.
+     * Non-ASCII chars are written as is.
+     * @param out the writer to write to.
+     * @param str the string to write.
+     * @throws IOException if something goes wrong writing.
+     */
+    static void writeEscaped(Writer out, String str) throws IOException
+    {
+        final int length = str.length();
+        int runStart = 0;
+
+        for(int i = 0; i < length; ++i) {
+            final char ch = str.charAt( i );
+
+            if ( ch < Util.ESCAPES.length
+              && Util.ESCAPES[ ch ] != 0 )
+            {
+                out.write( str, runStart, i - runStart );
+                writeEscape( out, ch );
+                runStart = i + 1;
+            }
+        }
+
+        out.write( str, runStart, length - runStart );
+        return;
+    }
+
+    /** Writes the escape for an ASCII char, as \\X or \\u00XX. */
+    private static void writeEscape(Writer out, char ch) throws IOException
+    {
+        final char escape = Util.ESCAPES[ ch ];
+
+        out.write( '\\' );
+        out.write( escape );
+
+        if ( escape == 'u' ) {
+            out.write( '0' );
+            out.write( '0' );
+            out.write( HEX_DIGITS[ ch >>> 4 ] );
+            out.write( HEX_DIGITS[ ch & 0xF ] );
+        }
+
+        return;
+    }
+
+    /** Writes a value already serialized as JSON, such as a cached
+     * sub-document, as is. It is neither checked nor tokenized, so it
+     * must be well-formed, and it counts as a single value.
+     * @param json the JSON text of the value.
+     * @return The writer itself.
+     * @throws IOException if something goes wrong writing.
+     */
+    public AbstractJsonWriter rawValue(String json) throws IOException
+    {
+        this.writeValueSeparator();
+        this.write( json );
+        return this;
+    }
+
+    /** Writes a value already serialized as JSON, as is.
+     * @param json the chars holding the JSON text of the value.
+     * @param offset the position of the first char of the value.
+     * @param length the length of the value.
+     * @return The writer itself.
+     * @throws IOException if something goes wrong writing.
+     * @see AbstractJsonWriter#rawValue(String)
+     */
+    public AbstractJsonWriter rawValue(char[] json, int offset, int length) throws IOException
+    {
+        this.writeValueSeparator();
+        this.write( json, offset, length );
+        return this;
+    }
+
+    /** Writes a null value.
+     * @return The writer itself.
+     * @throws IOException if something goes wrong writing.
+     */
+    public AbstractJsonWriter nullValue() throws IOException
+    {
+        this.writeValueSeparator();
+        this.write( Util.NULL_ID );
+
+        return this;
+    }
+
+    /** Writes the begin mark for an object.
+      * @return The writer itself.
+      * @throws IOException if something goes wrong writing.
+      */
+    public AbstractJsonWriter beginObject() throws IOException
+    {
+        this.writeValueSeparator();
+        this.state.begin( true );
+        this.write( Util.OPEN_OBJECT_DELIMITER );
+        this.probeBegin();
+        return this;
+    }
+
+    /** Writes the end mark for an object.
+     * @return The writer itself.
+     * @throws IOException if something goes wrong writing.
+     */
+    public AbstractJsonWriter endObject() throws IOException
+    {
+        this.checkEnd();
+        this.state.end( true );
+        this.write( Util.END_OBJECT_DELIMITER );
+        this.probeEnd();
+        return this;
+    }
+    /** Writes the begin mark for an array.
+     * @return The writer itself.
+     * @throws IOException if something goes wrong writing.
+     */
+    public AbstractJsonWriter beginArray() throws IOException
+    {
+        this.writeValueSeparator();
+        this.state.begin( false );
+        this.write( Util.OPEN_ARRAY_DELIMITER );
+        this.probeBegin();
+        return this;
+    }
+
+    /** Writes the end mark for an array.
+     * @return The writer itself.
+     * @throws IOException if something goes wrong writing.
+     */
+    public AbstractJsonWriter endArray() throws IOException
+    {
+        this.checkEnd();
+        this.state.end( false );
+        this.write( Util.END_ARRAY_DELIMITER );
+        this.probeEnd();
+        return this;
+    }
+
+    /** Measures the object or array just begun, for the metrics.
+     * Its token was already counted with its separator.
+     */
+    private void probeBegin()
+    {
+        if ( JsonMetrics.ENABLED ) {
+            this.probe.begin( this.state.getDepth(), this.position() - 1 );
+        }
+
+        return;
+    }
+
+    /** Measures the object or array just ended, for the metrics. */
+    private void probeEnd()
+    {
+        if ( JsonMetrics.ENABLED ) {
+            this.probe.token();
+            this.probe.end( this.state.getDepth(), this.position() );
+        }
+
+        return;
+    }
+
+    private final char[] digits;
+    long written;
+    private final Util.State state;
+    private final JsonMetrics.Probe probe;
+    private boolean validating;
+    private boolean afterName;
+}
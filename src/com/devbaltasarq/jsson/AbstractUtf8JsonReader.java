@@ -0,0 +1,328 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The window of UTF-8 bytes shared by Utf8JsonReader and IndexedJsonReader.
+ * Structural chars are always ASCII, and UTF-8 guarantees that
+ * ASCII bytes never appear inside a multibyte sequence, so the input
+ * is tokenized byte by byte, and only decoded when a string is built.
+ * The public constructors and resets are in each subclass.
+ * @author baltasarq
+ */
+abstract class AbstractUtf8JsonReader extends AbstractJsonReader {
+    private static final int BUFFER_SIZE = 8192;
+    private static final byte[] NO_BYTES = new byte[ 0 ];
+
+    @Override
+    void clear()
+    {
+        this.array( NO_BYTES, 0, 0 );
+    }
+
+    /** Reads from a stream or a direct buffer, through an owned window. */
+    void stream(InputStream input, ByteBuffer source)
+    {
+        this.abandon();
+        this.input = input;
+        this.source = source;
+
+        if ( !this.ownsBytes ) {
+            this.bytes = ( this.ownedBytes != null ) ? this.ownedBytes : new byte[ BUFFER_SIZE ];
+            this.ownedBytes = this.bytes;
+            this.ownsBytes = true;
+        }
+
+        this.pos = this.limit = 0;
+        this.discarded = 0;
+        this.state.clear();
+
+        return;
+    }
+
+    /** Reads from an array, in place. */
+    void array(byte[] input, int offset, int length)
+    {
+        this.input = null;
+        this.source = null;
+        this.wrap( input, offset, length );
+
+        return;
+    }
+
+    /** Reads from a buffer: in place if it is a heap one. */
+    void buffer(ByteBuffer input)
+    {
+        if ( input.hasArray() ) {
+            this.array( input.array(), input.arrayOffset() + input.position(), input.remaining() );
+        } else {
+            this.stream( null, input.duplicate() );
+        }
+
+        return;
+    }
+
+    /** Uses the given array as the whole window. */
+    void wrap(byte[] input, int offset, int length)
+    {
+        this.abandon();
+        this.bytes = input;
+        this.ownsBytes = false;
+        this.pos = offset;
+        this.limit = offset + length;
+        this.discarded = -offset;
+        this.state.clear();
+    }
+
+    /** Closes the reader. */
+    @Override
+    public void close()
+    {
+        this.abandon();
+
+        try {
+            if ( this.input != null ) {
+                this.input.close();
+            }
+        } catch(IOException exc) {
+            Logger.getGlobal().log( Level.SEVERE, "error closing input stream" );
+        }
+
+        return;
+    }
+
+    @Override
+    boolean fill(int minimum) throws IOException
+    {
+        final int available = this.limit - this.pos;
+
+        if ( available < minimum
+          && this.ownsBytes )
+        {
+            // Make room
+            if ( this.bytes.length - this.pos < minimum ) {
+                byte[] target = this.bytes;
+
+                if ( minimum > this.bytes.length ) {
+                    target = new byte[ Math.max( minimum, this.bytes.length * 2 ) ];
+                }
+
+                System.arraycopy( this.bytes, this.pos, target, 0, available );
+                this.bytes = target;
+                this.ownedBytes = target;
+                this.discarded += this.pos;
+                this.pos = 0;
+                this.limit = available;
+            }
+
+            // Read as much as possible
+            while( this.limit - this.pos < minimum ) {
+                final int count = this.readBytes( this.limit, this.bytes.length - this.limit );
+
+                if ( count < 0 ) {
+                    break;
+                }
+
+                this.limit += count;
+            }
+        }
+
+        return this.limit - this.pos >= minimum;
+    }
+
+    /** Reads bytes from the input into the window.
+      * @param offset the position in the window to read to.
+      * @param length the maximum number of bytes to read.
+      * @return the number of bytes read, or -1 at the end of input.
+      * @throws IOException if reading goes wrong.
+      */
+    private int readBytes(int offset, int length) throws IOException
+    {
+        int toret = -1;
+
+        if ( this.input != null ) {
+            toret = this.input.read( this.bytes, offset, length );
+        }
+        else
+        if ( this.source.hasRemaining() ) {
+            toret = Math.min( length, this.source.remaining() );
+            this.source.get( this.bytes, offset, toret );
+        }
+
+        return toret;
+    }
+
+    @Override
+    int unitAt(int index)
+    {
+        return this.bytes[ index ] & 0xFF;
+    }
+
+    @Override
+    String stringOf(int start, int length)
+    {
+        return new String( this.bytes, start, length, StandardCharsets.UTF_8 );
+    }
+
+    @Override
+    String unescape(int start, int end) throws IOException
+    {
+        if ( this.scratch == null
+          || this.scratch.length < end - start )
+        {
+            this.scratch = new byte[ Math.max( end - start, BUFFER_SIZE ) ];
+        }
+
+        return unescape( this.bytes, start, end, this.scratch );
+    }
+
+    /** Builds a string from UTF-8 bytes with escaped chars.
+      * @param bytes the bytes holding the string.
+      * @param start the position of the first byte.
+      * @param end the position after the last byte.
+      * @param scratch an array with room for end - start bytes.
+      * @return the resulting string.
+      * @throws IOException if there is an invalid escaped char.
+      */
+    static String unescape(byte[] bytes, int start, int end, byte[] scratch) throws IOException
+    {
+        int segmentStart = start;
+        int length = 0;
+
+        // Copy the runs between escaped chars in bulk
+        for(int i = start; i < end; ++i) {
+            if ( bytes[ i ] == '\\' ) {
+                System.arraycopy( bytes, segmentStart, scratch, length, i - segmentStart );
+                length += i - segmentStart;
+                ++i;
+
+                if ( bytes[ i ] == 'u' ) {
+                    int codePoint = parseHexEscape( bytes, i + 1, end );
+
+                    i += 4;
+                    if ( Character.isHighSurrogate( (char) codePoint )
+                      && i + 6 < end
+                      && bytes[ i + 1 ] == '\\'
+                      && bytes[ i + 2 ] == 'u' )
+                    {
+                        final int low = parseHexEscape( bytes, i + 3, end );
+
+                        if ( Character.isLowSurrogate( (char) low ) ) {
+                            codePoint = Character.toCodePoint( (char) codePoint, (char) low );
+                            i += 6;
+                        }
+                    }
+
+                    length = encodeUtf8( codePoint, scratch, length );
+                } else {
+                    scratch[ length ] = (byte) parseSpecialChar( bytes[ i ] );
+                    ++length;
+                }
+
+                segmentStart = i + 1;
+            }
+        }
+
+        System.arraycopy( bytes, segmentStart, scratch, length, end - segmentStart );
+        length += end - segmentStart;
+        return new String( scratch, 0, length, StandardCharsets.UTF_8 );
+    }
+
+    /** Parses the four hex digits of a \\uXXXX escape, as parseHexEscape(int, int) does.
+      * @param bytes the bytes holding the escape.
+      * @param start the position of the first digit.
+      * @param end the position after the string.
+      * @return the code unit.
+      * @throws IOException if there are not four hex digits.
+      */
+    private static int parseHexEscape(byte[] bytes, int start, int end) throws IOException
+    {
+        int toret = 0;
+
+        if ( start + 4 > end ) {
+            throw new IOException( "invalid special char: \\u needs four hex digits" );
+        }
+
+        for(int i = start; i < start + 4; ++i) {
+            final int digit = Util.hexValue( bytes[ i ] & 0xFF );
+
+            if ( digit < 0 ) {
+                throw new IOException( "invalid special char: \\u needs four hex digits" );
+            }
+
+            toret = ( toret << 4 ) | digit;
+        }
+
+        return toret;
+    }
+
+    /** Encodes a code point from a \\uXXXX escape as UTF-8, in the scratch array.
+      * Escapes are at least as long as their encoding, so there is room for it.
+      * A lone surrogate cannot be encoded, so it becomes U+FFFD.
+      * @param codePoint the code point.
+      * @param scratch the array to encode it in.
+      * @param length the position in the scratch array to encode it at.
+      * @return the position after the encoded code point.
+      */
+    private static int encodeUtf8(int codePoint, byte[] scratch, int length)
+    {
+        if ( codePoint >= Character.MIN_SURROGATE
+          && codePoint <= Character.MAX_SURROGATE )
+        {
+            codePoint = 0xFFFD;
+        }
+
+        if ( codePoint < 0x80 ) {
+            scratch[ length ] = (byte) codePoint;
+            length += 1;
+        }
+        else
+        if ( codePoint < 0x800 ) {
+            scratch[ length ] = (byte) ( 0xC0 | ( codePoint >>> 6 ) );
+            scratch[ length + 1 ] = (byte) ( 0x80 | ( codePoint & 0x3F ) );
+            length += 2;
+        }
+        else
+        if ( codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT ) {
+            scratch[ length ] = (byte) ( 0xE0 | ( codePoint >>> 12 ) );
+            scratch[ length + 1 ] = (byte) ( 0x80 | ( ( codePoint >>> 6 ) & 0x3F ) );
+            scratch[ length + 2 ] = (byte) ( 0x80 | ( codePoint & 0x3F ) );
+            length += 3;
+        } else {
+            scratch[ length ] = (byte) ( 0xF0 | ( codePoint >>> 18 ) );
+            scratch[ length + 1 ] = (byte) ( 0x80 | ( ( codePoint >>> 12 ) & 0x3F ) );
+            scratch[ length + 2 ] = (byte) ( 0x80 | ( ( codePoint >>> 6 ) & 0x3F ) );
+            scratch[ length + 3 ] = (byte) ( 0x80 | ( codePoint & 0x3F ) );
+            length += 4;
+        }
+
+        return length;
+    }
+
+    /** Only ASCII bytes are whole chars in UTF-8. */
+    @Override
+    boolean isViewable(int start, int length)
+    {
+        int units = 0;
+
+        for(int i = start; i < start + length; ++i) {
+            units |= this.bytes[ i ];
+        }
+
+        return ( units & ~0x7F ) == 0;
+    }
+
+    private InputStream input;
+    private ByteBuffer source;
+    private byte[] bytes;
+    private byte[] ownedBytes;
+    private byte[] scratch;
+    private boolean ownsBytes;
+}
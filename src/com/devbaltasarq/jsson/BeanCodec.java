@@ -0,0 +1,336 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes the objects of a given class, field by field.
+ * Everything is resolved when created: the names are compiled into a FieldSet,
+ * and each field gets a getter and a setter as method handles.
+ * Fields of primitive types have handles with their exact type,
+ * so their values are never boxed.
+ * @author baltasarq
+ * @see JsonMapper
+ */
+final class BeanCodec extends JsonMapper.Codec {
+    private static final MethodType READ_OBJECT = MethodType.methodType( Object.class, Object.class );
+    private static final MethodType WRITE_OBJECT = MethodType.methodType( void.class, Object.class, Object.class );
+
+    /** A field of the class. */
+    private abstract static class Property {
+        Property(Field field, MethodType getterType, MethodType setterType) throws IllegalAccessException
+        {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+            this.name = field.getName();
+            this.getter = lookup.unreflectGetter( field ).asType( getterType );
+            this.setter = lookup.unreflectSetter( field ).asType( setterType );
+        }
+
+        /** Reads the value of the field, and stores it in the object. */
+        abstract void read(AbstractJsonReader reader, Object bean) throws Throwable;
+
+        /** Retrieves the value of the field from the object, and writes it. */
+        abstract void write(AbstractJsonWriter writer, Object bean) throws Throwable;
+
+        final String name;
+        final MethodHandle getter;
+        final MethodHandle setter;
+    }
+
+    private static final class BooleanProperty extends Property {
+        BooleanProperty(Field field) throws IllegalAccessException
+        {
+            super( field,
+                   MethodType.methodType( boolean.class, Object.class ),
+                   MethodType.methodType( void.class, Object.class, boolean.class ) );
+        }
+
+        @Override
+        void read(AbstractJsonReader reader, Object bean) throws Throwable
+        {
+            this.setter.invokeExact( bean, reader.nextBoolean() );
+        }
+
+        @Override
+        void write(AbstractJsonWriter writer, Object bean) throws Throwable
+        {
+            writer.value( (boolean) this.getter.invokeExact( bean ) );
+        }
+    }
+
+    private static final class IntProperty extends Property {
+        IntProperty(Field field) throws IllegalAccessException
+        {
+            super( field,
+                   MethodType.methodType( int.class, Object.class ),
+                   MethodType.methodType( void.class, Object.class, int.class ) );
+        }
+
+        @Override
+        void read(AbstractJsonReader reader, Object bean) throws Throwable
+        {
+            this.setter.invokeExact( bean, reader.nextInt() );
+        }
+
+        @Override
+        void write(AbstractJsonWriter writer, Object bean) throws Throwable
+        {
+            writer.value( (int) this.getter.invokeExact( bean ) );
+        }
+    }
+
+    private static final class LongProperty extends Property {
+        LongProperty(Field field) throws IllegalAccessException
+        {
+            super( field,
+                   MethodType.methodType( long.class, Object.class ),
+                   MethodType.methodType( void.class, Object.class, long.class ) );
+        }
+
+        @Override
+        void read(AbstractJsonReader reader, Object bean) throws Throwable
+        {
+            this.setter.invokeExact( bean, reader.nextLong() );
+        }
+
+        @Override
+        void write(AbstractJsonWriter writer, Object bean) throws Throwable
+        {
+            writer.value( (long) this.getter.invokeExact( bean ) );
+        }
+    }
+
+    private static final class DoubleProperty extends Property {
+        DoubleProperty(Field field) throws IllegalAccessException
+        {
+            super( field,
+                   MethodType.methodType( double.class, Object.class ),
+                   MethodType.methodType( void.class, Object.class, double.class ) );
+        }
+
+        @Override
+        void read(AbstractJsonReader reader, Object bean) throws Throwable
+        {
+            this.setter.invokeExact( bean, reader.nextDouble() );
+        }
+
+        @Override
+        void write(AbstractJsonWriter writer, Object bean) throws Throwable
+        {
+            writer.value( (double) this.getter.invokeExact( bean ) );
+        }
+    }
+
+    /** A field of any other primitive type, handled by its codec, boxed.
+     * The codec is found when the class is resolved, and null is rejected.
+     */
+    private static final class PrimitiveProperty extends Property {
+        PrimitiveProperty(JsonMapper mapper, Field field) throws IllegalAccessException
+        {
+            super( field, READ_OBJECT, WRITE_OBJECT );
+
+            this.codec = mapper.codecFor( field.getType() );
+        }
+
+        @Override
+        void read(AbstractJsonReader reader, Object bean) throws Throwable
+        {
+            if ( reader.isNullAhead() ) {
+                throw new IOException( "null for primitive field: " + this.name );
+            }
+
+            this.setter.invokeExact( bean, this.codec.read( reader ) );
+        }
+
+        @Override
+        void write(AbstractJsonWriter writer, Object bean) throws Throwable
+        {
+            this.codec.write( writer, (Object) this.getter.invokeExact( bean ) );
+        }
+
+        private final JsonMapper.Codec codec;
+    }
+
+    /** A field of any other type, handled by its codec. */
+    private static final class ObjectProperty extends Property {
+        ObjectProperty(JsonMapper mapper, Field field) throws IllegalAccessException
+        {
+            super( field, READ_OBJECT, WRITE_OBJECT );
+
+            this.mapper = mapper;
+            this.type = field.getGenericType();
+        }
+
+        @Override
+        void read(AbstractJsonReader reader, Object bean) throws Throwable
+        {
+            this.setter.invokeExact( bean, JsonMapper.readNullable( reader, this.codec() ) );
+        }
+
+        @Override
+        void write(AbstractJsonWriter writer, Object bean) throws Throwable
+        {
+            JsonMapper.writeNullable( writer, this.codec(), (Object) this.getter.invokeExact( bean ) );
+        }
+
+        /** Finds the codec on first use, so classes can refer to themselves. */
+        private JsonMapper.Codec codec()
+        {
+            JsonMapper.Codec toret = this.codec;
+
+            if ( toret == null ) {
+                toret = this.mapper.codecFor( this.type );
+                this.codec = toret;
+            }
+
+            return toret;
+        }
+
+        private final JsonMapper mapper;
+        private final Type type;
+        private volatile JsonMapper.Codec codec;
+    }
+
+    /** Resolves the fields of a class.
+     * @param mapper the mapper, used to find the codecs of the fields.
+     * @param type the class to map.
+     * @throws IllegalArgumentException if the class cannot be mapped.
+     */
+    BeanCodec(JsonMapper mapper, Class<?> type)
+    {
+        final List<Property> properties = new ArrayList<>();
+
+        try {
+            final Constructor<?> constructor = type.getDeclaredConstructor();
+
+            constructor.setAccessible( true );
+            this.constructor = MethodHandles.lookup().unreflectConstructor( constructor )
+                                    .asType( MethodType.methodType( Object.class ) );
+
+            final List<Class<?>> hierarchy = new ArrayList<>();
+
+            for(Class<?> cls = type; cls != Object.class; cls = cls.getSuperclass()) {
+                hierarchy.add( 0, cls );
+            }
+
+            for(Class<?> cls: hierarchy) {
+                for(Field field: cls.getDeclaredFields()) {
+                    final int modifiers = field.getModifiers();
+
+                    if ( !Modifier.isStatic( modifiers )
+                      && !Modifier.isTransient( modifiers )
+                      && !Modifier.isFinal( modifiers )
+                      && !field.isSynthetic() )
+                    {
+                        field.setAccessible( true );
+                        properties.add( createProperty( mapper, field ) );
+                    }
+                }
+            }
+        } catch(NoSuchMethodException exc) {
+            throw new IllegalArgumentException( "no constructor without parameters in: " + type.getName() );
+        } catch(IllegalAccessException | SecurityException exc) {
+            throw new IllegalArgumentException( "cannot access: " + type.getName() + ": " + exc.getMessage() );
+        }
+
+        final String[] names = new String[ properties.size() ];
+
+        for(int i = 0; i < names.length; ++i) {
+            names[ i ] = properties.get( i ).name;
+        }
+
+        this.properties = properties.toArray( new Property[ 0 ] );
+        this.fields = FieldSet.of( names );
+    }
+
+    /** Creates the property for a field, depending on its type. */
+    private static Property createProperty(JsonMapper mapper, Field field) throws IllegalAccessException
+    {
+        final Class<?> type = field.getType();
+        final Property toret;
+
+        if ( type == boolean.class ) {
+            toret = new BooleanProperty( field );
+        }
+        else
+        if ( type == int.class ) {
+            toret = new IntProperty( field );
+        }
+        else
+        if ( type == long.class ) {
+            toret = new LongProperty( field );
+        }
+        else
+        if ( type == double.class ) {
+            toret = new DoubleProperty( field );
+        }
+        else
+        if ( type.isPrimitive() ) {
+            toret = new PrimitiveProperty( mapper, field );
+        } else {
+            toret = new ObjectProperty( mapper, field );
+        }
+
+        return toret;
+    }
+
+    @Override
+    Object read(AbstractJsonReader reader) throws IOException
+    {
+        try {
+            final Object toret = this.constructor.invokeExact();
+
+            reader.beginObject();
+            while( reader.hasNext() ) {
+                final int index = reader.nextName( this.fields );
+
+                if ( index == FieldSet.UNKNOWN ) {
+                    reader.skipValue();
+                } else {
+                    this.properties[ index ].read( reader, toret );
+                }
+            }
+            reader.endObject();
+
+            return toret;
+        } catch(IOException | RuntimeException | Error exc) {
+            throw exc;
+        } catch(Throwable exc) {
+            throw new IOException( "creating object: " + exc.getMessage(), exc );
+        }
+    }
+
+    @Override
+    void write(AbstractJsonWriter writer, Object value) throws IOException
+    {
+        try {
+            writer.beginObject();
+            for(Property property: this.properties) {
+                writer.name( property.name );
+                property.write( writer, value );
+            }
+            writer.endObject();
+        } catch(IOException | RuntimeException | Error exc) {
+            throw exc;
+        } catch(Throwable exc) {
+            throw new IOException( "writing object: " + exc.getMessage(), exc );
+        }
+
+        return;
+    }
+
+    private final MethodHandle constructor;
+    private final Property[] properties;
+    private final FieldSet fields;
+}
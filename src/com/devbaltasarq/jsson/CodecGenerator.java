@@ -0,0 +1,722 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Generates the source of the JsonCodec for a class marked with JssonCodec.
+ * Fields are read and written as JsonMapper does: all of them, including
+ * inherited ones, except static, transient and final fields.
+ * Fields are accessed directly, or through their getter and setter if private.
+ * @author baltasarq
+ * @see JssonCodecProcessor
+ */
+final class CodecGenerator {
+    private static final String INDENT = "    ";
+    private static final String CODEC_SUFFIX = "JsonCodec";
+
+    /** The kinds of types supported. */
+    private enum Kind {
+        BOOLEAN, INT, LONG, DOUBLE, FLOAT, SHORT, BYTE, CHAR, STRING, BIG_DECIMAL,
+        INT_ARRAY, LONG_ARRAY, DOUBLE_ARRAY, ENUM, LIST, CODEC, UNSUPPORTED
+    }
+
+    /** A field of the class, and how to access it. */
+    private static final class Property {
+        Property(String name, TypeMirror type, String getter, String setter)
+        {
+            this.name = name;
+            this.type = type;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        /** @return an expression retrieving the value of the field. */
+        String get(String target)
+        {
+            return target + "." + ( this.getter == null ? this.name : this.getter + "()" );
+        }
+
+        /** @return a statement storing a value in the field. */
+        String set(String target, String value)
+        {
+            final String toret;
+
+            if ( this.setter == null ) {
+                toret = target + "." + this.name + " = " + value + ";";
+            } else {
+                toret = target + "." + this.setter + "( " + value + " );";
+            }
+
+            return toret;
+        }
+
+        final String name;
+        final TypeMirror type;
+        final String getter;
+        final String setter;
+    }
+
+    /** Creates a generator for a class.
+     * @param env the environment of the processor.
+     * @param type the class marked with JssonCodec.
+     */
+    CodecGenerator(ProcessingEnvironment env, TypeElement type)
+    {
+        this.env = env;
+        this.type = type;
+        this.packageElement = env.getElementUtils().getPackageOf( type );
+        this.properties = new ArrayList<>();
+        this.source = new StringBuilder();
+        this.numVars = 0;
+        this.ok = true;
+    }
+
+    /** @return the name of the generated codec, including its package. */
+    String getQualifiedCodecName()
+    {
+        return codecNameOf( this.env, this.type );
+    }
+
+    /** Generates the codec, reporting any errors found.
+     * @return the source of the codec, or null if there were errors.
+     */
+    String generate()
+    {
+        String toret = null;
+
+        this.checkClass();
+
+        if ( this.ok ) {
+            this.collectProperties();
+        }
+
+        if ( this.ok ) {
+            this.emitCodec();
+            toret = this.source.toString();
+        }
+
+        return toret;
+    }
+
+    /** @return the name of the codec for a class, including its package. */
+    private static String codecNameOf(ProcessingEnvironment env, TypeElement type)
+    {
+        final PackageElement pkg = env.getElementUtils().getPackageOf( type );
+        final StringBuilder toret = new StringBuilder( type.getSimpleName() );
+
+        for(Element outer = type.getEnclosingElement(); outer instanceof TypeElement; outer = outer.getEnclosingElement()) {
+            toret.insert( 0, outer.getSimpleName() + "_" );
+        }
+
+        if ( !pkg.isUnnamed() ) {
+            toret.insert( 0, pkg.getQualifiedName() + "." );
+        }
+
+        return toret.append( CODEC_SUFFIX ).toString();
+    }
+
+    /** Checks that objects of the class can be created by the codec. */
+    private void checkClass()
+    {
+        if ( this.type.getKind() != ElementKind.CLASS ) {
+            this.error( this.type, "@JssonCodec only applies to classes" );
+        }
+        else
+        if ( this.type.getModifiers().contains( Modifier.ABSTRACT ) ) {
+            this.error( this.type, "@JssonCodec cannot be applied to abstract classes" );
+        }
+        else
+        if ( this.type.getNestingKind() == NestingKind.LOCAL
+          || this.type.getNestingKind() == NestingKind.ANONYMOUS
+          || ( this.type.getNestingKind() == NestingKind.MEMBER
+            && !this.type.getModifiers().contains( Modifier.STATIC ) ) )
+        {
+            this.error( this.type, "@JssonCodec needs a top level or static nested class" );
+        }
+        else
+        if ( !this.type.getTypeParameters().isEmpty() ) {
+            this.error( this.type, "@JssonCodec cannot be applied to generic classes" );
+        } else {
+            for(Element cls = this.type; cls instanceof TypeElement; cls = cls.getEnclosingElement()) {
+                if ( !this.isAccessible( cls ) ) {
+                    this.error( this.type, "@JssonCodec cannot be applied to private classes" );
+                    break;
+                }
+            }
+
+            if ( this.ok ) {
+                boolean found = false;
+
+                for(ExecutableElement constructor: ElementFilter.constructorsIn( this.type.getEnclosedElements() )) {
+                    if ( constructor.getParameters().isEmpty()
+                      && this.isAccessible( constructor ) )
+                    {
+                        found = true;
+                        break;
+                    }
+                }
+
+                if ( !found ) {
+                    this.error( this.type, "@JssonCodec needs a non-private constructor without parameters" );
+                }
+            }
+        }
+
+        return;
+    }
+
+    /** Collects the fields of the class, and of its superclasses. */
+    private void collectProperties()
+    {
+        final List<TypeElement> hierarchy = new ArrayList<>();
+        final Set<String> names = new HashSet<>();
+
+        for(TypeElement cls = this.type; cls != null; cls = superclassOf( cls )) {
+            hierarchy.add( 0, cls );
+        }
+
+        for(TypeElement cls: hierarchy) {
+            for(VariableElement field: ElementFilter.fieldsIn( cls.getEnclosedElements() )) {
+                final Set<Modifier> modifiers = field.getModifiers();
+                final String name = field.getSimpleName().toString();
+                final TypeMirror fieldType = field.asType();
+
+                if ( modifiers.contains( Modifier.STATIC )
+                  || modifiers.contains( Modifier.TRANSIENT )
+                  || modifiers.contains( Modifier.FINAL ) )
+                {
+                    continue;
+                }
+
+                if ( !names.add( name ) ) {
+                    this.error( field, "repeated field name: " + name );
+                }
+                else
+                if ( this.kindOf( fieldType ) == Kind.UNSUPPORTED ) {
+                    this.error( field, "unsupported type: " + fieldType
+                                        + ( fieldType.getKind() == TypeKind.DECLARED ?
+                                                "; classes need to be marked with @JssonCodec" : "" ) );
+                }
+                else
+                if ( this.isAccessible( field ) ) {
+                    this.properties.add( new Property( name, fieldType, null, null ) );
+                } else {
+                    final String capitalized = Character.toUpperCase( name.charAt( 0 ) ) + name.substring( 1 );
+                    String getter = this.findAccessor( cls, "get" + capitalized, fieldType, false );
+                    final String setter = this.findAccessor( cls, "set" + capitalized, fieldType, true );
+
+                    if ( getter == null
+                      && fieldType.getKind() == TypeKind.BOOLEAN )
+                    {
+                        getter = this.findAccessor( cls, "is" + capitalized, fieldType, false );
+                    }
+
+                    if ( getter != null
+                      && setter != null )
+                    {
+                        this.properties.add( new Property( name, fieldType, getter, setter ) );
+                    } else {
+                        this.error( field, "cannot access private field: " + name
+                                            + "; it needs a getter and a setter, or not to be private" );
+                    }
+                }
+            }
+        }
+
+        return;
+    }
+
+    /** @return the superclass of a class, or null if it is Object. */
+    private static TypeElement superclassOf(TypeElement cls)
+    {
+        final TypeMirror superclass = cls.getSuperclass();
+        TypeElement toret = null;
+
+        if ( superclass.getKind() == TypeKind.DECLARED ) {
+            toret = (TypeElement) ( (DeclaredType) superclass ).asElement();
+
+            if ( toret.getQualifiedName().contentEquals( "java.lang.Object" ) ) {
+                toret = null;
+            }
+        }
+
+        return toret;
+    }
+
+    /** Finds a getter or setter for a field.
+     * @return the name of the method, or null if not found.
+     */
+    private String findAccessor(TypeElement cls, String name, TypeMirror fieldType, boolean isSetter)
+    {
+        String toret = null;
+
+        for(ExecutableElement method: ElementFilter.methodsIn( cls.getEnclosedElements() )) {
+            if ( method.getSimpleName().contentEquals( name )
+              && !method.getModifiers().contains( Modifier.STATIC )
+              && this.isAccessible( method ) )
+            {
+                final boolean matches;
+
+                if ( isSetter ) {
+                    matches = method.getParameters().size() == 1
+                           && this.env.getTypeUtils().isSameType( method.getParameters().get( 0 ).asType(), fieldType );
+                } else {
+                    matches = method.getParameters().isEmpty()
+                           && this.env.getTypeUtils().isSameType( method.getReturnType(), fieldType );
+                }
+
+                if ( matches ) {
+                    toret = name;
+                    break;
+                }
+            }
+        }
+
+        return toret;
+    }
+
+    /** @return whether the element can be used from the generated codec. */
+    private boolean isAccessible(Element element)
+    {
+        final Set<Modifier> modifiers = element.getModifiers();
+        final boolean toret;
+
+        if ( modifiers.contains( Modifier.PRIVATE ) ) {
+            toret = false;
+        }
+        else
+        if ( modifiers.contains( Modifier.PUBLIC ) ) {
+            toret = true;
+        } else {
+            toret = this.env.getElementUtils().getPackageOf( element ).equals( this.packageElement );
+        }
+
+        return toret;
+    }
+
+    /** @return the kind of a type, or UNSUPPORTED. */
+    private Kind kindOf(TypeMirror t)
+    {
+        Kind toret = Kind.UNSUPPORTED;
+
+        switch( t.getKind() ) {
+            case BOOLEAN:
+                toret = Kind.BOOLEAN;
+                break;
+            case INT:
+                toret = Kind.INT;
+                break;
+            case LONG:
+                toret = Kind.LONG;
+                break;
+            case DOUBLE:
+                toret = Kind.DOUBLE;
+                break;
+            case FLOAT:
+                toret = Kind.FLOAT;
+                break;
+            case SHORT:
+                toret = Kind.SHORT;
+                break;
+            case BYTE:
+                toret = Kind.BYTE;
+                break;
+            case CHAR:
+                toret = Kind.CHAR;
+                break;
+            case ARRAY: {
+                final TypeKind componentKind = ( (ArrayType) t ).getComponentType().getKind();
+
+                if ( componentKind == TypeKind.INT ) {
+                    toret = Kind.INT_ARRAY;
+                }
+                else
+                if ( componentKind == TypeKind.LONG ) {
+                    toret = Kind.LONG_ARRAY;
+                }
+                else
+                if ( componentKind == TypeKind.DOUBLE ) {
+                    toret = Kind.DOUBLE_ARRAY;
+                }
+                break;
+            }
+            case DECLARED: {
+                final DeclaredType declaredType = (DeclaredType) t;
+                final TypeElement element = (TypeElement) declaredType.asElement();
+                final String name = element.getQualifiedName().toString();
+
+                switch( name ) {
+                    case "java.lang.Boolean":
+                        toret = Kind.BOOLEAN;
+                        break;
+                    case "java.lang.Integer":
+                        toret = Kind.INT;
+                        break;
+                    case "java.lang.Long":
+                        toret = Kind.LONG;
+                        break;
+                    case "java.lang.Double":
+                        toret = Kind.DOUBLE;
+                        break;
+                    case "java.lang.Float":
+                        toret = Kind.FLOAT;
+                        break;
+                    case "java.lang.Short":
+                        toret = Kind.SHORT;
+                        break;
+                    case "java.lang.Byte":
+                        toret = Kind.BYTE;
+                        break;
+                    case "java.lang.Character":
+                        toret = Kind.CHAR;
+                        break;
+                    case "java.lang.String":
+                        toret = Kind.STRING;
+                        break;
+                    case "java.math.BigDecimal":
+                        toret = Kind.BIG_DECIMAL;
+                        break;
+                    case "java.util.List":
+                    case "java.util.Collection":
+                    case "java.lang.Iterable":
+                    case "java.util.ArrayList":
+                        if ( declaredType.getTypeArguments().size() == 1
+                          && this.kindOf( declaredType.getTypeArguments().get( 0 ) ) != Kind.UNSUPPORTED )
+                        {
+                            toret = Kind.LIST;
+                        }
+                        break;
+                    default:
+                        if ( element.getKind() == ElementKind.ENUM ) {
+                            toret = Kind.ENUM;
+                        }
+                        else
+                        if ( element.getAnnotation( JssonCodec.class ) != null ) {
+                            toret = Kind.CODEC;
+                        }
+                }
+                break;
+            }
+            default:
+                toret = Kind.UNSUPPORTED;
+        }
+
+        return toret;
+    }
+
+    /** @return the type of the elements of a list type. */
+    private static TypeMirror elementTypeOf(TypeMirror t)
+    {
+        return ( (DeclaredType) t ).getTypeArguments().get( 0 );
+    }
+
+    /** @return the name of a class type, with no type arguments. */
+    private String rawNameOf(TypeMirror t)
+    {
+        return ( (TypeElement) this.env.getTypeUtils().asElement( t ) ).getQualifiedName().toString();
+    }
+
+    /** @return the codec of a class type, as an expression. */
+    private String codecOf(TypeMirror t)
+    {
+        return codecNameOf( this.env, (TypeElement) this.env.getTypeUtils().asElement( t ) ) + ".INSTANCE";
+    }
+
+    /** Emits the whole source of the codec. */
+    private void emitCodec()
+    {
+        final String typeName = this.type.getQualifiedName().toString();
+        final String codecName = this.getQualifiedCodecName().substring(
+                                        this.packageElement.isUnnamed() ? 0
+                                            : this.packageElement.getQualifiedName().length() + 1 );
+        final StringBuilder names = new StringBuilder();
+        final StringBuilder preparedNames = new StringBuilder();
+
+        for(Property property: this.properties) {
+            names.append( names.length() > 0 ? ", \"" : " \"" ).append( property.name ).append( '"' );
+            preparedNames.append( preparedNames.length() > 0 ? ", " : " " )
+                         .append( "new PreparedName( \"" ).append( property.name ).append( "\" )" );
+        }
+
+        this.line( 0, "// Generated by JssonCodecProcessor, from: " + typeName + ". Do not edit." );
+        this.line( 0, "" );
+
+        if ( !this.packageElement.isUnnamed() ) {
+            this.line( 0, "package " + this.packageElement.getQualifiedName() + ";" );
+            this.line( 0, "" );
+        }
+
+        this.line( 0, "import com.devbaltasarq.jsson.FieldSet;" );
+        this.line( 0, "import com.devbaltasarq.jsson.JsonCodec;" );
+        this.line( 0, "import com.devbaltasarq.jsson.AbstractJsonReader;" );
+        this.line( 0, "import com.devbaltasarq.jsson.AbstractJsonWriter;" );
+        this.line( 0, "import com.devbaltasarq.jsson.PreparedName;" );
+        this.line( 0, "import java.io.IOException;" );
+        this.line( 0, "" );
+        this.line( 0, "/** Reads and writes objects of " + typeName + ". */" );
+        this.line( 0, "public final class " + codecName + " implements JsonCodec<" + typeName + "> {" );
+        this.line( 1, "public static final " + codecName + " INSTANCE = new " + codecName + "();" );
+        this.line( 1, "private static final FieldSet FIELDS = FieldSet.of(" + names + ( names.length() > 0 ? " );" : ");" ) );
+        this.line( 1, "private static final PreparedName[] NAMES = {" + preparedNames + " };" );
+        this.line( 0, "" );
+        this.line( 1, "private " + codecName + "()" );
+        this.line( 1, "{" );
+        this.line( 1, "}" );
+        this.line( 0, "" );
+
+        // Read
+        this.line( 1, "@Override" );
+        this.line( 1, "public " + typeName + " read(AbstractJsonReader reader) throws IOException" );
+        this.line( 1, "{" );
+        this.line( 2, "final " + typeName + " toret = new " + typeName + "();" );
+        this.line( 0, "" );
+        this.line( 2, "reader.beginObject();" );
+        this.line( 2, "while( reader.hasNext() ) {" );
+        this.line( 3, "switch( reader.nextName( FIELDS ) ) {" );
+
+        for(int i = 0; i < this.properties.size(); ++i) {
+            final Property property = this.properties.get( i );
+
+            this.line( 4, "case " + i + ":" );
+            this.emitRead( 5, property.type, value -> property.set( "toret", value ) );
+            this.line( 5, "break;" );
+        }
+
+        this.line( 4, "default:" );
+        this.line( 5, "reader.skipValue();" );
+        this.line( 3, "}" );
+        this.line( 2, "}" );
+        this.line( 2, "reader.endObject();" );
+        this.line( 0, "" );
+        this.line( 2, "return toret;" );
+        this.line( 1, "}" );
+        this.line( 0, "" );
+
+        // Write
+        this.line( 1, "@Override" );
+        this.line( 1, "public void write(AbstractJsonWriter writer, " + typeName + " value) throws IOException" );
+        this.line( 1, "{" );
+        this.line( 2, "writer.beginObject();" );
+
+        for(int i = 0; i < this.properties.size(); ++i) {
+            final Property property = this.properties.get( i );
+
+            this.line( 2, "writer.name( NAMES[ " + i + " ] );" );
+            this.emitWrite( 2, property.type, property.get( "value" ) );
+        }
+
+        this.line( 2, "writer.endObject();" );
+        this.line( 1, "}" );
+        this.line( 0, "}" );
+        return;
+    }
+
+    /** Emits the statements reading a value, which can be null unless primitive.
+     * @param depth the indentation level.
+     * @param t the type of the value.
+     * @param assign creates the statement storing the value, given as an expression.
+     */
+    private void emitRead(int depth, TypeMirror t, Function<String, String> assign)
+    {
+        if ( t.getKind().isPrimitive() ) {
+            this.line( depth, assign.apply( this.readExpression( t ) ) );
+        } else {
+            this.line( depth, "if ( reader.isNullAhead() ) {" );
+            this.line( depth + 1, "reader.nextNull();" );
+            this.line( depth + 1, assign.apply( "null" ) );
+            this.line( depth, "} else {" );
+
+            if ( this.kindOf( t ) == Kind.LIST ) {
+                final TypeMirror elementType = elementTypeOf( t );
+                final String list = "list" + this.numVars++;
+
+                this.line( depth + 1, "final java.util.ArrayList<" + elementType + "> " + list
+                                        + " = new java.util.ArrayList<>();" );
+                this.line( depth + 1, "reader.beginArray();" );
+                this.line( depth + 1, "while( reader.hasNext() ) {" );
+                this.emitRead( depth + 2, elementType, value -> list + ".add( " + value + " );" );
+                this.line( depth + 1, "}" );
+                this.line( depth + 1, "reader.endArray();" );
+                this.line( depth + 1, assign.apply( list ) );
+            } else {
+                this.line( depth + 1, assign.apply( this.readExpression( t ) ) );
+            }
+
+            this.line( depth, "}" );
+        }
+
+        return;
+    }
+
+    /** @return the expression reading a value which is not a list, nor null. */
+    private String readExpression(TypeMirror t)
+    {
+        final String toret;
+
+        switch( this.kindOf( t ) ) {
+            case BOOLEAN:
+                toret = "reader.nextBoolean()";
+                break;
+            case INT:
+                toret = "reader.nextInt()";
+                break;
+            case LONG:
+                toret = "reader.nextLong()";
+                break;
+            case DOUBLE:
+                toret = "reader.nextDouble()";
+                break;
+            case FLOAT:
+                toret = "(float) reader.nextFloat()";
+                break;
+            case SHORT:
+                toret = "JsonCodec.readShort( reader )";
+                break;
+            case BYTE:
+                toret = "JsonCodec.readByte( reader )";
+                break;
+            case CHAR:
+                toret = "JsonCodec.readChar( reader )";
+                break;
+            case STRING:
+                toret = "reader.nextString()";
+                break;
+            case BIG_DECIMAL:
+                toret = "reader.nextBigDecimal()";
+                break;
+            case INT_ARRAY:
+                toret = "reader.nextIntArray()";
+                break;
+            case LONG_ARRAY:
+                toret = "reader.nextLongArray()";
+                break;
+            case DOUBLE_ARRAY:
+                toret = "reader.nextDoubleArray()";
+                break;
+            case ENUM:
+                toret = "JsonCodec.readEnum( reader, " + this.rawNameOf( t ) + ".class )";
+                break;
+            case CODEC:
+                toret = this.codecOf( t ) + ".read( reader )";
+                break;
+            default:
+                throw new IllegalArgumentException( "cannot read type: " + t );
+        }
+
+        return toret;
+    }
+
+    /** Emits the statements writing a value, which can be null unless primitive.
+     * @param depth the indentation level.
+     * @param t the type of the value.
+     * @param value the expression retrieving the value.
+     */
+    private void emitWrite(int depth, TypeMirror t, String value)
+    {
+        if ( t.getKind() == TypeKind.CHAR ) {
+            this.line( depth, "writer.value( String.valueOf( " + value + " ) );" );
+        }
+        else
+        if ( t.getKind().isPrimitive() ) {
+            this.line( depth, "writer.value( " + value + " );" );
+        } else {
+            final String var = "v" + this.numVars++;
+
+            this.line( depth, "final " + t + " " + var + " = " + value + ";" );
+            this.line( depth, "if ( " + var + " == null ) {" );
+            this.line( depth + 1, "writer.nullValue();" );
+            this.line( depth, "} else {" );
+
+            switch( this.kindOf( t ) ) {
+                case LONG_ARRAY: {
+                    final String element = "e" + this.numVars++;
+
+                    this.line( depth + 1, "writer.beginArray();" );
+                    this.line( depth + 1, "for(final long " + element + ": " + var + ") {" );
+                    this.line( depth + 2, "writer.value( " + element + " );" );
+                    this.line( depth + 1, "}" );
+                    this.line( depth + 1, "writer.endArray();" );
+                    break;
+                }
+                case LIST: {
+                    final TypeMirror elementType = elementTypeOf( t );
+                    final String element = "e" + this.numVars++;
+
+                    this.line( depth + 1, "writer.beginArray();" );
+                    this.line( depth + 1, "for(final " + elementType + " " + element + ": " + var + ") {" );
+                    this.emitWrite( depth + 2, elementType, element );
+                    this.line( depth + 1, "}" );
+                    this.line( depth + 1, "writer.endArray();" );
+                    break;
+                }
+                case CHAR:
+                    this.line( depth + 1, "writer.value( String.valueOf( " + var + ".charValue() ) );" );
+                    break;
+                case ENUM:
+                    this.line( depth + 1, "writer.value( " + var + ".name() );" );
+                    break;
+                case CODEC:
+                    this.line( depth + 1, this.codecOf( t ) + ".write( writer, " + var + " );" );
+                    break;
+                default:
+                    this.line( depth + 1, "writer.value( " + var + " );" );
+            }
+
+            this.line( depth, "}" );
+        }
+
+        return;
+    }
+
+    /** Appends a line of source, indented. */
+    private void line(int depth, String text)
+    {
+        if ( !text.isEmpty() ) {
+            for(int i = 0; i < depth; ++i) {
+                this.source.append( INDENT );
+            }
+
+            this.source.append( text );
+        }
+
+        this.source.append( '\n' );
+        return;
+    }
+
+    /** Reports an error on an element. */
+    private void error(Element element, String message)
+    {
+        this.env.getMessager().printMessage( Diagnostic.Kind.ERROR, message, element );
+        this.ok = false;
+        return;
+    }
+
+    private final ProcessingEnvironment env;
+    private final TypeElement type;
+    private final PackageElement packageElement;
+    private final List<Property> properties;
+    private final StringBuilder source;
+    private int numVars;
+    private boolean ok;
+}
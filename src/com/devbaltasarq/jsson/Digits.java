@@ -0,0 +1,499 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.math.BigInteger;
+
+/**
+ * Formats numbers into arrays of chars, allocating nothing.
+ * Integers are formatted two digits at a time, from a table of pairs.
+ * Real numbers are formatted with the shortest digits that read back
+ * as the same number, as found by the Schubfach algorithm
+ * (R. Giulietti, "The Schubfach way to render doubles", 2020),
+ * and laid out as Double.toString() and Float.toString() do.
+ * @author baltasarq
+ */
+final class Digits {
+    /** The minimum length of the arrays to format real numbers into. */
+    static final int BUFFER_LENGTH = 64;
+
+    private static final char[] PAIRS = new char[ 200 ];
+
+    // Doubles
+    private static final int D_P = 53;
+    private static final int D_Q_MIN = -1074;
+    private static final long D_C_MIN = 1L << ( D_P - 1 );
+    private static final int D_C_TINY = 3;
+
+    // Floats
+    private static final int F_P = 24;
+    private static final int F_Q_MIN = -149;
+    private static final int F_C_MIN = 1 << ( F_P - 1 );
+    private static final int F_C_TINY = 8;
+
+    // The powers of ten, as 126-bit numbers g1 * 2^63 + g0
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    private static final long[] G = new long[ ( K_MAX - K_MIN + 1 ) * 2 ];
+
+    private static final long MASK_63 = 0x7FFFFFFFFFFFFFFFL;
+    private static final long MASK_32 = 0xFFFFFFFFL;
+
+    static {
+        for(int i = 0; i < 100; ++i) {
+            PAIRS[ i * 2 ] = (char) ( '0' + i / 10 );
+            PAIRS[ i * 2 + 1 ] = (char) ( '0' + i % 10 );
+        }
+
+        // For each k, 10^-k = b * 2^r, with 2^125 <= b < 2^126, so g = floor( b ) + 1
+        for(int k = K_MIN; k <= K_MAX; ++k) {
+            final int shift = 125 - flog2pow10( -k );
+            BigInteger num = BigInteger.TEN.pow( Math.max( -k, 0 ) );
+            BigInteger den = BigInteger.TEN.pow( Math.max( k, 0 ) );
+
+            if ( shift >= 0 ) {
+                num = num.shiftLeft( shift );
+            } else {
+                den = den.shiftLeft( -shift );
+            }
+
+            final BigInteger g = num.divide( den ).add( BigInteger.ONE );
+            final int i = ( k - K_MIN ) * 2;
+
+            G[ i ] = g.shiftRight( 63 ).longValue();
+            G[ i + 1 ] = g.longValue() & MASK_63;
+        }
+    }
+
+    private Digits()
+    {
+    }
+
+    /** Formats an integer, right-aligned.
+      * @param value the integer to format.
+      * @param chars the chars to format into.
+      * @param end the position after the last digit.
+      * @return the position of the first char, the sign or a digit.
+      */
+    static int formatLong(long value, char[] chars, int end)
+    {
+        final boolean negative = ( value < 0 );
+        long l = negative ? value : -value;
+        int p = end;
+
+        // Negative values, so Long.MIN_VALUE needs no special case
+        while( l <= Integer.MIN_VALUE ) {
+            final long q = l / 100;
+            final int r = (int) ( q * 100 - l );
+
+            l = q;
+            p -= 2;
+            chars[ p ] = PAIRS[ r * 2 ];
+            chars[ p + 1 ] = PAIRS[ r * 2 + 1 ];
+        }
+
+        int i = (int) l;
+
+        while( i <= -100 ) {
+            final int q = i / 100;
+            final int r = q * 100 - i;
+
+            i = q;
+            p -= 2;
+            chars[ p ] = PAIRS[ r * 2 ];
+            chars[ p + 1 ] = PAIRS[ r * 2 + 1 ];
+        }
+
+        if ( i <= -10 ) {
+            p -= 2;
+            chars[ p ] = PAIRS[ -i * 2 ];
+            chars[ p + 1 ] = PAIRS[ -i * 2 + 1 ];
+        } else {
+            --p;
+            chars[ p ] = (char) ( '0' - i );
+        }
+
+        if ( negative ) {
+            --p;
+            chars[ p ] = '-';
+        }
+
+        return p;
+    }
+
+    /** Formats a double with the shortest digits reading back as it.
+      * @param value the number to format.
+      * @param chars the chars to format into, of at least BUFFER_LENGTH.
+      * @return the number of chars formatted, from the first one.
+      */
+    static int formatDouble(double value, char[] chars)
+    {
+        final long bits = Double.doubleToRawLongBits( value );
+        final long t = bits & ( D_C_MIN - 1 );
+        final int bq = (int) ( bits >>> ( D_P - 1 ) ) & 0x7FF;
+        final int start = ( bits < 0 ) ? 1 : 0;
+        final int toret;
+
+        chars[ 0 ] = '-';
+
+        if ( bq == 0x7FF ) {
+            toret = formatSpecial( t != 0, bits < 0, chars );
+        }
+        else
+        if ( bq != 0 ) {
+            final int mq = -D_Q_MIN + 1 - bq;
+            final long c = D_C_MIN | t;
+
+            if ( 0 < mq
+              && mq < D_P
+              && ( ( c >> mq ) << mq ) == c )
+            {
+                toret = layout( c >> mq, 0, chars, start );
+            } else {
+                toret = formatDouble( -mq, c, 0, chars, start );
+            }
+        }
+        else
+        if ( t != 0 ) {
+            if ( t < D_C_TINY ) {
+                toret = formatDouble( D_Q_MIN, 10 * t, -1, chars, start );
+            } else {
+                toret = formatDouble( D_Q_MIN, t, 0, chars, start );
+            }
+        } else {
+            toret = layout( 0, 0, chars, start );
+        }
+
+        return toret;
+    }
+
+    /** Formats a float with the shortest digits reading back as it.
+      * @param value the number to format.
+      * @param chars the chars to format into, of at least BUFFER_LENGTH.
+      * @return the number of chars formatted, from the first one.
+      */
+    static int formatFloat(float value, char[] chars)
+    {
+        final int bits = Float.floatToRawIntBits( value );
+        final int t = bits & ( F_C_MIN - 1 );
+        final int bq = ( bits >>> ( F_P - 1 ) ) & 0xFF;
+        final int start = ( bits < 0 ) ? 1 : 0;
+        final int toret;
+
+        chars[ 0 ] = '-';
+
+        if ( bq == 0xFF ) {
+            toret = formatSpecial( t != 0, bits < 0, chars );
+        }
+        else
+        if ( bq != 0 ) {
+            final int mq = -F_Q_MIN + 1 - bq;
+            final int c = F_C_MIN | t;
+
+            if ( 0 < mq
+              && mq < F_P
+              && ( ( c >> mq ) << mq ) == c )
+            {
+                toret = layout( c >> mq, 0, chars, start );
+            } else {
+                toret = formatFloat( -mq, c, 0, chars, start );
+            }
+        }
+        else
+        if ( t != 0 ) {
+            if ( t < F_C_TINY ) {
+                toret = formatFloat( F_Q_MIN, 10 * t, -1, chars, start );
+            } else {
+                toret = formatFloat( F_Q_MIN, t, 0, chars, start );
+            }
+        } else {
+            toret = layout( 0, 0, chars, start );
+        }
+
+        return toret;
+    }
+
+    /** Formats NaN or an infinity, as Double.toString() does. */
+    private static int formatSpecial(boolean isNaN, boolean negative, char[] chars)
+    {
+        final String text;
+
+        if ( isNaN ) {
+            text = "NaN";
+        }
+        else
+        if ( negative ) {
+            text = "-Infinity";
+        } else {
+            text = "Infinity";
+        }
+
+        text.getChars( 0, text.length(), chars, 0 );
+        return text.length();
+    }
+
+    /** Finds the shortest decimal for c * 2^q, among those rounding to it. */
+    private static int formatDouble(int q, long c, int dk, char[] chars, int start)
+    {
+        final int out = (int) c & 1;
+        final long cb = c << 2;
+        final long cbr = cb + 2;
+        final long cbl;
+        final int k;
+
+        if ( c != D_C_MIN
+          || q == D_Q_MIN )
+        {
+            cbl = cb - 2;
+            k = flog10pow2( q );
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2( q );
+        }
+
+        final int h = q + flog2pow10( -k ) + 2;
+        final int i = ( k - K_MIN ) * 2;
+        final long vb = roundOdd( G[ i ], G[ i + 1 ], cb << h );
+        final long vbl = roundOdd( G[ i ], G[ i + 1 ], cbl << h );
+        final long vbr = roundOdd( G[ i ], G[ i + 1 ], cbr << h );
+        final long s = vb >> 2;
+        int toret = -1;
+
+        // Try with one digit less, first
+        if ( s >= 100 ) {
+            final long sp10 = 10 * multiplyHigh( s, 115292150460684698L << 4 );
+            final long tp10 = sp10 + 10;
+            final boolean upin = ( vbl + out <= sp10 << 2 );
+            final boolean wpin = ( ( tp10 << 2 ) + out <= vbr );
+
+            if ( upin != wpin ) {
+                toret = layout( upin ? sp10 : tp10, k, chars, start );
+            }
+        }
+
+        if ( toret < 0 ) {
+            final long t = s + 1;
+            final boolean uin = ( vbl + out <= s << 2 );
+            final boolean win = ( ( t << 2 ) + out <= vbr );
+
+            if ( uin != win ) {
+                toret = layout( uin ? s : t, k + dk, chars, start );
+            } else {
+                // Both are in: the closest one, or the even one
+                final long cmp = vb - ( ( s + t ) << 1 );
+                final boolean isS = ( cmp < 0
+                                   || ( cmp == 0 && ( s & 1 ) == 0 ) );
+
+                toret = layout( isS ? s : t, k + dk, chars, start );
+            }
+        }
+
+        return toret;
+    }
+
+    /** Finds the shortest decimal for c * 2^q, among those rounding to it. */
+    private static int formatFloat(int q, int c, int dk, char[] chars, int start)
+    {
+        final int out = c & 1;
+        final long cb = c << 2;
+        final long cbr = cb + 2;
+        final long cbl;
+        final int k;
+
+        if ( c != F_C_MIN
+          || q == F_Q_MIN )
+        {
+            cbl = cb - 2;
+            k = flog10pow2( q );
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2( q );
+        }
+
+        final int h = q + flog2pow10( -k ) + 33;
+        final long g = G[ ( k - K_MIN ) * 2 ] + 1;
+        final int vb = roundOdd( g, cb << h );
+        final int vbl = roundOdd( g, cbl << h );
+        final int vbr = roundOdd( g, cbr << h );
+        final int s = vb >> 2;
+        int toret = -1;
+
+        // Try with one digit less, first
+        if ( s >= 100 ) {
+            final int sp10 = 10 * (int) ( ( s * 1717986919L ) >>> 34 );
+            final int tp10 = sp10 + 10;
+            final boolean upin = ( vbl + out <= sp10 << 2 );
+            final boolean wpin = ( ( tp10 << 2 ) + out <= vbr );
+
+            if ( upin != wpin ) {
+                toret = layout( upin ? sp10 : tp10, k, chars, start );
+            }
+        }
+
+        if ( toret < 0 ) {
+            final int t = s + 1;
+            final boolean uin = ( vbl + out <= s << 2 );
+            final boolean win = ( ( t << 2 ) + out <= vbr );
+
+            if ( uin != win ) {
+                toret = layout( uin ? s : t, k + dk, chars, start );
+            } else {
+                // Both are in: the closest one, or the even one
+                final int cmp = vb - ( ( s + t ) << 1 );
+                final boolean isS = ( cmp < 0
+                                   || ( cmp == 0 && ( s & 1 ) == 0 ) );
+
+                toret = layout( isS ? s : t, k + dk, chars, start );
+            }
+        }
+
+        return toret;
+    }
+
+    /** Lays out f * 10^e as Double.toString() does: plain when
+      * 10^-3 <= f * 10^e < 10^7, as in 0.001 or 1234567.0,
+      * and in scientific notation otherwise, as in 1.0E7.
+      * @param f the digits, without sign.
+      * @param e the exponent of ten.
+      * @param chars the chars to format into, of at least BUFFER_LENGTH.
+      * @param start the position of the first char, after the sign if any.
+      * @return the position after the last char.
+      */
+    private static int layout(long f, int e, char[] chars, int start)
+    {
+        final int end = chars.length;
+        int first = formatLong( f, chars, end );
+        int last = end;
+        int p = start;
+
+        // Drop the trailing zeroes, so the digits are the shortest
+        while( last - first > 1
+            && chars[ last - 1 ] == '0' )
+        {
+            --last;
+            ++e;
+        }
+
+        final int n = last - first;
+        final int point = e + n;
+
+        if ( f == 0 ) {
+            p = put( chars, p, '0', 1 );
+            chars[ p ] = '.';
+            p = put( chars, p + 1, '0', 1 );
+        }
+        else
+        if ( 0 < point
+          && point <= 7 )
+        {
+            if ( n <= point ) {
+                p = copy( chars, first, last, p );
+                p = put( chars, p, '0', point - n );
+                chars[ p ] = '.';
+                p = put( chars, p + 1, '0', 1 );
+            } else {
+                p = copy( chars, first, first + point, p );
+                chars[ p ] = '.';
+                p = copy( chars, first + point, last, p + 1 );
+            }
+        }
+        else
+        if ( -3 < point
+          && point <= 0 )
+        {
+            chars[ p ] = '0';
+            chars[ p + 1 ] = '.';
+            p = put( chars, p + 2, '0', -point );
+            p = copy( chars, first, last, p );
+        } else {
+            chars[ p ] = chars[ first ];
+            chars[ p + 1 ] = '.';
+
+            if ( n > 1 ) {
+                p = copy( chars, first + 1, last, p + 2 );
+            } else {
+                p = put( chars, p + 2, '0', 1 );
+            }
+
+            chars[ p ] = 'E';
+            first = formatLong( point - 1, chars, end );
+            p = copy( chars, first, end, p + 1 );
+        }
+
+        return p;
+    }
+
+    /** Copies chars[ from..to ) to chars[ p.. ), forwards. @return the position after. */
+    private static int copy(char[] chars, int from, int to, int p)
+    {
+        System.arraycopy( chars, from, chars, p, to - from );
+        return p + to - from;
+    }
+
+    /** Puts a char n times from chars[ p ]. @return the position after. */
+    private static int put(char[] chars, int p, char ch, int n)
+    {
+        for(int i = 0; i < n; ++i) {
+            chars[ p + i ] = ch;
+        }
+
+        return p + n;
+    }
+
+    /** @return floor( log10( 2^e ) ), for |e| <= 5456721. */
+    private static int flog10pow2(int e)
+    {
+        return (int) ( ( e * 661971961083L ) >> 41 );
+    }
+
+    /** @return floor( log10( 3/4 * 2^e ) ), for |e| <= 5456721. */
+    private static int flog10threeQuartersPow2(int e)
+    {
+        return (int) ( ( e * 661971961083L - 274743187321L ) >> 41 );
+    }
+
+    /** @return floor( log2( 10^e ) ), for |e| <= 1838394. */
+    private static int flog2pow10(int e)
+    {
+        return (int) ( ( e * 913124641741L ) >> 38 );
+    }
+
+    /** @return the product of g1 * 2^63 + g0 and cp, scaled down and rounded to odd. */
+    private static long roundOdd(long g1, long g0, long cp)
+    {
+        final long x1 = multiplyHigh( g0, cp );
+        final long y0 = g1 * cp;
+        final long y1 = multiplyHigh( g1, cp );
+        final long z = ( y0 >>> 1 ) + x1;
+        final long vbp = y1 + ( z >>> 63 );
+
+        return vbp | ( ( ( z & MASK_63 ) + MASK_63 ) >>> 63 );
+    }
+
+    /** @return the product of g and cp, scaled down and rounded to odd. */
+    private static int roundOdd(long g, long cp)
+    {
+        final long x1 = multiplyHigh( g, cp );
+        final long vbp = x1 >>> 31;
+
+        return (int) ( vbp | ( ( ( x1 & MASK_32 ) + MASK_32 ) >>> 32 ) );
+    }
+
+    /** @return the 64 most significant bits of the 128-bit product,
+      * as Math.multiplyHigh() does from Java 9 on.
+      */
+    private static long multiplyHigh(long x, long y)
+    {
+        final long x1 = x >> 32;
+        final long x2 = x & MASK_32;
+        final long y1 = y >> 32;
+        final long y2 = y & MASK_32;
+        final long z2 = x2 * y2;
+        final long t = x1 * y2 + ( z2 >>> 32 );
+        long z1 = t & MASK_32;
+        final long z0 = t >> 32;
+
+        z1 += x2 * y1;
+        return x1 * y1 + z0 + ( z1 >> 32 );
+    }
+}
@@ -0,0 +1,97 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+/**
+ * An immutable set of field names, each one with its index.
+ * It is used with AbstractJsonReader.nextName(FieldSet), so the fields
+ * of an object can be told apart with a switch on their index:
+ * <pre>
+ *     static final FieldSet POINT = FieldSet.of( "x", "y" );
+ *     ...
+ *     switch ( jsonReader.nextName( POINT ) ) {
+ *         case 0: x = jsonReader.nextInt(); break;
+ *         case 1: y = jsonReader.nextInt(); break;
+ *     }
+ * </pre>
+ * @author baltasarq
+ */
+public final class FieldSet {
+    public static final int UNKNOWN = -1;
+
+    /** Creates a new field set.
+     * @param names the names of the fields, in index order.
+     * @return a new field set.
+     * @throws IllegalArgumentException if a name is repeated.
+     */
+    public static FieldSet of(String... names)
+    {
+        return new FieldSet( names );
+    }
+
+    private FieldSet(String[] names)
+    {
+        int numSlots = 2;
+
+        while( numSlots < names.length * 2 ) {
+            numSlots *= 2;
+        }
+
+        this.names = names.clone();
+        this.slots = new String[ numSlots ];
+        this.indexes = new int[ numSlots ];
+
+        for(int i = 0; i < this.names.length; ++i) {
+            final int slot = Util.slotOf( this.slots, this.names[ i ] );
+
+            if ( this.slots[ slot ] != null ) {
+                throw new IllegalArgumentException( "repeated field name: " + this.names[ i ] );
+            }
+
+            this.slots[ slot ] = this.names[ i ];
+            this.indexes[ slot ] = i;
+        }
+    }
+
+    /** @return the number of fields. */
+    public int size()
+    {
+        return this.names.length;
+    }
+
+    /** @param index the index of a field.
+     * @return the name of that field.
+     */
+    public String nameOf(int index)
+    {
+        return this.names[ index ];
+    }
+
+    /** @param name the name of a field.
+     * @return the index of that field, or UNKNOWN if not in the set.
+     */
+    public int indexOf(String name)
+    {
+        final int slot = Util.slotOf( this.slots, name );
+
+        return this.slots[ slot ] != null ? this.indexes[ slot ] : UNKNOWN;
+    }
+
+    /** Finds a name held in the window of a reader.
+     * @param reader the reader holding the name in its window.
+     * @param start the position of the name in the window.
+     * @param length the length of the name.
+     * @param hash the hash of the name, as in String.hashCode().
+     * @return the index of that field, or UNKNOWN if not in the set.
+     */
+    int find(AbstractJsonReader reader, int start, int length, int hash)
+    {
+        final int slot = Util.slotOf( this.slots, reader, start, length, hash );
+
+        return this.slots[ slot ] != null ? this.indexes[ slot ] : UNKNOWN;
+    }
+
+    private final String[] names;
+    private final String[] slots;
+    private final int[] indexes;
+}
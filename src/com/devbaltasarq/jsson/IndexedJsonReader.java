@@ -0,0 +1,205 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.io.IOException;
+
+/**
+ * A JSON reader for documents held in memory, as UTF-8 bytes,
+ * which are indexed before being read, so skipping values is fast.
+ * The structural index of the whole document is built first, classifying
+ * 64 bytes at a time. Then, skipValue() jumps to the matching bracket
+ * or quotes, looking only at the entries of the index inside the value,
+ * instead of at each of its bytes.
+ * The index is used by skipValue() only: names, strings and scalars
+ * are read as with Utf8JsonReader, so building the index is an extra pass.
+ * This reader pays off when most of each document is skipped,
+ * such as when only a few members are picked from large documents.
+ * @author baltasarq
+ * @see StructuralIndex
+ */
+public class IndexedJsonReader extends AbstractUtf8JsonReader {
+    /** Creates a new reader, given an array of UTF-8 bytes.
+     * The array is read in place, so it must not change while reading.
+     * @param input the bytes to read from.
+     * @throws IOException if the document cannot be indexed.
+     */
+    public IndexedJsonReader(byte[] input) throws IOException
+    {
+        this( input, 0, input.length );
+    }
+
+    /** Creates a new reader, given a part of an array of UTF-8 bytes.
+     * The array is read in place, so it must not change while reading.
+     * @param input the bytes to read from.
+     * @param offset the position of the first byte to read.
+     * @param length the number of bytes to read.
+     * @throws IOException if the document cannot be indexed.
+     */
+    public IndexedJsonReader(byte[] input, int offset, int length) throws IOException
+    {
+        this.reset( input, offset, length );
+    }
+
+    /** Resets the reader to read an array of UTF-8 bytes, indexing it.
+     * @param input the bytes to read from.
+     * @throws IOException if the document cannot be indexed.
+     * @see #IndexedJsonReader(byte[])
+     */
+    public void reset(byte[] input) throws IOException
+    {
+        this.reset( input, 0, input.length );
+    }
+
+    /** Resets the reader to read a part of an array of UTF-8 bytes, indexing it.
+     * @param input the bytes to read from.
+     * @param offset the position of the first byte to read.
+     * @param length the number of bytes to read.
+     * @throws IOException if the document cannot be indexed.
+     * @see #IndexedJsonReader(byte[], int, int)
+     */
+    public void reset(byte[] input, int offset, int length) throws IOException
+    {
+        this.index = StructuralIndex.build( input, offset, length );
+        this.entry = 0;
+        this.array( input, offset, length );
+
+        return;
+    }
+
+    /** @return the structural index of the document. */
+    public StructuralIndex getIndex()
+    {
+        return this.index;
+    }
+
+    /** Skips the next value, jumping past its closing bracket or quotes.
+     * @throws IOException if reading goes wrong, or there is no value ahead.
+     */
+    @Override
+    public void skipValue() throws IOException
+    {
+        this.skipSeparators();
+
+        final int current = this.entryAt( this.pos );
+        final int match = ( current >= 0 ) ? this.index.matchOf( current ) : -1;
+
+        if ( match >= 0 ) {
+            this.checkSkipped( current, match );
+            this.countToken();
+            this.pos = this.index.positionOf( match ) + 1;
+            this.entry = match + 1;
+        } else {
+            super.skipValue();
+        }
+
+        return;
+    }
+
+    /** Checks the limits for a value to skip, as AbstractJsonReader.skipValue() does,
+     * looking only at the entries of the index for it.
+     * @param first the entry opening the value.
+     * @param last the entry closing the value.
+     * @throws IOException if the value exceeds any of the limits.
+     */
+    private void checkSkipped(int first, int last) throws IOException
+    {
+        final JsonLimits limits = this.getLimits();
+        int depth = this.state.getDepth();
+        int current = first;
+
+        while( current <= last ) {
+            final int position = this.index.positionOf( current );
+            final int ch = this.unitAt( position );
+
+            if ( ch == Util.OPEN_OBJECT_DELIMITER
+              || ch == Util.OPEN_ARRAY_DELIMITER )
+            {
+                if ( depth >= limits.getMaxDepth() ) {
+                    throw new IOException( "nesting deeper than the limit: " + limits.getMaxDepth() );
+                }
+
+                ++depth;
+                ++current;
+            }
+            else
+            if ( ch == Util.QUOTES ) {
+                // Jump to the closing quotes
+                final int closing = this.index.matchOf( current );
+
+                if ( closing >= 0
+                  && this.index.positionOf( closing ) - position - 1 > limits.getMaxStringLength() )
+                {
+                    throw new IOException( "string longer than the limit: " + limits.getMaxStringLength() );
+                }
+
+                current = ( closing >= 0 ) ? closing + 1 : current + 1;
+            }
+            else
+            if ( ch == Util.END_OBJECT_DELIMITER
+              || ch == Util.END_ARRAY_DELIMITER )
+            {
+                --depth;
+                ++current;
+            }
+            else
+            if ( ch == Util.NAME_SEPARATOR
+              || ch == Util.ENTITY_SEPARATOR )
+            {
+                ++current;
+            } else {
+                // A scalar, or an unquoted name
+                int end = position;
+
+                while( end < this.limit
+                    && Util.isOfClass( this.unitAt( end ), Util.CC_SCALAR ) )
+                {
+                    ++end;
+                }
+
+                if ( end - position > limits.getMaxStringLength() ) {
+                    throw new IOException( "token longer than the limit: " + limits.getMaxStringLength() );
+                }
+
+                this.checkSkippedScalar( ch, end - position );
+                ++current;
+            }
+        }
+
+        return;
+    }
+
+    /** Finds the entry of the index for a position.
+     * Since the reader only moves forward, the search goes on from the last one.
+     * @param position a position in the document.
+     * @return the number of the entry, or -1 if the position is not indexed.
+     */
+    private int entryAt(int position)
+    {
+        final int size = this.index.size();
+        int toret = -1;
+
+        if ( this.entry >= size
+          || this.index.positionOf( this.entry ) > position )
+        {
+            this.entry = this.index.entryFrom( position );
+        } else {
+            while( this.entry < size
+                && this.index.positionOf( this.entry ) < position )
+            {
+                ++this.entry;
+            }
+        }
+
+        if ( this.entry < size
+          && this.index.positionOf( this.entry ) == position )
+        {
+            toret = this.entry;
+        }
+
+        return toret;
+    }
+
+    private StructuralIndex index;
+    private int entry;
+}
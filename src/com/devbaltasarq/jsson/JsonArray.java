@@ -0,0 +1,93 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An array in a JsonDocument.
+ * Elements are found by walking the tape, jumping over nested
+ * objects and arrays in a single step. The positions of the elements
+ * are kept the first time one is got by its index, so get() takes
+ * constant time afterwards.
+ * @author baltasarq
+ * @see JsonDocument
+ */
+public final class JsonArray extends JsonValue implements Iterable<JsonValue> {
+    JsonArray(JsonDocument document, int index)
+    {
+        super( document, index );
+    }
+
+    /** @return the number of elements. */
+    public int size()
+    {
+        return (int) this.document.entryAt( this.index + 1 );
+    }
+
+    /** @param pos the position of an element.
+     * @return the element at that position.
+     * @throws IndexOutOfBoundsException if there is no such element.
+     */
+    public JsonValue get(int pos)
+    {
+        if ( pos < 0
+          || pos >= this.size() )
+        {
+            throw new IndexOutOfBoundsException( "index: " + pos + ", size: " + this.size() );
+        }
+
+        return JsonValue.at( this.document, this.elements()[ pos ] );
+    }
+
+    /** @return the positions of the elements in the tape. */
+    private int[] elements()
+    {
+        if ( this.elements == null ) {
+            final int[] positions = new int[ this.size() ];
+            int element = this.index + 2;
+
+            for(int i = 0; i < positions.length; ++i) {
+                positions[ i ] = element;
+                element = this.document.next( element );
+            }
+
+            this.elements = positions;
+        }
+
+        return this.elements;
+    }
+
+    /** @return an iterator over the elements, in order. */
+    @Override
+    public Iterator<JsonValue> iterator()
+    {
+        return new Iterator<JsonValue>() {
+            @Override
+            public boolean hasNext()
+            {
+                return this.count < JsonArray.this.size();
+            }
+
+            @Override
+            public JsonValue next()
+            {
+                if ( !this.hasNext() ) {
+                    throw new NoSuchElementException();
+                }
+
+                final JsonValue toret = JsonValue.at( JsonArray.this.document, this.element );
+
+                this.element = JsonArray.this.document.next( this.element );
+                ++this.count;
+                return toret;
+            }
+
+            private int element = JsonArray.this.index + 2;
+            private int count = 0;
+        };
+    }
+
+    private int[] elements;
+}
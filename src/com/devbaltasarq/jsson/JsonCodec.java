@@ -0,0 +1,102 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes the objects of a given class.
+ * Codecs are generated for the classes marked with JssonCodec.
+ * @param <T> the class of the objects.
+ * @author baltasarq
+ * @see JssonCodec
+ */
+public interface JsonCodec<T> {
+    /** Reads an object.
+     * @param reader the reader, before the object.
+     * @return the object read.
+     * @throws IOException if reading goes wrong.
+     */
+    T read(AbstractJsonReader reader) throws IOException;
+
+    /** Writes an object.
+     * @param writer the writer to write to.
+     * @param value the object to write, not null.
+     * @throws IOException if writing goes wrong.
+     */
+    void write(AbstractJsonWriter writer, T value) throws IOException;
+
+    /** Reads a constant of an enum, by its name.
+     * @param reader the reader, before the name of the constant.
+     * @param type the class of the enum.
+     * @param <E> the type of the enum.
+     * @return the constant read.
+     * @throws IOException if reading goes wrong, or there is no such constant.
+     */
+    static <E extends Enum<E>> E readEnum(AbstractJsonReader reader, Class<E> type) throws IOException
+    {
+        final String name = reader.nextString();
+
+        try {
+            return Enum.valueOf( type, name );
+        } catch(IllegalArgumentException exc) {
+            throw new IOException( "unknown constant: " + name );
+        }
+    }
+
+    /** Reads a short, which is written as a number.
+     * @param reader the reader, before the number.
+     * @return the short read.
+     * @throws IOException if reading goes wrong, or the number is out of range.
+     */
+    static short readShort(AbstractJsonReader reader) throws IOException
+    {
+        final int value = reader.nextInt();
+
+        if ( value < Short.MIN_VALUE
+          || value > Short.MAX_VALUE )
+        {
+            throw new IOException( "not a short: " + value );
+        }
+
+        return (short) value;
+    }
+
+    /** Reads a byte, which is written as a number.
+     * @param reader the reader, before the number.
+     * @return the byte read.
+     * @throws IOException if reading goes wrong, or the number is out of range.
+     */
+    static byte readByte(AbstractJsonReader reader) throws IOException
+    {
+        final int value = reader.nextInt();
+
+        if ( value < Byte.MIN_VALUE
+          || value > Byte.MAX_VALUE )
+        {
+            throw new IOException( "not a byte: " + value );
+        }
+
+        return (byte) value;
+    }
+
+    /** Reads a char, which is written as a string of one char.
+     * @param reader the reader, before the string.
+     * @return the char read.
+     * @throws IOException if reading goes wrong, or the string is not of one char.
+     */
+    static char readChar(AbstractJsonReader reader) throws IOException
+    {
+        final String value = reader.nextString();
+
+        if ( value == null ) {
+            throw new IOException( "not a char: null" );
+        }
+
+        if ( value.length() != 1 ) {
+            throw new IOException( "not a char: \"" + value + "\"" );
+        }
+
+        return value.charAt( 0 );
+    }
+}
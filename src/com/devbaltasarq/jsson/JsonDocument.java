@@ -0,0 +1,481 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * An immutable JSON document, held in a flat tape.
+ * The tape is an array of longs, with the type of each entry in its
+ * highest byte. Strings and numbers are kept, as text, in a single
+ * buffer of chars shared by the whole document, so there are no
+ * objects per node: the JsonValue, JsonObject and JsonArray accessors
+ * are just a position in the tape, created when asked for.
+ *
+ * The entries in the tape are:
+ * null, true and false: a single entry.
+ * strings: the entry with the offset of the text, and then its length.
+ * numbers: the entry with the offset of the text, its length,
+ *          and then its value, as a long or as the bits of a double.
+ * objects and arrays: the entry with the position after their end,
+ *          the number of members, and then the members themselves;
+ *          each member of an object is a string for its name
+ *          followed by its value.
+ * @author baltasarq
+ */
+public final class JsonDocument {
+    static final int NULL = 1;
+    static final int TRUE = 2;
+    static final int FALSE = 3;
+    static final int LONG = 4;
+    static final int DOUBLE = 5;
+    static final int STRING = 6;
+    static final int OBJECT = 7;
+    static final int ARRAY = 8;
+    private static final int TYPE_SHIFT = 56;
+    private static final long PAYLOAD_MASK = ( 1L << TYPE_SHIFT ) - 1;
+
+    /** Builds the tape while reading a document. */
+    private static final class Builder {
+        Builder()
+        {
+            this.tape = new long[ 64 ];
+            this.size = 0;
+            this.chars = new char[ 256 ];
+            this.length = 0;
+        }
+
+        /** Reads a value, and all its contents. */
+        void value(AbstractJsonReader reader) throws IOException
+        {
+            final AbstractJsonReader.TokenType tokenType = reader.nextTokenType();
+
+            switch( tokenType ) {
+                case OPEN_OBJECT: {
+                    final int start = this.add( OBJECT, 0 );
+                    int count = 0;
+
+                    this.add( 0 );
+                    reader.beginObject();
+                    while( reader.hasNext() ) {
+                        this.text( STRING, reader.nextNameView() );
+                        this.value( reader );
+                        ++count;
+                    }
+                    reader.endObject();
+
+                    this.close( start, count );
+                    break;
+                }
+                case OPEN_ARRAY: {
+                    final int start = this.add( ARRAY, 0 );
+                    int count = 0;
+
+                    this.add( 0 );
+                    reader.beginArray();
+                    while( reader.hasNext() ) {
+                        this.value( reader );
+                        ++count;
+                    }
+                    reader.endArray();
+
+                    this.close( start, count );
+                    break;
+                }
+                case STRING:
+                    this.text( STRING, reader.nextStringView() );
+                    break;
+                case NUMBER:
+                    this.number( reader );
+                    break;
+                case BOOLEAN:
+                    this.add( reader.nextBoolean() ? TRUE : FALSE, 0 );
+                    break;
+                case NULL:
+                    reader.nextNull();
+                    this.add( NULL, 0 );
+                    break;
+                default:
+                    throw new IOException( "expected value, but found: " + tokenType );
+            }
+
+            return;
+        }
+
+        /** Adds a number: its text, and its value.
+         * Lenient text, such as +5 or .5, is kept as JSON,
+         * so the document is written back as valid JSON.
+         */
+        private void number(AbstractJsonReader reader) throws IOException
+        {
+            final int numberLength = reader.scanNumberAhead();
+            final int start = this.reserve( numberLength );
+            final boolean integral;
+            final long value;
+            int length = numberLength;
+
+            for(int i = 0; i < numberLength; ++i) {
+                this.chars[ start + i ] = (char) reader.unitAt( reader.pos + i );
+            }
+
+            integral = reader.isExactIntegral();
+
+            if ( integral ) {
+                value = reader.nextLong();
+            } else {
+                value = Double.doubleToRawLongBits( reader.nextDouble() );
+            }
+
+            if ( !isJsonNumber( this.chars, start, numberLength ) ) {
+                length = this.normalize( start, numberLength, integral, value );
+            }
+
+            this.add( integral ? LONG : DOUBLE, start );
+            this.add( length );
+            this.add( value );
+            return;
+        }
+
+        /** Replaces the text of a number by the same number, as JSON.
+         * The text is kept as a BigDecimal would write it, so no precision
+         * is lost; the value is used only if the text is not even a BigDecimal.
+         * @param start the position of the text.
+         * @param length the length of the text.
+         * @param integral whether the value is a long, or the bits of a double.
+         * @param value the value.
+         * @return the length of the new text.
+         */
+        private int normalize(int start, int length, boolean integral, long value)
+        {
+            String text;
+
+            try {
+                text = new BigDecimal( this.chars, start, length ).toString();
+            } catch(NumberFormatException exc) {
+                text = integral ? Long.toString( value ) : Double.toString( Double.longBitsToDouble( value ) );
+            }
+
+            this.length = start;
+            this.reserve( text.length() );
+            text.getChars( 0, text.length(), this.chars, start );
+            return text.length();
+        }
+
+        /** @return whether the text of a number follows the JSON grammar. */
+        private static boolean isJsonNumber(char[] chars, int start, int length)
+        {
+            final int end = start + length;
+            int i = start;
+            boolean toret;
+
+            if ( i < end
+              && chars[ i ] == '-' )
+            {
+                ++i;
+            }
+
+            // A zero, or digits not starting with a zero
+            final int integral = i;
+
+            i = skipDigits( chars, i, end );
+            toret = ( i > integral )
+                 && ( chars[ integral ] != '0' || i == integral + 1 );
+
+            if ( toret
+              && i < end
+              && chars[ i ] == '.' )
+            {
+                final int fraction = i + 1;
+
+                i = skipDigits( chars, fraction, end );
+                toret = ( i > fraction );
+            }
+
+            if ( toret
+              && i < end
+              && ( chars[ i ] == 'e' || chars[ i ] == 'E' ) )
+            {
+                ++i;
+
+                if ( i < end
+                  && ( chars[ i ] == '+' || chars[ i ] == '-' ) )
+                {
+                    ++i;
+                }
+
+                final int exponent = i;
+
+                i = skipDigits( chars, exponent, end );
+                toret = ( i > exponent );
+            }
+
+            return toret && i == end;
+        }
+
+        /** @return the position after the digits from the given one. */
+        private static int skipDigits(char[] chars, int i, int end)
+        {
+            while( i < end
+                && Util.isOfClass( chars[ i ], Util.CC_DIGIT ) )
+            {
+                ++i;
+            }
+
+            return i;
+        }
+
+        /** Adds a string, copying its chars. */
+        private void text(int type, StringView view)
+        {
+            if ( view == null ) {
+                this.add( NULL, 0 );
+            } else {
+                final int textLength = view.length();
+                final int start = this.reserve( textLength );
+
+                for(int i = 0; i < textLength; ++i) {
+                    this.chars[ start + i ] = view.charAt( i );
+                }
+
+                this.add( type, start );
+                this.add( textLength );
+            }
+
+            return;
+        }
+
+        /** Sets the end and the number of members of a container. */
+        private void close(int start, int count)
+        {
+            this.tape[ start ] |= this.size;
+            this.tape[ start + 1 ] = count;
+            return;
+        }
+
+        /** Makes room for the given number of chars.
+         * @return the position of the first one.
+         */
+        private int reserve(int count)
+        {
+            final int toret = this.length;
+
+            if ( this.length + count > this.chars.length ) {
+                this.chars = Arrays.copyOf( this.chars, Math.max( this.length + count, this.chars.length * 2 ) );
+            }
+
+            this.length += count;
+            return toret;
+        }
+
+        /** Adds an entry, with its type and payload.
+         * @return its position in the tape.
+         */
+        private int add(int type, long payload)
+        {
+            return this.add( ( ( (long) type ) << TYPE_SHIFT ) | payload );
+        }
+
+        /** Adds a raw entry.
+         * @return its position in the tape.
+         */
+        private int add(long entry)
+        {
+            final int toret = this.size;
+
+            if ( this.size == this.tape.length ) {
+                this.tape = Arrays.copyOf( this.tape, this.size * 2 );
+            }
+
+            this.tape[ this.size ] = entry;
+            ++this.size;
+            return toret;
+        }
+
+        long[] tape;
+        int size;
+        char[] chars;
+        int length;
+    }
+
+    /** Reads a whole document.
+     * @param reader the reader, before the document.
+     * @return the document read.
+     * @throws IOException if reading goes wrong.
+     */
+    public static JsonDocument parse(AbstractJsonReader reader) throws IOException
+    {
+        final Builder builder = new Builder();
+
+        builder.value( reader );
+        return new JsonDocument( Arrays.copyOf( builder.tape, builder.size ),
+                                 Arrays.copyOf( builder.chars, builder.length ) );
+    }
+
+    private JsonDocument(long[] tape, char[] chars)
+    {
+        this.tape = tape;
+        this.chars = chars;
+    }
+
+    /** @return the root value of the document. */
+    public JsonValue getRoot()
+    {
+        return JsonValue.at( this, 0 );
+    }
+
+    /** Writes the whole document.
+     * @param writer the writer to write to.
+     * @throws IOException if writing goes wrong.
+     */
+    public void write(AbstractJsonWriter writer) throws IOException
+    {
+        this.write( writer, 0 );
+    }
+
+    /** @return the number of entries in the tape. */
+    public int getTapeLength()
+    {
+        return this.tape.length;
+    }
+
+    /** @return the number of chars of text in the document. */
+    public int getTextLength()
+    {
+        return this.chars.length;
+    }
+
+    /** @return the document, as JSON text. */
+    @Override
+    public String toString()
+    {
+        return this.getRoot().toString();
+    }
+
+    /** @return the type of the entry at the given position. */
+    int typeAt(int index)
+    {
+        return (int) ( this.tape[ index ] >>> TYPE_SHIFT );
+    }
+
+    /** @return the payload of the entry at the given position. */
+    long payloadAt(int index)
+    {
+        return this.tape[ index ] & PAYLOAD_MASK;
+    }
+
+    /** @return the raw entry at the given position. */
+    long entryAt(int index)
+    {
+        return this.tape[ index ];
+    }
+
+    /** @return the position of the value after the one at the given position. */
+    int next(int index)
+    {
+        final int type = this.typeAt( index );
+        final int toret;
+
+        if ( type == OBJECT
+          || type == ARRAY )
+        {
+            toret = (int) this.payloadAt( index );
+        }
+        else
+        if ( type == STRING ) {
+            toret = index + 2;
+        }
+        else
+        if ( type == LONG
+          || type == DOUBLE )
+        {
+            toret = index + 3;
+        } else {
+            toret = index + 1;
+        }
+
+        return toret;
+    }
+
+    /** @return the text of the string or number at the given position. */
+    String textAt(int index)
+    {
+        return new String( this.chars, (int) this.payloadAt( index ), (int) this.tape[ index + 1 ] );
+    }
+
+    /** @return the chars holding the text of all strings and numbers. */
+    char[] chars()
+    {
+        return this.chars;
+    }
+
+    /** Compares the text at the given position with a string, with no copy.
+     * @return true if they are the same, false otherwise.
+     */
+    boolean textEquals(int index, String str)
+    {
+        final int start = (int) this.payloadAt( index );
+        final int length = (int) this.tape[ index + 1 ];
+        boolean toret = ( length == str.length() );
+
+        for(int i = 0; toret && i < length; ++i) {
+            toret = ( this.chars[ start + i ] == str.charAt( i ) );
+        }
+
+        return toret;
+    }
+
+    /** Writes the value at the given position.
+     * @return the position of the next value.
+     */
+    int write(AbstractJsonWriter writer, int index) throws IOException
+    {
+        final int type = this.typeAt( index );
+        final int toret = this.next( index );
+
+        switch( type ) {
+            case OBJECT: {
+                final int count = (int) this.tape[ index + 1 ];
+                int member = index + 2;
+
+                writer.beginObject();
+                for(int i = 0; i < count; ++i) {
+                    writer.name( this.textAt( member ) );
+                    member = this.write( writer, this.next( member ) );
+                }
+                writer.endObject();
+                break;
+            }
+            case ARRAY: {
+                final int count = (int) this.tape[ index + 1 ];
+                int element = index + 2;
+
+                writer.beginArray();
+                for(int i = 0; i < count; ++i) {
+                    element = this.write( writer, element );
+                }
+                writer.endArray();
+                break;
+            }
+            case STRING:
+                writer.value( this.textAt( index ) );
+                break;
+            case LONG:
+            case DOUBLE:
+                writer.rawValue( this.chars, (int) this.payloadAt( index ), (int) this.tape[ index + 1 ] );
+                break;
+            case TRUE:
+            case FALSE:
+                writer.value( type == TRUE );
+                break;
+            default:
+                writer.nullValue();
+        }
+
+        return toret;
+    }
+
+    private final long[] tape;
+    private final char[] chars;
+}
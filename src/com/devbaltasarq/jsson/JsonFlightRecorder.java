@@ -0,0 +1,222 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A listener turning the measures into Flight Recorder events:
+ * jsson.DocumentRead, jsson.DocumentWritten and jsson.DocumentFailed.
+ * The library is compiled for Java 8, whose API does not include jdk.jfr,
+ * so the events are defined when running, through jdk.jfr.EventFactory,
+ * found with reflection. It is available in JDK 9 and later, and in Java 8
+ * from update 262 on.
+ * @author baltasarq
+ * @see JsonMetrics#flightRecorder()
+ */
+final class JsonFlightRecorder implements JsonMetrics.Listener {
+    /** An event type, defined through its factory. */
+    private static final class EventKind {
+        EventKind(String name, String label, boolean withReading) throws ReflectiveOperationException
+        {
+            final List<Object> fields = new ArrayList<>();
+
+            if ( withReading ) {
+                fields.add( field( boolean.class, "reading", "Reading" ) );
+            }
+
+            fields.add( field( long.class, "size", "Size" ) );
+            fields.add( field( long.class, "tokens", "Tokens" ) );
+            fields.add( field( int.class, "maxDepth", "Maximum Depth" ) );
+
+            this.factory = CREATE_FACTORY.invoke( null,
+                                                  Arrays.asList( annotation( "jdk.jfr.Name", name ),
+                                                                 annotation( "jdk.jfr.Label", label ),
+                                                                 annotation( "jdk.jfr.Category", new String[] { "JSON" } ) ),
+                                                  fields );
+            this.type = GET_EVENT_TYPE.invoke( this.factory );
+        }
+
+        /** Creates an event and begins timing it, if this kind is being recorded.
+          * @return the event, or null if not recorded.
+          */
+        Object begin()
+        {
+            Object toret = null;
+
+            try {
+                if ( (Boolean) IS_ENABLED.invoke( this.type ) ) {
+                    toret = NEW_EVENT.invoke( this.factory );
+                    BEGIN.invoke( toret );
+                }
+            } catch(IllegalAccessException | InvocationTargetException exc) {
+                throw new IllegalStateException( "beginning a flight recorder event", exc );
+            }
+
+            return toret;
+        }
+
+        /** Ends and commits an event, with the given values.
+          * @param event the event, as returned by begin(), or null if not recorded.
+          * @param values the values of the fields, in order.
+          */
+        void commit(Object event, Object... values)
+        {
+            if ( event != null ) {
+                try {
+                    for(int i = 0; i < values.length; ++i) {
+                        SET.invoke( event, i, values[ i ] );
+                    }
+
+                    END.invoke( event );
+                    COMMIT.invoke( event );
+                } catch(IllegalAccessException | InvocationTargetException exc) {
+                    throw new IllegalStateException( "committing a flight recorder event", exc );
+                }
+            }
+
+            return;
+        }
+
+        private final Object factory;
+        private final Object type;
+    }
+
+    /** @throws ReflectiveOperationException if jdk.jfr is not available. */
+    JsonFlightRecorder() throws ReflectiveOperationException
+    {
+        this.read = new EventKind( "jsson.DocumentRead", "JSON Document Read", false );
+        this.written = new EventKind( "jsson.DocumentWritten", "JSON Document Written", false );
+        this.failed = new EventKind( "jsson.DocumentFailed", "JSON Document Failed", true );
+    }
+
+    /** Begins the event of a document, so its duration is the one of the document.
+      * The same event becomes a failure if the document is abandoned,
+      * so both kinds are begun.
+      * @return the events begun, for reading or writing, and for failing,
+      *         or null if none of them is being recorded.
+      */
+    @Override
+    public Object documentBegun(boolean reading)
+    {
+        final Object ended = ( reading ? this.read : this.written ).begin();
+        final Object failed = this.failed.begin();
+
+        return ( ended != null || failed != null ) ? new Object[] { ended, failed } : null;
+    }
+
+    @Override
+    public void documentRead(Object begun, long size, long tokens, int maxDepth, long nanos)
+    {
+        this.read.commit( eventOf( begun, 0 ), size, tokens, maxDepth );
+        return;
+    }
+
+    @Override
+    public void documentWritten(Object begun, long size, long tokens, int maxDepth, long nanos)
+    {
+        this.written.commit( eventOf( begun, 0 ), size, tokens, maxDepth );
+        return;
+    }
+
+    @Override
+    public void documentFailed(Object begun, boolean reading, long size, long tokens, int maxDepth, long nanos)
+    {
+        this.failed.commit( eventOf( begun, 1 ), reading, size, tokens, maxDepth );
+        return;
+    }
+
+    /** Without the events begun, nothing can be timed, so nothing is recorded. */
+    @Override
+    public void documentRead(long size, long tokens, int maxDepth, long nanos)
+    {
+    }
+
+    @Override
+    public void documentWritten(long size, long tokens, int maxDepth, long nanos)
+    {
+    }
+
+    @Override
+    public void documentFailed(boolean reading, long size, long tokens, int maxDepth, long nanos)
+    {
+    }
+
+    /** @return one of the events begun, or null if there are none. */
+    private static Object eventOf(Object begun, int index)
+    {
+        return ( begun != null ) ? ( (Object[]) begun )[ index ] : null;
+    }
+
+    /** Creates a jdk.jfr.AnnotationElement.
+      * @param annotationName the name of the annotation class.
+      * @param value the value of the annotation.
+      */
+    @SuppressWarnings( "unchecked" )
+    private static Object annotation(String annotationName, Object value) throws ReflectiveOperationException
+    {
+        final Class<? extends Annotation> annotationClass =
+                        (Class<? extends Annotation>) Class.forName( annotationName );
+
+        return NEW_ANNOTATION.newInstance( annotationClass, value );
+    }
+
+    /** Creates a jdk.jfr.ValueDescriptor, for a field of an event.
+      * @param type the type of the field.
+      * @param name the name of the field.
+      * @param label the label of the field.
+      * @param others other annotations of the field.
+      */
+    private static Object field(Class<?> type, String name, String label, Object... others)
+            throws ReflectiveOperationException
+    {
+        final List<Object> annotations = new ArrayList<>();
+
+        annotations.add( annotation( "jdk.jfr.Label", label ) );
+        Collections.addAll( annotations, others );
+        return NEW_FIELD.newInstance( type, name, annotations );
+    }
+
+    private static final Constructor<?> NEW_ANNOTATION;
+    private static final Constructor<?> NEW_FIELD;
+    private static final Method CREATE_FACTORY;
+    private static final Method GET_EVENT_TYPE;
+    private static final Method NEW_EVENT;
+    private static final Method IS_ENABLED;
+    private static final Method SET;
+    private static final Method BEGIN;
+    private static final Method END;
+    private static final Method COMMIT;
+
+    static {
+        try {
+            final Class<?> annotationElement = Class.forName( "jdk.jfr.AnnotationElement" );
+            final Class<?> eventFactory = Class.forName( "jdk.jfr.EventFactory" );
+            final Class<?> event = Class.forName( "jdk.jfr.Event" );
+
+            NEW_ANNOTATION = annotationElement.getConstructor( Class.class, Object.class );
+            NEW_FIELD = Class.forName( "jdk.jfr.ValueDescriptor" ).getConstructor( Class.class, String.class, List.class );
+            CREATE_FACTORY = eventFactory.getMethod( "create", List.class, List.class );
+            GET_EVENT_TYPE = eventFactory.getMethod( "getEventType" );
+            NEW_EVENT = eventFactory.getMethod( "newEvent" );
+            IS_ENABLED = Class.forName( "jdk.jfr.EventType" ).getMethod( "isEnabled" );
+            SET = event.getMethod( "set", int.class, Object.class );
+            BEGIN = event.getMethod( "begin" );
+            END = event.getMethod( "end" );
+            COMMIT = event.getMethod( "commit" );
+        } catch(ReflectiveOperationException exc) {
+            throw new ExceptionInInitializerError( exc );
+        }
+    }
+
+    private final EventKind read;
+    private final EventKind written;
+    private final EventKind failed;
+}
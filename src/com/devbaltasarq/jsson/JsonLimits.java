@@ -0,0 +1,147 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+/**
+ * Limits on the size of what is read or written, so hostile input
+ * fails fast instead of exhausting memory or time.
+ * Each limit is checked in constant time per token.
+ * Lengths are in units of the input: chars, or bytes for UTF-8 input.
+ * Limits are immutable; the with...() methods return modified copies:
+ * <pre>
+ *     reader.setLimits( JsonLimits.DEFAULT.withMaxDepth( 16 ).withMaxDocumentSize( 1 &lt;&lt; 20 ) );
+ * </pre>
+ * @author baltasarq
+ * @see AbstractJsonReader#setLimits(JsonLimits)
+ * @see AbstractJsonWriter#setLimits(JsonLimits)
+ */
+public final class JsonLimits {
+    /** No limits at all. */
+    public static final JsonLimits NONE = new JsonLimits( Integer.MAX_VALUE, Integer.MAX_VALUE,
+                                                          Integer.MAX_VALUE, Long.MAX_VALUE,
+                                                          Integer.MAX_VALUE );
+
+    /** The limits used unless others are set: a depth of 1000, strings up to
+     * 20 million units and numbers up to 1000 units; any document size and entries.
+     */
+    public static final JsonLimits DEFAULT = NONE.withMaxDepth( 1000 )
+                                                 .withMaxStringLength( 20000000 )
+                                                 .withMaxNumberLength( 1000 );
+
+    private JsonLimits(int maxDepth, int maxStringLength, int maxNumberLength,
+                       long maxDocumentSize, int maxEntries)
+    {
+        this.maxDepth = maxDepth;
+        this.maxStringLength = maxStringLength;
+        this.maxNumberLength = maxNumberLength;
+        this.maxDocumentSize = maxDocumentSize;
+        this.maxEntries = maxEntries;
+    }
+
+    /** @return the maximum nesting of objects and arrays. */
+    public int getMaxDepth()
+    {
+        return this.maxDepth;
+    }
+
+    /** @return the maximum length of strings and names, without quotes. */
+    public int getMaxStringLength()
+    {
+        return this.maxStringLength;
+    }
+
+    /** @return the maximum length of numbers. */
+    public int getMaxNumberLength()
+    {
+        return this.maxNumberLength;
+    }
+
+    /** @return the maximum size of a whole document. */
+    public long getMaxDocumentSize()
+    {
+        return this.maxDocumentSize;
+    }
+
+    /** @return the maximum number of members in an object. */
+    public int getMaxEntries()
+    {
+        return this.maxEntries;
+    }
+
+    /** @param maxDepth the maximum nesting of objects and arrays.
+     * @return a copy of these limits, with the new one.
+     */
+    public JsonLimits withMaxDepth(int maxDepth)
+    {
+        return new JsonLimits( positive( maxDepth ), this.maxStringLength, this.maxNumberLength,
+                               this.maxDocumentSize, this.maxEntries );
+    }
+
+    /** @param maxStringLength the maximum length of strings and names.
+     * @return a copy of these limits, with the new one.
+     */
+    public JsonLimits withMaxStringLength(int maxStringLength)
+    {
+        return new JsonLimits( this.maxDepth, positive( maxStringLength ), this.maxNumberLength,
+                               this.maxDocumentSize, this.maxEntries );
+    }
+
+    /** @param maxNumberLength the maximum length of numbers.
+     * @return a copy of these limits, with the new one.
+     */
+    public JsonLimits withMaxNumberLength(int maxNumberLength)
+    {
+        return new JsonLimits( this.maxDepth, this.maxStringLength, positive( maxNumberLength ),
+                               this.maxDocumentSize, this.maxEntries );
+    }
+
+    /** @param maxDocumentSize the maximum size of a whole document.
+     * @return a copy of these limits, with the new one.
+     */
+    public JsonLimits withMaxDocumentSize(long maxDocumentSize)
+    {
+        return new JsonLimits( this.maxDepth, this.maxStringLength, this.maxNumberLength,
+                               positive( maxDocumentSize ), this.maxEntries );
+    }
+
+    /** @param maxEntries the maximum number of members in an object.
+     * @return a copy of these limits, with the new one.
+     */
+    public JsonLimits withMaxEntries(int maxEntries)
+    {
+        return new JsonLimits( this.maxDepth, this.maxStringLength, this.maxNumberLength,
+                               this.maxDocumentSize, positive( maxEntries ) );
+    }
+
+    /** @throws IllegalArgumentException if the limit is not positive. */
+    private static int positive(int limit)
+    {
+        return (int) positive( (long) limit );
+    }
+
+    /** @throws IllegalArgumentException if the limit is not positive. */
+    private static long positive(long limit)
+    {
+        if ( limit <= 0 ) {
+            throw new IllegalArgumentException( "limits must be positive: " + limit );
+        }
+
+        return limit;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "depth: " + this.maxDepth
+                + ", string length: " + this.maxStringLength
+                + ", number length: " + this.maxNumberLength
+                + ", document size: " + this.maxDocumentSize
+                + ", entries: " + this.maxEntries;
+    }
+
+    private final int maxDepth;
+    private final int maxStringLength;
+    private final int maxNumberLength;
+    private final long maxDocumentSize;
+    private final int maxEntries;
+}
@@ -0,0 +1,524 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binds JSON to plain Java objects, and back.
+ * The fields of each class are resolved once, the first time it is used:
+ * their names are compiled into a FieldSet, and their accessors bound
+ * as method handles. The result is kept in a cache, keyed by class,
+ * so reflection is never used again for that class.
+ *
+ * Mapped classes need a constructor with no parameters, of any visibility.
+ * All their fields are mapped, including inherited ones,
+ * except static, transient and final fields.
+ * Supported field types are: primitives and their boxes, String,
+ * BigDecimal, enums, int[], long[], double[], lists of any supported type,
+ * and other mapped classes. Chars are mapped as strings of one char,
+ * and null is rejected for primitive fields.
+ * A mapper can be shared among threads.
+ * @author baltasarq
+ */
+public final class JsonMapper {
+    /** Reads and writes values of a given type. */
+    abstract static class Codec {
+        /** Reads a value, which is not null.
+         * @param reader the reader, before the value.
+         * @return the value read.
+         * @throws IOException if reading goes wrong.
+         */
+        abstract Object read(AbstractJsonReader reader) throws IOException;
+
+        /** Writes a value, which is not null.
+         * @param writer the writer to write to.
+         * @param value the value to write.
+         * @throws IOException if writing goes wrong.
+         */
+        abstract void write(AbstractJsonWriter writer, Object value) throws IOException;
+    }
+
+    private static final Map<Class<?>, Codec> SCALAR_CODECS = new HashMap<>();
+
+    static {
+        final Codec booleanCodec = new Codec() {
+            @Override
+            Object read(AbstractJsonReader reader) throws IOException
+            {
+                return reader.nextBoolean();
+            }
+
+            @Override
+            void write(AbstractJsonWriter writer, Object value) throws IOException
+            {
+                writer.value( (Boolean) value );
+            }
+        };
+
+        final Codec intCodec = new Codec() {
+            @Override
+            Object read(AbstractJsonReader reader) throws IOException
+            {
+                return reader.nextInt();
+            }
+
+            @Override
+            void write(AbstractJsonWriter writer, Object value) throws IOException
+            {
+                writer.value( (int) (Integer) value );
+            }
+        };
+
+        final Codec longCodec = new Codec() {
+            @Override
+            Object read(AbstractJsonReader reader) throws IOException
+            {
+                return reader.nextLong();
+            }
+
+            @Override
+            void write(AbstractJsonWriter writer, Object value) throws IOException
+            {
+                writer.value( (long) (Long) value );
+            }
+        };
+
+        final Codec floatCodec = new Codec() {
+            @Override
+            Object read(AbstractJsonReader reader) throws IOException
+            {
+                return (float) reader.nextFloat();
+            }
+
+            @Override
+            void write(AbstractJsonWriter writer, Object value) throws IOException
+            {
+                writer.value( (float) (Float) value );
+            }
+        };
+
+        final Codec shortCodec = new Codec() {
+            @Override
+            Object read(AbstractJsonReader reader) throws IOException
+            {
+                return JsonCodec.readShort( reader );
+            }
+
+            @Override
+            void write(AbstractJsonWriter writer, Object value) throws IOException
+            {
+                writer.value( (int) (Short) value );
+            }
+        };
+
+        final Codec byteCodec = new Codec() {
+            @Override
+            Object read(AbstractJsonReader reader) throws IOException
+            {
+                return JsonCodec.readByte( reader );
+            }
+
+            @Override
+            void write(AbstractJsonWriter writer, Object value) throws IOException
+            {
+                writer.value( (int) (Byte) value );
+            }
+        };
+
+        final Codec charCodec = new Codec() {
+            @Override
+            Object read(AbstractJsonReader reader) throws IOException
+            {
+                return JsonCodec.readChar( reader );
+            }
+
+            @Override
+            void write(AbstractJsonWriter writer, Object value) throws IOException
+            {
+                writer.value( String.valueOf( (char) (Character) value ) );
+            }
+        };
+
+        final Codec doubleCodec = new Codec() {
+            @Override
+            Object read(AbstractJsonReader reader) throws IOException
+            {
+                return reader.nextDouble();
+            }
+
+            @Override
+            void write(AbstractJsonWriter writer, Object value) throws IOException
+            {
+                writer.value( (double) (Double) value );
+            }
+        };
+
+        SCALAR_CODECS.put( boolean.class, booleanCodec );
+        SCALAR_CODECS.put( Boolean.class, booleanCodec );
+        SCALAR_CODECS.put( int.class, intCodec );
+        SCALAR_CODECS.put( Integer.class, intCodec );
+        SCALAR_CODECS.put( long.class, longCodec );
+        SCALAR_CODECS.put( Long.class, longCodec );
+        SCALAR_CODECS.put( float.class, floatCodec );
+        SCALAR_CODECS.put( Float.class, floatCodec );
+        SCALAR_CODECS.put( double.class, doubleCodec );
+        SCALAR_CODECS.put( Double.class, doubleCodec );
+        SCALAR_CODECS.put( short.class, shortCodec );
+        SCALAR_CODECS.put( Short.class, shortCodec );
+        SCALAR_CODECS.put( byte.class, byteCodec );
+        SCALAR_CODECS.put( Byte.class, byteCodec );
+        SCALAR_CODECS.put( char.class, charCodec );
+        SCALAR_CODECS.put( Character.class, charCodec );
+
+        SCALAR_CODECS.put( String.class, new Codec() {
+            @Override
+            Object read(AbstractJsonReader reader) throws IOException
+            {
+                return reader.nextString();
+            }
+
+            @Override
+            void write(AbstractJsonWriter writer, Object value) throws IOException
+            {
+                writer.value( (String) value );
+            }
+        });
+
+        SCALAR_CODECS.put( BigDecimal.class, new Codec() {
+            @Override
+            Object read(AbstractJsonReader reader) throws IOException
+            {
+                return reader.nextBigDecimal();
+            }
+
+            @Override
+            void write(AbstractJsonWriter writer, Object value) throws IOException
+            {
+                writer.value( (BigDecimal) value );
+            }
+        });
+
+        SCALAR_CODECS.put( int[].class, new Codec() {
+            @Override
+            Object read(AbstractJsonReader reader) throws IOException
+            {
+                return reader.nextIntArray();
+            }
+
+            @Override
+            void write(AbstractJsonWriter writer, Object value) throws IOException
+            {
+                writer.value( (int[]) value );
+            }
+        });
+
+        SCALAR_CODECS.put( long[].class, new Codec() {
+            @Override
+            Object read(AbstractJsonReader reader) throws IOException
+            {
+                return reader.nextLongArray();
+            }
+
+            @Override
+            void write(AbstractJsonWriter writer, Object value) throws IOException
+            {
+                writer.beginArray();
+                for(long element: (long[]) value) {
+                    writer.value( element );
+                }
+                writer.endArray();
+            }
+        });
+
+        SCALAR_CODECS.put( double[].class, new Codec() {
+            @Override
+            Object read(AbstractJsonReader reader) throws IOException
+            {
+                return reader.nextDoubleArray();
+            }
+
+            @Override
+            void write(AbstractJsonWriter writer, Object value) throws IOException
+            {
+                writer.value( (double[]) value );
+            }
+        });
+    }
+
+    /** Reads and writes enums, by the name of their constants. */
+    private static final class EnumCodec extends Codec {
+        EnumCodec(Class<?> type)
+        {
+            final Object[] constants = type.getEnumConstants();
+            final String[] names = new String[ constants.length ];
+
+            for(int i = 0; i < constants.length; ++i) {
+                names[ i ] = ( (Enum<?>) constants[ i ] ).name();
+            }
+
+            this.constants = constants;
+            this.names = FieldSet.of( names );
+        }
+
+        @Override
+        Object read(AbstractJsonReader reader) throws IOException
+        {
+            final String name = reader.nextString();
+            final int index = this.names.indexOf( name );
+
+            if ( index == FieldSet.UNKNOWN ) {
+                throw new IOException( "unknown constant: " + name );
+            }
+
+            return this.constants[ index ];
+        }
+
+        @Override
+        void write(AbstractJsonWriter writer, Object value) throws IOException
+        {
+            writer.value( ( (Enum<?>) value ).name() );
+        }
+
+        private final Object[] constants;
+        private final FieldSet names;
+    }
+
+    /** Reads and writes lists, as arrays. */
+    private static final class ListCodec extends Codec {
+        ListCodec(Codec elementCodec)
+        {
+            this.elementCodec = elementCodec;
+        }
+
+        @Override
+        Object read(AbstractJsonReader reader) throws IOException
+        {
+            final List<Object> toret = new ArrayList<>();
+
+            reader.beginArray();
+            while( reader.hasNext() ) {
+                toret.add( readNullable( reader, this.elementCodec ) );
+            }
+            reader.endArray();
+
+            return toret;
+        }
+
+        @Override
+        void write(AbstractJsonWriter writer, Object value) throws IOException
+        {
+            writer.beginArray();
+            for(Object element: (Collection<?>) value) {
+                writeNullable( writer, this.elementCodec, element );
+            }
+            writer.endArray();
+        }
+
+        private final Codec elementCodec;
+    }
+
+    /** Adapts a codec generated for a class marked with JssonCodec. */
+    private static final class GeneratedCodec extends Codec {
+        GeneratedCodec(JsonCodec<Object> codec)
+        {
+            this.codec = codec;
+        }
+
+        @Override
+        Object read(AbstractJsonReader reader) throws IOException
+        {
+            return this.codec.read( reader );
+        }
+
+        @Override
+        void write(AbstractJsonWriter writer, Object value) throws IOException
+        {
+            this.codec.write( writer, value );
+        }
+
+        private final JsonCodec<Object> codec;
+    }
+
+    /** Creates a new mapper, with an empty cache. */
+    public JsonMapper()
+    {
+        this.codecs = new ConcurrentHashMap<>();
+    }
+
+    /** Reads a value of the given type.
+     * @param reader the reader, before the value.
+     * @param type the class of the value.
+     * @param <T> the type of the value.
+     * @return the value read, which can be null.
+     * @throws IOException if reading goes wrong.
+     * @throws IllegalArgumentException if the class cannot be mapped.
+     */
+    @SuppressWarnings( "unchecked" )
+    public <T> T read(AbstractJsonReader reader, Class<T> type) throws IOException
+    {
+        return (T) readNullable( reader, this.codecFor( type ) );
+    }
+
+    /** Writes a value, of any mapped class.
+     * @param writer the writer to write to.
+     * @param value the value to write, which can be null.
+     * @throws IOException if writing goes wrong.
+     * @throws IllegalArgumentException if the class cannot be mapped.
+     */
+    public void write(AbstractJsonWriter writer, Object value) throws IOException
+    {
+        if ( value == null ) {
+            writer.nullValue();
+        } else {
+            this.codecFor( value.getClass() ).write( writer, value );
+        }
+
+        return;
+    }
+
+    /** Finds the codec for a type, creating it if needed.
+     * @param type a class, or a parameterized list.
+     * @return the codec for that type.
+     * @throws IllegalArgumentException if the type cannot be mapped.
+     */
+    Codec codecFor(Type type)
+    {
+        Codec toret;
+
+        if ( type instanceof Class ) {
+            final Class<?> cls = (Class<?>) type;
+
+            toret = this.codecs.get( cls );
+
+            if ( toret == null ) {
+                // Not computeIfAbsent(), since creating a codec may need others
+                toret = this.createCodec( cls );
+
+                final Codec previous = this.codecs.putIfAbsent( cls, toret );
+                if ( previous != null ) {
+                    toret = previous;
+                }
+            }
+        }
+        else
+        if ( type instanceof ParameterizedType
+          && isList( ( (ParameterizedType) type ).getRawType() ) )
+        {
+            toret = new ListCodec( this.codecFor( ( (ParameterizedType) type ).getActualTypeArguments()[ 0 ] ) );
+        } else {
+            throw new IllegalArgumentException( "cannot map type: " + type );
+        }
+
+        return toret;
+    }
+
+    /** Creates the codec for a class. */
+    private Codec createCodec(Class<?> cls)
+    {
+        Codec toret = SCALAR_CODECS.get( cls );
+
+        if ( toret == null ) {
+            if ( cls.isEnum() ) {
+                toret = new EnumCodec( cls );
+            }
+            else
+            if ( cls.isAnnotationPresent( JssonCodec.class ) ) {
+                toret = findGeneratedCodec( cls );
+
+                if ( toret == null ) {
+                    toret = new BeanCodec( this, cls );
+                }
+            }
+            else
+            if ( cls.isArray()
+              || cls.isPrimitive()
+              || cls.isInterface()
+              || Collection.class.isAssignableFrom( cls )
+              || Map.class.isAssignableFrom( cls ) )
+            {
+                throw new IllegalArgumentException( "cannot map class: " + cls.getName() );
+            } else {
+                toret = new BeanCodec( this, cls );
+            }
+        }
+
+        return toret;
+    }
+
+    /** Finds the codec generated for a class, by the name given to it by JssonCodecProcessor.
+     * @return the generated codec, or null if it was not generated.
+     */
+    @SuppressWarnings( "unchecked" )
+    private static Codec findGeneratedCodec(Class<?> cls)
+    {
+        final StringBuilder codecName = new StringBuilder( cls.getSimpleName() );
+        Class<?> outermost = cls;
+        Codec toret = null;
+
+        while( outermost.getEnclosingClass() != null ) {
+            outermost = outermost.getEnclosingClass();
+            codecName.insert( 0, outermost.getSimpleName() + "_" );
+        }
+
+        codecName.insert( 0, outermost.getName().substring( 0, outermost.getName().lastIndexOf( '.' ) + 1 ) );
+
+        try {
+            final Class<?> codecClass = Class.forName( codecName + "JsonCodec", true, cls.getClassLoader() );
+
+            toret = new GeneratedCodec( (JsonCodec<Object>) codecClass.getField( "INSTANCE" ).get( null ) );
+        } catch(ClassNotFoundException exc) {
+            toret = null;
+        } catch(ReflectiveOperationException | ClassCastException exc) {
+            throw new IllegalArgumentException( "wrong generated codec for: " + cls.getName() );
+        }
+
+        return toret;
+    }
+
+    /** @return whether the raw type is a list, or a supertype of ArrayList. */
+    private static boolean isList(Type rawType)
+    {
+        return rawType == List.class
+            || rawType == Collection.class
+            || rawType == Iterable.class
+            || rawType == ArrayList.class;
+    }
+
+    /** Reads a value, or null. */
+    static Object readNullable(AbstractJsonReader reader, Codec codec) throws IOException
+    {
+        Object toret = null;
+
+        if ( reader.isNullAhead() ) {
+            reader.nextNull();
+        } else {
+            toret = codec.read( reader );
+        }
+
+        return toret;
+    }
+
+    /** Writes a value, or null. */
+    static void writeNullable(AbstractJsonWriter writer, Codec codec, Object value) throws IOException
+    {
+        if ( value == null ) {
+            writer.nullValue();
+        } else {
+            codec.write( writer, value );
+        }
+
+        return;
+    }
+
+    private final ConcurrentHashMap<Class<?>, Codec> codecs;
+}
@@ -0,0 +1,333 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures of the documents read and written, for monitoring.
+ * Metrics are only collected when the system property jsson.metrics
+ * is true when the library is loaded, i.e.: -Djsson.metrics=true.
+ * Otherwise, the checks in readers and writers are constant false,
+ * and so they are removed when compiled.
+ * A document is a top-level object or array, from its opening
+ * to its closing delimiter. Sizes are in units: chars, or bytes for UTF-8.
+ * A document not finished is only reported as failed when its reader
+ * or writer is closed or reset, so after an error, the reader or writer
+ * must be closed, e.g. with try-with-resources, to have it reported.
+ * <pre>
+ *     final JsonMetrics.Counters counters = new JsonMetrics.Counters();
+ *     JsonMetrics.setListener( counters );
+ * </pre>
+ * Measures can also be recorded as Flight Recorder events,
+ * with the listener given by {@link #flightRecorder()}.
+ * @author baltasarq
+ */
+public final class JsonMetrics {
+    /** Whether metrics are collected. */
+    public static final boolean ENABLED = Boolean.getBoolean( "jsson.metrics" );
+
+    /** Receives the measures of each document.
+     * It is called from the threads reading and writing, so it must be
+     * thread-safe, and fast.
+     */
+    public interface Listener {
+        /** A document begins to be read or written.
+         * @param reading true if it is being read, false if written.
+         * @return an object given back when the document ends, or null.
+         */
+        default Object documentBegun(boolean reading)
+        {
+            return null;
+        }
+
+        /** A document was read.
+         * @param size the size of the document, in units.
+         * @param tokens the number of tokens: delimiters, names and values.
+         * @param maxDepth the maximum nesting of objects and arrays.
+         * @param nanos the time spent, from its beginning to its end.
+         */
+        void documentRead(long size, long tokens, int maxDepth, long nanos);
+
+        /** A document was written.
+         * @param size the size of the document, in units.
+         * @param tokens the number of tokens: delimiters, names and values.
+         * @param maxDepth the maximum nesting of objects and arrays.
+         * @param nanos the time spent, from its beginning to its end.
+         */
+        void documentWritten(long size, long tokens, int maxDepth, long nanos);
+
+        /** A document was abandoned before its end, because of an error
+         * or not; the reader or writer was closed or reset in the middle of it.
+         * An error alone is not reported, until the reader or writer is closed.
+         * @param reading true if it was being read, false if written.
+         * @param size the size of the part processed, in units.
+         * @param tokens the number of tokens processed.
+         * @param maxDepth the maximum nesting of objects and arrays.
+         * @param nanos the time spent.
+         */
+        void documentFailed(boolean reading, long size, long tokens, int maxDepth, long nanos);
+
+        /** A document was read, as documentRead(long, long, int, long).
+         * @param begun the object returned by documentBegun(), or null.
+         */
+        default void documentRead(Object begun, long size, long tokens, int maxDepth, long nanos)
+        {
+            this.documentRead( size, tokens, maxDepth, nanos );
+        }
+
+        /** A document was written, as documentWritten(long, long, int, long).
+         * @param begun the object returned by documentBegun(), or null.
+         */
+        default void documentWritten(Object begun, long size, long tokens, int maxDepth, long nanos)
+        {
+            this.documentWritten( size, tokens, maxDepth, nanos );
+        }
+
+        /** A document was abandoned, as documentFailed(boolean, long, long, int, long).
+         * @param begun the object returned by documentBegun(), or null.
+         */
+        default void documentFailed(Object begun, boolean reading, long size, long tokens, int maxDepth, long nanos)
+        {
+            this.documentFailed( reading, size, tokens, maxDepth, nanos );
+        }
+    }
+
+    /** A listener keeping totals, so they can be polled by a metrics system. */
+    public static class Counters implements Listener {
+        public Counters()
+        {
+            this.documents = new LongAdder();
+            this.errors = new LongAdder();
+            this.units = new LongAdder();
+            this.nanos = new LongAdder();
+            this.largestDocument = new LongAccumulator( Math::max, 0 );
+        }
+
+        @Override
+        public void documentRead(long size, long tokens, int maxDepth, long nanos)
+        {
+            this.count( size, nanos );
+            return;
+        }
+
+        @Override
+        public void documentWritten(long size, long tokens, int maxDepth, long nanos)
+        {
+            this.count( size, nanos );
+            return;
+        }
+
+        @Override
+        public void documentFailed(boolean reading, long size, long tokens, int maxDepth, long nanos)
+        {
+            this.errors.increment();
+            return;
+        }
+
+        private void count(long size, long nanos)
+        {
+            this.documents.increment();
+            this.units.add( size );
+            this.nanos.add( nanos );
+            this.largestDocument.accumulate( size );
+            return;
+        }
+
+        /** @return the number of documents read or written. */
+        public long getDocuments()
+        {
+            return this.documents.sum();
+        }
+
+        /** @return the number of documents abandoned before their end. */
+        public long getErrors()
+        {
+            return this.errors.sum();
+        }
+
+        /** @return the total size of the documents read or written, in units. */
+        public long getUnits()
+        {
+            return this.units.sum();
+        }
+
+        /** @return the size of the largest document read or written, in units. */
+        public long getLargestDocument()
+        {
+            return this.largestDocument.get();
+        }
+
+        /** @return the units read or written per second, while in documents. */
+        public double getUnitsPerSecond()
+        {
+            final long time = this.nanos.sum();
+
+            return ( time == 0 ) ? 0 : ( this.units.sum() * 1e9 ) / time;
+        }
+
+        private final LongAdder documents;
+        private final LongAdder errors;
+        private final LongAdder units;
+        private final LongAdder nanos;
+        private final LongAccumulator largestDocument;
+    }
+
+    /** The measures of the document in course, for a reader or a writer. */
+    static final class Probe {
+        /** @param reading true for a reader, false for a writer. */
+        Probe(boolean reading)
+        {
+            this.reading = reading;
+        }
+
+        /** Counts a token, including the delimiters of objects and arrays.
+          * The tokens are counted for the document begun or ended next.
+          */
+        void token()
+        {
+            ++this.tokens;
+            return;
+        }
+
+        /** An object or array was entered, starting a document at the top level.
+          * @param depth the depth after entering it.
+          * @param position the position of its opening delimiter.
+          */
+        void begin(int depth, long position)
+        {
+            if ( depth == 1 ) {
+                final Listener target = listener;
+
+                this.start = position;
+                this.startNanos = System.nanoTime();
+                this.begunBy = target;
+                this.begun = ( target != null ) ? target.documentBegun( this.reading ) : null;
+            }
+
+            this.maxDepth = Math.max( this.maxDepth, depth );
+            return;
+        }
+
+        /** An object or array was left, ending a document at the top level.
+          * @param depth the depth after leaving it.
+          * @param position the position after its closing delimiter.
+          */
+        void end(int depth, long position)
+        {
+            if ( depth == 0 ) {
+                final Listener target = listener;
+
+                if ( target != null ) {
+                    final long nanos = System.nanoTime() - this.startNanos;
+
+                    if ( this.reading ) {
+                        target.documentRead( this.begunFor( target ), position - this.start,
+                                             this.tokens, this.maxDepth, nanos );
+                    } else {
+                        target.documentWritten( this.begunFor( target ), position - this.start,
+                                                this.tokens, this.maxDepth, nanos );
+                    }
+                }
+
+                this.clear();
+            }
+
+            return;
+        }
+
+        /** The reader or writer is closed or reset.
+          * @param position the position reached.
+          */
+        void abandon(long position)
+        {
+            final Listener target = listener;
+
+            if ( this.maxDepth > 0
+              && target != null )
+            {
+                target.documentFailed( this.begunFor( target ), this.reading, position - this.start,
+                                       this.tokens, this.maxDepth, System.nanoTime() - this.startNanos );
+            }
+
+            this.clear();
+            return;
+        }
+
+        /** @return the object given when the document began,
+          *         if the listener is the same one.
+          */
+        private Object begunFor(Listener target)
+        {
+            return ( target == this.begunBy ) ? this.begun : null;
+        }
+
+        /** Forgets the document in course. */
+        private void clear()
+        {
+            this.tokens = 0;
+            this.maxDepth = 0;
+            this.begunBy = null;
+            this.begun = null;
+            return;
+        }
+
+        private final boolean reading;
+        private long start;
+        private long startNanos;
+        private long tokens;
+        private int maxDepth;
+        private Listener begunBy;
+        private Object begun;
+    }
+
+    private JsonMetrics()
+    {
+    }
+
+    /** @return the listener receiving the measures, or null if there is none. */
+    public static Listener getListener()
+    {
+        return listener;
+    }
+
+    /** Creates a listener turning the measures into Flight Recorder events:
+     * jsson.DocumentRead, jsson.DocumentWritten and jsson.DocumentFailed.
+     * Flight Recorder is found when running, since it is not part of
+     * the Java 8 API: it is there in JDK 9 and later, and in Java 8
+     * from update 262 on.
+     * <pre>
+     *     final JsonMetrics.Listener recorder = JsonMetrics.flightRecorder();
+     *     if ( recorder != null ) {
+     *         JsonMetrics.setListener( recorder );
+     *     }
+     * </pre>
+     * @return the new listener, or null if Flight Recorder is not available.
+     */
+    public static Listener flightRecorder()
+    {
+        Listener toret = null;
+
+        try {
+            Class.forName( "jdk.jfr.EventFactory" );
+            toret = new JsonFlightRecorder();
+        } catch(ReflectiveOperationException exc) {
+            toret = null;
+        }
+
+        return toret;
+    }
+
+    /** Sets the listener receiving the measures of all readers and writers.
+     * It has no effect unless metrics are enabled.
+     * @param newListener the new listener, or null for none.
+     * @see JsonMetrics#ENABLED
+     */
+    public static void setListener(Listener newListener)
+    {
+        listener = newListener;
+    }
+
+    private static volatile Listener listener;
+}
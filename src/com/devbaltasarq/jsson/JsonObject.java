@@ -0,0 +1,88 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An object in a JsonDocument.
+ * Members are found by walking the tape, comparing their names
+ * in place, so no map is built for them.
+ * @author baltasarq
+ * @see JsonDocument
+ */
+public final class JsonObject extends JsonValue {
+    JsonObject(JsonDocument document, int index)
+    {
+        super( document, index );
+    }
+
+    /** @return the number of members. */
+    public int size()
+    {
+        return (int) this.document.entryAt( this.index + 1 );
+    }
+
+    /** @param name the name of a member.
+     * @return whether there is a member with that name.
+     */
+    public boolean contains(String name)
+    {
+        return this.find( name ) >= 0;
+    }
+
+    /** @param name the name of a member.
+     * @return its value, or null if there is no member with that name.
+     */
+    public JsonValue get(String name)
+    {
+        final int position = this.find( name );
+        JsonValue toret = null;
+
+        if ( position >= 0 ) {
+            toret = JsonValue.at( this.document, position );
+        }
+
+        return toret;
+    }
+
+    /** @return the names of the members, in order. */
+    public List<String> names()
+    {
+        final int count = this.size();
+        final List<String> toret = new ArrayList<>( count );
+        int member = this.index + 2;
+
+        for(int i = 0; i < count; ++i) {
+            toret.add( this.document.textAt( member ) );
+            member = this.document.next( this.document.next( member ) );
+        }
+
+        return toret;
+    }
+
+    /** Finds the value of a member.
+     * @param name the name of the member.
+     * @return the position of its value, or -1 if not found.
+     */
+    private int find(String name)
+    {
+        final int count = this.size();
+        int member = this.index + 2;
+        int toret = -1;
+
+        for(int i = 0; i < count; ++i) {
+            final int value = this.document.next( member );
+
+            if ( this.document.textEquals( member, name ) ) {
+                toret = value;
+                break;
+            }
+
+            member = this.document.next( value );
+        }
+
+        return toret;
+    }
+}
@@ -0,0 +1,147 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A bounded pool of readers and writers, so their buffers are reused.
+ * A reader or writer is leased to a single thread, which must not use it
+ * after releasing it back to the pool. The pool is shared by all threads,
+ * instead of keeping an instance per thread, so its size stays bounded
+ * whatever the number of threads. It never blocks: leasing from an empty
+ * pool creates a new instance, and releasing to a full one discards it.
+ * @author baltasarq
+ */
+public final class JsonPool {
+    public static final int DEFAULT_CAPACITY = 64;
+
+    /** Creates a new pool, holding up to DEFAULT_CAPACITY instances of each kind. */
+    public JsonPool()
+    {
+        this( DEFAULT_CAPACITY );
+    }
+
+    /** Creates a new pool.
+     * @param capacity the maximum number of idle instances of each kind.
+     */
+    public JsonPool(int capacity)
+    {
+        this.readers = new ArrayBlockingQueue<>( capacity );
+        this.utf8Readers = new ArrayBlockingQueue<>( capacity );
+        this.writers = new ArrayBlockingQueue<>( capacity );
+    }
+
+    /** Leases a reader for the given input.
+     * @param input the input to read from.
+     * @return a reader, reset to the input.
+     */
+    public JsonReader leaseReader(Reader input)
+    {
+        JsonReader toret = this.readers.poll();
+
+        if ( toret == null ) {
+            toret = new JsonReader( input );
+        } else {
+            toret.reset( input );
+        }
+
+        return toret;
+    }
+
+    /** Leases a UTF-8 reader for the given input.
+     * @param input the input to read from.
+     * @return a reader, reset to the input.
+     */
+    public Utf8JsonReader leaseReader(InputStream input)
+    {
+        Utf8JsonReader toret = this.utf8Readers.poll();
+
+        if ( toret == null ) {
+            toret = new Utf8JsonReader( input );
+        } else {
+            toret.reset( input );
+        }
+
+        return toret;
+    }
+
+    /** Leases a UTF-8 reader for a part of an array of bytes, read in place.
+     * @param input the bytes to read from.
+     * @param offset the position of the first byte to read.
+     * @param length the number of bytes to read.
+     * @return a reader, reset to the input.
+     */
+    public Utf8JsonReader leaseReader(byte[] input, int offset, int length)
+    {
+        Utf8JsonReader toret = this.utf8Readers.poll();
+
+        if ( toret == null ) {
+            toret = new Utf8JsonReader( input, offset, length );
+        } else {
+            toret.reset( input, offset, length );
+        }
+
+        return toret;
+    }
+
+    /** Leases a writer for the given output.
+     * @param output the output to write to.
+     * @return a writer, reset to the output.
+     */
+    public JsonWriter leaseWriter(Writer output)
+    {
+        JsonWriter toret = this.writers.poll();
+
+        if ( toret == null ) {
+            toret = new JsonWriter( output );
+        } else {
+            toret.reset( output );
+        }
+
+        return toret;
+    }
+
+    /** Releases a reader back to the pool. Its input is not closed.
+     * Only plain and UTF-8 readers are kept; subclasses are discarded.
+     * @param reader the reader, which must not be used anymore.
+     */
+    public void release(AbstractJsonReader reader)
+    {
+        final Class<?> cls = reader.getClass();
+
+        if ( cls == JsonReader.class ) {
+            reader.clear();
+            this.readers.offer( (JsonReader) reader );
+        }
+        else
+        if ( cls == Utf8JsonReader.class ) {
+            reader.clear();
+            this.utf8Readers.offer( (Utf8JsonReader) reader );
+        }
+
+        return;
+    }
+
+    /** Releases a writer back to the pool. Its output is not closed,
+     * and any output not flushed is discarded.
+     * Only plain writers are kept; subclasses are discarded.
+     * @param writer the writer, which must not be used anymore.
+     */
+    public void release(AbstractJsonWriter writer)
+    {
+        if ( writer.getClass() == JsonWriter.class ) {
+            writer.clear();
+            this.writers.offer( (JsonWriter) writer );
+        }
+
+        return;
+    }
+
+    private final ArrayBlockingQueue<JsonReader> readers;
+    private final ArrayBlockingQueue<Utf8JsonReader> utf8Readers;
+    private final ArrayBlockingQueue<JsonWriter> writers;
+}
@@ -0,0 +1,595 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A non-blocking JSON parser, which is fed UTF-8 bytes as they arrive.
+ * Chunks of input are given with feed(), and the end of the input
+ * is signaled with endOfInput(). Each call to next() returns the next
+ * event, or NEED_MORE_INPUT when the bytes fed so far end in the middle
+ * of a token. Only the bytes not yet parsed are kept, so tokens split
+ * between chunks are held until they are complete, but the whole
+ * document is never buffered.
+ * The value of the current event is available through getString(),
+ * getInt(), getDouble()... until the next call to next().
+ * Colons and commas are checked, numbers must follow the JSON grammar,
+ * and the same limits as in JsonReader apply to nesting, the length
+ * of tokens, the members of objects and the size of each top-level value,
+ * so a token never grows the buffer past the limits.
+ * @author baltasarq
+ */
+public final class JsonPushParser {
+    private static final int BUFFER_SIZE = 8192;
+    private static final byte IN_OBJECT = 1;
+    private static final byte IN_ARRAY = 2;
+
+    public enum Event {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY,
+        NAME, STRING, NUMBER, BOOLEAN, NULL,
+        NEED_MORE_INPUT, END_OF_INPUT }
+
+    /** Creates a new parser, with no input yet. */
+    public JsonPushParser()
+    {
+        this.bytes = new byte[ BUFFER_SIZE ];
+        this.pos = this.limit = 0;
+        this.scanned = 0;
+        this.tokenStart = this.tokenEnd = 0;
+        this.containers = new byte[ 32 ];
+        this.entries = new int[ 32 ];
+        this.depth = 0;
+        this.discarded = 0;
+        this.documentStart = 0;
+        this.expectingName = false;
+        this.separator = 0;
+        this.afterComma = false;
+        this.ended = false;
+        this.event = Event.NEED_MORE_INPUT;
+        this.decoder = new Utf8JsonReader( this.bytes, 0, 0 );
+        this.numbers = new JsonValidator();
+    }
+
+    /** @return the limits checked while parsing. */
+    public JsonLimits getLimits()
+    {
+        return this.decoder.getLimits();
+    }
+
+    /** Changes the limits checked while parsing.
+     * @param limits the new limits.
+     * @throws IllegalArgumentException if limits is null.
+     */
+    public void setLimits(JsonLimits limits)
+    {
+        this.decoder.setLimits( limits );
+    }
+
+    /** Feeds the parser with more input.
+     * All remaining bytes in the buffer are consumed.
+     * @param input the buffer holding the next chunk of UTF-8 bytes.
+     * @throws IllegalStateException if the end of input was already signaled.
+     */
+    public void feed(ByteBuffer input)
+    {
+        final int length = input.remaining();
+
+        this.makeRoom( length );
+        input.get( this.bytes, this.limit, length );
+        this.limit += length;
+
+        return;
+    }
+
+    /** Feeds the parser with more input.
+     * @param input the array holding the next chunk of UTF-8 bytes.
+     * @param offset the position of the first byte of the chunk.
+     * @param length the length of the chunk.
+     * @throws IllegalStateException if the end of input was already signaled.
+     */
+    public void feed(byte[] input, int offset, int length)
+    {
+        this.makeRoom( length );
+        System.arraycopy( input, offset, this.bytes, this.limit, length );
+        this.limit += length;
+
+        return;
+    }
+
+    /** Signals that no more input will be fed. */
+    public void endOfInput()
+    {
+        this.ended = true;
+
+        return;
+    }
+
+    /** Parses the next event.
+     * @return the event, or NEED_MORE_INPUT if the input fed so far
+     *         is not enough to complete the next token.
+     * @throws IOException if the input is not valid.
+     */
+    public Event next() throws IOException
+    {
+        this.skipSeparators();
+        this.checkDocumentSize();
+
+        if ( this.pos < this.limit ) {
+            this.checkSeparator( this.bytes[ this.pos ] & 0xFF );
+        }
+
+        if ( this.pos == this.limit ) {
+            this.event = Event.NEED_MORE_INPUT;
+
+            if ( this.ended ) {
+                if ( this.depth > 0 ) {
+                    throw new IOException( "expected: '"
+                                + ( this.containers[ this.depth - 1 ] == IN_OBJECT ?
+                                        Util.END_OBJECT_DELIMITER : Util.END_ARRAY_DELIMITER )
+                                + "', but found the end of input" );
+                }
+
+                this.event = Event.END_OF_INPUT;
+            }
+        } else {
+            final int ch = this.bytes[ this.pos ] & 0xFF;
+
+            if ( ch == Util.OPEN_OBJECT_DELIMITER ) {
+                this.accept( this.pos + 1, Event.BEGIN_OBJECT );
+                this.push( IN_OBJECT );
+            }
+            else
+            if ( ch == Util.OPEN_ARRAY_DELIMITER ) {
+                this.accept( this.pos + 1, Event.BEGIN_ARRAY );
+                this.push( IN_ARRAY );
+            }
+            else
+            if ( ch == Util.END_OBJECT_DELIMITER ) {
+                this.pop( IN_OBJECT, ch );
+                this.accept( this.pos + 1, Event.END_OBJECT );
+            }
+            else
+            if ( ch == Util.END_ARRAY_DELIMITER ) {
+                this.pop( IN_ARRAY, ch );
+                this.accept( this.pos + 1, Event.END_ARRAY );
+            }
+            else
+            if ( Util.isOfClass( ch, Util.CC_QUOTES ) ) {
+                final int end = this.scanQuoted( ch );
+
+                if ( end < 0 ) {
+                    this.event = Event.NEED_MORE_INPUT;
+                } else {
+                    this.accept( end, this.expectingName ? Event.NAME : Event.STRING );
+                }
+            }
+            else
+            if ( Util.isOfClass( ch, Util.CC_SCALAR ) ) {
+                final int end = this.scanScalar();
+
+                if ( end < 0 ) {
+                    this.event = Event.NEED_MORE_INPUT;
+                } else {
+                    this.accept( end, this.scalarEvent( ch, end ) );
+                }
+            } else {
+                throw new IOException( "unexpected char: '" + (char) ch + "'" );
+            }
+        }
+
+        return this.event;
+    }
+
+    /** @return the last event returned by next(). */
+    public Event getEvent()
+    {
+        return this.event;
+    }
+
+    /** @return the number of objects and arrays open. */
+    public int getDepth()
+    {
+        return this.depth;
+    }
+
+    /** @return the text of the current NAME, STRING or NUMBER. */
+    public String getString() throws IOException
+    {
+        this.checkEvent( Event.NAME, Event.STRING, Event.NUMBER );
+
+        final Utf8JsonReader decoder = this.decoder();
+        final String toret;
+
+        if ( Util.isOfClass( this.bytes[ this.tokenStart ], Util.CC_QUOTES ) ) {
+            toret = decoder.nextString();
+        } else {
+            toret = decoder.stringOf( this.tokenStart, this.tokenEnd - this.tokenStart );
+        }
+
+        return toret;
+    }
+
+    /** @return the current NUMBER, as an int. */
+    public int getInt() throws IOException
+    {
+        this.checkEvent( Event.NUMBER );
+        return this.decoder().nextInt();
+    }
+
+    /** @return the current NUMBER, as a long. */
+    public long getLong() throws IOException
+    {
+        this.checkEvent( Event.NUMBER );
+        return this.decoder().nextLong();
+    }
+
+    /** @return the current NUMBER, as a double. */
+    public double getDouble() throws IOException
+    {
+        this.checkEvent( Event.NUMBER );
+        return this.decoder().nextDouble();
+    }
+
+    /** @return the current NUMBER, as a BigDecimal. */
+    public BigDecimal getBigDecimal() throws IOException
+    {
+        this.checkEvent( Event.NUMBER );
+        return this.decoder().nextBigDecimal();
+    }
+
+    /** @return the current BOOLEAN. */
+    public boolean getBoolean() throws IOException
+    {
+        this.checkEvent( Event.BOOLEAN );
+        return this.bytes[ this.tokenStart ] == Util.TRUE_ID.charAt( 0 );
+    }
+
+    /** Skips spaces and newlines, and the colon or comma expected, if any.
+     * @throws IOException if a colon or comma is found where not expected.
+     */
+    private void skipSeparators() throws IOException
+    {
+        while( this.pos < this.limit ) {
+            final int ch = this.bytes[ this.pos ];
+
+            if ( ch == Util.NAME_SEPARATOR
+              || ch == Util.ENTITY_SEPARATOR )
+            {
+                if ( ch != this.separator ) {
+                    throw new IOException( "unexpected: '" + (char) ch + "'" );
+                }
+
+                this.afterComma = ( ch == Util.ENTITY_SEPARATOR );
+                this.separator = 0;
+            }
+            else
+            if ( !Util.isOfClass( ch, Util.CC_SEPARATOR ) ) {
+                break;
+            }
+
+            ++this.pos;
+        }
+
+        this.scanned = Math.max( this.scanned, this.pos );
+
+        return;
+    }
+
+    /** Checks the size of the top-level value in course, up to the cursor.
+     * Each top-level value is a document of its own, as in JsonReader.
+     * @throws IOException if the document is larger than the limit.
+     */
+    private void checkDocumentSize() throws IOException
+    {
+        final long position = this.discarded + this.pos;
+
+        if ( position - this.documentStart > this.getLimits().getMaxDocumentSize() ) {
+            throw new IOException( "document larger than the limit: " + this.getLimits().getMaxDocumentSize() );
+        }
+
+        if ( this.depth == 0 ) {
+            this.documentStart = position;
+        }
+
+        return;
+    }
+
+    /** Checks that the separators expected were found before a token.
+     * @param ch the first char of the token.
+     * @throws IOException if a colon or comma is missing, or a comma is
+     *                     followed by the end of an object or array.
+     */
+    private void checkSeparator(int ch) throws IOException
+    {
+        final boolean isEnd = ( ch == Util.END_OBJECT_DELIMITER
+                             || ch == Util.END_ARRAY_DELIMITER );
+
+        if ( this.separator == Util.NAME_SEPARATOR
+          || ( this.separator == Util.ENTITY_SEPARATOR && !isEnd ) )
+        {
+            throw new IOException( "expected: '" + this.separator + "', but found: '" + (char) ch + "'" );
+        }
+
+        if ( this.afterComma
+          && isEnd )
+        {
+            throw new IOException( "unexpected: '" + (char) ch + "' after: '" + Util.ENTITY_SEPARATOR + "'" );
+        }
+
+        return;
+    }
+
+    /** Looks for the closing quotes of the string under the cursor.
+     * The bytes already scanned are not looked at again
+     * when more input is fed.
+     * @param quotes the opening quotes.
+     * @return the position after the closing quotes, or -1 if more input is needed.
+     * @throws IOException if the input ends inside the string.
+     */
+    private int scanQuoted(int quotes) throws IOException
+    {
+        final int maxLength = this.getLimits().getMaxStringLength();
+        int toret = -1;
+        int i = Math.max( this.scanned, this.pos + 1 );
+
+        while( i < this.limit ) {
+            final int ch = this.bytes[ i ];
+
+            if ( ch == '\\' ) {
+                if ( i + 1 == this.limit ) {
+                    break;
+                }
+
+                i += 2;
+            }
+            else
+            if ( ch == quotes ) {
+                toret = i + 1;
+                break;
+            } else {
+                ++i;
+            }
+        }
+
+        this.scanned = i;
+
+        if ( ( toret < 0 ? i : toret - 1 ) - this.pos - 1 > maxLength ) {
+            throw new IOException( "string longer than the limit: " + maxLength );
+        }
+
+        if ( toret < 0
+          && this.ended )
+        {
+            throw new IOException( "expected: '" + (char) quotes + "', but found the end of input" );
+        }
+
+        return toret;
+    }
+
+    /** Looks for the end of the number or identifier under the cursor.
+     * @return the position after the last char, or -1 if more input is needed.
+     * @throws IOException if the token is longer than the limit.
+     */
+    private int scanScalar() throws IOException
+    {
+        int toret = -1;
+        int i = Math.max( this.scanned, this.pos + 1 );
+
+        while( i < this.limit
+            && Util.isOfClass( this.bytes[ i ], Util.CC_SCALAR ) )
+        {
+            ++i;
+        }
+
+        this.scanned = i;
+
+        if ( i - this.pos > this.getLimits().getMaxStringLength() ) {
+            throw new IOException( "token longer than the limit: " + this.getLimits().getMaxStringLength() );
+        }
+
+        if ( i < this.limit
+          || this.ended )
+        {
+            toret = i;
+        }
+
+        return toret;
+    }
+
+    /** @return the event for a number, keyword or unquoted name. */
+    private Event scalarEvent(int ch, int end) throws IOException
+    {
+        final int length = end - this.pos;
+        final Event toret;
+
+        this.decoder.wrap( this.bytes, this.pos, length );
+
+        if ( Util.isOfClass( ch, Util.CC_DIGIT )
+          || ch == '+'
+          || ch == '-'
+          || ch == '.' )
+        {
+            if ( length > this.getLimits().getMaxNumberLength() ) {
+                throw new IOException( "number longer than the limit: " + this.getLimits().getMaxNumberLength() );
+            }
+
+            // A number alone is a valid document only if it follows the grammar
+            if ( !this.numbers.validate( this.bytes, this.pos, length ) ) {
+                throw new IOException( "wrong number: '" + this.decoder.stringOf( this.pos, length ) + "'" );
+            }
+
+            toret = Event.NUMBER;
+        }
+        else
+        if ( this.expectingName ) {
+            toret = Event.NAME;
+        }
+        else
+        if ( this.decoder.regionEquals( this.pos, length, Util.TRUE_ID )
+          || this.decoder.regionEquals( this.pos, length, Util.FALSE_ID ) )
+        {
+            toret = Event.BOOLEAN;
+        }
+        else
+        if ( this.decoder.regionEquals( this.pos, length, Util.NULL_ID ) ) {
+            toret = Event.NULL;
+        } else {
+            throw new IOException( "expected value, but found: '"
+                                    + this.decoder.stringOf( this.pos, length ) + "'" );
+        }
+
+        return toret;
+    }
+
+    /** Consumes the token under the cursor, up to the given position.
+     * @param end the position after the token.
+     * @param event the event for the token.
+     * @throws IOException if a name makes an object exceed its maximum members.
+     */
+    private void accept(int end, Event event) throws IOException
+    {
+        this.tokenStart = this.pos;
+        this.tokenEnd = end;
+        this.pos = this.scanned = end;
+        this.event = event;
+        this.afterComma = false;
+        this.separator = 0;
+
+        if ( event == Event.NAME ) {
+            this.expectingName = false;
+            this.separator = Util.NAME_SEPARATOR;
+            ++this.entries[ this.depth - 1 ];
+
+            if ( this.entries[ this.depth - 1 ] > this.getLimits().getMaxEntries() ) {
+                throw new IOException( "more members in object than the limit: "
+                                        + this.getLimits().getMaxEntries() );
+            }
+        }
+        else
+        if ( event != Event.BEGIN_OBJECT
+          && event != Event.BEGIN_ARRAY )
+        {
+            // A value ends: a comma and a name come next if inside an object
+            this.expectingName = ( this.depth > 0 && this.containers[ this.depth - 1 ] == IN_OBJECT );
+
+            if ( this.depth > 0 ) {
+                this.separator = Util.ENTITY_SEPARATOR;
+            }
+        }
+
+        return;
+    }
+
+    /** Opens an object or array.
+     * @throws IOException if nesting deeper than the limit.
+     */
+    private void push(byte container) throws IOException
+    {
+        if ( this.depth >= this.getLimits().getMaxDepth() ) {
+            throw new IOException( "nesting deeper than the limit: " + this.getLimits().getMaxDepth() );
+        }
+
+        if ( this.depth == this.containers.length ) {
+            this.containers = Arrays.copyOf( this.containers, this.depth * 2 );
+            this.entries = Arrays.copyOf( this.entries, this.depth * 2 );
+        }
+
+        this.containers[ this.depth ] = container;
+        this.entries[ this.depth ] = 0;
+        ++this.depth;
+        this.expectingName = ( container == IN_OBJECT );
+
+        return;
+    }
+
+    /** Closes an object or array, checking that it was the one open. */
+    private void pop(byte container, int ch) throws IOException
+    {
+        if ( this.depth == 0
+          || this.containers[ this.depth - 1 ] != container )
+        {
+            throw new IOException( "unexpected: '" + (char) ch + "'" );
+        }
+
+        --this.depth;
+
+        return;
+    }
+
+    /** Makes room at the end of the window for a new chunk,
+     * discarding the bytes before the current token.
+     */
+    private void makeRoom(int length)
+    {
+        if ( this.ended ) {
+            throw new IllegalStateException( "input already ended" );
+        }
+
+        if ( this.bytes.length - this.limit < length ) {
+            final int keep = Math.min( this.pos, this.tokenStart );
+            final int kept = this.limit - keep;
+            byte[] target = this.bytes;
+
+            if ( kept + length > this.bytes.length ) {
+                target = new byte[ Math.max( kept + length, this.bytes.length * 2 ) ];
+            }
+
+            System.arraycopy( this.bytes, keep, target, 0, kept );
+            this.bytes = target;
+            this.discarded += keep;
+            this.pos -= keep;
+            this.limit = kept;
+            this.scanned -= keep;
+            this.tokenStart -= keep;
+            this.tokenEnd -= keep;
+        }
+
+        return;
+    }
+
+    /** @return the decoder, positioned over the current token. */
+    private Utf8JsonReader decoder()
+    {
+        this.decoder.wrap( this.bytes, this.tokenStart, this.tokenEnd - this.tokenStart );
+        return this.decoder;
+    }
+
+    /** Checks that the current event is one of the given ones. */
+    private void checkEvent(Event... expected)
+    {
+        boolean found = false;
+
+        for(Event e: expected) {
+            found = found || ( this.event == e );
+        }
+
+        if ( !found ) {
+            throw new IllegalStateException( "current event is: " + this.event );
+        }
+
+        return;
+    }
+
+    private byte[] bytes;
+    private int pos;
+    private int limit;
+    private int scanned;
+    private int tokenStart;
+    private int tokenEnd;
+    private byte[] containers;
+    private int[] entries;
+    private int depth;
+    private long discarded;
+    private long documentStart;
+    private boolean expectingName;
+    private char separator;
+    private boolean afterComma;
+    private boolean ended;
+    private Event event;
+    private final Utf8JsonReader decoder;
+    private final JsonValidator numbers;
+}
@@ -0,0 +1,471 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of paths to extract from a JSON document, compiled once.
+ * Paths can be given as JSON pointers (RFC 6901), such as "/items/3/price",
+ * or as simple JSONPath expressions, such as "$.items[3].price" or "$['meta'].id".
+ * The document is streamed through a JsonReader, skipping the values
+ * that no path goes through, and reading stops as soon as all paths
+ * have been resolved, so the rest of the document is never parsed.
+ * Wildcards and recursive descent (..) are not supported.
+ * @author baltasarq
+ */
+public final class JsonQuery {
+    private static final int[] NO_PATHS = new int[ 0 ];
+
+    /** A step of a path: a name, which may also be an index in arrays. */
+    private static final class Step {
+        Step(String name)
+        {
+            this.name = name;
+            this.index = indexOf( name );
+        }
+
+        /** @return the name as an array index, or -1 if it is not one. */
+        private static int indexOf(String name)
+        {
+            int toret = -1;
+
+            if ( !name.isEmpty()
+              && name.length() <= 9
+              && ( name.length() == 1 || name.charAt( 0 ) != '0' ) )
+            {
+                toret = 0;
+
+                for(int i = 0; i < name.length(); ++i) {
+                    final char ch = name.charAt( i );
+
+                    if ( ch < '0' || ch > '9' ) {
+                        toret = -1;
+                        break;
+                    }
+
+                    toret = ( toret * 10 ) + ( ch - '0' );
+                }
+            }
+
+            return toret;
+        }
+
+        final String name;
+        final int index;
+    }
+
+    /** Compiles a set of paths.
+     * @param paths the paths, as JSON pointers or simple JSONPath expressions.
+     * @return the compiled query.
+     * @throws IllegalArgumentException if a path is not valid.
+     */
+    public static JsonQuery compile(String... paths)
+    {
+        return new JsonQuery( paths );
+    }
+
+    private JsonQuery(String[] paths)
+    {
+        this.paths = paths.clone();
+        this.steps = new Step[ paths.length ][];
+        this.allPaths = new int[ paths.length ];
+
+        for(int i = 0; i < paths.length; ++i) {
+            this.steps[ i ] = parse( paths[ i ] );
+            this.allPaths[ i ] = i;
+        }
+    }
+
+    /** @return the number of paths. */
+    public int size()
+    {
+        return this.paths.length;
+    }
+
+    /** @param index the index of a path.
+     * @return the path, as given.
+     */
+    public String pathOf(int index)
+    {
+        return this.paths[ index ];
+    }
+
+    /** Extracts the values of the paths from a document.
+     * Objects are returned as maps, arrays as lists, numbers as Long
+     * (if integral and in range) or Double, and the rest as String,
+     * Boolean or null. Once all paths are resolved, nothing else is read,
+     * so the reader is left in the middle of the document.
+     * @param reader the reader, before the document.
+     * @return the values found, by path, in the order of the paths.
+     *         Paths not found in the document are not present.
+     * @throws IOException if reading goes wrong.
+     */
+    public Map<String, Object> extract(AbstractJsonReader reader) throws IOException
+    {
+        final Map<String, Object> toret = new LinkedHashMap<>();
+        final Walk walk = new Walk();
+
+        if ( walk.remaining > 0 ) {
+            walk.visit( reader, this.allPaths, 0 );
+        }
+
+        for(int i = 0; i < this.paths.length; ++i) {
+            if ( walk.found[ i ] ) {
+                toret.put( this.paths[ i ], walk.values[ i ] );
+            }
+        }
+
+        return toret;
+    }
+
+    /** The state of the extraction of the paths from a document. */
+    private final class Walk {
+        Walk()
+        {
+            final int numPaths = JsonQuery.this.paths.length;
+
+            this.values = new Object[ numPaths ];
+            this.found = new boolean[ numPaths ];
+            this.done = new boolean[ numPaths ];
+            this.remaining = numPaths;
+        }
+
+        /** Visits the value ahead.
+         * @param reader the reader, before the value.
+         * @param active the paths that lead to this value.
+         * @param depth the number of steps that lead to this value.
+         */
+        private void visit(AbstractJsonReader reader, int[] active, int depth) throws IOException
+        {
+            boolean ends = false;
+            boolean goesOn = false;
+
+            for(int path: active) {
+                if ( JsonQuery.this.steps[ path ].length == depth ) {
+                    ends = true;
+                } else {
+                    goesOn = true;
+                }
+            }
+
+            if ( ends ) {
+                // Some path ends here: read the whole value
+                final Object value = readValue( reader );
+
+                for(int path: active) {
+                    this.resolve( path, value, depth );
+                }
+            }
+            else
+            if ( !goesOn ) {
+                reader.skipValue();
+            } else {
+                final AbstractJsonReader.TokenType tokenType = reader.nextTokenType();
+
+                if ( tokenType == AbstractJsonReader.TokenType.OPEN_OBJECT ) {
+                    reader.beginObject();
+                    while ( this.remaining > 0
+                         && reader.hasNext() )
+                    {
+                        final String name = reader.nextName();
+
+                        this.visit( reader, this.select( active, depth, name, -1 ), depth + 1 );
+                    }
+
+                    if ( this.remaining > 0 ) {
+                        reader.endObject();
+                    }
+                }
+                else
+                if ( tokenType == AbstractJsonReader.TokenType.OPEN_ARRAY ) {
+                    int index = 0;
+
+                    reader.beginArray();
+                    while ( this.remaining > 0
+                         && reader.hasNext() )
+                    {
+                        this.visit( reader, this.select( active, depth, null, index ), depth + 1 );
+                        ++index;
+                    }
+
+                    if ( this.remaining > 0 ) {
+                        reader.endArray();
+                    }
+                } else {
+                    reader.skipValue();
+                }
+
+                // The paths going through this value cannot be found anymore
+                for(int path: active) {
+                    this.markDone( path );
+                }
+            }
+
+            return;
+        }
+
+        /** Selects the paths going on through a given name or index.
+         * @param active the paths leading to the container.
+         * @param depth the number of steps leading to the container.
+         * @param name the name of the member, or null for array elements.
+         * @param index the index of the element, or -1 for object members.
+         * @return the selected paths.
+         */
+        private int[] select(int[] active, int depth, String name, int index)
+        {
+            int[] toret = NO_PATHS;
+            int count = 0;
+
+            for(int path: active) {
+                if ( !this.done[ path ] ) {
+                    final Step step = JsonQuery.this.steps[ path ][ depth ];
+
+                    if ( ( name != null && step.name.equals( name ) )
+                      || ( name == null && step.index == index ) )
+                    {
+                        if ( count == toret.length ) {
+                            final int[] newSelected = new int[ Math.max( 2, count * 2 ) ];
+
+                            System.arraycopy( toret, 0, newSelected, 0, count );
+                            toret = newSelected;
+                        }
+
+                        toret[ count ] = path;
+                        ++count;
+                    }
+                }
+            }
+
+            if ( count < toret.length ) {
+                final int[] selected = new int[ count ];
+
+                System.arraycopy( toret, 0, selected, 0, count );
+                toret = selected;
+            }
+
+            return toret;
+        }
+
+        /** Resolves a path from an already read value.
+         * @param path the path to resolve.
+         * @param value the value reached after some steps of the path.
+         * @param depth the number of steps leading to that value.
+         */
+        private void resolve(int path, Object value, int depth)
+        {
+            final Step[] pathSteps = JsonQuery.this.steps[ path ];
+            boolean isFound = true;
+
+            for(int i = depth; isFound && i < pathSteps.length; ++i) {
+                if ( value instanceof Map ) {
+                    final Map<?, ?> map = (Map<?, ?>) value;
+
+                    isFound = map.containsKey( pathSteps[ i ].name );
+                    value = map.get( pathSteps[ i ].name );
+                }
+                else
+                if ( value instanceof List ) {
+                    final List<?> list = (List<?>) value;
+                    final int index = pathSteps[ i ].index;
+
+                    isFound = ( index >= 0 && index < list.size() );
+                    value = isFound ? list.get( index ) : null;
+                } else {
+                    isFound = false;
+                }
+            }
+
+            if ( isFound
+              && !this.done[ path ] )
+            {
+                this.values[ path ] = value;
+                this.found[ path ] = true;
+            }
+
+            this.markDone( path );
+        }
+
+        /** Marks a path as resolved, found or not. */
+        private void markDone(int path)
+        {
+            if ( !this.done[ path ] ) {
+                this.done[ path ] = true;
+                --this.remaining;
+            }
+
+            return;
+        }
+
+        final Object[] values;
+        final boolean[] found;
+        final boolean[] done;
+        int remaining;
+    }
+
+    /** Reads a whole value as plain Java objects.
+     * @param reader the reader, before the value.
+     * @return the value.
+     * @throws IOException if reading goes wrong.
+     */
+    static Object readValue(AbstractJsonReader reader) throws IOException
+    {
+        final AbstractJsonReader.TokenType tokenType = reader.nextTokenType();
+        Object toret = null;
+
+        switch( tokenType ) {
+            case OPEN_OBJECT: {
+                final Map<String, Object> members = new LinkedHashMap<>();
+
+                reader.beginObject();
+                while ( reader.hasNext() ) {
+                    final String name = reader.nextName();
+
+                    members.put( name, readValue( reader ) );
+                }
+                reader.endObject();
+                toret = members;
+                break;
+            }
+            case OPEN_ARRAY: {
+                final List<Object> elements = new ArrayList<>();
+
+                reader.beginArray();
+                while ( reader.hasNext() ) {
+                    elements.add( readValue( reader ) );
+                }
+                reader.endArray();
+                toret = elements;
+                break;
+            }
+            case STRING:
+                toret = reader.nextString();
+                break;
+            case NUMBER: {
+                final BigDecimal number = reader.nextBigDecimal();
+
+                if ( number.scale() <= 0
+                  && number.compareTo( BigDecimal.valueOf( Long.MIN_VALUE ) ) >= 0
+                  && number.compareTo( BigDecimal.valueOf( Long.MAX_VALUE ) ) <= 0 )
+                {
+                    toret = number.longValue();
+                } else {
+                    toret = number.doubleValue();
+                }
+                break;
+            }
+            case BOOLEAN:
+                toret = reader.nextBoolean();
+                break;
+            case NULL:
+                reader.nextNull();
+                break;
+            default:
+                throw new IOException( "expected value, but found: " + tokenType );
+        }
+
+        return toret;
+    }
+
+    /** Parses a path, as a JSON pointer or a simple JSONPath expression.
+     * @param path the path to parse.
+     * @return the steps of the path.
+     * @throws IllegalArgumentException if the path is not valid.
+     */
+    private static Step[] parse(String path)
+    {
+        final List<Step> toret = new ArrayList<>();
+
+        if ( path.isEmpty()
+          || path.charAt( 0 ) == '/' )
+        {
+            // JSON pointer: /a/b~1c/0
+            int pos = 0;
+
+            while( pos < path.length() ) {
+                int end = path.indexOf( '/', pos + 1 );
+
+                if ( end < 0 ) {
+                    end = path.length();
+                }
+
+                toret.add( new Step( path.substring( pos + 1, end )
+                                         .replace( "~1", "/" )
+                                         .replace( "~0", "~" ) ) );
+                pos = end;
+            }
+        }
+        else
+        if ( path.charAt( 0 ) == '$' ) {
+            // JSONPath: $.a['b'][0]
+            int pos = 1;
+
+            while( pos < path.length() ) {
+                final char ch = path.charAt( pos );
+                int end;
+
+                if ( ch == '.' ) {
+                    end = pos + 1;
+                    while( end < path.length()
+                        && path.charAt( end ) != '.'
+                        && path.charAt( end ) != '[' )
+                    {
+                        ++end;
+                    }
+
+                    final String name = path.substring( pos + 1, end );
+
+                    // Neither recursive descent (..) nor wildcards are supported
+                    if ( name.isEmpty() ) {
+                        throw new IllegalArgumentException( "missing name after '.' in path: " + path );
+                    }
+
+                    if ( name.equals( "*" ) ) {
+                        throw new IllegalArgumentException( "wildcards are not supported in path: " + path );
+                    }
+
+                    toret.add( new Step( name ) );
+                    pos = end;
+                }
+                else
+                if ( ch == '[' ) {
+                    end = path.indexOf( ']', pos );
+
+                    if ( end < 0 ) {
+                        throw new IllegalArgumentException( "missing ']' in path: " + path );
+                    }
+
+                    String name = path.substring( pos + 1, end ).trim();
+                    if ( name.length() >= 2
+                      && Util.isOfClass( name.charAt( 0 ), Util.CC_QUOTES )
+                      && name.charAt( name.length() - 1 ) == name.charAt( 0 ) )
+                    {
+                        name = name.substring( 1, name.length() - 1 );
+                    }
+                    else
+                    if ( Step.indexOf( name ) < 0 ) {
+                        throw new IllegalArgumentException( "invalid index in path: " + path );
+                    }
+
+                    toret.add( new Step( name ) );
+                    pos = end + 1;
+                } else {
+                    throw new IllegalArgumentException( "unexpected '" + ch + "' in path: " + path );
+                }
+            }
+        } else {
+            throw new IllegalArgumentException( "path must start with '/' or '$': " + path );
+        }
+
+        return toret.toArray( new Step[ 0 ] );
+    }
+
+    private final String[] paths;
+    private final Step[][] steps;
+    private final int[] allPaths;
+}
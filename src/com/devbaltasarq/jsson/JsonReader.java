@@ -2,498 +2,180 @@
 
 package com.devbaltasarq.jsson;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.PushbackReader;
 import java.io.Reader;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Creates a new JSON reader.
+ * The input is scanned through a window of chars, which is refilled
+ * from the underlying reader when the cursor reaches its end.
+ * Tokens are always kept contiguous in the window,
+ * so the lookahead never needs to give chars back.
  * @author baltasarq
  */
-public class JsonReader extends BufferedReader {
-    private static final String TOKEN_VALID_CHARS = "_0123456789abcdefghijklmnopqrstuvvwxyz";
-    public enum TokenType {
-        ERROR, END, UNESCAPED_ID, STRING, NUMBER, BOOLEAN, NULL,
-        OPEN_OBJECT, CLOSE_OBJECT,
-        OPEN_ARRAY, CLOSE_ARRAY }
-
+public class JsonReader extends AbstractJsonReader {
+    private static final int BUFFER_SIZE = 8192;
 
     /** Creates a new JsonReader, given an input stream.
      * @param input an input stream to read from.
      */
     public JsonReader(Reader input)
     {
-        super( input );
-
-        this.reader = new PushbackReader( this, 256 );
+        this.input = input;
+        this.buffer = new char[ BUFFER_SIZE ];
     }
 
-    /** Skips all spaces, tabs, newlines, commas... */
-    public void skipSpaces()
+    /** Resets the reader to read from a new input, reusing its window
+     * and its name table. The previous input is not closed.
+     * @param input a new input stream to read from.
+     */
+    public void reset(Reader input)
     {
-        try {
-            int ch = this.reader.read();
-
-            while( ch != -1 ) {
-                if ( !Character.isSpaceChar( ch )
-                  && Util.EXTRA_SEPARATORS.indexOf( ch ) < 0 )
-                {
-                    this.reader.unread( ch );
-                    break;
-                }
-
-                ch = this.reader.read();
-            }
-        } catch(IOException exc)
-        {
-            Logger.getGlobal().log( Level.WARNING, "attempted to skip spaces in a closed stream" );
-        }
+        this.abandon();
+        this.input = input;
+        this.pos = this.limit = 0;
+        this.discarded = 0;
+        this.state.clear();
 
         return;
     }
 
-    /** @return whether there is more input or not. */
-    public boolean hasNext()
+    /** Forgets the input, so it is not retained while pooled. */
+    @Override
+    void clear()
     {
-        boolean toret = true;
-
-        this.skipSpaces();
+        super.clear();
+        this.input = null;
 
-        try {
-            final int ch = this.reader.read();
-            this.reader.unread( ch );
-
-            if ( ch == -1
-              || this.nextTokenType() == TokenType.CLOSE_ARRAY
-              || this.nextTokenType() == TokenType.CLOSE_OBJECT )
-            {
-                toret = false;
-            }
-        } catch(IOException exc)
-        {
-            toret = false;
-        }
-
-        return toret;
+        return;
     }
 
-    /** @return the type of the token ahead. */
-    public TokenType nextTokenType()
+    /** Closes the reader. */
+    @Override
+    public void close()
     {
-        TokenType toret = TokenType.ERROR;
+        this.abandon();
 
         try {
-            // Go to the first important data
-            this.skipSpaces();
-            final int ch = this.reader.read();
-
-            // Consider next char
-            this.reader.unread( ch );
-            if ( ch != -1 ) {
-                if ( Character.isDigit( ch )
-                  || ch == '+'
-                  || ch == '-'
-                  || ch == '.' )
-                {
-                    toret = TokenType.NUMBER;
-                }
-                else
-                if ( Character.isLetter( ch )
-                  || ch == '_' )
-                {
-                    if ( this.isNullAhead() ) {
-                        toret = TokenType.NULL;
-                    }
-                    else
-                    if ( this.isBooleanAhead() ) {
-                        toret = TokenType.BOOLEAN;
-                    }
-                    else {
-                        toret = TokenType.UNESCAPED_ID;
-                    }
-                }
-                else
-                if ( ch == '\''
-                  || ch == '"' )
-                {
-                    toret = TokenType.STRING;
-                }
-                else
-                if ( ch == Util.OPEN_OBJECT_DELIMITER )
-                {
-                    toret = TokenType.OPEN_OBJECT;
-                }
-                else
-                if ( ch == Util.OPEN_ARRAY_DELIMITER )
-                {
-                    toret = TokenType.OPEN_ARRAY;
-                }
-                else
-                if ( ch == Util.END_OBJECT_DELIMITER )
-                {
-                    toret = TokenType.CLOSE_OBJECT;
-                }
-                else
-                if ( ch == Util.END_ARRAY_DELIMITER )
-                {
-                    toret = TokenType.CLOSE_ARRAY;
-                }
-            } else {
-                toret = TokenType.END;
-            }
-        } catch(IOException exc)
-        {
-            Logger.getGlobal().log( Level.WARNING, "nextTokenType(): " + exc.getMessage() );
-            toret = TokenType.ERROR;
-        }
-
-        return toret;
-    }
-
-    private static boolean isValidCharForToken(int c)
-    {
-        return TOKEN_VALID_CHARS.indexOf( Character.toLowerCase( c ) ) >= 0;
-    }
-
-    /** @return true when the next token is null, false otherwise. */
-    public boolean isBooleanAhead() throws IOException
-    {
-        this.skipSpaces();
-        final String token = this.getToken();
-
-        this.reader.unread( token.toCharArray() );
-        return token.equals( Boolean.toString( true ) )
-            || token.equals( Boolean.toString( false ) );
-    }
-
-    /** @return true when the next token is null, false otherwise. */
-    public boolean isNullAhead() throws IOException
-    {
-        this.skipSpaces();
-        final String token = this.getToken();
-
-        this.reader.unread( token.toCharArray() );
-        return token.equals( Util.NULL_ID );
-    }
-
-    /** Gets the next identifier.
-     * @return the identifier, as a string.
-     * @throws IOException if reading goes wrong.
-     */
-    public String getToken() throws IOException
-    {
-        final StringBuilder token = new StringBuilder();
-
-        this.skipSpaces();
-        int ch = this.reader.read();
-
-        // Collect the id
-        while ( ch != -1
-             && isValidCharForToken( ch ) )
-        {
-            token.append( (char) ch );
-            ch = this.reader.read();
-        }
-
-        this.reader.unread( ch );
-        return token.toString();
-    }
-
-    public void beginObject() throws IOException
-    {
-        this.skipSpaces();
-        this.match( Util.OPEN_OBJECT_DELIMITER );
-        this.skipSpaces();
-    }
-
-    public void endObject() throws IOException
-    {
-        this.skipSpaces();
-        this.match( Util.END_OBJECT_DELIMITER );
-        this.skipSpaces();
-    }
-
-    public void beginArray() throws IOException
-    {
-        this.skipSpaces();
-        this.match( Util.OPEN_ARRAY_DELIMITER );
-        this.skipSpaces();
-    }
-
-    public void endArray() throws IOException
-    {
-        this.skipSpaces();
-        this.match( Util.END_ARRAY_DELIMITER );
-        this.skipSpaces();
-    }
-
-    public double nextFloat() throws IOException
-    {
-        final StringBuilder token = new StringBuilder();
-
-        // Is there a '+' or '-'?
-        this.skipSpaces();
-        int ch = this.reader.read();
-
-        if ( ch == '-'
-          || ch == '+' )
-        {
-            token.append( (char) ch );
-            ch = this.reader.read();
-        }
-
-        // Now read the number itself
-        while ( ch != -1
-             && ( Character.isDigit( ch )
-               || ch == '.' ) )
-        {
-            token.append( (char) ch );
-            ch = this.reader.read();
-        }
-
-        this.reader.unread( ch );
-        if ( token.length() == 0 ) {
-            throw new IOException( "expected float, but next char is: '" + (char) ch + "'" );
-        }
-
-        return Double.valueOf( token.toString() );
-    }
-
-
-
-    public int nextInt() throws IOException
-    {
-        final StringBuilder token = new StringBuilder();
-
-        // Is there a '+' or '-'?
-        this.skipSpaces();
-        int ch = this.reader.read();
-
-        if ( ch == '-'
-          || ch == '+' )
-        {
-            token.append( (char) ch );
-            ch = this.reader.read();
-        }
-
-        // Now read the number itself
-        while ( ch != -1
-             && Character.isDigit( ch ) )
-        {
-            token.append( (char) ch );
-            ch = this.reader.read();
-        }
-
-        this.reader.unread( ch );
-        if ( token.length() == 0 ) {
-            throw new IOException( "expected int, but next char is: '" + (char) ch + "'" );
-        }
-
-        return Integer.valueOf( token.toString() );
-    }
-
-    /** If the given char is not found, throws an exception.
-     * @param ch the expected char.
-     * @throws IOException if reading goes wrong,
-     *                     or the read char is not the expected.
-     */
-    public void match(char ch) throws IOException
-    {
-        final int readChar = this.reader.read();
-
-        if ( readChar == -1
-          || readChar != ch )
-        {
-            throw new IOException( "expected: '" + (char) ch
-                                    + "', but found: '" + readChar + "'" );
+            this.input.close();
+        } catch(IOException exc) {
+            Logger.getGlobal().log( Level.SEVERE, "error closing input stream" );
         }
 
         return;
     }
 
-    /** @return true if there are quotes ahead, false otherwise. It does not consume anything. */
-    private boolean areQuotesAhead() throws IOException
-    {
-        boolean toret = false;
-
-        this.skipSpaces();
-
-        int ch = this.reader.read();
-
-        if ( ch == '"'
-          || ch == '\'' )
-        {
-            toret = true;
-        }
-
-        this.reader.unread( ch );
-        return toret;
-    }
-
-    /** @return the next name in the JSON stream. */
-    public String nextName() throws IOException
+    /** Tries to have at least the given number of chars available
+      * in the window, from the cursor on. The window is compacted,
+      * or even grown, if there is not enough room for them.
+      * @param minimum the number of chars needed.
+      * @return true if they are available, false if the input ended before.
+      * @throws IOException if reading goes wrong.
+      */
+    @Override
+    boolean fill(int minimum) throws IOException
     {
-        int quotes = -1;
-        String toret = null;
+        final int available = this.limit - this.pos;
 
-        // Check for quotes or double-quotes
-        if ( this.areQuotesAhead() ) {
-            quotes = this.reader.read();
-        }
-
-        toret = this.getToken();
-
-        if ( quotes >= 0 ) {
-            if ( this.areQuotesAhead() ) {
-                int endQuotes = this.reader.read();
+        if ( available < minimum ) {
+            // Make room
+            if ( this.buffer.length - this.pos < minimum ) {
+                char[] target = this.buffer;
 
-                if ( quotes != endQuotes ) {
-                    throw new IOException( "expected: " + ( (char) quotes )
-                                            + " got: " +  ( (char) endQuotes ) );
+                if ( minimum > this.buffer.length ) {
+                    target = new char[ Math.max( minimum, this.buffer.length * 2 ) ];
                 }
-            } else {
-                throw new IOException( "expected: " + ( (char) quotes ) );
-            }
-        }
-
-        this.skipSpaces();
-        int colon = this.reader.read();
-
-        if ( colon != Util.NAME_SEPARATOR ) {
-            throw new IOException( "expected '"
-                                    + Util.NAME_SEPARATOR
-                                    + "' after name ('" + toret + "'?)" );
-        }
-
-        return toret;
-    }
-
-    /** @return the next string, no matter of being enclosed
-     *          in single or double quotes, or null if 'null' was found. */
-    public String nextString() throws IOException
-    {
-        String toret = null;
-        final StringBuilder buffer = new StringBuilder();
-        int ch;
-        int quotes = -1;
-
-        this.skipSpaces();
-
-        // Check for null
-        final String token = this.getToken();
-        if ( !token.equals( Util.NULL_ID ) ) {
-            this.reader.unread( token.toCharArray() );
 
-            // Check for quotes or double-quotes
-            if ( this.areQuotesAhead() ) {
-                quotes = this.reader.read();
-            } else {
-                throw new IOException( "expected quotes: ' or double quotes: \"" );
+                System.arraycopy( this.buffer, this.pos, target, 0, available );
+                this.buffer = target;
+                this.discarded += this.pos;
+                this.pos = 0;
+                this.limit = available;
             }
 
-            // Read the id inside
-            ch = this.reader.read();
-            while( ch != -1
-                && ch != quotes )
-            {
-                if ( ch == '\\' ) {
-                    this.reader.unread( ch );
-                    ch = this.parseSpecialChar();
-                }
+            // Read as much as possible
+            while( this.limit - this.pos < minimum ) {
+                final int count = this.input.read( this.buffer, this.limit, this.buffer.length - this.limit );
 
-                buffer.append( (char) ch );
-                ch = this.reader.read();
-            }
+                if ( count < 0 ) {
+                    break;
+                }
 
-            // Read quotes if they were present
-            this.reader.unread( ch );
-            if ( quotes != -1 ) {
-                this.match( (char) quotes );
+                this.limit += count;
             }
-
-            toret = buffer.toString();
         }
 
-        return toret;
+        return this.limit - this.pos >= minimum;
     }
 
-    /** @return The read boolean value. */
-    public boolean nextBoolean() throws IOException
+    /** @param index a position in the window.
+      * @return the char at that position of the window.
+      */
+    @Override
+    int unitAt(int index)
     {
-        boolean toret = false;
-        final String token = this.getToken();
-
-        if ( token.equals( Boolean.toString( true ) ) ) {
-            toret = true;
-        }
-        else
-        if ( !token.equals( Boolean.toString( false ) ) ) {
-            this.reader.unread( token.toCharArray() );
-            throw new IOException( "expected boolean, not: '" + token + '\'' );
-        }
-
-        return toret;
+        return this.buffer[ index ];
     }
 
-    /** Reads a null value. */
-    public void nextNull() throws IOException
+    /** Builds a string from a part of the window.
+      * @param start the position of the first char.
+      * @param length the number of chars.
+      * @return the resulting string.
+      */
+    @Override
+    String stringOf(int start, int length)
     {
-        final String token = this.getToken();
-
-        if ( !token.equals( Util.NULL_ID ) ) {
-            this.reader.unread( token.toCharArray() );
-            throw new IOException( "expected null, not: '" + token + '\'' );
-        }
-
-        return;
+        return new String( this.buffer, start, length );
     }
 
-    /** Closes the reader. */
+    /** Tells whether each unit in a part of the window is a whole char,
+      * so it can be viewed in place.
+      * @param start the position of the first unit.
+      * @param length the number of units.
+      * @return true for the window of chars, always.
+      */
     @Override
-    public void close()
+    boolean isViewable(int start, int length)
     {
-        try {
-            this.reader.close();
-            super.close();
-        } catch(IOException exc) {
-            Logger.getGlobal().log( Level.SEVERE, "error closing input stream" );
-        }
-
-        return;
+        return true;
     }
 
-    private char parseSpecialChar() throws IOException
-    {
-        int ch = this.reader.read();
-
-        if ( ch == '\\' ) {
-            ch = this.reader.read();
+    /** Builds a string from a part of the window, translating escaped chars.
+      * The runs between escaped chars are appended in bulk.
+      * @param start the position of the first char.
+      * @param end the position after the last char.
+      * @return the resulting string.
+      * @throws IOException if an escaped char is not valid.
+      */
+    @Override
+    String unescape(int start, int end) throws IOException
+    {
+        final StringBuilder toret = new StringBuilder( end - start );
+        int segmentStart = start;
+
+        for(int i = start; i < end; ++i) {
+            if ( this.buffer[ i ] == '\\' ) {
+                toret.append( this.buffer, segmentStart, i - segmentStart );
+                ++i;
+
+                if ( this.buffer[ i ] == 'u' ) {
+                    // Surrogates are chars as well, so pairs need no care
+                    toret.append( (char) this.parseHexEscape( i + 1, end ) );
+                    i += 4;
+                } else {
+                    toret.append( parseSpecialChar( this.buffer[ i ] ) );
+                }
 
-            switch (ch) {
-                case '\\':
-                    break;
-                case '"':
-                    break;
-                case '\'':
-                    break;
-                case 'n':
-                    ch = '\n';
-                    break;
-                case 't':
-                    ch = '\t';
-                    break;
-                default:
-                    throw new IOException( "invalid special char: \\" + Character.toString( (char) ch ) );
+                segmentStart = i + 1;
             }
-        } else {
-            throw new IOException( "not a special char" );
         }
 
-        return (char) ch;
+        toret.append( this.buffer, segmentStart, end - segmentStart );
+        return toret.toString();
     }
 
-    private PushbackReader reader;
+    private Reader input;
+    private char[] buffer;
 }
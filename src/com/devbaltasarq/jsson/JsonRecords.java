@@ -0,0 +1,290 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams of independent records, held in memory as UTF-8 bytes,
+ * which can be parsed in parallel.
+ * Two layouts are supported: newline-delimited JSON (NDJSON),
+ * with a record per line, and the elements of a top-level array.
+ * The input is split in chunks at safe boundaries between records:
+ * newlines for NDJSON, and the commas between elements for arrays.
+ * Each chunk is parsed with its own reader, so the streams returned
+ * can be made parallel(), running on a ForkJoinPool.
+ * @author baltasarq
+ */
+public final class JsonRecords {
+    static final int MIN_CHUNK_SIZE = 4096;
+
+    /** Reads a record from a reader. */
+    @FunctionalInterface
+    public interface RecordReader<T> {
+        /** Reads a single record.
+         * @param reader the reader, before the record.
+         * @return the record read.
+         * @throws IOException if reading goes wrong.
+         */
+        T read(AbstractJsonReader reader) throws IOException;
+    }
+
+    private JsonRecords()
+    {
+    }
+
+    /** Creates a stream of the records in a NDJSON document.
+     * Errors while reading records are thrown as UncheckedIOException.
+     * @param input the UTF-8 bytes of the document.
+     * @param recordReader the reader of each record.
+     * @param <T> the type of the records.
+     * @return a sequential stream, which can be made parallel.
+     */
+    public static <T> Stream<T> ndjson(byte[] input, RecordReader<T> recordReader)
+    {
+        return ndjson( input, 0, input.length, recordReader );
+    }
+
+    /** Creates a stream of the records in a NDJSON document.
+     * Errors while reading records are thrown as UncheckedIOException.
+     * @param input the UTF-8 bytes of the document.
+     * @param offset the position of the first byte of the document.
+     * @param length the length of the document.
+     * @param recordReader the reader of each record.
+     * @param <T> the type of the records.
+     * @return a sequential stream, which can be made parallel.
+     */
+    public static <T> Stream<T> ndjson(byte[] input, int offset, int length, RecordReader<T> recordReader)
+    {
+        return StreamSupport.stream(
+                    new RecordSpliterator<>( input, null, offset, offset + length, recordReader ),
+                    false );
+    }
+
+    /** Creates a stream of the records in a NDJSON file.
+     * @param path the path of the file, encoded in UTF-8.
+     * @param recordReader the reader of each record.
+     * @param <T> the type of the records.
+     * @return a sequential stream, which can be made parallel.
+     * @throws IOException if the file cannot be read.
+     */
+    public static <T> Stream<T> ndjson(Path path, RecordReader<T> recordReader) throws IOException
+    {
+        return ndjson( Files.readAllBytes( path ), recordReader );
+    }
+
+    /** Creates a stream of the elements of a top-level array.
+     * The boundaries of the elements are found first, in a single pass
+     * that only looks at quotes, escapes and brackets.
+     * Errors while reading elements are thrown as UncheckedIOException.
+     * @param input the UTF-8 bytes of the document.
+     * @param recordReader the reader of each element.
+     * @param <T> the type of the elements.
+     * @return a sequential stream, which can be made parallel.
+     * @throws IOException if the document is not an array.
+     */
+    public static <T> Stream<T> array(byte[] input, RecordReader<T> recordReader) throws IOException
+    {
+        return array( input, 0, input.length, recordReader );
+    }
+
+    /** Creates a stream of the elements of a top-level array.
+     * @param input the UTF-8 bytes of the document.
+     * @param offset the position of the first byte of the document.
+     * @param length the length of the document.
+     * @param recordReader the reader of each element.
+     * @param <T> the type of the elements.
+     * @return a sequential stream, which can be made parallel.
+     * @throws IOException if the document is not an array.
+     * @see #array(byte[], RecordReader)
+     */
+    public static <T> Stream<T> array(byte[] input, int offset, int length, RecordReader<T> recordReader)
+            throws IOException
+    {
+        final int[] bounds = elementBounds( input, offset, length );
+
+        return StreamSupport.stream(
+                    new RecordSpliterator<>( input, bounds, 0, bounds.length - 1, recordReader ),
+                    false );
+    }
+
+    /** Creates a stream of the elements of a top-level array in a file.
+     * @param path the path of the file, encoded in UTF-8.
+     * @param recordReader the reader of each element.
+     * @param <T> the type of the elements.
+     * @return a sequential stream, which can be made parallel.
+     * @throws IOException if the file cannot be read, or is not an array.
+     */
+    public static <T> Stream<T> array(Path path, RecordReader<T> recordReader) throws IOException
+    {
+        return array( Files.readAllBytes( path ), recordReader );
+    }
+
+    /** Hands all records to an action, in parallel, in the given pool.
+     * The action may be called from many threads at the same time.
+     * @param pool the pool to run on.
+     * @param records the stream of records.
+     * @param action the action to run for each record.
+     * @param <T> the type of the records.
+     * @throws IOException if reading a record goes wrong.
+     */
+    public static <T> void forEach(ForkJoinPool pool, Stream<T> records, Consumer<? super T> action)
+            throws IOException
+    {
+        try {
+            pool.submit( () -> records.parallel().forEach( action ) ).get();
+        } catch(InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new IOException( "interrupted while reading records" );
+        } catch(ExecutionException exc) {
+            if ( exc.getCause() instanceof UncheckedIOException ) {
+                throw ( (UncheckedIOException) exc.getCause() ).getCause();
+            }
+
+            throw new IOException( exc.getCause() );
+        }
+
+        return;
+    }
+
+    /** Finds the boundaries of the elements of a top-level array.
+     * @return the position of each element, followed by the end of the last one.
+     */
+    private static int[] elementBounds(byte[] input, int offset, int length) throws IOException
+    {
+        final Utf8JsonReader reader = new Utf8JsonReader( input, offset, length );
+        int[] toret = new int[ 1024 ];
+        int count = 0;
+
+        reader.beginArray();
+        while( reader.hasNext() ) {
+            if ( count == toret.length ) {
+                toret = Arrays.copyOf( toret, toret.length * 2 );
+            }
+
+            toret[ count ] = reader.pos;
+            ++count;
+            reader.skipValue();
+        }
+
+        if ( count == toret.length ) {
+            toret = Arrays.copyOf( toret, count + 1 );
+        }
+
+        toret[ count ] = reader.pos;
+        reader.endArray();
+        return Arrays.copyOf( toret, count + 1 );
+    }
+
+    /** Splits records in chunks, each one read by its own reader.
+     * For NDJSON, start and end are byte positions. For arrays,
+     * they are indexes in the bounds of the elements.
+     */
+    private static final class RecordSpliterator<T> implements Spliterator<T> {
+        RecordSpliterator(byte[] input, int[] bounds, int start, int end, RecordReader<T> recordReader)
+        {
+            this.input = input;
+            this.bounds = bounds;
+            this.start = start;
+            this.end = end;
+            this.recordReader = recordReader;
+            this.reader = null;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action)
+        {
+            boolean toret = false;
+
+            try {
+                if ( this.reader == null ) {
+                    final int from = this.positionOf( this.start );
+
+                    this.reader = new Utf8JsonReader( this.input, from, this.positionOf( this.end ) - from );
+                }
+
+                if ( this.reader.hasNext() ) {
+                    action.accept( this.recordReader.read( this.reader ) );
+                    toret = true;
+                }
+            } catch(IOException exc) {
+                throw new UncheckedIOException( exc );
+            }
+
+            return toret;
+        }
+
+        @Override
+        public Spliterator<T> trySplit()
+        {
+            RecordSpliterator<T> toret = null;
+
+            if ( this.reader == null
+              && this.positionOf( this.end ) - this.positionOf( this.start ) >= MIN_CHUNK_SIZE * 2 )
+            {
+                int middle = this.start + ( ( this.end - this.start ) / 2 );
+
+                if ( this.bounds == null ) {
+                    // Split after the first newline past the middle
+                    while( middle < this.end
+                        && this.input[ middle ] != '\n' )
+                    {
+                        ++middle;
+                    }
+
+                    ++middle;
+                }
+
+                if ( middle > this.start
+                  && middle < this.end )
+                {
+                    toret = new RecordSpliterator<>( this.input, this.bounds, this.start, middle, this.recordReader );
+                    this.start = middle;
+                }
+            }
+
+            return toret;
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            return this.end - this.start;
+        }
+
+        @Override
+        public int characteristics()
+        {
+            int toret = ORDERED;
+
+            if ( this.bounds != null ) {
+                toret |= SIZED | SUBSIZED;
+            }
+
+            return toret;
+        }
+
+        /** @return the byte position for a start or end. */
+        private int positionOf(int boundary)
+        {
+            return ( this.bounds == null ) ? boundary : this.bounds[ boundary ];
+        }
+
+        private final byte[] input;
+        private final int[] bounds;
+        private int start;
+        private final int end;
+        private final RecordReader<T> recordReader;
+        private AbstractJsonReader reader;
+    }
+}
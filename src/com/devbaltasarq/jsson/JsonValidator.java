@@ -0,0 +1,677 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.util.Arrays;
+
+/**
+ * Checks whether a JSON document is well formed, as in RFC 8259,
+ * in a single pass and without building anything.
+ * Nesting is tracked in a stack of bits, one per level, and the
+ * messages are constants, so a validator allocates nothing
+ * per document once its stack is big enough. It can be reused,
+ * though not shared among threads.
+ * UTF-8 input is also checked for wrong sequences of bytes.
+ * On failure, the offset, line and column of the wrong char are reported.
+ * @author baltasarq
+ */
+public final class JsonValidator {
+    private static final String EXPECTED_VALUE = "expected value";
+    private static final String EXPECTED_NAME = "expected name";
+    private static final String EXPECTED_COLON = "expected ':'";
+    private static final String EXPECTED_COMMA_OR_END_OBJECT = "expected ',' or '}'";
+    private static final String EXPECTED_COMMA_OR_END_ARRAY = "expected ',' or ']'";
+    private static final String EXPECTED_END = "expected end of input";
+    private static final String UNTERMINATED_STRING = "unterminated string";
+    private static final String CONTROL_CHAR = "control char in string";
+    private static final String WRONG_ESCAPE = "wrong escape sequence";
+    private static final String WRONG_UTF8 = "wrong UTF-8 sequence";
+    private static final String WRONG_NUMBER = "wrong number";
+    private static final String WRONG_LITERAL = "wrong literal";
+
+    /** Creates a new validator. */
+    public JsonValidator()
+    {
+        this.stack = new long[ 4 ];
+        this.clear();
+    }
+
+    /** Validates a document in UTF-8.
+     * @param bytes the bytes of the document.
+     * @return true if well formed, false otherwise.
+     */
+    public boolean validate(byte[] bytes)
+    {
+        return this.validate( bytes, 0, bytes.length );
+    }
+
+    /** Validates a document in UTF-8.
+     * @param bytes the bytes holding the document.
+     * @param offset the position of its first byte.
+     * @param length its length, in bytes.
+     * @return true if well formed, false otherwise.
+     */
+    public boolean validate(byte[] bytes, int offset, int length)
+    {
+        this.bytes = bytes;
+        final boolean toret = this.run( offset, offset + length );
+        this.bytes = null;
+
+        return toret;
+    }
+
+    /** Validates a document.
+     * @param chars the chars holding the document.
+     * @param offset the position of its first char.
+     * @param length its length, in chars.
+     * @return true if well formed, false otherwise.
+     */
+    public boolean validate(char[] chars, int offset, int length)
+    {
+        this.chars = chars;
+        final boolean toret = this.run( offset, offset + length );
+        this.chars = null;
+
+        return toret;
+    }
+
+    /** Validates a document.
+     * @param text the document.
+     * @return true if well formed, false otherwise.
+     */
+    public boolean validate(CharSequence text)
+    {
+        this.text = text;
+        final boolean toret = this.run( 0, text.length() );
+        this.text = null;
+
+        return toret;
+    }
+
+    /** @return the reason of the last failure, or null if it was valid. */
+    public String getErrorMessage()
+    {
+        return this.errorMessage;
+    }
+
+    /** @return the offset of the wrong char, from the start of the document,
+     *          in bytes or chars; or -1 if the last document was valid.
+     */
+    public int getErrorOffset()
+    {
+        return this.errorOffset;
+    }
+
+    /** @return the line of the wrong char, starting at 1; or -1 if valid. */
+    public int getErrorLine()
+    {
+        return this.errorLine;
+    }
+
+    /** @return the column of the wrong char, starting at 1,
+     *          in bytes or chars; or -1 if valid.
+     */
+    public int getErrorColumn()
+    {
+        return this.errorColumn;
+    }
+
+    /** Forgets the results of the last document. */
+    private void clear()
+    {
+        this.errorMessage = null;
+        this.errorOffset = -1;
+        this.errorLine = -1;
+        this.errorColumn = -1;
+        this.depth = 0;
+        return;
+    }
+
+    /** @return the unit at the given position, or -1 at the end. */
+    private int at(int pos)
+    {
+        int toret = -1;
+
+        if ( pos < this.end ) {
+            if ( this.bytes != null ) {
+                toret = this.bytes[ pos ] & 0xff;
+            }
+            else
+            if ( this.chars != null ) {
+                toret = this.chars[ pos ];
+            } else {
+                toret = this.text.charAt( pos );
+            }
+        }
+
+        return toret;
+    }
+
+    /** Validates the document between the given positions. */
+    private boolean run(int start, int end)
+    {
+        this.clear();
+        this.start = start;
+        this.end = end;
+        this.line = 1;
+        this.lineStart = start;
+
+        int pos = this.skipSpaces( start );
+
+        while( pos >= 0 ) {
+            // A value is expected
+            final int ch = this.at( pos );
+
+            if ( ch == '{' ) {
+                this.push( true );
+                pos = this.skipSpaces( pos + 1 );
+
+                if ( this.at( pos ) == '}' ) {
+                    this.pop();
+                    pos = this.afterValue( pos + 1 );
+                } else {
+                    pos = this.member( pos );
+                }
+            }
+            else
+            if ( ch == '[' ) {
+                this.push( false );
+                pos = this.skipSpaces( pos + 1 );
+
+                if ( this.at( pos ) == ']' ) {
+                    this.pop();
+                    pos = this.afterValue( pos + 1 );
+                }
+            }
+            else
+            if ( ch == '"' ) {
+                pos = this.string( pos );
+
+                if ( pos >= 0 ) {
+                    pos = this.afterValue( pos );
+                }
+            }
+            else
+            if ( ch == '-'
+              || ( ch >= '0' && ch <= '9' ) )
+            {
+                pos = this.number( pos );
+
+                if ( pos >= 0 ) {
+                    pos = this.afterValue( pos );
+                }
+            }
+            else
+            if ( ch == 't' ) {
+                pos = this.afterValue( this.literal( pos, "true" ) );
+            }
+            else
+            if ( ch == 'f' ) {
+                pos = this.afterValue( this.literal( pos, "false" ) );
+            }
+            else
+            if ( ch == 'n' ) {
+                pos = this.afterValue( this.literal( pos, "null" ) );
+            } else {
+                pos = this.fail( pos, EXPECTED_VALUE );
+            }
+
+            if ( pos == this.end
+              && this.depth == 0 )
+            {
+                break;
+            }
+        }
+
+        return pos >= 0;
+    }
+
+    /** Goes on after a value: closes objects and arrays, and finds
+     * the separator before the next value, if any.
+     * @param pos the position after the value, or -1 on failure.
+     * @return the position of the next value, the end of input if
+     *         the document is complete, or -1 on failure.
+     */
+    private int afterValue(int pos)
+    {
+        int toret = this.skipSpaces( pos );
+
+        while( toret >= 0 ) {
+            final int ch = this.at( toret );
+
+            if ( this.depth == 0 ) {
+                if ( ch >= 0 ) {
+                    toret = this.fail( toret, EXPECTED_END );
+                }
+
+                break;
+            }
+
+            if ( this.isInObject() ) {
+                if ( ch == ',' ) {
+                    toret = this.member( this.skipSpaces( toret + 1 ) );
+                    break;
+                }
+                else
+                if ( ch == '}' ) {
+                    this.pop();
+                    toret = this.skipSpaces( toret + 1 );
+                } else {
+                    toret = this.fail( toret, EXPECTED_COMMA_OR_END_OBJECT );
+                }
+            } else {
+                if ( ch == ',' ) {
+                    toret = this.skipSpaces( toret + 1 );
+                    break;
+                }
+                else
+                if ( ch == ']' ) {
+                    this.pop();
+                    toret = this.skipSpaces( toret + 1 );
+                } else {
+                    toret = this.fail( toret, EXPECTED_COMMA_OR_END_ARRAY );
+                }
+            }
+        }
+
+        return toret;
+    }
+
+    /** Checks the name of a member, and its colon.
+     * @return the position of its value, or -1 on failure.
+     */
+    private int member(int pos)
+    {
+        int toret = pos;
+
+        if ( this.at( toret ) != '"' ) {
+            toret = this.fail( toret, EXPECTED_NAME );
+        } else {
+            toret = this.string( toret );
+
+            if ( toret >= 0 ) {
+                toret = this.skipSpaces( toret );
+
+                if ( this.at( toret ) != ':' ) {
+                    toret = this.fail( toret, EXPECTED_COLON );
+                } else {
+                    toret = this.skipSpaces( toret + 1 );
+                }
+            }
+        }
+
+        return toret;
+    }
+
+    /** Checks a string, starting at its opening quotes.
+     * @return the position after its closing quotes, or -1 on failure.
+     */
+    private int string(int pos)
+    {
+        int toret = this.plainRun( pos + 1 );
+
+        while( true ) {
+            final int ch = this.at( toret );
+
+            if ( ch == '"' ) {
+                ++toret;
+                break;
+            }
+            else
+            if ( ch == '\\' ) {
+                toret = this.plainRun( this.escape( toret ) );
+            }
+            else
+            if ( ch < 0 ) {
+                toret = this.fail( pos, UNTERMINATED_STRING );
+            }
+            else
+            if ( ch < 0x20 ) {
+                toret = this.fail( toret, CONTROL_CHAR );
+            }
+            else
+            if ( ch >= 0x80
+              && this.bytes != null )
+            {
+                toret = this.plainRun( this.utf8( toret, ch ) );
+            } else {
+                toret = this.plainRun( toret + 1 );
+            }
+
+            if ( toret < 0 ) {
+                break;
+            }
+        }
+
+        return toret;
+    }
+
+    /** Skips the chars in a string which need no checks: ASCII ones,
+     * except quotes, backslashes and control chars.
+     * @param pos the position to start at, or -1 on failure.
+     * @return the position of the first char which needs a check, or -1.
+     */
+    private int plainRun(int pos)
+    {
+        int toret = pos;
+
+        if ( toret < 0 ) {
+            toret = -1;
+        }
+        else
+        if ( this.bytes != null ) {
+            final byte[] bytes = this.bytes;
+
+            while( toret < this.end ) {
+                final int ch = bytes[ toret ];
+
+                if ( ch < 0x20
+                  || ch == '"'
+                  || ch == '\\' )
+                {
+                    break;
+                }
+
+                ++toret;
+            }
+        }
+        else
+        if ( this.chars != null ) {
+            final char[] chars = this.chars;
+
+            while( toret < this.end ) {
+                final char ch = chars[ toret ];
+
+                if ( ch < 0x20
+                  || ch == '"'
+                  || ch == '\\' )
+                {
+                    break;
+                }
+
+                ++toret;
+            }
+        }
+
+        return toret;
+    }
+
+    /** Checks an escape sequence, starting at its backslash.
+     * @return the position after it, or -1 on failure.
+     */
+    private int escape(int pos)
+    {
+        final int ch = this.at( pos + 1 );
+        int toret = pos + 2;
+
+        if ( ch == 'u' ) {
+            for(int i = 0; i < 4; ++i) {
+                final int digit = this.at( toret );
+
+                if ( ( digit >= '0' && digit <= '9' )
+                  || ( digit >= 'a' && digit <= 'f' )
+                  || ( digit >= 'A' && digit <= 'F' ) )
+                {
+                    ++toret;
+                } else {
+                    toret = this.fail( pos, WRONG_ESCAPE );
+                    break;
+                }
+            }
+        }
+        else
+        if ( ch != '"' && ch != '\\' && ch != '/'
+          && ch != 'b' && ch != 'f' && ch != 'n' && ch != 'r' && ch != 't' )
+        {
+            toret = this.fail( pos, WRONG_ESCAPE );
+        }
+
+        return toret;
+    }
+
+    /** Checks a sequence of UTF-8 bytes, starting at its leading byte.
+     * Overlong forms, surrogates and values past U+10FFFF are rejected.
+     * @return the position after it, or -1 on failure.
+     */
+    private int utf8(int pos, int lead)
+    {
+        int min = 0x80;
+        int max = 0xbf;
+        int count;
+        int toret = pos + 1;
+
+        if ( lead >= 0xc2 && lead <= 0xdf ) {
+            count = 1;
+        }
+        else
+        if ( lead >= 0xe0 && lead <= 0xef ) {
+            count = 2;
+
+            if ( lead == 0xe0 ) {
+                min = 0xa0;
+            }
+            else
+            if ( lead == 0xed ) {
+                max = 0x9f;
+            }
+        }
+        else
+        if ( lead >= 0xf0 && lead <= 0xf4 ) {
+            count = 3;
+
+            if ( lead == 0xf0 ) {
+                min = 0x90;
+            }
+            else
+            if ( lead == 0xf4 ) {
+                max = 0x8f;
+            }
+        } else {
+            count = 0;
+            toret = this.fail( pos, WRONG_UTF8 );
+        }
+
+        for(int i = 0; i < count; ++i) {
+            final int next = this.at( toret );
+
+            if ( next < min
+              || next > max )
+            {
+                toret = this.fail( pos, WRONG_UTF8 );
+                break;
+            }
+
+            min = 0x80;
+            max = 0xbf;
+            ++toret;
+        }
+
+        return toret;
+    }
+
+    /** Checks a number.
+     * @return the position after it, or -1 on failure.
+     */
+    private int number(int pos)
+    {
+        int toret = pos;
+
+        if ( this.at( toret ) == '-' ) {
+            ++toret;
+        }
+
+        // Integral part: a single zero, or digits not starting with zero
+        if ( this.at( toret ) == '0' ) {
+            ++toret;
+        }
+        else
+        if ( this.isDigit( toret ) ) {
+            toret = this.digits( toret );
+        } else {
+            toret = -1;
+        }
+
+        // Fractional part
+        if ( toret >= 0
+          && this.at( toret ) == '.' )
+        {
+            toret = this.isDigit( toret + 1 ) ? this.digits( toret + 1 ) : -1;
+        }
+
+        // Exponent
+        if ( toret >= 0 ) {
+            final int ch = this.at( toret );
+
+            if ( ch == 'e'
+              || ch == 'E' )
+            {
+                ++toret;
+
+                if ( this.at( toret ) == '+'
+                  || this.at( toret ) == '-' )
+                {
+                    ++toret;
+                }
+
+                toret = this.isDigit( toret ) ? this.digits( toret ) : -1;
+            }
+        }
+
+        if ( toret < 0 ) {
+            toret = this.fail( pos, WRONG_NUMBER );
+        }
+
+        return toret;
+    }
+
+    /** @return whether there is a digit at the given position. */
+    private boolean isDigit(int pos)
+    {
+        final int ch = this.at( pos );
+
+        return ch >= '0' && ch <= '9';
+    }
+
+    /** @return the position after a run of digits. */
+    private int digits(int pos)
+    {
+        int toret = pos;
+
+        while( this.isDigit( toret ) ) {
+            ++toret;
+        }
+
+        return toret;
+    }
+
+    /** Checks a literal, such as true, false or null.
+     * @return the position after it, or -1 on failure.
+     */
+    private int literal(int pos, String literal)
+    {
+        int toret = pos + literal.length();
+
+        for(int i = 1; i < literal.length(); ++i) {
+            if ( this.at( pos + i ) != literal.charAt( i ) ) {
+                toret = this.fail( pos, WRONG_LITERAL );
+                break;
+            }
+        }
+
+        return toret;
+    }
+
+    /** Skips whitespace, counting lines.
+     * @param pos the position to start at, or -1 on failure.
+     * @return the position of the first char which is not whitespace, or -1.
+     */
+    private int skipSpaces(int pos)
+    {
+        int toret = pos;
+
+        if ( toret >= 0 ) {
+            while( true ) {
+                final int ch = this.at( toret );
+
+                if ( ch == '\n' ) {
+                    ++this.line;
+                    this.lineStart = toret + 1;
+                }
+                else
+                if ( ch != ' '
+                  && ch != '\t'
+                  && ch != '\r' )
+                {
+                    break;
+                }
+
+                ++toret;
+            }
+        }
+
+        return toret;
+    }
+
+    /** Records a failure.
+     * @param pos the position of the wrong char.
+     * @param message the reason, one of the constant messages.
+     * @return -1, so it can be returned as the position.
+     */
+    private int fail(int pos, String message)
+    {
+        this.errorMessage = message;
+        this.errorOffset = pos - this.start;
+        this.errorLine = this.line;
+        this.errorColumn = pos - this.lineStart + 1;
+        return -1;
+    }
+
+    /** Enters an object or an array. */
+    private void push(boolean isObject)
+    {
+        final int word = this.depth >>> 6;
+        final long bit = 1L << this.depth;
+
+        if ( word == this.stack.length ) {
+            this.stack = Arrays.copyOf( this.stack, this.stack.length * 2 );
+        }
+
+        if ( isObject ) {
+            this.stack[ word ] |= bit;
+        } else {
+            this.stack[ word ] &= ~bit;
+        }
+
+        ++this.depth;
+        return;
+    }
+
+    /** Leaves the innermost object or array. */
+    private void pop()
+    {
+        --this.depth;
+        return;
+    }
+
+    /** @return whether the innermost level is an object. */
+    private boolean isInObject()
+    {
+        final int top = this.depth - 1;
+
+        return ( this.stack[ top >>> 6 ] & ( 1L << top ) ) != 0;
+    }
+
+    private byte[] bytes;
+    private char[] chars;
+    private CharSequence text;
+    private int start;
+    private int end;
+    private int line;
+    private int lineStart;
+    private long[] stack;
+    private int depth;
+    private String errorMessage;
+    private int errorOffset;
+    private int errorLine;
+    private int errorColumn;
+}
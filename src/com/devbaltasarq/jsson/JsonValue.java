@@ -0,0 +1,227 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+
+/**
+ * A value in a JsonDocument.
+ * Values are just a position in the tape of their document,
+ * so they are created when asked for, and never stored.
+ * @author baltasarq
+ * @see JsonDocument
+ */
+public class JsonValue {
+    public enum Type { OBJECT, ARRAY, STRING, NUMBER, BOOLEAN, NULL }
+
+    JsonValue(JsonDocument document, int index)
+    {
+        this.document = document;
+        this.index = index;
+    }
+
+    /** @return the accessor for the value at the given position. */
+    static JsonValue at(JsonDocument document, int index)
+    {
+        final int type = document.typeAt( index );
+        final JsonValue toret;
+
+        if ( type == JsonDocument.OBJECT ) {
+            toret = new JsonObject( document, index );
+        }
+        else
+        if ( type == JsonDocument.ARRAY ) {
+            toret = new JsonArray( document, index );
+        } else {
+            toret = new JsonValue( document, index );
+        }
+
+        return toret;
+    }
+
+    /** @return the type of the value. */
+    public Type getType()
+    {
+        final Type toret;
+
+        switch( this.document.typeAt( this.index ) ) {
+            case JsonDocument.OBJECT:
+                toret = Type.OBJECT;
+                break;
+            case JsonDocument.ARRAY:
+                toret = Type.ARRAY;
+                break;
+            case JsonDocument.STRING:
+                toret = Type.STRING;
+                break;
+            case JsonDocument.LONG:
+            case JsonDocument.DOUBLE:
+                toret = Type.NUMBER;
+                break;
+            case JsonDocument.TRUE:
+            case JsonDocument.FALSE:
+                toret = Type.BOOLEAN;
+                break;
+            default:
+                toret = Type.NULL;
+        }
+
+        return toret;
+    }
+
+    /** @return whether the value is null. */
+    public boolean isNull()
+    {
+        return this.document.typeAt( this.index ) == JsonDocument.NULL;
+    }
+
+    /** @return the string.
+     * @throws IllegalStateException if the value is not a string.
+     */
+    public String asString()
+    {
+        this.check( Type.STRING );
+        return this.document.textAt( this.index );
+    }
+
+    /** @return the boolean.
+     * @throws IllegalStateException if the value is not a boolean.
+     */
+    public boolean asBoolean()
+    {
+        this.check( Type.BOOLEAN );
+        return this.document.typeAt( this.index ) == JsonDocument.TRUE;
+    }
+
+    /** @return the number, as an int.
+     * @throws IllegalStateException if the value is not a number.
+     * @throws NumberFormatException if it is not an int.
+     */
+    public int asInt()
+    {
+        final long toret = this.asLong();
+
+        if ( toret < Integer.MIN_VALUE
+          || toret > Integer.MAX_VALUE )
+        {
+            throw new NumberFormatException( "value out of range for int: " + toret );
+        }
+
+        return (int) toret;
+    }
+
+    /** @return the number, as a long.
+     * @throws IllegalStateException if the value is not a number.
+     * @throws NumberFormatException if it is not a long.
+     */
+    public long asLong()
+    {
+        long toret;
+
+        this.check( Type.NUMBER );
+
+        if ( this.document.typeAt( this.index ) == JsonDocument.LONG ) {
+            toret = this.document.entryAt( this.index + 2 );
+        } else {
+            try {
+                toret = this.asBigDecimal().longValueExact();
+            } catch(ArithmeticException exc) {
+                throw new NumberFormatException( "not a long: " + this.document.textAt( this.index ) );
+            }
+        }
+
+        return toret;
+    }
+
+    /** @return the number, as a double.
+     * @throws IllegalStateException if the value is not a number.
+     */
+    public double asDouble()
+    {
+        this.check( Type.NUMBER );
+
+        final long bits = this.document.entryAt( this.index + 2 );
+        final double toret;
+
+        if ( this.document.typeAt( this.index ) == JsonDocument.LONG ) {
+            toret = bits;
+        } else {
+            toret = Double.longBitsToDouble( bits );
+        }
+
+        return toret;
+    }
+
+    /** @return the number, as a BigDecimal, exactly as written.
+     * @throws IllegalStateException if the value is not a number.
+     */
+    public BigDecimal asBigDecimal()
+    {
+        this.check( Type.NUMBER );
+
+        return new BigDecimal( this.document.chars(),
+                               (int) this.document.payloadAt( this.index ),
+                               (int) this.document.entryAt( this.index + 1 ) );
+    }
+
+    /** @return the value as an object.
+     * @throws IllegalStateException if the value is not an object.
+     */
+    public JsonObject asObject()
+    {
+        this.check( Type.OBJECT );
+        return (JsonObject) this;
+    }
+
+    /** @return the value as an array.
+     * @throws IllegalStateException if the value is not an array.
+     */
+    public JsonArray asArray()
+    {
+        this.check( Type.ARRAY );
+        return (JsonArray) this;
+    }
+
+    /** Writes the value.
+     * @param writer the writer to write to.
+     * @throws IOException if writing goes wrong.
+     */
+    public void write(AbstractJsonWriter writer) throws IOException
+    {
+        this.document.write( writer, this.index );
+    }
+
+    /** @return the value, as JSON text. */
+    @Override
+    public String toString()
+    {
+        final StringWriter toret = new StringWriter();
+
+        try {
+            final JsonWriter writer = new JsonWriter( toret );
+
+            this.write( writer );
+            writer.flush();
+        } catch(IOException exc) {
+            throw new UncheckedIOException( exc );
+        }
+
+        return toret.toString();
+    }
+
+    /** Checks the type of the value. */
+    private void check(Type type)
+    {
+        if ( this.getType() != type ) {
+            throw new IllegalStateException( "expected " + type + ", but value is: " + this.getType() );
+        }
+
+        return;
+    }
+
+    final JsonDocument document;
+    final int index;
+}
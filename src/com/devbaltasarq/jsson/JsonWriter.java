@@ -2,166 +2,153 @@
 
 package com.devbaltasarq.jsson;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.Writer;
 
-public class JsonWriter extends BufferedWriter {
+/**
+ * Writes JSON to an output.
+ * The output is buffered in a window of chars, which is flushed
+ * to the underlying writer when it is full, so writers can be
+ * reset to a new output and reused, keeping their buffer.
+ * @author baltasarq
+ */
+public class JsonWriter extends AbstractJsonWriter {
+    private static final int BUFFER_SIZE = 8192;
+
+    /** Creates a new JsonWriter, given an output.
+     * @param wrt the writer to write to.
+     */
     public JsonWriter(Writer wrt)
     {
-        super( wrt );
+        this.output = wrt;
+        this.buffer = new char[ BUFFER_SIZE ];
+        this.count = 0;
+    }
+
+    /** Resets the writer to write to a new output, reusing its buffer.
+     * Pending output is discarded, and the previous output is not closed,
+     * so the writer should be flushed before.
+     * @param wrt the writer to write to.
+     */
+    public void reset(Writer wrt)
+    {
+        this.restart();
+        this.output = wrt;
+        this.count = 0;
+        return;
+    }
 
-        this.beginning = this.inArray = this.nameJustWritten = false;
+    /** @return the number of units written, including those still buffered. */
+    @Override
+    long position()
+    {
+        return this.written + this.count;
     }
 
-    /** Writes the name part of a name/value pair.
-      * @param name The name to write, escaped.
-      * @return The writer itself.
-      * @throws IOException if something goes wrong writing.
-      */
-    public JsonWriter name(String name) throws IOException
+    /** Forgets the output, so it is not retained while pooled. */
+    @Override
+    void clear()
     {
-        // Separator
-        if ( !this.beginning ) {
-            this.write( Util.ENTITY_SEPARATOR );
-        } else {
-            beginning = false;
+        this.reset( null );
+    }
+
+    @Override
+    public void write(int ch) throws IOException
+    {
+        if ( this.count == this.buffer.length ) {
+            this.flushBuffer();
         }
 
-        // Value
-        this.write( Util.QUOTES );
-        this.write( name );
-        this.write( Util.QUOTES );
-        this.write( Util.NAME_SEPARATOR );
+        this.buffer[ this.count ] = (char) ch;
+        ++this.count;
 
-        this.nameJustWritten = true;
-        return this;
+        return;
     }
 
-    private void writeValueSeparator() throws IOException
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException
     {
-        if ( !this.beginning
-          && !this.nameJustWritten
-          && this.inArray )
-        {
-            this.write( Util.ENTITY_SEPARATOR );
+        if ( length >= this.buffer.length ) {
+            // Too big for the buffer: write it directly
+            this.flushBuffer();
+            this.checkSize( length );
+            this.output.write( chars, offset, length );
+            this.written += length;
         } else {
-            this.beginning = false;
+            if ( length > this.buffer.length - this.count ) {
+                this.flushBuffer();
+            }
+
+            System.arraycopy( chars, offset, this.buffer, this.count, length );
+            this.count += length;
         }
 
-        this.nameJustWritten = false;
         return;
     }
 
-    /** Writes a boolean value.
-      * @param value The value to write.
-      * @return The JsonWriter itself.
-      * @throws IOException if something goes wrong writing.
-      */
-    public JsonWriter value(Boolean value) throws IOException
+    @Override
+    public void write(String str, int offset, int length) throws IOException
     {
-        this.writeValueSeparator();
-        this.write( Boolean.toString( value ) );
-        return this;
-    }
+        while( length > 0 ) {
+            final int chunk = Math.min( length, this.buffer.length - this.count );
 
-    /** Writes an integer number.
-     * @param value The value to write.
-     * @return The JsonWriter itself.
-     * @throws IOException if something goes wrong writing.
-     */
-    public JsonWriter value(int value) throws IOException
-    {
-        this.writeValueSeparator();
-        this.write( Integer.toString( value ) );
-        return this;
-    }
+            str.getChars( offset, offset + chunk, this.buffer, this.count );
+            this.count += chunk;
+            offset += chunk;
+            length -= chunk;
 
-    /** Writes a real number.
-     * @param value The value to write.
-     * @return The JsonWriter itself.
-     * @throws IOException if something goes wrong writing.
-     */
-    public JsonWriter value(double value) throws IOException
-    {
-        this.writeValueSeparator();
-        this.write( Double.toString( value ) );
-        return this;
+            if ( this.count == this.buffer.length ) {
+                this.flushBuffer();
+            }
+        }
+
+        return;
     }
 
-    /** Writes a string.
-     * @param value The value to write.
-     * @return The JsonWriter itself.
-     * @throws IOException if something goes wrong writing.
-     */
-    public JsonWriter value(String value) throws IOException
+    @Override
+    public void flush() throws IOException
     {
-        this.writeValueSeparator();
-        this.write( Util.QUOTES );
-        this.write( value );
-        this.write( Util.QUOTES );
+        this.flushBuffer();
+        this.output.flush();
 
-        return this;
+        return;
     }
 
-    /** Writes a null value.
-     * @return The JsonWriter itself.
-     * @throws IOException if something goes wrong writing.
-     */
-    public JsonWriter nullValue() throws IOException
+    @Override
+    public void close() throws IOException
     {
-        this.writeValueSeparator();
-        this.write( Util.NULL_ID );
+        this.abandon();
+
+        if ( this.output != null ) {
+            try {
+                this.flushBuffer();
+            } finally {
+                this.output.close();
+                this.output = null;
+            }
+        }
 
-        return this;
+        return;
     }
 
-    /** Writes the begin mark for an object.
-      * @return The JsonWriter itself.
-      * @throws IOException if something goes wrong writing.
-      */
-    public JsonWriter beginObject() throws IOException
+    /** Writes the buffered chars to the output. */
+    private void flushBuffer() throws IOException
     {
-        this.writeValueSeparator();
-        this.beginning = true;
-        this.write( Util.OPEN_OBJECT_DELIMITER );
-        return this;
-    }
+        if ( this.output == null ) {
+            throw new IOException( "writer closed" );
+        }
 
-    /** Writes the end mark for an object.
-     * @return The JsonWriter itself.
-     * @throws IOException if something goes wrong writing.
-     */
-    public JsonWriter endObject() throws IOException
-    {
-        this.write( Util.END_OBJECT_DELIMITER );
-        return this;
-    }
-    /** Writes the begin mark for an array.
-     * @return The JsonWriter itself.
-     * @throws IOException if something goes wrong writing.
-     */
-    public JsonWriter beginArray() throws IOException
-    {
-        this.writeValueSeparator();
-        this.beginning = true;
-        this.inArray = true;
-        this.write( Util.OPEN_ARRAY_DELIMITER );
-        return this;
-    }
+        if ( this.count > 0 ) {
+            this.checkSize( this.count );
+            this.output.write( this.buffer, 0, this.count );
+            this.written += this.count;
+            this.count = 0;
+        }
 
-    /** Writes the end mark for an array.
-     * @return The JsonWriter itself.
-     * @throws IOException if something goes wrong writing.
-     */
-    public JsonWriter endArray() throws IOException
-    {
-        this.inArray = false;
-        this.write( Util.END_ARRAY_DELIMITER );
-        return this;
+        return;
     }
 
-    private boolean beginning;
-    private boolean inArray;
-    private boolean nameJustWritten;
+    private Writer output;
+    private final char[] buffer;
+    private int count;
 }
@@ -0,0 +1,27 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class so a JsonCodec is generated for it at compile time,
+ * by JssonCodecProcessor. For a class Person, the codec is PersonJsonCodec,
+ * in the same package; for a nested class Outer.Person, it is Outer_PersonJsonCodec.
+ * The codec is available as its INSTANCE constant:
+ * <pre>
+ *     final Person person = PersonJsonCodec.INSTANCE.read( jsonReader );
+ * </pre>
+ * JsonMapper also uses the generated codec, when present.
+ * @author baltasarq
+ * @see JssonCodecProcessor
+ */
+@Documented
+@Retention( RetentionPolicy.RUNTIME )
+@Target( ElementType.TYPE )
+public @interface JssonCodec {
+}
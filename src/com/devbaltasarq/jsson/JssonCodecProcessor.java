@@ -0,0 +1,71 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+
+/**
+ * Generates a JsonCodec for each class marked with JssonCodec.
+ * The generated codecs are plain Java code calling JsonReader and JsonWriter,
+ * so there is no reflection and no warm up.
+ * The processor is registered in META-INF/services, so javac finds it
+ * whenever jsson is in the class path.
+ * @author baltasarq
+ * @see JssonCodec
+ */
+@SupportedAnnotationTypes( "com.devbaltasarq.jsson.JssonCodec" )
+public final class JssonCodecProcessor extends AbstractProcessor {
+    @Override
+    public SourceVersion getSupportedSourceVersion()
+    {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+    {
+        for(Element element: roundEnv.getElementsAnnotatedWith( JssonCodec.class )) {
+            if ( element instanceof TypeElement ) {
+                this.generate( (TypeElement) element );
+            } else {
+                this.processingEnv.getMessager().printMessage( Diagnostic.Kind.ERROR,
+                                    "@JssonCodec only applies to classes", element );
+            }
+        }
+
+        return true;
+    }
+
+    /** Generates the codec for a class, reporting any error found. */
+    private void generate(TypeElement type)
+    {
+        final CodecGenerator generator = new CodecGenerator( this.processingEnv, type );
+        final String source = generator.generate();
+
+        if ( source != null ) {
+            try {
+                final JavaFileObject file = this.processingEnv.getFiler()
+                                                .createSourceFile( generator.getQualifiedCodecName(), type );
+
+                try (Writer writer = file.openWriter()) {
+                    writer.write( source );
+                }
+            } catch(IOException exc) {
+                this.processingEnv.getMessager().printMessage( Diagnostic.Kind.ERROR,
+                                    "cannot write codec: " + exc.getMessage(), type );
+            }
+        }
+
+        return;
+    }
+}
@@ -0,0 +1,158 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads a file mapped in memory, as UTF-8, in place.
+ * The mapped window is tokenized directly, with no copy to the heap.
+ * The file is mapped in consecutive windows, so files of any size
+ * (even larger than 2GB) can be read, while only a window is mapped
+ * at a time. When the cursor reaches the end of a window, the next one
+ * is mapped from the cursor on, so tokens are always contiguous.
+ * Bytes are only copied to build strings, as in any other reader.
+ * @author baltasarq
+ * @see AbstractJsonReader#open(Path)
+ */
+final class MappedJsonReader extends AbstractJsonReader {
+    static final int WINDOW_SIZE = 64 * 1024 * 1024;
+    private static final int SCRATCH_SIZE = 8192;
+
+    /** Creates a new reader over a file.
+     * @param path the path of the file.
+     * @throws IOException if the file cannot be opened.
+     */
+    MappedJsonReader(Path path) throws IOException
+    {
+        this( path, WINDOW_SIZE );
+    }
+
+    /** Creates a new reader over a file.
+     * @param path the path of the file.
+     * @param windowSize the size of each mapped window, in bytes.
+     * @throws IOException if the file cannot be opened.
+     */
+    MappedJsonReader(Path path, int windowSize) throws IOException
+    {
+        this.channel = FileChannel.open( path, StandardOpenOption.READ );
+        this.size = this.channel.size();
+        this.windowSize = windowSize;
+        this.window = null;
+        this.raw = new byte[ SCRATCH_SIZE ];
+        this.scratch = new byte[ SCRATCH_SIZE ];
+    }
+
+    /** Closes the reader, and its file. */
+    @Override
+    public void close()
+    {
+        this.abandon();
+        this.window = null;
+        this.pos = this.limit = 0;
+
+        try {
+            this.channel.close();
+        } catch(IOException exc) {
+            Logger.getGlobal().log( Level.SEVERE, "error closing mapped file" );
+        }
+
+        return;
+    }
+
+    /** Maps the next window, from the cursor on, when the current one
+      * has not got enough bytes left. The bytes before the cursor are discarded.
+      */
+    @Override
+    boolean fill(int minimum) throws IOException
+    {
+        final long position = this.discarded + this.pos;
+
+        if ( this.limit - this.pos < minimum
+          && position + this.limit - this.pos < this.size
+          && this.channel.isOpen() )
+        {
+            final long length = Math.min( Math.max( this.windowSize, minimum ), this.size - position );
+
+            if ( length > Integer.MAX_VALUE ) {
+                throw new IOException( "token larger than a mapped window" );
+            }
+
+            this.window = this.channel.map( FileChannel.MapMode.READ_ONLY, position, length );
+            this.discarded = position;
+            this.pos = 0;
+            this.limit = (int) length;
+        }
+
+        return this.limit - this.pos >= minimum;
+    }
+
+    @Override
+    int unitAt(int index)
+    {
+        return this.window.get( index ) & 0xFF;
+    }
+
+    @Override
+    String stringOf(int start, int length)
+    {
+        return new String( this.copy( start, length ), 0, length, StandardCharsets.UTF_8 );
+    }
+
+    @Override
+    String unescape(int start, int end) throws IOException
+    {
+        final int length = end - start;
+
+        if ( this.scratch.length < length ) {
+            this.scratch = new byte[ Math.max( length, this.scratch.length * 2 ) ];
+        }
+
+        return AbstractUtf8JsonReader.unescape( this.copy( start, length ), 0, length, this.scratch );
+    }
+
+    /** Only ASCII bytes are whole chars in UTF-8. */
+    @Override
+    boolean isViewable(int start, int length)
+    {
+        int units = 0;
+
+        for(int i = start; i < start + length; ++i) {
+            units |= this.window.get( i );
+        }
+
+        return ( units & ~0x7F ) == 0;
+    }
+
+    /** Copies bytes of the window to the heap, to build a string.
+      * @param start the position of the first byte in the window.
+      * @param length the number of bytes.
+      * @return an array holding the bytes from its beginning; it is reused.
+      */
+    private byte[] copy(int start, int length)
+    {
+        if ( this.raw.length < length ) {
+            this.raw = new byte[ Math.max( length, this.raw.length * 2 ) ];
+        }
+
+        for(int i = 0; i < length; ++i) {
+            this.raw[ i ] = this.window.get( start + i );
+        }
+
+        return this.raw;
+    }
+
+    private final FileChannel channel;
+    private final long size;
+    private final int windowSize;
+    private MappedByteBuffer window;
+    private byte[] raw;
+    private byte[] scratch;
+}
@@ -0,0 +1,119 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+/**
+ * A table of names, keeping a canonical instance of each one.
+ * Names are looked up directly in the window of the reader,
+ * so a name already in the table is returned without allocating anything.
+ * A table can be shared among readers, even in different threads:
+ * lookups take no locks, and additions write names in place, replacing
+ * the slots only when they grow, so each one costs constant amortized time.
+ * A reader not seeing a name just added misses it, and finds it when adding.
+ * @author baltasarq
+ */
+public final class NameTable {
+    public static final int DEFAULT_CAPACITY = 4096;
+    private static final int INITIAL_SLOTS = 16;
+
+    /** Creates a new table, holding up to DEFAULT_CAPACITY names. */
+    public NameTable()
+    {
+        this( DEFAULT_CAPACITY );
+    }
+
+    /** Creates a new table.
+     * @param capacity the maximum number of names kept. Once it is reached,
+     *                 new names are returned as is, without being stored.
+     */
+    public NameTable(int capacity)
+    {
+        this.capacity = capacity;
+        this.slots = new String[ INITIAL_SLOTS ];
+        this.size = 0;
+    }
+
+    /** @return the number of names in the table. */
+    public int size()
+    {
+        return this.size;
+    }
+
+    /** Returns the canonical instance of a name, adding it if needed.
+     * @param name the name to look for.
+     * @return the canonical instance of the name.
+     */
+    public String intern(String name)
+    {
+        final String[] slots = this.slots;
+        String toret = slots[ Util.slotOf( slots, name ) ];
+
+        if ( toret == null ) {
+            if ( this.size < this.capacity ) {
+                toret = this.add( name );
+            } else {
+                toret = name;
+            }
+        }
+
+        return toret;
+    }
+
+    /** Finds a name held in the window of a reader.
+     * @param reader the reader holding the name in its window.
+     * @param start the position of the name in the window.
+     * @param length the length of the name.
+     * @param hash the hash of the name, as in String.hashCode().
+     * @return the canonical instance of the name, or null if not in the table.
+     */
+    String find(AbstractJsonReader reader, int start, int length, int hash)
+    {
+        final String[] slots = this.slots;
+
+        return slots[ Util.slotOf( slots, reader, start, length, hash ) ];
+    }
+
+    /** Adds a new name, in place, or in new slots of twice the size.
+     * Slots only go from empty to holding a name, so lookups in course
+     * are never misled; and names are immutable, so they can be seen
+     * by other threads with no lock.
+     * @param name the name to add.
+     * @return the canonical instance of the name.
+     */
+    private synchronized String add(String name)
+    {
+        final String[] slots = this.slots;
+        final int slot = Util.slotOf( slots, name );
+        String toret = slots[ slot ];
+
+        if ( toret == null ) {
+            toret = name;
+
+            if ( this.size < this.capacity ) {
+                // Keep at least half of the slots empty
+                if ( ( this.size + 1 ) * 2 > slots.length ) {
+                    final String[] newSlots = new String[ slots.length * 2 ];
+
+                    for(String oldName: slots) {
+                        if ( oldName != null ) {
+                            newSlots[ Util.slotOf( newSlots, oldName ) ] = oldName;
+                        }
+                    }
+
+                    newSlots[ Util.slotOf( newSlots, name ) ] = name;
+                    this.slots = newSlots;
+                } else {
+                    slots[ slot ] = name;
+                }
+
+                this.size += 1;
+            }
+        }
+
+        return toret;
+    }
+
+    private final int capacity;
+    private volatile String[] slots;
+    private volatile int size;
+}
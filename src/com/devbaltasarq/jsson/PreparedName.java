@@ -0,0 +1,67 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A name of members, quoted, escaped and followed by its separator
+ * beforehand, as chars and as UTF-8 bytes, so writing it is a single copy.
+ * Prepared names are immutable, and can be shared by all writers,
+ * typically as constants for the names of a schema.
+ * @author baltasarq
+ * @see AbstractJsonWriter#name(PreparedName)
+ */
+public final class PreparedName {
+    /** Prepares a name.
+     * @param name the name, which is escaped as needed.
+     */
+    public PreparedName(String name)
+    {
+        final StringWriter text = new StringWriter( name.length() + 3 );
+
+        try {
+            text.write( Util.QUOTES );
+            AbstractJsonWriter.writeEscaped( text, name );
+            text.write( Util.QUOTES );
+            text.write( Util.NAME_SEPARATOR );
+        } catch(IOException exc) {
+            throw new UncheckedIOException( exc );
+        }
+
+        this.name = name;
+        this.chars = text.toString().toCharArray();
+        this.bytes = text.toString().getBytes( StandardCharsets.UTF_8 );
+    }
+
+    /** @return the name, as given. */
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /** @return the chars to write, which must not be modified. */
+    char[] getChars()
+    {
+        return this.chars;
+    }
+
+    /** @return the UTF-8 bytes to write, which must not be modified. */
+    byte[] getBytes()
+    {
+        return this.bytes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.name;
+    }
+
+    private final String name;
+    private final char[] chars;
+    private final byte[] bytes;
+}
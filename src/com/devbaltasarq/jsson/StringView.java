@@ -0,0 +1,151 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+/**
+ * A view of a string or name in the window of a reader, with no copy.
+ * The view is reused by the reader, and it is only valid until
+ * the reader advances again. Use toString() to keep its contents.
+ * Strings with escaped chars, or non-ASCII chars in UTF-8 input,
+ * cannot be seen in place, so they are built and then viewed.
+ * @author baltasarq
+ * @see AbstractJsonReader#nextStringView()
+ * @see AbstractJsonReader#nextNameView()
+ */
+public final class StringView implements CharSequence {
+    StringView(AbstractJsonReader reader)
+    {
+        this.reader = reader;
+        this.str = "";
+        this.start = 0;
+        this.length = 0;
+    }
+
+    /** Views a part of the window of the reader. */
+    void set(int start, int length)
+    {
+        this.str = null;
+        this.start = start;
+        this.length = length;
+        return;
+    }
+
+    /** Views a string already built. */
+    void set(String str)
+    {
+        this.str = str;
+        this.start = 0;
+        this.length = str.length();
+        return;
+    }
+
+    /** Copies the chars viewed, so the window can change. */
+    void detach()
+    {
+        if ( this.str == null ) {
+            this.set( this.toString() );
+        }
+
+        return;
+    }
+
+    @Override
+    public int length()
+    {
+        return this.length;
+    }
+
+    @Override
+    public char charAt(int index)
+    {
+        if ( index < 0
+          || index >= this.length )
+        {
+            throw new IndexOutOfBoundsException( "index: " + index + ", length: " + this.length );
+        }
+
+        final char toret;
+
+        if ( this.str != null ) {
+            toret = this.str.charAt( index );
+        } else {
+            toret = (char) this.reader.unitAt( this.start + index );
+        }
+
+        return toret;
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end)
+    {
+        if ( start < 0
+          || end > this.length
+          || start > end )
+        {
+            throw new IndexOutOfBoundsException( "start: " + start + ", end: " + end + ", length: " + this.length );
+        }
+
+        final String toret;
+
+        if ( this.str != null ) {
+            toret = this.str.substring( start, end );
+        } else {
+            toret = this.reader.stringOf( this.start + start, end - start );
+        }
+
+        return toret;
+    }
+
+    /** Compares the chars viewed with any other sequence of chars.
+     * @param seq the sequence to compare with.
+     * @return true if both have the same chars, false otherwise.
+     */
+    public boolean contentEquals(CharSequence seq)
+    {
+        boolean toret = ( seq.length() == this.length );
+
+        for(int i = 0; toret && i < this.length; ++i) {
+            toret = ( this.charAt( i ) == seq.charAt( i ) );
+        }
+
+        return toret;
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+        return other instanceof StringView
+            && this.contentEquals( (StringView) other );
+    }
+
+    /** @return the same hash code as the equivalent string. */
+    @Override
+    public int hashCode()
+    {
+        int toret = 0;
+
+        for(int i = 0; i < this.length; ++i) {
+            toret = ( 31 * toret ) + this.charAt( i );
+        }
+
+        return toret;
+    }
+
+    /** @return a copy of the chars viewed, as a string. */
+    @Override
+    public String toString()
+    {
+        String toret = this.str;
+
+        if ( toret == null ) {
+            toret = this.reader.stringOf( this.start, this.length );
+        }
+
+        return toret;
+    }
+
+    private final AbstractJsonReader reader;
+    private String str;
+    private int start;
+    private int length;
+}
@@ -0,0 +1,354 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * An index of the structure of a JSON document held in memory, as UTF-8 bytes.
+ * It holds, in order, the positions of the structural chars
+ * ({, }, [, ], : and ,) outside strings, the opening and closing
+ * double quotes of each string, and the first char of each
+ * unquoted scalar (numbers, true, false, null and unquoted names).
+ * The matching entry for each opening bracket and quotes is also kept,
+ * so whole values can be skipped in a single step.
+ *
+ * The index is built 64 bytes at a time: each block is read as eight longs,
+ * which are classified with SWAR (SIMD within a register) operations into
+ * bitmaps for quotes, backslashes, structural chars and spaces.
+ * Strings are found by computing the prefix xor of the unescaped quotes.
+ * A byte by byte implementation, producing the very same index,
+ * is also available as buildScalar().
+ *
+ * Only double-quoted strings are supported, as in standard JSON.
+ * @author baltasarq
+ */
+public final class StructuralIndex {
+    private static final int BLOCK_SIZE = 64;
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long GATHER_HIGH_BITS = 0x0102040810204080L;
+    private static final String STRUCTURAL_CHARS = ""
+                                        + Util.OPEN_OBJECT_DELIMITER + Util.END_OBJECT_DELIMITER
+                                        + Util.OPEN_ARRAY_DELIMITER + Util.END_ARRAY_DELIMITER
+                                        + Util.NAME_SEPARATOR + Util.ENTITY_SEPARATOR;
+    private static final String SPACE_CHARS = Util.SPACES + "\n";
+
+    /** Builds the index of a document, using SWAR operations.
+     * @param input the UTF-8 bytes of the document.
+     * @param offset the position of the first byte of the document.
+     * @param length the length of the document.
+     * @return the index, with positions relative to the start of the array.
+     * @throws IOException if a string is not closed, or a single quote is found.
+     */
+    public static StructuralIndex build(byte[] input, int offset, int length) throws IOException
+    {
+        final StructuralIndex toret = new StructuralIndex( length );
+        final ByteBuffer words = ByteBuffer.wrap( input ).order( ByteOrder.LITTLE_ENDIAN );
+        final byte[] lastBlock = new byte[ BLOCK_SIZE ];
+        final int end = offset + length;
+        long prevInString = 0;
+        long prevEscaped = 0;
+        long prevScalar = 0;
+
+        for(int blockStart = offset; blockStart < end; blockStart += BLOCK_SIZE) {
+            long quotes = 0;
+            long backslashes = 0;
+            long singleQuotes = 0;
+            long structurals = 0;
+            long spaces = 0;
+            ByteBuffer block = words;
+            int wordStart = blockStart;
+
+            // The last block is padded with spaces
+            if ( end - blockStart < BLOCK_SIZE ) {
+                Arrays.fill( lastBlock, (byte) ' ' );
+                System.arraycopy( input, blockStart, lastBlock, 0, end - blockStart );
+                block = ByteBuffer.wrap( lastBlock ).order( ByteOrder.LITTLE_ENDIAN );
+                wordStart = 0;
+            }
+
+            // Classify the bytes in the block
+            for(int i = 0; i < BLOCK_SIZE / 8; ++i) {
+                final long word = block.getLong( wordStart + ( i * 8 ) );
+                final int shift = i * 8;
+
+                quotes |= bitsOf( word, '"' ) << shift;
+                backslashes |= bitsOf( word, '\\' ) << shift;
+                singleQuotes |= bitsOf( word, '\'' ) << shift;
+                structurals |= bitsOf( word, STRUCTURAL_CHARS ) << shift;
+                spaces |= bitsOf( word, SPACE_CHARS ) << shift;
+            }
+
+            // Find the chars escaped by a backslash
+            long escaped = prevEscaped;
+            long pending = backslashes & ~escaped;
+
+            prevEscaped = 0;
+            while( pending != 0 ) {
+                final long backslash = Long.lowestOneBit( pending );
+
+                if ( backslash < 0 ) {
+                    prevEscaped = 1;
+                } else {
+                    escaped |= backslash << 1;
+                }
+
+                pending &= ~( backslash | ( backslash << 1 ) );
+            }
+
+            // Find the strings: from the opening quotes to the closing ones
+            quotes &= ~escaped;
+            final long inString = prefixXor( quotes ) ^ prevInString;
+            prevInString = inString >> 63;
+
+            if ( ( singleQuotes & ~inString ) != 0 ) {
+                throw new IOException( "single quotes are not supported by the structural index, at: "
+                                        + ( blockStart + Long.numberOfTrailingZeros( singleQuotes & ~inString ) ) );
+            }
+
+            // Find the scalars: runs of any other chars outside strings
+            final long scalars = ~( structurals | spaces | quotes | inString );
+            final long scalarStarts = scalars & ~( ( scalars << 1 ) | prevScalar );
+            prevScalar = scalars >>> 63;
+
+            toret.add( blockStart, ( structurals & ~inString ) | quotes | scalarStarts, end );
+        }
+
+        if ( prevInString != 0 ) {
+            throw new IOException( "expected: '" + Util.QUOTES + "', but found the end of input" );
+        }
+
+        toret.matchEntries( input );
+        return toret;
+    }
+
+    /** Builds the index of a document, byte by byte.
+     * The result is exactly the same as the one of build().
+     * @param input the UTF-8 bytes of the document.
+     * @param offset the position of the first byte of the document.
+     * @param length the length of the document.
+     * @return the index, with positions relative to the start of the array.
+     * @throws IOException if a string is not closed, or a single quote is found.
+     */
+    public static StructuralIndex buildScalar(byte[] input, int offset, int length) throws IOException
+    {
+        final StructuralIndex toret = new StructuralIndex( length );
+        final int end = offset + length;
+        boolean inString = false;
+        boolean escaped = false;
+        boolean prevScalar = false;
+
+        for(int i = offset; i < end; ++i) {
+            final int ch = input[ i ] & 0xFF;
+            final boolean isEscaped = escaped;
+
+            escaped = ( ch == '\\' && !isEscaped );
+
+            if ( ch == Util.QUOTES
+              && !isEscaped )
+            {
+                toret.add( i );
+                inString = !inString;
+                prevScalar = false;
+            }
+            else
+            if ( !inString ) {
+                if ( STRUCTURAL_CHARS.indexOf( ch ) >= 0 ) {
+                    toret.add( i );
+                    prevScalar = false;
+                }
+                else
+                if ( SPACE_CHARS.indexOf( ch ) >= 0 ) {
+                    prevScalar = false;
+                }
+                else
+                if ( ch == '\'' ) {
+                    throw new IOException( "single quotes are not supported by the structural index, at: " + i );
+                } else {
+                    if ( !prevScalar ) {
+                        toret.add( i );
+                    }
+
+                    prevScalar = true;
+                }
+            }
+        }
+
+        if ( inString ) {
+            throw new IOException( "expected: '" + Util.QUOTES + "', but found the end of input" );
+        }
+
+        toret.matchEntries( input );
+        return toret;
+    }
+
+    /** @return a bitmap of the bytes in the word equal to the given char. */
+    private static long bitsOf(long word, char ch)
+    {
+        return gather( zeroBytes( word ^ ( ONES * ch ) ) );
+    }
+
+    /** @return a bitmap of the bytes in the word equal to any of the given chars. */
+    private static long bitsOf(long word, String chars)
+    {
+        long toret = 0;
+
+        for(int i = 0; i < chars.length(); ++i) {
+            toret |= zeroBytes( word ^ ( ONES * chars.charAt( i ) ) );
+        }
+
+        return gather( toret );
+    }
+
+    /** @return the word with the high bit set in each byte that is zero,
+     *          and all other bits cleared.
+     */
+    private static long zeroBytes(long word)
+    {
+        return ~( ( ( word & LOW_SEVEN_BITS ) + LOW_SEVEN_BITS ) | word | LOW_SEVEN_BITS );
+    }
+
+    /** @return the high bits of each byte of the word, as an 8 bit mask. */
+    private static long gather(long highBits)
+    {
+        return ( ( highBits >>> 7 ) * GATHER_HIGH_BITS ) >>> 56;
+    }
+
+    /** @return the mask with each bit set to the xor of itself and all lower bits. */
+    private static long prefixXor(long bits)
+    {
+        bits ^= bits << 1;
+        bits ^= bits << 2;
+        bits ^= bits << 4;
+        bits ^= bits << 8;
+        bits ^= bits << 16;
+        bits ^= bits << 32;
+        return bits;
+    }
+
+    private StructuralIndex(int length)
+    {
+        this.positions = new int[ Math.max( 16, length / 4 ) ];
+        this.matches = null;
+        this.size = 0;
+    }
+
+    /** Adds the positions of the bits set in a block. */
+    private void add(int blockStart, long bits, int end)
+    {
+        while( bits != 0 ) {
+            final int position = blockStart + Long.numberOfTrailingZeros( bits );
+
+            if ( position < end ) {
+                this.add( position );
+            }
+
+            bits &= bits - 1;
+        }
+    }
+
+    /** Adds a new position. */
+    private void add(int position)
+    {
+        if ( this.size == this.positions.length ) {
+            this.positions = Arrays.copyOf( this.positions, this.positions.length * 2 );
+        }
+
+        this.positions[ this.size ] = position;
+        ++this.size;
+    }
+
+    /** Finds the matching entry of each opening bracket and quotes,
+     * leaving -1 for unbalanced ones.
+     * @param input the bytes of the document.
+     */
+    private void matchEntries(byte[] input)
+    {
+        int[] stack = new int[ 64 ];
+        int depth = 0;
+        boolean inString = false;
+
+        this.positions = Arrays.copyOf( this.positions, this.size );
+        this.matches = new int[ this.size ];
+        Arrays.fill( this.matches, -1 );
+
+        for(int i = 0; i < this.size; ++i) {
+            final int ch = input[ this.positions[ i ] ];
+
+            if ( ch == Util.QUOTES ) {
+                if ( !inString ) {
+                    this.matches[ i ] = i + 1;
+                }
+
+                inString = !inString;
+            }
+            else
+            if ( ch == Util.OPEN_OBJECT_DELIMITER
+              || ch == Util.OPEN_ARRAY_DELIMITER )
+            {
+                if ( depth == stack.length ) {
+                    stack = Arrays.copyOf( stack, stack.length * 2 );
+                }
+
+                stack[ depth ] = i;
+                ++depth;
+            }
+            else
+            if ( ch == Util.END_OBJECT_DELIMITER
+              || ch == Util.END_ARRAY_DELIMITER )
+            {
+                if ( depth > 0 ) {
+                    --depth;
+                    this.matches[ stack[ depth ] ] = i;
+                }
+            }
+        }
+
+        return;
+    }
+
+    /** @return the number of entries in the index. */
+    public int size()
+    {
+        return this.size;
+    }
+
+    /** @param entry the number of an entry.
+     * @return the position of the char of that entry.
+     */
+    public int positionOf(int entry)
+    {
+        return this.positions[ entry ];
+    }
+
+    /** @param entry the number of an entry, for an opening bracket or quotes.
+     * @return the number of the entry closing it, or -1 if there is none.
+     */
+    public int matchOf(int entry)
+    {
+        return this.matches[ entry ];
+    }
+
+    /** Finds the first entry at or after a given position.
+     * @param position a position in the document.
+     * @return the number of that entry, or size() if there is none.
+     */
+    public int entryFrom(int position)
+    {
+        int toret = Arrays.binarySearch( this.positions, 0, this.size, position );
+
+        if ( toret < 0 ) {
+            toret = -( toret + 1 );
+        }
+
+        return toret;
+    }
+
+    private int[] positions;
+    private int[] matches;
+    private int size;
+}
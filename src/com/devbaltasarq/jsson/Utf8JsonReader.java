@@ -0,0 +1,92 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A JSON reader working directly on UTF-8 encoded bytes.
+ * Structural chars are always ASCII, and UTF-8 guarantees that
+ * ASCII bytes never appear inside a multibyte sequence, so the input
+ * is tokenized byte by byte, and only decoded when a string is built.
+ * @author baltasarq
+ */
+public class Utf8JsonReader extends AbstractUtf8JsonReader {
+    /** Creates a new reader, given a stream of UTF-8 bytes.
+     * @param input an input stream to read from.
+     */
+    public Utf8JsonReader(InputStream input)
+    {
+        this.stream( input, null );
+    }
+
+    /** Creates a new reader, given an array of UTF-8 bytes.
+     * The array is read in place, so it must not change while reading.
+     * @param input the bytes to read from.
+     */
+    public Utf8JsonReader(byte[] input)
+    {
+        this( input, 0, input.length );
+    }
+
+    /** Creates a new reader, given a part of an array of UTF-8 bytes.
+     * The array is read in place, so it must not change while reading.
+     * @param input the bytes to read from.
+     * @param offset the position of the first byte to read.
+     * @param length the number of bytes to read.
+     */
+    public Utf8JsonReader(byte[] input, int offset, int length)
+    {
+        this.array( input, offset, length );
+    }
+
+    /** Creates a new reader, given a buffer of UTF-8 bytes, heap or direct.
+     * The bytes between the position and the limit of the buffer are read.
+     * Heap buffers are read in place, while direct buffers are copied
+     * in chunks. The position of the given buffer is not modified.
+     * @param input the buffer to read from.
+     */
+    public Utf8JsonReader(ByteBuffer input)
+    {
+        this.buffer( input );
+    }
+
+    /** Resets the reader to read from a new stream, reusing its window.
+     * The previous input is not closed.
+     * @param input an input stream to read from.
+     */
+    public void reset(InputStream input)
+    {
+        this.stream( input, null );
+    }
+
+    /** Resets the reader to read from an array of UTF-8 bytes.
+     * @param input the bytes to read from.
+     * @see #Utf8JsonReader(byte[])
+     */
+    public void reset(byte[] input)
+    {
+        this.reset( input, 0, input.length );
+    }
+
+    /** Resets the reader to read from a part of an array of UTF-8 bytes.
+     * @param input the bytes to read from.
+     * @param offset the position of the first byte to read.
+     * @param length the number of bytes to read.
+     * @see #Utf8JsonReader(byte[], int, int)
+     */
+    public void reset(byte[] input, int offset, int length)
+    {
+        this.array( input, offset, length );
+    }
+
+    /** Resets the reader to read from a buffer of UTF-8 bytes.
+     * @param input the buffer to read from.
+     * @see #Utf8JsonReader(ByteBuffer)
+     */
+    public void reset(ByteBuffer input)
+    {
+        this.buffer( input );
+    }
+}
@@ -0,0 +1,468 @@
+// jsson (c) 2018 Baltasar MIT License <baltasarq@gmail.com>
+
+package com.devbaltasarq.jsson;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Writes JSON as UTF-8 bytes, with no intermediate chars nor encoder.
+ * ASCII chars, which include all structural ones, are written
+ * as single bytes straight into a window of bytes.
+ * The output can be a stream, for which the window is flushed when full;
+ * a ByteBuffer, which is written in place if it is a heap one;
+ * or an array of bytes, grown as needed, retrieved with toByteArray().
+ * @author baltasarq
+ */
+public class Utf8JsonWriter extends AbstractJsonWriter {
+    private static final int BUFFER_SIZE = 8192;
+
+    /** Creates a new writer to an array of bytes, grown as needed.
+     * @see Utf8JsonWriter#toByteArray()
+     */
+    public Utf8JsonWriter()
+    {
+        this.reset();
+    }
+
+    /** Creates a new writer, given a stream.
+     * @param output the stream to write to.
+     */
+    public Utf8JsonWriter(OutputStream output)
+    {
+        this.reset( output );
+    }
+
+    /** Creates a new writer, given a buffer.
+     * The bytes are written from the position of the buffer,
+     * which is advanced when flushing. Writing fails if the
+     * buffer has no room left.
+     * @param output the buffer to write to.
+     */
+    public Utf8JsonWriter(ByteBuffer output)
+    {
+        this.reset( output );
+    }
+
+    /** Resets the writer to write to an empty array of bytes,
+     * reusing the previous one if possible.
+     */
+    public void reset()
+    {
+        this.restart();
+        this.stream = null;
+        this.target = null;
+
+        if ( this.ownedBytes == null ) {
+            this.ownedBytes = new byte[ BUFFER_SIZE ];
+        }
+
+        this.window( this.ownedBytes, 0, this.ownedBytes.length );
+        return;
+    }
+
+    /** Resets the writer to write to a new stream, reusing its window.
+     * Pending output is discarded, and the previous output is not closed.
+     * @param output the stream to write to.
+     */
+    public void reset(OutputStream output)
+    {
+        this.reset();
+        this.stream = output;
+        return;
+    }
+
+    /** Resets the writer to write to a new buffer.
+     * Pending output is discarded, and the previous output is not closed.
+     * @param output the buffer to write to.
+     */
+    public void reset(ByteBuffer output)
+    {
+        this.reset();
+        this.target = output;
+
+        if ( output.hasArray() ) {
+            final int offset = output.arrayOffset();
+
+            this.window( output.array(), offset + output.position(), offset + output.limit() );
+        }
+
+        return;
+    }
+
+    @Override
+    void clear()
+    {
+        this.reset();
+    }
+
+    /** Uses part of the given array as the window. */
+    private void window(byte[] bytes, int start, int end)
+    {
+        this.bytes = bytes;
+        this.start = start;
+        this.count = start;
+        this.end = end;
+        this.closed = false;
+    }
+
+    /** @return whether the window is part of the array of a buffer. */
+    private boolean isInPlace()
+    {
+        return this.target != null
+            && this.bytes != this.ownedBytes;
+    }
+
+    @Override
+    long position()
+    {
+        return this.written + ( this.count - this.start );
+    }
+
+    /** @return the number of bytes written, when writing to an array.
+     * @see Utf8JsonWriter#toByteArray()
+     */
+    public int size()
+    {
+        return this.count - this.start;
+    }
+
+    /** @return a copy of the bytes written, when writing to an array.
+     * @throws IllegalStateException if writing to a stream or a buffer.
+     */
+    public byte[] toByteArray()
+    {
+        if ( this.stream != null
+          || this.target != null )
+        {
+            throw new IllegalStateException( "not writing to an array" );
+        }
+
+        return Arrays.copyOfRange( this.bytes, this.start, this.count );
+    }
+
+    @Override
+    public void write(int ch) throws IOException
+    {
+        if ( ch < 0x80 ) {
+            if ( this.count == this.end ) {
+                this.makeRoom();
+            }
+
+            this.bytes[ this.count ] = (byte) ch;
+            ++this.count;
+        } else {
+            if ( this.end - this.count < 3 ) {
+                this.makeRoom();
+            }
+
+            this.encode( (char) ch, -1 );
+        }
+
+        return;
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException
+    {
+        final int stop = offset + length;
+        int i = offset;
+
+        while( i < stop ) {
+            if ( this.count == this.end ) {
+                this.makeRoom();
+            }
+
+            // Copy a run of ASCII chars, as bytes
+            final int runEnd = Math.min( stop, i + this.end - this.count );
+            int p = this.count;
+
+            while( i < runEnd
+                && chars[ i ] < 0x80 )
+            {
+                this.bytes[ p ] = (byte) chars[ i ];
+                ++p;
+                ++i;
+            }
+
+            this.count = p;
+
+            if ( i < runEnd ) {
+                if ( this.end - this.count < lengthOf( chars[ i ] ) ) {
+                    this.makeRoom();
+                }
+
+                i += this.encode( chars[ i ], ( i + 1 < stop ) ? chars[ i + 1 ] : -1 );
+            }
+        }
+
+        return;
+    }
+
+    @Override
+    public void write(String str, int offset, int length) throws IOException
+    {
+        final int stop = offset + length;
+        int i = offset;
+
+        while( i < stop ) {
+            if ( this.count == this.end ) {
+                this.makeRoom();
+            }
+
+            // Copy a run of ASCII chars, as bytes
+            final int runEnd = Math.min( stop, i + this.end - this.count );
+            int p = this.count;
+
+            while( i < runEnd ) {
+                final char ch = str.charAt( i );
+
+                if ( ch >= 0x80 ) {
+                    break;
+                }
+
+                this.bytes[ p ] = (byte) ch;
+                ++p;
+                ++i;
+            }
+
+            this.count = p;
+
+            if ( i < runEnd ) {
+                if ( this.end - this.count < lengthOf( str.charAt( i ) ) ) {
+                    this.makeRoom();
+                }
+
+                i += this.encode( str.charAt( i ), ( i + 1 < stop ) ? str.charAt( i + 1 ) : -1 );
+            }
+        }
+
+        return;
+    }
+
+    /** Writes the bytes of a prepared name, with no encoding. */
+    @Override
+    void writeName(PreparedName name) throws IOException
+    {
+        final byte[] nameBytes = name.getBytes();
+
+        this.writeBytes( nameBytes, 0, nameBytes.length );
+        return;
+    }
+
+    /** Writes a value already serialized as JSON in UTF-8, such as
+     * a cached sub-document, as is, with no encoding.
+     * @param json the bytes holding the JSON text of the value, in UTF-8.
+     * @param offset the position of the first byte of the value.
+     * @param length the length of the value, in bytes.
+     * @return The writer itself.
+     * @throws IOException if something goes wrong writing.
+     * @see AbstractJsonWriter#rawValue(String)
+     */
+    public AbstractJsonWriter rawValue(byte[] json, int offset, int length) throws IOException
+    {
+        this.writeValueSeparator();
+        this.writeBytes( json, offset, length );
+        return this;
+    }
+
+    /** Copies bytes into the window, as many as fit each time. */
+    private void writeBytes(byte[] src, int offset, int length) throws IOException
+    {
+        int pos = offset;
+        final int stop = offset + length;
+
+        while( pos < stop ) {
+            if ( this.count == this.end ) {
+                this.makeRoom();
+            }
+
+            final int chunk = Math.min( stop - pos, this.end - this.count );
+
+            System.arraycopy( src, pos, this.bytes, this.count, chunk );
+            this.count += chunk;
+            pos += chunk;
+        }
+
+        return;
+    }
+
+    /** @param ch a char, not an ASCII one.
+      * @return the maximum number of bytes needed to encode it.
+      */
+    private static int lengthOf(char ch)
+    {
+        final int toret;
+
+        if ( ch < 0x800 ) {
+            toret = 2;
+        }
+        else
+        if ( Character.isHighSurrogate( ch ) ) {
+            toret = 4;
+        } else {
+            toret = 3;
+        }
+
+        return toret;
+    }
+
+    /** Encodes a char of two or three bytes, or a surrogate pair of four.
+      * There must be room for them in the window.
+      * A surrogate not in a pair cannot be encoded, so it is written as '?',
+      * as String.getBytes() does.
+      * @param ch the char to encode, not an ASCII one.
+      * @param next the char after it, or -1 if there is none.
+      * @return the number of chars encoded: 1, or 2 for a pair.
+      */
+    private int encode(char ch, int next)
+    {
+        final byte[] bytes = this.bytes;
+        final int p = this.count;
+        int toret = 1;
+
+        if ( ch < 0x800 ) {
+            bytes[ p ] = (byte) ( 0xC0 | ( ch >>> 6 ) );
+            bytes[ p + 1 ] = (byte) ( 0x80 | ( ch & 0x3F ) );
+            this.count += 2;
+        }
+        else
+        if ( !Character.isSurrogate( ch ) ) {
+            bytes[ p ] = (byte) ( 0xE0 | ( ch >>> 12 ) );
+            bytes[ p + 1 ] = (byte) ( 0x80 | ( ( ch >>> 6 ) & 0x3F ) );
+            bytes[ p + 2 ] = (byte) ( 0x80 | ( ch & 0x3F ) );
+            this.count += 3;
+        }
+        else
+        if ( Character.isHighSurrogate( ch )
+          && next >= 0
+          && Character.isLowSurrogate( (char) next ) )
+        {
+            final int codePoint = Character.toCodePoint( ch, (char) next );
+
+            bytes[ p ] = (byte) ( 0xF0 | ( codePoint >>> 18 ) );
+            bytes[ p + 1 ] = (byte) ( 0x80 | ( ( codePoint >>> 12 ) & 0x3F ) );
+            bytes[ p + 2 ] = (byte) ( 0x80 | ( ( codePoint >>> 6 ) & 0x3F ) );
+            bytes[ p + 3 ] = (byte) ( 0x80 | ( codePoint & 0x3F ) );
+            this.count += 4;
+            toret = 2;
+        } else {
+            bytes[ p ] = '?';
+            this.count += 1;
+        }
+
+        return toret;
+    }
+
+    /** Makes room in the window: flushing it to the output,
+      * or growing it when writing to an array.
+      * @throws IOException if writing goes wrong, or a buffer is full.
+      */
+    private void makeRoom() throws IOException
+    {
+        if ( this.closed ) {
+            throw new IOException( "writer closed" );
+        }
+
+        if ( this.isInPlace() ) {
+            throw new IOException( "buffer full" );
+        }
+
+        if ( this.stream != null
+          || this.target != null )
+        {
+            this.flushWindow();
+        } else {
+            this.checkSize( this.count - this.start );
+            this.bytes = Arrays.copyOf( this.bytes, this.bytes.length * 2 );
+            this.ownedBytes = this.bytes;
+            this.end = this.bytes.length;
+        }
+
+        return;
+    }
+
+    /** Writes the bytes in the window to the stream or buffer. */
+    private void flushWindow() throws IOException
+    {
+        final int length = this.count - this.start;
+
+        if ( length > 0 ) {
+            this.checkSize( length );
+
+            if ( this.stream != null ) {
+                this.stream.write( this.bytes, this.start, length );
+            } else {
+                try {
+                    this.target.put( this.bytes, this.start, length );
+                } catch(BufferOverflowException exc) {
+                    throw new IOException( "buffer full" );
+                }
+            }
+
+            this.written += length;
+            this.count = this.start;
+        }
+
+        return;
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        if ( this.closed ) {
+            throw new IOException( "writer closed" );
+        }
+
+        if ( this.isInPlace() ) {
+            this.checkSize( this.count - this.start );
+            this.target.position( this.count - this.target.arrayOffset() );
+        }
+        else
+        if ( this.stream != null
+          || this.target != null )
+        {
+            this.flushWindow();
+
+            if ( this.stream != null ) {
+                this.stream.flush();
+            }
+        } else {
+            this.checkSize( this.count - this.start );
+        }
+
+        return;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.abandon();
+
+        if ( !this.closed ) {
+            try {
+                this.flush();
+            } finally {
+                if ( this.stream != null ) {
+                    this.stream.close();
+                }
+
+                this.closed = true;
+            }
+        }
+
+        return;
+    }
+
+    private OutputStream stream;
+    private ByteBuffer target;
+    private byte[] bytes;
+    private byte[] ownedBytes;
+    private int start;
+    private int count;
+    private int end;
+    private boolean closed;
+}
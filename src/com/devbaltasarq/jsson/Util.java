@@ -1,77 +1,153 @@
 package com.devbaltasarq.jsson;
 
-import java.util.Stack;
+import java.io.IOException;
+import java.util.Arrays;
 
 class Util {
-    static class State {
-        enum Status {
-            TOP_LEVEL,
-            WAITING_FOR_BEGINNING,
-            IN_OBJECT,
-            IN_ARRAY,
-            WAITING_FOR_NAME,
-            WAITING_FOR_VALUE,
-            END_OBJECT,
-            END_ARRAY,
-        }
-
-        State()
+    /** The nesting of objects and arrays, checked against the limits.
+     * Each level is a bit in a long[], set for objects, and the members
+     * of each object are counted in an int[], so there are no objects
+     * per level, and each change is checked in constant time.
+     */
+    static final class State {
+        State(JsonLimits limits)
         {
-            this.status.push( Status.TOP_LEVEL );
+            this.kinds = new long[ 1 ];
+            this.entries = new int[ 16 ];
+            this.limits = limits;
+            this.depth = 0;
         }
 
-        /** Changes to a new status.
-          * @param newStatus A new status to change the parsing to.
+        /** @return the limits checked. */
+        JsonLimits getLimits()
+        {
+            return this.limits;
+        }
+
+        /** @param limits the new limits to check. */
+        void setLimits(JsonLimits limits)
+        {
+            this.limits = limits;
+        }
+
+        /** Goes back to the top level. */
+        void clear()
+        {
+            this.depth = 0;
+        }
+
+        /** @return the number of objects and arrays entered. */
+        int getDepth()
+        {
+            return this.depth;
+        }
+
+        /** @return whether the innermost level is an object. */
+        boolean isInObject()
+        {
+            final int top = this.depth - 1;
+
+            return top >= 0
+                && ( this.kinds[ top >>> 6 ] & ( 1L << top ) ) != 0;
+        }
+
+        /** Enters an object or an array.
+          * @param isObject true for an object, false for an array.
+          * @throws IOException if the maximum depth is exceeded.
           */
-        public void changeTo(Status newStatus) throws JsonException
+        void begin(boolean isObject) throws IOException
         {
-            if ( newStatus == Status.IN_OBJECT ) {
-                if ( status.peek() == Status.WAITING_FOR_NAME
-                  || status.peek() == Status.WAITING_FOR_BEGINNING
-                  || status.peek() == Status.TOP_LEVEL )
-                {
-                    this.status.push( newStatus );
-                } else {
-                    throw new JsonException( "expecting {, [ or name before " + newStatus );
-                }
+            final int word = this.depth >>> 6;
+            final long bit = 1L << this.depth;
+
+            if ( this.depth >= this.limits.getMaxDepth() ) {
+                throw new IOException( "nesting deeper than the limit: " + this.limits.getMaxDepth() );
             }
-            else
-            if ( newStatus == Status.IN_ARRAY ) {
-                if ( status.peek() == Status.WAITING_FOR_NAME
-                  || status.peek() == Status.WAITING_FOR_BEGINNING
-                  || status.peek() == Status.TOP_LEVEL )
-                {
-                    this.status.push( newStatus );
-                } else {
-                    throw new JsonException( "expecting {, [ or name before " + newStatus );
-                }
+
+            if ( word == this.kinds.length ) {
+                this.kinds = Arrays.copyOf( this.kinds, this.kinds.length * 2 );
             }
-            else
-            if ( newStatus == Status.END_OBJECT ) {
-                if ( status.peek() == Status.WAITING_FOR_NAME
-                  || status.peek() == Status.IN_ARRAY )
-                {
-                    this.status.pop();
-                } else {
-                    throw new JsonException( "expecting {, [ or name before " + newStatus );
-                }
+
+            if ( this.depth == this.entries.length ) {
+                this.entries = Arrays.copyOf( this.entries, this.entries.length * 2 );
+            }
+
+            if ( isObject ) {
+                this.kinds[ word ] |= bit;
+            } else {
+                this.kinds[ word ] &= ~bit;
             }
-            else
-            if ( newStatus == Status.END_ARRAY ) {
-                if ( status.peek() == Status.WAITING_FOR_VALUE
-                  || status.peek() == Status.IN_ARRAY )
-                {
-                    this.status.pop();
-                } else {
-                    throw new JsonException( "expecting [ or value before " + newStatus );
+
+            this.entries[ this.depth ] = 0;
+            ++this.depth;
+        }
+
+        /** Leaves an object or an array.
+          * @param isObject true for an object, false for an array.
+          * @throws IOException if not inside an object or array of that kind.
+          */
+        void end(boolean isObject) throws IOException
+        {
+            if ( this.depth == 0 ) {
+                throw new IOException( "end of " + kindName( isObject ) + " outside of any" );
+            }
+
+            if ( this.isInObject() != isObject ) {
+                throw new IOException( "expected end of " + kindName( !isObject )
+                                        + ", but found end of " + kindName( isObject ) );
+            }
+
+            --this.depth;
+        }
+
+        /** Counts a member of the innermost object.
+          * @throws IOException if the maximum number of members is exceeded.
+          */
+        void countEntry() throws IOException
+        {
+            if ( this.depth > 0 ) {
+                final int top = this.depth - 1;
+
+                ++this.entries[ top ];
+
+                if ( this.entries[ top ] > this.limits.getMaxEntries() ) {
+                    throw new IOException( "more members in object than the limit: "
+                                            + this.limits.getMaxEntries() );
                 }
             }
         }
 
-        private Stack<Status> status;
+        /** Counts an element of the innermost array, with no limit. */
+        void countElement()
+        {
+            if ( this.depth > 0 ) {
+                ++this.entries[ this.depth - 1 ];
+            }
+        }
+
+        /** @return the members or elements counted in the innermost level,
+          *         or 0 at the top level.
+          */
+        int getEntries()
+        {
+            return ( this.depth > 0 ) ? this.entries[ this.depth - 1 ] : 0;
+        }
+
+        /** @return the name of a kind of level, for error messages. */
+        private static String kindName(boolean isObject)
+        {
+            return isObject ? "object" : "array";
+        }
+
+        private long[] kinds;
+        private int[] entries;
+        private int depth;
+        private JsonLimits limits;
     }
 
     final static String NULL_ID = "null";
+    final static String TRUE_ID = "true";
+    final static String FALSE_ID = "false";
     final static char OPEN_OBJECT_DELIMITER = '{';
     final static char END_OBJECT_DELIMITER = '}';
     final static char OPEN_ARRAY_DELIMITER = '[';
@@ -80,4 +156,159 @@ class Util {
     final static char ENTITY_SEPARATOR = ',';
     final static char QUOTES = '"';
     final static String EXTRA_SEPARATORS =  ENTITY_SEPARATOR + "\012";      // 10 for 1013 sequences.
+    final static String SPACES = " \t\r";
+
+    /** Char classes, as bit flags, for the ASCII range. */
+    final static byte CC_SEPARATOR = 1;
+    final static byte CC_ID = 2;
+    final static byte CC_DIGIT = 4;
+    final static byte CC_QUOTES = 8;
+    final static byte CC_SCALAR = 16;
+    final static byte[] CHAR_CLASSES = new byte[ 128 ];
+
+    static {
+        for(char ch: ( SPACES + EXTRA_SEPARATORS ).toCharArray()) {
+            CHAR_CLASSES[ ch ] |= CC_SEPARATOR;
+        }
+
+        for(char ch = 'a'; ch <= 'z'; ++ch) {
+            CHAR_CLASSES[ ch ] |= CC_ID;
+            CHAR_CLASSES[ Character.toUpperCase( ch ) ] |= CC_ID;
+        }
+
+        for(char ch = '0'; ch <= '9'; ++ch) {
+            CHAR_CLASSES[ ch ] |= CC_ID | CC_DIGIT;
+        }
+
+        CHAR_CLASSES[ '_' ] |= CC_ID;
+
+        for(int ch = 0; ch < CHAR_CLASSES.length; ++ch) {
+            if ( ( CHAR_CLASSES[ ch ] & CC_ID ) != 0 ) {
+                CHAR_CLASSES[ ch ] |= CC_SCALAR;
+            }
+        }
+
+        CHAR_CLASSES[ '+' ] |= CC_SCALAR;
+        CHAR_CLASSES[ '-' ] |= CC_SCALAR;
+        CHAR_CLASSES[ '.' ] |= CC_SCALAR;
+        CHAR_CLASSES[ '"' ] |= CC_QUOTES;
+        CHAR_CLASSES[ '\'' ] |= CC_QUOTES;
+    }
+
+    /** For each ASCII char, the char written after a backslash to escape it,
+      * 'u' if it is written as a \\u00XX escape, or 0 if it is written as is.
+      */
+    final static char[] ESCAPES = new char[ 128 ];
+
+    /** For each ASCII char following a backslash, the char it stands for,
+      * or 0 if it is not a valid escape. The \\uXXXX escapes are apart.
+      */
+    final static char[] UNESCAPES = new char[ 128 ];
+
+    static {
+        final String escaped = "\"\\\b\f\n\r\t";
+        final String escapes = "\"\\bfnrt";
+
+        for(char ch = 0; ch < 0x20; ++ch) {
+            ESCAPES[ ch ] = 'u';
+        }
+
+        for(int i = 0; i < escaped.length(); ++i) {
+            ESCAPES[ escaped.charAt( i ) ] = escapes.charAt( i );
+            UNESCAPES[ escapes.charAt( i ) ] = escaped.charAt( i );
+        }
+
+        UNESCAPES[ '/' ] = '/';
+        UNESCAPES[ '\'' ] = '\'';
+    }
+
+    /** @param ch a char, following a \\u escape.
+      * @return its value as a hex digit, or -1 if it is not one.
+      */
+    static int hexValue(int ch)
+    {
+        int toret = -1;
+
+        if ( ch >= '0' && ch <= '9' ) {
+            toret = ch - '0';
+        }
+        else
+        if ( ch >= 'a' && ch <= 'f' ) {
+            toret = ch - 'a' + 10;
+        }
+        else
+        if ( ch >= 'A' && ch <= 'F' ) {
+            toret = ch - 'A' + 10;
+        }
+
+        return toret;
+    }
+
+    /** Finds a name in a hash table of names, with linear probing.
+      * The table must have a power of two length, and empty slots.
+      * @param slots the slots of the table.
+      * @param name the name to look for.
+      * @return the slot holding the name, or the empty slot where it would be.
+      */
+    static int slotOf(String[] slots, String name)
+    {
+        final int mask = slots.length - 1;
+        int toret = spread( name.hashCode() ) & mask;
+        String slot = slots[ toret ];
+
+        // Each slot is read once, since they can be filled concurrently
+        while( slot != null
+            && !slot.equals( name ) )
+        {
+            toret = ( toret + 1 ) & mask;
+            slot = slots[ toret ];
+        }
+
+        return toret;
+    }
+
+    /** Finds a name in a hash table of names, with linear probing.
+      * The name is compared directly against the window of the reader.
+      * @param slots the slots of the table.
+      * @param reader the reader holding the name in its window.
+      * @param start the position of the name in the window.
+      * @param length the length of the name.
+      * @param hash the hash of the name, as in String.hashCode().
+      * @return the slot holding the name, or the empty slot where it would be.
+      */
+    static int slotOf(String[] slots, AbstractJsonReader reader, int start, int length, int hash)
+    {
+        final int mask = slots.length - 1;
+        int toret = spread( hash ) & mask;
+        String slot = slots[ toret ];
+
+        // Each slot is read once, since they can be filled concurrently
+        while( slot != null
+            && ( slot.hashCode() != hash
+              || !reader.regionEquals( start, length, slot ) ) )
+        {
+            toret = ( toret + 1 ) & mask;
+            slot = slots[ toret ];
+        }
+
+        return toret;
+    }
+
+    /** @return the given hash, with its high bits spread to the low ones. */
+    static int spread(int hash)
+    {
+        return hash ^ ( hash >>> 16 );
+    }
+
+    /** Determines whether a char belongs to any of the given classes.
+      * Chars outside the ASCII range (and -1, the end of input) belong to none.
+      * @param ch the char to check.
+      * @param charClasses the char classes, or'ed.
+      * @return true if the char is in any of the classes, false otherwise.
+      */
+    static boolean isOfClass(int ch, byte charClasses)
+    {
+        return ( ch & ~0x7F ) == 0
+            && ( CHAR_CLASSES[ ch ] & charClasses ) != 0;
+    }
 }